@@ -72,6 +72,70 @@ Java_com_augmentos_smartglassesmanager_cpp_L3cCpp_decodeLC3(JNIEnv *env, jclass
 }
 
 
+// Long-lived decoder for a continuous stream, so decode state carries over between packets
+struct Lc3StreamDecoder {
+    lc3_decoder_t decoder;
+    void *mem;
+};
+
+extern "C" JNIEXPORT jlong JNICALL
+Java_com_augmentos_smartglassesmanager_cpp_L3cCpp_createLC3Decoder(JNIEnv *env, jclass clazz) {
+    int dtUs = 10000;
+    int srHz = 16000;
+    auto *stream = (Lc3StreamDecoder *)malloc(sizeof(Lc3StreamDecoder));
+    if (stream == nullptr) return 0;
+    stream->mem = malloc(lc3_decoder_size(dtUs, srHz));
+    if (stream->mem == nullptr) {
+        free(stream);
+        return 0;
+    }
+    stream->decoder = lc3_setup_decoder(dtUs, srHz, 0, stream->mem);
+    return (jlong) stream;
+}
+
+extern "C" JNIEXPORT void JNICALL
+Java_com_augmentos_smartglassesmanager_cpp_L3cCpp_destroyLC3Decoder(JNIEnv *env, jclass clazz, jlong handle) {
+    auto *stream = (Lc3StreamDecoder *) handle;
+    if (stream == nullptr) return;
+    free(stream->mem);
+    free(stream);
+}
+
+// Decodes lc3Data[lc3Offset, lc3Offset + lc3Length) straight into a direct ByteBuffer at pcmOffset.
+// Returns the number of PCM bytes written, or -1 if the arguments don't fit.
+extern "C" JNIEXPORT jint JNICALL
+Java_com_augmentos_smartglassesmanager_cpp_L3cCpp_decodeLC3Into(JNIEnv *env, jclass clazz, jlong handle,
+                                                                jbyteArray lc3Data, jint lc3Offset, jint lc3Length,
+                                                                jobject pcmOut, jint pcmOffset) {
+    auto *stream = (Lc3StreamDecoder *) handle;
+    auto *out = (unsigned char *) env->GetDirectBufferAddress(pcmOut);
+    jlong outCapacity = env->GetDirectBufferCapacity(pcmOut);
+    if (stream == nullptr || out == nullptr || lc3Offset < 0 || lc3Length < 0 || pcmOffset < 0
+        || lc3Offset + lc3Length > env->GetArrayLength(lc3Data)) {
+        return -1;
+    }
+
+    int dtUs = 10000;
+    int srHz = 16000;
+    int bytesOfFrames = lc3_frame_samples(dtUs, srHz) * 2;
+    int encodedFrameSize = 20;
+    int frames = lc3Length / encodedFrameSize;
+    if (pcmOffset + (jlong) frames * bytesOfFrames > outCapacity) {
+        return -1;
+    }
+
+    // Pinned without a copy on ART; nothing in here calls back into the VM
+    auto *lc3Bytes = (unsigned char *) env->GetPrimitiveArrayCritical(lc3Data, nullptr);
+    if (lc3Bytes == nullptr) return -1;
+    for (int i = 0; i < frames; i++) {
+        lc3_decode(stream->decoder, lc3Bytes + lc3Offset + i * encodedFrameSize, encodedFrameSize,
+                   LC3_PCM_FORMAT_S16, out + pcmOffset + i * bytesOfFrames, 1);
+    }
+    env->ReleasePrimitiveArrayCritical(lc3Data, lc3Bytes, JNI_ABORT);
+    return frames * bytesOfFrames;
+}
+
+
 extern "C" JNIEXPORT jbyteArray JNICALL
 Java_com_augmentos_smartglassesmanager_cpp_L3cCpp_encodeLC3(JNIEnv *env, jclass instance, jbyteArray pcmData) {
     // Get PCM data from Java
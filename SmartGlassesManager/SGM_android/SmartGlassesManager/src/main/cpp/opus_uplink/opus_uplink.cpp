@@ -0,0 +1,135 @@
+#include <jni.h>
+#include <cstdlib>
+#include <cstring>
+#include <android/log.h>
+#include "opus.h"
+
+#define LOG_TAG "OpusUplink"
+
+// Raw Opus (no Ogg container) for the cloud audio uplink: 16kHz mono 16-bit PCM in,
+// length-prefixed packets out, each a 2-byte big-endian length followed by the packet.
+
+namespace {
+
+constexpr int kSampleRateHz = 16000;
+constexpr int kMaxPacketBytes = 1275;
+
+struct OpusStreamEncoder {
+    OpusEncoder *encoder;
+    int frameSamples;
+    int pendingSamples;
+    // PCM carried over between calls until there's a full frame
+    opus_int16 pending[kSampleRateHz * 60 / 1000];
+};
+
+// Returns bytes written to out, or -1 if out is too small or Opus fails
+int encodeFrames(OpusStreamEncoder *stream, const unsigned char *pcm, int length,
+                 unsigned char *out, int outCapacity) {
+    int samples = length / 2;
+    int written = 0;
+    int i = 0;
+    while (i < samples) {
+        int take = stream->frameSamples - stream->pendingSamples;
+        if (take > samples - i) take = samples - i;
+        // Every Android ABI is little-endian, like the PCM
+        memcpy(stream->pending + stream->pendingSamples, pcm + i * 2, take * 2);
+        stream->pendingSamples += take;
+        i += take;
+        if (stream->pendingSamples < stream->frameSamples) break;
+        stream->pendingSamples = 0;
+
+        int room = outCapacity - written - 2;
+        if (room <= 0) return -1;
+        opus_int32 n = opus_encode(stream->encoder, stream->pending, stream->frameSamples,
+                                   out + written + 2, room < kMaxPacketBytes ? room : kMaxPacketBytes);
+        if (n < 0) {
+            __android_log_print(ANDROID_LOG_ERROR, LOG_TAG, "opus_encode failed: %s", opus_strerror(n));
+            return -1;
+        }
+        out[written] = (unsigned char) (n >> 8);
+        out[written + 1] = (unsigned char) n;
+        written += 2 + n;
+    }
+    return written;
+}
+
+}  // namespace
+
+// frameMs must be 10, 20, 40 or 60. Returns 0 on failure.
+extern "C" JNIEXPORT jlong JNICALL
+Java_com_augmentos_smartglassesmanager_cpp_OpusCpp_createOpusEncoder(JNIEnv *env, jclass clazz,
+                                                                     jint bitrateBps, jint frameMs) {
+    if (frameMs != 10 && frameMs != 20 && frameMs != 40 && frameMs != 60) {
+        return 0;
+    }
+    int error = OPUS_OK;
+    OpusEncoder *encoder = opus_encoder_create(kSampleRateHz, 1, OPUS_APPLICATION_VOIP, &error);
+    if (error != OPUS_OK || encoder == nullptr) {
+        __android_log_print(ANDROID_LOG_ERROR, LOG_TAG, "opus_encoder_create failed: %s", opus_strerror(error));
+        return 0;
+    }
+    opus_encoder_ctl(encoder, OPUS_SET_BITRATE(bitrateBps));
+    opus_encoder_ctl(encoder, OPUS_SET_SIGNAL(OPUS_SIGNAL_VOICE));
+
+    auto *stream = (OpusStreamEncoder *) malloc(sizeof(OpusStreamEncoder));
+    if (stream == nullptr) {
+        opus_encoder_destroy(encoder);
+        return 0;
+    }
+    stream->encoder = encoder;
+    stream->frameSamples = kSampleRateHz * frameMs / 1000;
+    stream->pendingSamples = 0;
+    return (jlong) stream;
+}
+
+extern "C" JNIEXPORT void JNICALL
+Java_com_augmentos_smartglassesmanager_cpp_OpusCpp_destroyOpusEncoder(JNIEnv *env, jclass clazz, jlong handle) {
+    auto *stream = (OpusStreamEncoder *) handle;
+    if (stream == nullptr) return;
+    opus_encoder_destroy(stream->encoder);
+    free(stream);
+}
+
+extern "C" JNIEXPORT jint JNICALL
+Java_com_augmentos_smartglassesmanager_cpp_OpusCpp_encodeOpus(JNIEnv *env, jclass clazz, jlong handle,
+                                                              jbyteArray pcmData, jint pcmOffset, jint pcmLength,
+                                                              jbyteArray out) {
+    auto *stream = (OpusStreamEncoder *) handle;
+    if (stream == nullptr || pcmOffset < 0 || pcmLength < 0
+        || pcmOffset + pcmLength > env->GetArrayLength(pcmData)) {
+        return -1;
+    }
+    int outCapacity = env->GetArrayLength(out);
+
+    // Both pinned without a copy on ART; nothing in here calls back into the VM
+    auto *pcm = (unsigned char *) env->GetPrimitiveArrayCritical(pcmData, nullptr);
+    if (pcm == nullptr) return -1;
+    auto *outBytes = (unsigned char *) env->GetPrimitiveArrayCritical(out, nullptr);
+    if (outBytes == nullptr) {
+        env->ReleasePrimitiveArrayCritical(pcmData, pcm, JNI_ABORT);
+        return -1;
+    }
+    int written = encodeFrames(stream, pcm + pcmOffset, pcmLength, outBytes, outCapacity);
+    env->ReleasePrimitiveArrayCritical(out, outBytes, 0);
+    env->ReleasePrimitiveArrayCritical(pcmData, pcm, JNI_ABORT);
+    return written;
+}
+
+extern "C" JNIEXPORT jint JNICALL
+Java_com_augmentos_smartglassesmanager_cpp_OpusCpp_encodeOpusDirect(JNIEnv *env, jclass clazz, jlong handle,
+                                                                    jobject pcmBuffer, jint pcmOffset, jint pcmLength,
+                                                                    jbyteArray out) {
+    auto *stream = (OpusStreamEncoder *) handle;
+    auto *pcm = (unsigned char *) env->GetDirectBufferAddress(pcmBuffer);
+    if (stream == nullptr || pcm == nullptr || pcmOffset < 0 || pcmLength < 0
+        || pcmOffset + pcmLength > env->GetDirectBufferCapacity(pcmBuffer)) {
+        return -1;
+    }
+    int outCapacity = env->GetArrayLength(out);
+
+    auto *outBytes = (unsigned char *) env->GetPrimitiveArrayCritical(out, nullptr);
+    if (outBytes == nullptr) return -1;
+    int written = encodeFrames(stream, pcm + pcmOffset, pcmLength, outBytes, outCapacity);
+    env->ReleasePrimitiveArrayCritical(out, outBytes, 0);
+    return written;
+}
@@ -1,5 +1,7 @@
 package com.augmentos.smartglassesmanager.cpp;
 
+import java.nio.ByteBuffer;
+
 public class L3cCpp {
 
     static {
@@ -16,6 +18,15 @@ public class L3cCpp {
 
     public static native byte[] decodeLC3(byte[] lc3Data);
 
+    // Stream decoder handle for decodeLC3Into, free it with destroyLC3Decoder. Returns 0 on failure.
+    public static native long createLC3Decoder();
+
+    public static native void destroyLC3Decoder(long decoder);
+
+    // Decodes into a direct ByteBuffer without allocating. Returns PCM bytes written, or -1.
+    public static native int decodeLC3Into(long decoder, byte[] lc3Data, int lc3Offset, int lc3Length,
+                                           ByteBuffer pcmOut, int pcmOffset);
+
     public static native byte[] encodeLC3(byte[] lc3Data);
 
     public static native float[] rnNoise(long st, float[] input);
@@ -0,0 +1,43 @@
+package com.augmentos.smartglassesmanager.cpp;
+
+import android.util.Log;
+
+import java.nio.ByteBuffer;
+
+public class OpusCpp {
+    private static final String TAG = "WearableAi_OpusCpp";
+    private static final boolean available;
+
+    static {
+        boolean loaded;
+        try {
+            System.loadLibrary("opus_uplink");
+            loaded = true;
+        } catch (UnsatisfiedLinkError e) {
+            // Only built when libopus was, see src/main/cpp/opus_uplink/CMakeLists.txt
+            Log.w(TAG, "Opus uplink encoder not available: " + e.getMessage());
+            loaded = false;
+        }
+        available = loaded;
+    }
+
+    private OpusCpp() {
+        // Private constructor to prevent instantiation
+    }
+
+    public static boolean isAvailable() {
+        return available;
+    }
+
+    // 16kHz mono encoder, frameMs is 10, 20, 40 or 60. Free it with destroyOpusEncoder. Returns 0 on failure.
+    public static native long createOpusEncoder(int bitrateBps, int frameMs);
+
+    public static native void destroyOpusEncoder(long encoder);
+
+    // Encodes 16-bit PCM, keeping any partial frame for the next call. Writes each finished packet to
+    // out as a 2-byte big-endian length and the packet. Returns bytes written to out, or -1.
+    public static native int encodeOpus(long encoder, byte[] pcm, int pcmOffset, int pcmLength, byte[] out);
+
+    // Same, reading PCM from a direct ByteBuffer.
+    public static native int encodeOpusDirect(long encoder, ByteBuffer pcm, int pcmOffset, int pcmLength, byte[] out);
+}
@@ -23,6 +23,10 @@ public class AugmentOSGlobalConstants {
     public static final String AugmentOSPkgName = "com.augmentos.augmentoslib";
     public static final String FROM_TPA_FILTER = "com.augmentos.fromtpa";
     public static final String TO_TPA_FILTER = "com.augmentos.totpa";
+    // Bound-service channel between TPAs and core, broadcasts are the fallback until it connects
+    public static final String TPA_IPC_BIND_ACTION = "com.augmentos.augmentoslib.TPA_IPC";
+    // Packages core already delivered a broadcast's event to over IPC, they ignore the broadcast
+    public static final String IPC_DELIVERED_PACKAGES = "IPC_DELIVERED_PACKAGES";
     public static final String DEBUG_COMMAND_ID = "d7e9c6e2-8f50-4c56-8feb-6c826e789d86";
     public static final String DEBUG_WITH_ARGS_COMMAND_ID = "79355eaa-1aa0-49d7-a047-fdf25481ace6";
     public static final String DEBUG_WITH_NATURAL_LANGUAGE_COMMAND_ID = "9efbb1c6-7dfd-4ba2-9754-ec9bd7ffbbeb";
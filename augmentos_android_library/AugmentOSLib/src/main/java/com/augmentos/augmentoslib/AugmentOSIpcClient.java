@@ -0,0 +1,184 @@
+package com.augmentos.augmentoslib;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.ServiceConnection;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.IBinder;
+import android.os.Looper;
+import android.os.Message;
+import android.os.Messenger;
+import android.os.RemoteException;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.augmentos.augmentoslib.events.CoreConnectedEvent;
+import com.augmentos.augmentoslib.events.SpeechRecOutputEvent;
+
+import java.io.Serializable;
+import java.util.Locale;
+
+/**
+ * The TPA end of the bound-service channel to core, which replaces a global broadcast per event.
+ *
+ * Binds to core's TPA IPC service in the AugmentOS Manager app and registers a Messenger for
+ * core to send events back on. Until that's connected, and again if core dies, {@link #send}
+ * returns false and callers fall back to broadcasts. Events from core are dispatched on the
+ * main thread, the same as the broadcast receiver did.
+ */
+public class AugmentOSIpcClient {
+    private static final String TAG = "AugmentOSLib_AugmentOSIpcClient";
+    private static final int STATS_LOG_EVERY = 200;
+
+    private final Context context;
+    private final Bundle bitmapChannelBundle;
+    private final Messenger incoming;
+    private volatile Messenger core;
+    private boolean bound = false;
+
+    // Transcript latency from core queueing the event to dispatch here, guarded by this
+    private long transcriptsReceived = 0;
+    private long totalTranscriptLatencyMs = 0;
+    private long maxTranscriptLatencyMs = 0;
+    private long batchesReceived = 0;
+
+    private final ServiceConnection connection = new ServiceConnection() {
+        @Override
+        public void onServiceConnected(ComponentName name, IBinder service) {
+            Messenger messenger = new Messenger(service);
+            Message msg = Message.obtain(null, IpcEventBatch.MSG_REGISTER);
+            msg.replyTo = incoming;
+            Bundle data = new Bundle(bitmapChannelBundle);
+            data.putString(IpcEventBatch.KEY_PACKAGE, context.getPackageName());
+            data.putBoolean(IpcEventBatch.KEY_SENDS_READY, true);
+            msg.setData(data);
+            try {
+                messenger.send(msg);
+                core = messenger;
+                Log.d(TAG, "Connected to AugmentOS core over IPC");
+                // A restarted core has forgotten our subscriptions
+                AugmentOSLibBus.getInstance().post(new CoreConnectedEvent());
+            } catch (RemoteException e) {
+                Log.e(TAG, "Couldn't register with AugmentOS core", e);
+            }
+        }
+
+        @Override
+        public void onServiceDisconnected(ComponentName name) {
+            // Back to broadcasts until the system rebinds us
+            core = null;
+            Log.d(TAG, "Disconnected from AugmentOS core");
+        }
+    };
+
+    public AugmentOSIpcClient(Context context, Bundle bitmapChannelBundle) {
+        this.context = context;
+        this.bitmapChannelBundle = bitmapChannelBundle;
+        this.incoming = new Messenger(new Handler(Looper.getMainLooper(), this::handleMessage));
+    }
+
+    public void connect() {
+        Intent intent = new Intent(AugmentOSGlobalConstants.TPA_IPC_BIND_ACTION);
+        intent.setPackage(AugmentOSGlobalConstants.AugmentOSManagerPackageName);
+        try {
+            bound = context.bindService(intent, connection, Context.BIND_AUTO_CREATE);
+        } catch (SecurityException e) {
+            Log.e(TAG, "Not allowed to bind to AugmentOS core", e);
+        }
+        if (!bound) {
+            Log.d(TAG, "AugmentOS core IPC service not found, using broadcasts");
+        }
+    }
+
+    public void disconnect() {
+        Messenger messenger = core;
+        core = null;
+        if (messenger != null) {
+            Message msg = Message.obtain(null, IpcEventBatch.MSG_UNREGISTER);
+            msg.replyTo = incoming;
+            try {
+                messenger.send(msg);
+            } catch (RemoteException e) {
+                // Core is already gone
+            }
+        }
+        if (bound) {
+            context.unbindService(connection);
+            bound = false;
+        }
+        Log.d(TAG, getStatsSummary());
+    }
+
+    /**
+     * Sends one event to core.
+     * @return false if there's no connection, so the caller should broadcast it instead
+     */
+    public boolean send(String eventId, Serializable event) {
+        Messenger messenger = core;
+        if (messenger == null) {
+            return false;
+        }
+        IpcEventBatch batch = new IpcEventBatch();
+        batch.add(eventId, event);
+        Message msg = Message.obtain(null, IpcEventBatch.MSG_EVENTS);
+        // Core knows which TPA sent it by this
+        msg.replyTo = incoming;
+        Bundle data = new Bundle();
+        data.putParcelable(IpcEventBatch.KEY_BATCH, batch);
+        msg.setData(data);
+        try {
+            messenger.send(msg);
+            return true;
+        } catch (RemoteException e) {
+            Log.d(TAG, "AugmentOS core went away, falling back to broadcasts");
+            core = null;
+            return false;
+        }
+    }
+
+    private boolean handleMessage(Message msg) {
+        if (msg.what != IpcEventBatch.MSG_EVENTS) {
+            return false;
+        }
+        Bundle data = msg.getData();
+        data.setClassLoader(IpcEventBatch.class.getClassLoader());
+        IpcEventBatch batch = data.getParcelable(IpcEventBatch.KEY_BATCH);
+        if (batch == null) {
+            return true;
+        }
+        long now = SystemClock.elapsedRealtime();
+        synchronized (this) {
+            batchesReceived++;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            TPABroadcastReceiver.dispatchEvent(batch.eventIds.get(i), batch.events.get(i));
+            if (batch.events.get(i) instanceof SpeechRecOutputEvent) {
+                recordTranscriptLatency(now - batch.getQueuedAtMs(i));
+            }
+        }
+        return true;
+    }
+
+    private synchronized void recordTranscriptLatency(long latencyMs) {
+        transcriptsReceived++;
+        totalTranscriptLatencyMs += latencyMs;
+        maxTranscriptLatencyMs = Math.max(maxTranscriptLatencyMs, latencyMs);
+        if (transcriptsReceived % STATS_LOG_EVERY == 0) {
+            Log.d(TAG, getStatsSummary());
+        }
+    }
+
+    /**
+     * Transcript latency runs from core queueing the event (right after AsrPlanner.onTranscript)
+     * to it being posted to this TPA's callbacks.
+     */
+    public synchronized String getStatsSummary() {
+        return String.format(Locale.US,
+                "core ipc (%s): batches=%d transcripts=%d avgLatency=%.1fms maxLatency=%dms",
+                core != null ? "connected" : "broadcasts", batchesReceived, transcriptsReceived,
+                transcriptsReceived == 0 ? 0 : (double) totalTranscriptLatencyMs / transcriptsReceived,
+                maxTranscriptLatencyMs);
+    }
+}
@@ -9,6 +9,7 @@ import android.util.Log;
 import com.augmentos.augmentoslib.events.BulletPointListViewRequestEvent;
 import com.augmentos.augmentoslib.events.CenteredTextViewRequestEvent;
 import com.augmentos.augmentoslib.events.CommandTriggeredEvent;
+import com.augmentos.augmentoslib.events.CoreConnectedEvent;
 import com.augmentos.augmentoslib.events.CoreToManagerOutputEvent;
 import com.augmentos.augmentoslib.events.DisplayCustomContentRequestEvent;
 import com.augmentos.augmentoslib.events.DoubleTextWallViewRequestEvent;
@@ -143,14 +144,21 @@ public class AugmentOSLib {
 
     public void subscribe(DataStreamType dataStreamType, ButtonCallback callback){
         subscribedDataStreams.put(dataStreamType, callback);
+
+        //core only sends this stream to TPAs that asked for it
+        AugmentOSLibBus.getInstance().post(new SubscribeDataStreamRequestEvent(dataStreamType));
     }
 
     public void subscribe(DataStreamType dataStreamType, TapCallback callback){
         subscribedDataStreams.put(dataStreamType, callback);
+
+        AugmentOSLibBus.getInstance().post(new SubscribeDataStreamRequestEvent(dataStreamType));
     }
 
     public void subscribe(DataStreamType dataStreamType, GlassesPovImageCallback callback){
         subscribedDataStreams.put(dataStreamType, callback);
+
+        AugmentOSLibBus.getInstance().post(new SubscribeDataStreamRequestEvent(dataStreamType));
     }
 
 //    //TPA request to be the app in focus - AugmentOS has to grant this request
@@ -214,6 +222,11 @@ public class AugmentOSLib {
         AugmentOSLibBus.getInstance().post(new SendBitmapViewRequestEvent(bmp));
     }
 
+    //bitmaps are shrunk to fit this before they're sent, defaults to the largest display we support
+    public void setBitmapTargetSize(int width, int height){
+        augmentosSender.getBitmapChannel().setTargetSize(width, height);
+    }
+
     public void sendHomeScreen(){
         AugmentOSLibBus.getInstance().post(new HomeScreenEvent());
     }
@@ -230,6 +243,16 @@ public class AugmentOSLib {
         AugmentOSLibBus.getInstance().post(new ManagerToCoreRequestEvent(jsonData));
     }
 
+    @Subscribe
+    public void onCoreConnected(CoreConnectedEvent event) {
+        //core keeps subscriptions in memory, so tell it again every time we (re)connect
+        for (DataStreamType dataStreamType : subscribedDataStreams.keySet()) {
+            if (dataStreamType != DataStreamType.CORE_SYSTEM_MESSAGE) {
+                AugmentOSLibBus.getInstance().post(new SubscribeDataStreamRequestEvent(dataStreamType));
+            }
+        }
+    }
+
     @Subscribe
     public void onCommandTriggeredEvent(CommandTriggeredEvent receivedEvent){
         AugmentOSCommand command = receivedEvent.command;
@@ -0,0 +1,219 @@
+package com.augmentos.augmentoslib;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.os.Binder;
+import android.os.Bundle;
+import android.os.IBinder;
+import android.os.Parcel;
+import android.os.RemoteException;
+import android.os.SharedMemory;
+import android.os.SystemClock;
+import android.system.ErrnoException;
+import android.util.Log;
+
+import com.augmentos.augmentoslib.events.SendSharedBitmapViewRequestEvent;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Hands bitmaps from a TPA to AugmentOS Core through shared memory, since a Bitmap can't ride
+ * in the Serializable event bundle and a full-size one wouldn't fit a Binder transaction.
+ *
+ * The TPA side shrinks each bitmap to the target glasses' resolution, copies its pixels into
+ * one of a few recycled SharedMemory regions and broadcasts a {@link SendSharedBitmapViewRequestEvent}
+ * naming the frame, along with this channel's binder. Core then calls {@link #fetch} with that
+ * binder, which gets the region's file descriptor back and copies the pixels out.
+ *
+ * Regions are reused round robin, so a frame is only fetchable until {@link #POOL_SIZE} newer
+ * ones have been published; a stale fetch returns null and core shows the newer frame instead.
+ */
+public class BitmapChannel {
+    private static final String TAG = "AugmentOSLib_BitmapChannel";
+    public static final String BINDER_KEY = "BITMAP_CHANNEL_BINDER";
+    private static final String DESCRIPTOR = "com.augmentos.augmentoslib.BitmapChannel";
+    private static final int FETCH_TRANSACTION = IBinder.FIRST_CALL_TRANSACTION;
+    private static final int POOL_SIZE = 3;
+
+    // Largest display we support, the rest scale down on the glasses side anyway
+    public static final int DEFAULT_TARGET_WIDTH = 640;
+    public static final int DEFAULT_TARGET_HEIGHT = 480;
+
+    private static class Slot {
+        SharedMemory memory;
+        ByteBuffer mapped;
+        int frameId;
+        int width;
+        int height;
+
+        void release() {
+            if (mapped != null) {
+                SharedMemory.unmap(mapped);
+                mapped = null;
+            }
+            if (memory != null) {
+                memory.close();
+                memory = null;
+            }
+            frameId = 0;
+        }
+    }
+
+    private final Slot[] slots = new Slot[POOL_SIZE];
+    private int nextSlot = 0;
+    private int nextFrameId = 1;
+    private int targetWidth = DEFAULT_TARGET_WIDTH;
+    private int targetHeight = DEFAULT_TARGET_HEIGHT;
+
+    // Reused to shrink and convert bitmaps before copying them out
+    private Bitmap scaled;
+    private final Canvas canvas = new Canvas();
+    private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Rect dst = new Rect();
+
+    private final Binder binder = new Binder() {
+        @Override
+        protected boolean onTransact(int code, Parcel data, Parcel reply, int flags) throws RemoteException {
+            if (code != FETCH_TRANSACTION) {
+                return super.onTransact(code, data, reply, flags);
+            }
+            data.enforceInterface(DESCRIPTOR);
+            writeFrame(data.readInt(), reply);
+            return true;
+        }
+    };
+
+    public BitmapChannel() {
+        for (int i = 0; i < POOL_SIZE; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    public synchronized void setTargetSize(int width, int height) {
+        targetWidth = width;
+        targetHeight = height;
+    }
+
+    /**
+     * The binder core fetches frames through, packed to go in the broadcast intent.
+     */
+    public Bundle getBinderBundle() {
+        Bundle bundle = new Bundle();
+        bundle.putBinder(BINDER_KEY, binder);
+        return bundle;
+    }
+
+    /**
+     * Copies {@code bmp}, shrunk to the target size if needed, into shared memory.
+     * @return the event to broadcast, or null if no shared memory could be had
+     */
+    public synchronized SendSharedBitmapViewRequestEvent publish(Bitmap bmp) {
+        Bitmap frame = fitToTarget(bmp);
+        int bytes = frame.getByteCount();
+        Slot slot = slots[nextSlot];
+        nextSlot = (nextSlot + 1) % POOL_SIZE;
+        try {
+            if (slot.memory == null || slot.memory.getSize() < bytes) {
+                slot.release();
+                slot.memory = SharedMemory.create("augmentos_bitmap", bytes);
+                slot.mapped = slot.memory.mapReadWrite();
+            }
+            slot.mapped.clear();
+            frame.copyPixelsToBuffer(slot.mapped);
+        } catch (ErrnoException | RuntimeException e) {
+            Log.e(TAG, "Couldn't copy bitmap to shared memory", e);
+            slot.release();
+            return null;
+        }
+        slot.frameId = nextFrameId++;
+        slot.width = frame.getWidth();
+        slot.height = frame.getHeight();
+        return new SendSharedBitmapViewRequestEvent(slot.frameId, slot.width, slot.height, SystemClock.elapsedRealtime());
+    }
+
+    private Bitmap fitToTarget(Bitmap bmp) {
+        int width = bmp.getWidth();
+        int height = bmp.getHeight();
+        float scale = Math.min(1f, Math.min((float) targetWidth / width, (float) targetHeight / height));
+        if (scale == 1f && bmp.getConfig() == Bitmap.Config.ARGB_8888) {
+            return bmp;
+        }
+        int outWidth = Math.max(1, Math.round(width * scale));
+        int outHeight = Math.max(1, Math.round(height * scale));
+        if (scaled == null || scaled.getWidth() != outWidth || scaled.getHeight() != outHeight) {
+            if (scaled != null) {
+                scaled.recycle();
+            }
+            scaled = Bitmap.createBitmap(outWidth, outHeight, Bitmap.Config.ARGB_8888);
+            canvas.setBitmap(scaled);
+        }
+        scaled.eraseColor(Color.TRANSPARENT);
+        dst.set(0, 0, outWidth, outHeight);
+        canvas.drawBitmap(bmp, null, dst, paint);
+        return scaled;
+    }
+
+    // Runs on a binder thread in the TPA
+    private synchronized void writeFrame(int frameId, Parcel reply) {
+        for (Slot slot : slots) {
+            if (slot.frameId == frameId && slot.memory != null) {
+                reply.writeInt(1);
+                reply.writeInt(slot.width);
+                reply.writeInt(slot.height);
+                slot.memory.writeToParcel(reply, 0);
+                return;
+            }
+        }
+        reply.writeInt(0);
+    }
+
+    public synchronized void destroy() {
+        for (Slot slot : slots) {
+            slot.release();
+        }
+        if (scaled != null) {
+            scaled.recycle();
+            scaled = null;
+        }
+    }
+
+    /**
+     * Core side: copies frame {@code frameId} out of the TPA's channel.
+     * @return the bitmap, or null if the frame was already replaced or the TPA is gone
+     */
+    public static Bitmap fetch(IBinder channel, int frameId) {
+        Parcel data = Parcel.obtain();
+        Parcel reply = Parcel.obtain();
+        SharedMemory memory = null;
+        ByteBuffer mapped = null;
+        try {
+            data.writeInterfaceToken(DESCRIPTOR);
+            data.writeInt(frameId);
+            if (!channel.transact(FETCH_TRANSACTION, data, reply, 0) || reply.readInt() == 0) {
+                return null;
+            }
+            int width = reply.readInt();
+            int height = reply.readInt();
+            memory = SharedMemory.CREATOR.createFromParcel(reply);
+            mapped = memory.mapReadOnly();
+            Bitmap bmp = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            bmp.copyPixelsFromBuffer(mapped);
+            return bmp;
+        } catch (RemoteException | ErrnoException | RuntimeException e) {
+            Log.e(TAG, "Couldn't fetch bitmap " + frameId, e);
+            return null;
+        } finally {
+            if (mapped != null) {
+                SharedMemory.unmap(mapped);
+            }
+            if (memory != null) {
+                memory.close();
+            }
+            data.recycle();
+            reply.recycle();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.augmentos.augmentoslib;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.os.SystemClock;
+
+import com.augmentos.augmentoslib.events.SpeechRecOutputEvent;
+import com.augmentos.augmentoslib.events.TranslateOutputEvent;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Events sent in one Messenger message over the bound-service channel between a TPA and core.
+ *
+ * Transcripts and translations, the high-rate events, are written field by field. Everything
+ * else is written as its Serializable, like the broadcasts did, since it's rare enough that
+ * the cost doesn't matter.
+ */
+public class IpcEventBatch implements Parcelable {
+    // Message.what values on the channel
+    public static final int MSG_REGISTER = 1;
+    public static final int MSG_EVENTS = 2;
+    public static final int MSG_UNREGISTER = 3;
+
+    // Message.getData() keys
+    public static final String KEY_BATCH = "batch";
+    public static final String KEY_PACKAGE = "package";
+    // Registration flag: this TPA sends TpaReadyEvent once it's started, older libs don't set it
+    public static final String KEY_SENDS_READY = "sendsReady";
+
+    private static final byte TYPE_SERIALIZABLE = 0;
+    private static final byte TYPE_SPEECH_REC = 1;
+    private static final byte TYPE_TRANSLATE = 2;
+
+    public final List<String> eventIds;
+    public final List<Serializable> events;
+    // SystemClock.elapsedRealtime() when each event was queued, the same clock in every process
+    private final List<Long> queuedAtMs;
+
+    public IpcEventBatch() {
+        eventIds = new ArrayList<>();
+        events = new ArrayList<>();
+        queuedAtMs = new ArrayList<>();
+    }
+
+    public void add(String eventId, Serializable event) {
+        add(eventId, event, SystemClock.elapsedRealtime());
+    }
+
+    public void add(String eventId, Serializable event, long queuedAtMs) {
+        eventIds.add(eventId);
+        events.add(event);
+        this.queuedAtMs.add(queuedAtMs);
+    }
+
+    /**
+     * Replaces the last event if it's an interim transcript for the same language as
+     * {@code event}, which supersedes it; otherwise adds {@code event}.
+     * @return true if an event was replaced
+     */
+    public boolean addOrReplaceInterim(String eventId, Serializable event) {
+        int last = events.size() - 1;
+        if (event instanceof SpeechRecOutputEvent && !((SpeechRecOutputEvent) event).isFinal
+                && last >= 0 && events.get(last) instanceof SpeechRecOutputEvent) {
+            SpeechRecOutputEvent previous = (SpeechRecOutputEvent) events.get(last);
+            if (!previous.isFinal && previous.languageCode != null
+                    && previous.languageCode.equals(((SpeechRecOutputEvent) event).languageCode)) {
+                // Keep the older queue time, that's how long the text has been waiting
+                events.set(last, event);
+                return true;
+            }
+        }
+        add(eventId, event);
+        return false;
+    }
+
+    public int size() {
+        return events.size();
+    }
+
+    public long getQueuedAtMs(int index) {
+        return queuedAtMs.get(index);
+    }
+
+    protected IpcEventBatch(Parcel in) {
+        int count = in.readInt();
+        eventIds = new ArrayList<>(count);
+        events = new ArrayList<>(count);
+        queuedAtMs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String eventId = in.readString();
+            long queuedAt = in.readLong();
+            Serializable event;
+            switch (in.readByte()) {
+                case TYPE_SPEECH_REC:
+                    SpeechRecOutputEvent speech = new SpeechRecOutputEvent(in.readString(), in.readString(), in.readLong(), in.readInt() != 0);
+                    speech.isTranslated = in.readInt() != 0;
+                    event = speech;
+                    break;
+                case TYPE_TRANSLATE:
+                    event = new TranslateOutputEvent(in.readString(), in.readString(), in.readString(), in.readLong(), in.readInt() != 0);
+                    break;
+                default:
+                    event = in.readSerializable();
+                    break;
+            }
+            add(eventId, event, queuedAt);
+        }
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeInt(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            dest.writeString(eventIds.get(i));
+            dest.writeLong(queuedAtMs.get(i));
+            Serializable event = events.get(i);
+            if (event instanceof SpeechRecOutputEvent) {
+                SpeechRecOutputEvent speech = (SpeechRecOutputEvent) event;
+                dest.writeByte(TYPE_SPEECH_REC);
+                dest.writeString(speech.text);
+                dest.writeString(speech.languageCode);
+                dest.writeLong(speech.timestamp);
+                dest.writeInt(speech.isFinal ? 1 : 0);
+                dest.writeInt(speech.isTranslated ? 1 : 0);
+            } else if (event instanceof TranslateOutputEvent) {
+                TranslateOutputEvent translate = (TranslateOutputEvent) event;
+                dest.writeByte(TYPE_TRANSLATE);
+                dest.writeString(translate.text);
+                dest.writeString(translate.fromLanguageCode);
+                dest.writeString(translate.toLanguageCode);
+                dest.writeLong(translate.timestamp);
+                dest.writeInt(translate.isFinal ? 1 : 0);
+            } else {
+                dest.writeByte(TYPE_SERIALIZABLE);
+                dest.writeSerializable(event);
+            }
+        }
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    public static final Creator<IpcEventBatch> CREATOR = new Creator<IpcEventBatch>() {
+        @Override
+        public IpcEventBatch createFromParcel(Parcel in) {
+            return new IpcEventBatch(in);
+        }
+
+        @Override
+        public IpcEventBatch[] newArray(int size) {
+            return new IpcEventBatch[size];
+        }
+    };
+}
@@ -25,6 +25,7 @@ import androidx.core.app.NotificationCompat;
 import androidx.lifecycle.LifecycleService;
 
 import com.augmentos.augmentoslib.events.KillTpaEvent;
+import com.augmentos.augmentoslib.events.TpaReadyEvent;
 
 import org.greenrobot.eventbus.Subscribe;
 
@@ -123,6 +124,8 @@ public abstract class SmartGlassesAndroidService extends LifecycleService {
                     startForeground(AUGMENTOS_NOTIFICATION_ID, buildSharedForegroundNotification(this));
 
                     setup();
+                    //tell core we're ready, so it sends anything it held for us while we started
+                    AugmentOSLibBus.getInstance().post(new TpaReadyEvent());
                     break;
                 case ACTION_STOP_FOREGROUND_SERVICE:
                     stopForeground(true);
@@ -3,6 +3,7 @@ package com.augmentos.augmentoslib;
 import static android.content.Context.RECEIVER_EXPORTED;
 import static com.augmentos.augmentoslib.AugmentOSGlobalConstants.EVENT_BUNDLE;
 import static com.augmentos.augmentoslib.AugmentOSGlobalConstants.EVENT_ID;
+import static com.augmentos.augmentoslib.AugmentOSGlobalConstants.IPC_DELIVERED_PACKAGES;
 
 import android.content.BroadcastReceiver;
 import android.content.Context;
@@ -23,6 +24,7 @@ import com.augmentos.augmentoslib.events.TranslateOutputEvent;
 import org.greenrobot.eventbus.EventBus;
 
 import java.io.Serializable;
+import java.util.Arrays;
 
 public class TPABroadcastReceiver extends BroadcastReceiver {
     private String filterPkg;
@@ -37,9 +39,19 @@ public class TPABroadcastReceiver extends BroadcastReceiver {
     }
 
     public void onReceive(Context context, Intent intent) {
+        //core already sent us this one over IPC
+        String[] deliveredPackages = intent.getStringArrayExtra(IPC_DELIVERED_PACKAGES);
+        if (deliveredPackages != null && Arrays.asList(deliveredPackages).contains(context.getPackageName())) {
+            return;
+        }
+
         String eventId = intent.getStringExtra(EVENT_ID);
         Serializable serializedEvent = intent.getSerializableExtra(EVENT_BUNDLE);
+        dispatchEvent(eventId, serializedEvent);
+    }
 
+    //posts an event from core to this TPA, whether it came by broadcast or IPC
+    static void dispatchEvent(String eventId, Serializable serializedEvent) {
         //map from id to event
         switch (eventId) {
             case CommandTriggeredEvent.eventId:
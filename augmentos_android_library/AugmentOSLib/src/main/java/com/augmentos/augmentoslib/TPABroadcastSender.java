@@ -6,6 +6,7 @@ import static com.augmentos.augmentoslib.AugmentOSGlobalConstants.EVENT_ID;
 
 import android.content.Context;
 import android.content.Intent;
+import android.os.Bundle;
 import android.util.Log;
 
 import com.augmentos.augmentoslib.events.BulletPointListViewRequestEvent;
@@ -23,11 +24,13 @@ import com.augmentos.augmentoslib.events.RowsCardViewRequestEvent;
 import com.augmentos.augmentoslib.events.ScrollingTextViewStartRequestEvent;
 import com.augmentos.augmentoslib.events.ScrollingTextViewStopRequestEvent;
 import com.augmentos.augmentoslib.events.SendBitmapViewRequestEvent;
+import com.augmentos.augmentoslib.events.SendSharedBitmapViewRequestEvent;
 import com.augmentos.augmentoslib.events.StartAsrStreamRequestEvent;
 import com.augmentos.augmentoslib.events.StopAsrStreamRequestEvent;
 import com.augmentos.augmentoslib.events.SubscribeDataStreamRequestEvent;
 import com.augmentos.augmentoslib.events.TextLineViewRequestEvent;
 import com.augmentos.augmentoslib.events.TextWallViewRequestEvent;
+import com.augmentos.augmentoslib.events.TpaReadyEvent;
 
 import org.greenrobot.eventbus.EventBus;
 import org.greenrobot.eventbus.Subscribe;
@@ -38,18 +41,34 @@ public class TPABroadcastSender {
     private String intentPkg;
     private String packageName;
     Context context;
+    private final BitmapChannel bitmapChannel = new BitmapChannel();
+    private final Bundle bitmapChannelBundle = bitmapChannel.getBinderBundle();
+    private final AugmentOSIpcClient ipcClient;
 
     public TPABroadcastSender(Context context) {
         this.context = context;
         this.intentPkg = AugmentOSGlobalConstants.FROM_TPA_FILTER;
         packageName = context.getPackageName();
 
+        //events go over the bound-service channel once it's up, broadcasts until then
+        ipcClient = new AugmentOSIpcClient(context, bitmapChannelBundle);
+        ipcClient.connect();
+
         //register event bus subscribers
         AugmentOSLibBus.getInstance().register(this);
     }
 
     public void sendEventToAugmentOS(String eventId, Serializable eventBundle) {
+        sendEventToAugmentOS(eventId, eventBundle, null);
+    }
+
+    //binderBundle carries binders that can't be serialized into the event, like the bitmap channel
+    private void sendEventToAugmentOS(String eventId, Serializable eventBundle, Bundle binderBundle) {
 //        Log.d("TPASEND event: ", this.intentPkg);
+        //core got our bitmap channel when we registered, so nothing extra is needed over IPC
+        if (ipcClient.send(eventId, eventBundle)) {
+            return;
+        }
 
         //setup intent to send
         Intent intent = new Intent();
@@ -60,9 +79,17 @@ public class TPABroadcastSender {
         intent.putExtra(EVENT_ID, eventId);
         intent.putExtra(APP_PKG_NAME, packageName);
         intent.putExtra(EVENT_BUNDLE, eventBundle);
+        if (binderBundle != null) {
+            intent.putExtra(BitmapChannel.BINDER_KEY, binderBundle);
+        }
         context.sendBroadcast(intent);
     }
 
+    @Subscribe
+    public void onTpaReadyEvent(TpaReadyEvent receivedEvent){
+        sendEventToAugmentOS(TpaReadyEvent.eventId, receivedEvent);
+    }
+
     @Subscribe
     public void onStartAsrStreamRequestEvent(StartAsrStreamRequestEvent receivedEvent){
         String eventId = StartAsrStreamRequestEvent.eventId;
@@ -130,9 +157,17 @@ public class TPABroadcastSender {
         sendEventToAugmentOS(e.eventId, e);
     }
 
+    //a Bitmap can't be serialized into the broadcast, so its pixels go through shared memory
     @Subscribe
     public void onSendBitmap(SendBitmapViewRequestEvent e){
-        sendEventToAugmentOS(e.eventId, e);
+        SendSharedBitmapViewRequestEvent shared = bitmapChannel.publish(e.bmp);
+        if (shared != null) {
+            sendEventToAugmentOS(shared.eventId, shared, bitmapChannelBundle);
+        }
+    }
+
+    public BitmapChannel getBitmapChannel() {
+        return bitmapChannel;
     }
 
     @Subscribe
@@ -176,5 +211,7 @@ public class TPABroadcastSender {
     public void destroy(){
         //unregister event bus subscribers
         AugmentOSLibBus.getInstance().unregister(this);
+        ipcClient.disconnect();
+        bitmapChannel.destroy();
     }
 }
\ No newline at end of file
@@ -0,0 +1,8 @@
+package com.augmentos.augmentoslib.events;
+
+import java.io.Serializable;
+
+//posted in the TPA when it has registered with core over IPC, including after core restarts
+public class CoreConnectedEvent implements Serializable {
+    public CoreConnectedEvent(){}
+}
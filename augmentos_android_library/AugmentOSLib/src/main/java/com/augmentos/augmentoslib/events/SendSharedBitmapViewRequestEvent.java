@@ -0,0 +1,20 @@
+package com.augmentos.augmentoslib.events;
+
+import java.io.Serializable;
+
+//names a frame in the sending TPA's BitmapChannel, the pixels stay in shared memory
+public class SendSharedBitmapViewRequestEvent implements Serializable {
+    public int frameId;
+    public int width;
+    public int height;
+    //SystemClock.elapsedRealtime() in the TPA, which is the same clock in core
+    public long sentAtMs;
+    public static final String eventId = "sendSharedBitmapViewRequestEvent";
+
+    public SendSharedBitmapViewRequestEvent(int frameId, int width, int height, long sentAtMs) {
+        this.frameId = frameId;
+        this.width = width;
+        this.height = height;
+        this.sentAtMs = sentAtMs;
+    }
+}
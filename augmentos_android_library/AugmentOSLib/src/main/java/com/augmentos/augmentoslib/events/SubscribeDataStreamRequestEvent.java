@@ -6,12 +6,20 @@ import java.io.Serializable;
 
 public class SubscribeDataStreamRequestEvent implements Serializable {
     public DataStreamType dataStreamType;
+    //filled in by core from the sender, TPAs don't set it
+    public String packageName;
     public static final String eventId = "subscribeDataStreamRequestEvent";
 
     public SubscribeDataStreamRequestEvent(DataStreamType dataStreamType){
         this.dataStreamType = dataStreamType;
     }
 
+    public SubscribeDataStreamRequestEvent withPackageName(String pkgName) {
+        SubscribeDataStreamRequestEvent event = new SubscribeDataStreamRequestEvent(this.dataStreamType);
+        event.packageName = pkgName;
+        return event;
+    }
+
     public static String getEventId(){
         return("subscribeDataStreamRequestEvent");
     }
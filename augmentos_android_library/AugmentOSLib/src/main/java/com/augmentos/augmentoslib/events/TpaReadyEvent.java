@@ -0,0 +1,10 @@
+package com.augmentos.augmentoslib.events;
+
+import java.io.Serializable;
+
+//sent to core once a TPA's SmartGlassesAndroidService has finished setup and can take events
+public class TpaReadyEvent implements Serializable {
+    public static final String eventId = "tpaReadyEvent";
+
+    public TpaReadyEvent(){}
+}
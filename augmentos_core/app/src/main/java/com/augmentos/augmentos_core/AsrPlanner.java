@@ -1,5 +1,6 @@
 package com.augmentos.augmentos_core;
 
+import android.os.Debug;
 import android.util.Log;
 
 import com.augmentos.augmentos_core.smarterglassesmanager.eventbusmessages.NewAsrLanguagesEvent;
@@ -19,78 +20,116 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
 
 public class AsrPlanner {
     public static final String TAG = "ASRPlanner";
+    private static final String INTERNAL_SUBSCRIBER = "AugmentOS_INTERNAL";
+    private static final int STATS_LOG_EVERY = 500;
     private final Map<AsrStreamKey, Set<String>> activeStreams = new HashMap<>();
-    ArrayList<String> transcriptsBuffer;
+    // TPA subscribers by language (and target language for translations), rebuilt whenever
+    // activeStreams changes so transcripts don't need a key, a lock or a copy to find them
+    private volatile Map<String, String[]> transcriptSubscribers = new HashMap<>();
+    private volatile Map<String, Map<String, String[]>> translateSubscribers = new HashMap<>();
+
+    // Fan-out cost, guarded by this
+    private long transcriptsFannedOut = 0;
+    private long fanOutDeliveries = 0;
+    private long totalFanOutCpuNs = 0;
+    private long maxFanOutCpuNs = 0;
+    private final TranscriptStore transcriptStore = new TranscriptStore();
 
     EdgeTPASystem edgeTpaSystem;
 
     public AsrPlanner(EdgeTPASystem edgeTpaSystemRef){
         this.edgeTpaSystem = edgeTpaSystemRef;
 
-        //make responses holder
-        transcriptsBuffer = new ArrayList<>();
-
         //setup english as an ASR language
         AsrStreamKey enKey = new AsrStreamKey("en-US");
-        addAsrStream("AugmentOS_INTERNAL", enKey);
+        addAsrStream(INTERNAL_SUBSCRIBER, enKey);
     }
 
     @Subscribe
     public void onTranscript(SpeechRecOutputEvent event) {
-        String text = event.text;
-        String languageCode = event.languageCode;
-        boolean isFinal = event.isFinal;
-
-        AsrStreamKey streamKey = new AsrStreamKey(languageCode);
-
-        if (activeStreams.containsKey(streamKey)) {
-            Set<String> activeStreamElements = activeStreams.get(streamKey);
-
-            if (activeStreamElements != null) {
-                for (String packageName : activeStreamElements) {
-                    if (Objects.equals(packageName, "AugmentOS_INTERNAL")) {
-                        continue;
-                    }
-                    Log.d(TAG, "Active stream element processed: " + packageName);
-                    edgeTpaSystem.sendTranscriptEventToTpa(event, packageName);
-                }
-            } else {
-                Log.w(TAG, "Active stream elements are null, nothing to process.");
-            }
+        String[] subscribers = transcriptSubscribers.get(event.languageCode);
+        if (subscribers != null) {
+            long startCpuNs = Debug.threadCpuTimeNanos();
+            edgeTpaSystem.sendTranscriptEventToTpas(event, subscribers);
+            recordFanOut(subscribers.length, Debug.threadCpuTimeNanos() - startCpuNs);
         }
 
-        if (isFinal) {
-            transcriptsBuffer.add(text);
+        if (event.isFinal) {
+            transcriptStore.add(System.currentTimeMillis(), event.languageCode, event.text, subscribers);
         }
     }
 
     @Subscribe
     public void onTranslate(TranslateOutputEvent event){
-        String fromLanguageCode = event.fromLanguageCode;
-        String toLanguageCode = event.toLanguageCode;
-        AsrStreamKey streamKey = new AsrStreamKey(fromLanguageCode, toLanguageCode);
-
-        if (activeStreams.containsKey(streamKey)) {
-            Set<String> activeStreamElements = activeStreams.get(streamKey);
-
-            if (activeStreamElements != null) {
-                for (String packageName : activeStreamElements) {
-                    if (Objects.equals(packageName, "AugmentOS_INTERNAL")) {
-                        continue;
-                    }
-                    Log.d(TAG, "Active stream element processed: " + packageName);
-                    edgeTpaSystem.sendTranslateEventToTpa(event, packageName);
+        Map<String, String[]> byTarget = translateSubscribers.get(event.fromLanguageCode);
+        String[] subscribers = byTarget == null ? null : byTarget.get(event.toLanguageCode);
+        if (subscribers != null) {
+            edgeTpaSystem.sendTranslateEventToTpas(event, subscribers);
+        }
+    }
+
+    //recent final transcripts, for TPAs and the dashboard
+    public TranscriptStore getTranscriptStore() {
+        return transcriptStore;
+    }
+
+    public void destroy() {
+        transcriptStore.destroy();
+    }
+
+    private synchronized void recordFanOut(int deliveries, long cpuNs) {
+        transcriptsFannedOut++;
+        fanOutDeliveries += deliveries;
+        totalFanOutCpuNs += cpuNs;
+        maxFanOutCpuNs = Math.max(maxFanOutCpuNs, cpuNs);
+        if (transcriptsFannedOut % STATS_LOG_EVERY == 0) {
+            Log.d(TAG, getStatsSummary() + " | " + transcriptStore.getStatsSummary());
+        }
+    }
+
+    /**
+     * CPU is the posting thread's time spent handing a transcript to its subscribers.
+     */
+    public synchronized String getStatsSummary() {
+        return String.format(Locale.US,
+                "transcript fan-out: events=%d avgSubscribers=%.1f avgCpu=%.1fus maxCpu=%.1fus",
+                transcriptsFannedOut,
+                transcriptsFannedOut == 0 ? 0 : (double) fanOutDeliveries / transcriptsFannedOut,
+                transcriptsFannedOut == 0 ? 0 : totalFanOutCpuNs / 1000.0 / transcriptsFannedOut,
+                maxFanOutCpuNs / 1000.0);
+    }
+
+    // Called with this held, after any change to activeStreams
+    private void rebuildSubscribers() {
+        Map<String, String[]> transcripts = new HashMap<>();
+        Map<String, Map<String, String[]>> translations = new HashMap<>();
+        for (Map.Entry<AsrStreamKey, Set<String>> entry : activeStreams.entrySet()) {
+            String[] tpas = entry.getValue().stream()
+                    .filter(pkg -> !INTERNAL_SUBSCRIBER.equals(pkg))
+                    .toArray(String[]::new);
+            if (tpas.length == 0) {
+                continue;
+            }
+            AsrStreamKey key = entry.getKey();
+            if (key.streamType == AsrStreamType.TRANSLATION) {
+                Map<String, String[]> byTarget = translations.get(key.transcribeLanguage);
+                if (byTarget == null) {
+                    byTarget = new HashMap<>();
+                    translations.put(key.transcribeLanguage, byTarget);
                 }
+                byTarget.put(key.translateLanguage, tpas);
             } else {
-                Log.w(TAG, "Active stream elements are null, nothing to process.");
+                transcripts.put(key.transcribeLanguage, tpas);
             }
         }
+        transcriptSubscribers = transcripts;
+        translateSubscribers = translations;
     }
 
     @Subscribe
@@ -130,6 +169,7 @@ public class AsrPlanner {
         }
 
         subscribers.add(packageName);
+        rebuildSubscribers();
         Log.d(TAG, "addAsrStream: " + packageName + " subscribed to " + key);
     }
 
@@ -153,6 +193,7 @@ public class AsrPlanner {
             activeStreams.remove(key);
             updateAsrLanguages();
         }
+        rebuildSubscribers();
     }
 
     public synchronized List<AsrStreamKey> getActiveFilteredStreamKeys() {
@@ -179,7 +220,7 @@ public class AsrPlanner {
     }
 
     @Subscribe
-    public void onKillTpaEvent(KillTpaEvent event) {
+    public synchronized void onKillTpaEvent(KillTpaEvent event) {
         String tpaPackageName = event.tpa.packageName;
         Log.d(TAG, "TPA KILLING SELF: " + tpaPackageName);
         unsubscribeTpaFromAllStreams(tpaPackageName);
@@ -198,7 +239,7 @@ public class AsrPlanner {
             if (subscribers.isEmpty()) {
                 if (key.streamType == AsrStreamType.TRANSCRIPTION
                         && "en-US".equals(key.transcribeLanguage)) {
-                    subscribers.add("AugmentOS_INTERNAL");
+                    subscribers.add(INTERNAL_SUBSCRIBER);
                 } else {
                     keysToRemove.add(key);
                 }
@@ -208,6 +249,7 @@ public class AsrPlanner {
         for (AsrStreamKey removableKey : keysToRemove) {
             activeStreams.remove(removableKey);
         }
+        rebuildSubscribers();
         updateAsrLanguages();
     }
 
@@ -1,6 +1,14 @@
 package com.augmentos.augmentos_core;
 
 import static com.augmentos.augmentos_core.smarterglassesmanager.smartglassescommunicators.EvenRealitiesG1SGC.deleteEvenSharedPreferences;
+import static com.augmentos.augmentos_core.smarterglassesmanager.smartglassescommunicators.EvenRealitiesG1SGC.getBitmapDitherMode;
+import static com.augmentos.augmentos_core.smarterglassesmanager.smartglassescommunicators.EvenRealitiesG1SGC.getIncrementalTextEnabled;
+import static com.augmentos.augmentos_core.smarterglassesmanager.smartglassescommunicators.EvenRealitiesG1SGC.getMaxInFlightWrites;
+import static com.augmentos.augmentos_core.smarterglassesmanager.smartglassescommunicators.EvenRealitiesG1SGC.getPartialBitmapUpdatesEnabled;
+import static com.augmentos.augmentos_core.smarterglassesmanager.smartglassescommunicators.EvenRealitiesG1SGC.saveIncrementalTextEnabled;
+import static com.augmentos.augmentos_core.smarterglassesmanager.smartglassescommunicators.EvenRealitiesG1SGC.saveMaxInFlightWrites;
+import static com.augmentos.augmentos_core.smarterglassesmanager.smartglassescommunicators.EvenRealitiesG1SGC.savePartialBitmapUpdatesEnabled;
+import static com.augmentos.augmentos_core.smarterglassesmanager.smartglassescommunicators.EvenRealitiesG1SGC.saveBitmapDitherMode;
 import static com.augmentos.augmentos_core.smarterglassesmanager.smartglassescommunicators.EvenRealitiesG1SGC.savePreferredG1DeviceId;
 import static com.augmentos.augmentos_core.smarterglassesmanager.smartglassesconnection.SmartGlassesAndroidService.getSmartGlassesDeviceFromModelName;
 import static com.augmentos.augmentos_core.smarterglassesmanager.smartglassesconnection.SmartGlassesAndroidService.savePreferredWearable;
@@ -40,12 +48,15 @@ import android.os.Looper;
 import android.service.notification.NotificationListenerService;
 import android.util.Log;
 
+import java.io.File;
 import java.io.IOException;
 
 import androidx.core.app.NotificationCompat;
 import androidx.preference.PreferenceManager;
 
+import com.augmentos.augmentos_core.augmentos_backend.AudioUplinkCodec;
 import com.augmentos.augmentos_core.augmentos_backend.AuthHandler;
+import com.augmentos.augmentos_core.augmentos_backend.DisplayEvent;
 import com.augmentos.augmentos_core.augmentos_backend.HTTPServerComms;
 import com.augmentos.augmentos_core.augmentos_backend.ServerComms;
 import com.augmentos.augmentos_core.augmentos_backend.ServerCommsCallback;
@@ -64,7 +75,7 @@ import com.augmentos.augmentos_core.smarterglassesmanager.eventbusmessages.Glass
 import com.augmentos.augmentos_core.smarterglassesmanager.eventbusmessages.SmartGlassesConnectionStateChangedEvent;
 import com.augmentos.augmentos_core.smarterglassesmanager.eventbusmessages.HeadUpAngleEvent;
 import com.augmentos.augmentos_core.smarterglassesmanager.supportedglasses.SmartGlassesDevice;
-import com.augmentos.augmentos_core.smarterglassesmanager.utils.BitmapJavaUtils;
+import com.augmentos.augmentos_core.smarterglassesmanager.utils.MonochromeBmpEncoder;
 import com.augmentos.augmentos_core.smarterglassesmanager.utils.SmartGlassesConnectionState;
 import com.augmentos.augmentoslib.ThirdPartyEdgeApp;
 import com.augmentos.augmentos_core.comms.AugmentOsActionsCallback;
@@ -159,7 +170,7 @@ public class AugmentosService extends Service implements AugmentOsActionsCallbac
     private AsrPlanner asrPlanner;
     private HTTPServerComms httpServerComms;
 
-    JSONObject cachedDashboardDisplayObject;
+    DisplayEvent cachedDashboardDisplayObject;
     Runnable cachedDashboardDisplayRunnable;
     List<ThirdPartyCloudApp> cachedThirdPartyAppList;
     private WebSocketManager.IncomingMessageHandler.WebSocketStatus webSocketStatus = WebSocketManager.IncomingMessageHandler.WebSocketStatus.DISCONNECTED;
@@ -259,6 +270,7 @@ public class AugmentosService extends Service implements AugmentOsActionsCallbac
     public ArrayList<String> notificationList = new ArrayList<String>();
     public JSONArray latestNewsArray = new JSONArray();
     private int latestNewsIndex = 0;
+    private static final int DASHBOARD_TRANSCRIPT_MINUTES = 5;
     @Subscribe
     public void onDisplayGlassesDashboardEvent(DisplayGlassesDashboardEvent event) throws JSONException {
         if (!contextualDashboardEnabled) {
@@ -272,7 +284,7 @@ public class AugmentosService extends Service implements AugmentOsActionsCallbac
                 );
             }
             if(cachedDashboardDisplayObject != null && blePeripheral != null) {
-                blePeripheral.sendGlassesDisplayEventToManager(cachedDashboardDisplayObject);
+                blePeripheral.sendGlassesDisplayEventToManager(cachedDashboardDisplayObject.rawJson);
             }
             return;
         }
@@ -290,9 +302,19 @@ public class AugmentosService extends Service implements AugmentOsActionsCallbac
 
         String connString = webSocketStatus == null ? "Not connected" : webSocketStatus.name();;
 
+        // Last thing heard recently, under the connection status
+        String rightText = connString;
+        if (asrPlanner != null) {
+            List<TranscriptStore.Segment> recent = asrPlanner.getTranscriptStore().getLastMinutes(DASHBOARD_TRANSCRIPT_MINUTES);
+            if (!recent.isEmpty()) {
+                rightText = connString + "\n" + recent.get(recent.size() - 1).text;
+            }
+        }
+        String rightColumn = rightText;
+
         if (smartGlassesService != null) {
             smartGlassesService.windowManager.showDashboard(() ->
-                            smartGlassesService.sendDoubleTextWall(leftHeaderLine, connString),
+                            smartGlassesService.sendDoubleTextWall(leftHeaderLine, rightColumn),
                     -1
             );
         }
@@ -355,6 +377,7 @@ public class AugmentosService extends Service implements AugmentOsActionsCallbac
 
         edgeTpaSystem = new EdgeTPASystem(this, smartGlassesService);
         asrPlanner = new AsrPlanner(edgeTpaSystem);
+        applyTranscriptSpill(getTranscriptSpillEnabled());
 
         // Initialize BLE Peripheral
         blePeripheral = new AugmentosBlePeripheral(this, this);
@@ -674,42 +697,34 @@ public class AugmentosService extends Service implements AugmentOsActionsCallbac
         }
     }
 
-    public Runnable parseDisplayEventMessage(JSONObject msg) {
-            try {
-                JSONObject layout = msg.getJSONObject("layout");
-                String layoutType = layout.getString("layoutType");
-                String title;
-                String text;
-                switch (layoutType) {
-                    case "reference_card":
-                        title = layout.getString("title");
-                        text = layout.getString("text");
-                        return () -> smartGlassesService.sendReferenceCard(title, text);
-                    case "text_wall":
-                    case "text_line":
-                        text = layout.getString("text");
-                        return () -> smartGlassesService.sendTextWall(text);
-                    case "double_text_wall":
-                        String topText = layout.getString("topText");
-                        String bottomText = layout.getString("bottomText");
-                        return () -> smartGlassesService.sendDoubleTextWall(topText, bottomText);
-                    case "text_rows":
-                        JSONArray rowsArray = layout.getJSONArray("text");
-                        String[] stringsArray = new String[rowsArray.length()];
-                        for (int k = 0; k < rowsArray.length(); k++)
-                            stringsArray[k] = rowsArray.getString(k);
-                        return () -> smartGlassesService.sendRowsCard(stringsArray);
-                    case "bitmap_view":
-                        String base64Data = layout.getString("data");
-                        byte[] decodedBytes = android.util.Base64.decode(base64Data, android.util.Base64.DEFAULT);
-                        Bitmap bmp = BitmapJavaUtils.bytesToBitmap(decodedBytes);
-                        return () -> smartGlassesService.sendBitmap(bmp);
-                    default:
-                        Log.d(TAG, "ISSUE PARSING LAYOUT");
-                }
-            } catch (JSONException e) {
-                e.printStackTrace();
+    public Runnable parseDisplayEventMessage(DisplayEvent event) {
+            String layoutType = event.layoutType == null ? "" : event.layoutType;
+            switch (layoutType) {
+                case "reference_card":
+                    if (event.title == null || event.text == null) break;
+                    return () -> smartGlassesService.sendReferenceCard(event.title, event.text);
+                case "text_wall":
+                case "text_line":
+                    if (event.text == null) break;
+                    return () -> smartGlassesService.sendTextWall(event.text);
+                case "double_text_wall":
+                    if (event.topText == null || event.bottomText == null) break;
+                    return () -> smartGlassesService.sendDoubleTextWall(event.topText, event.bottomText);
+                case "text_rows":
+                    if (event.rows == null) break;
+                    return () -> smartGlassesService.sendRowsCard(event.rows);
+                case "bitmap_view":
+                    // Decoded only when the window manager actually shows this layer
+                    return () -> {
+                        Bitmap bmp = event.getBitmap();
+                        if (bmp != null) {
+                            smartGlassesService.sendBitmap(bmp);
+                        }
+                    };
+                default:
+                    break;
             }
+            Log.d(TAG, "ISSUE PARSING LAYOUT");
             return () -> {};
     }
 
@@ -779,7 +794,13 @@ public class AugmentosService extends Service implements AugmentOsActionsCallbac
             coreInfo.put("charging_status", batteryStatusHelper.isBatteryCharging());
             coreInfo.put("sensing_enabled", AugmentosSmartGlassesService.getSensingEnabled(this));
             coreInfo.put("contextual_dashboard_enabled", this.contextualDashboardEnabled);
+            coreInfo.put("transcript_spill_enabled", getTranscriptSpillEnabled());
             coreInfo.put("force_core_onboard_mic", AugmentosSmartGlassesService.getForceCoreOnboardMic(this));
+            coreInfo.put("audio_uplink_codec", AugmentosSmartGlassesService.getAudioUplinkCodec(this).wireName);
+            coreInfo.put("g1_incremental_text", getIncrementalTextEnabled(this));
+            coreInfo.put("g1_partial_bitmaps", getPartialBitmapUpdatesEnabled(this));
+            coreInfo.put("g1_max_in_flight_writes", getMaxInFlightWrites(this));
+            coreInfo.put("g1_bitmap_dither_mode", getBitmapDitherMode(this).name().toLowerCase(Locale.US));
             coreInfo.put("default_wearable", AugmentosSmartGlassesService.getPreferredWearable(this));
             status.put("core_info", coreInfo);
             //Log.d(TAG, "PREFER - Got default wearable: " + AugmentosSmartGlassesService.getPreferredWearable(this));
@@ -871,16 +892,16 @@ public class AugmentosService extends Service implements AugmentOsActionsCallbac
             }
 
             @Override
-            public void onDisplayEvent(JSONObject displayData) {
+            public void onDisplayEvent(DisplayEvent displayData) {
                 Runnable newRunnable = parseDisplayEventMessage(displayData);
                 if (smartGlassesService != null)
                     smartGlassesService.windowManager.showAppLayer("serverappid", newRunnable, -1);
                 if (blePeripheral != null)
-                    blePeripheral.sendGlassesDisplayEventToManager(displayData);  //THIS LINE RIGHT HERE ENDS UP TRIGGERING IT
+                    blePeripheral.sendGlassesDisplayEventToManager(displayData.rawJson);  //THIS LINE RIGHT HERE ENDS UP TRIGGERING IT
             }
 
             @Override
-            public void onDashboardDisplayEvent(JSONObject dashboardDisplayData) {
+            public void onDashboardDisplayEvent(DisplayEvent dashboardDisplayData) {
                 cachedDashboardDisplayObject = dashboardDisplayData;
                 cachedDashboardDisplayRunnable = parseDisplayEventMessage(dashboardDisplayData);
             }
@@ -1058,6 +1079,26 @@ public class AugmentosService extends Service implements AugmentOsActionsCallbac
         editor.apply();
     }
 
+    @Override
+    public void setTranscriptSpillEnabled(boolean transcriptSpillEnabled) {
+        SharedPreferences.Editor editor = this.getSharedPreferences("AugmentOSPrefs", Context.MODE_PRIVATE).edit();
+        editor.putBoolean("transcript_spill_enabled", transcriptSpillEnabled);
+        editor.apply();
+        applyTranscriptSpill(transcriptSpillEnabled);
+        sendStatusToAugmentOsManager();
+    }
+
+    public boolean getTranscriptSpillEnabled() {
+        return this.getSharedPreferences("AugmentOSPrefs", Context.MODE_PRIVATE).getBoolean("transcript_spill_enabled", false);
+    }
+
+    // Final transcripts are also appended to files/transcripts.tsv, rolled over at a few MB
+    private void applyTranscriptSpill(boolean enabled) {
+        if (asrPlanner != null) {
+            asrPlanner.getTranscriptStore().setSpillFile(enabled ? new File(getFilesDir(), "transcripts.tsv") : null);
+        }
+    }
+
     @Override
     public void installAppFromRepository(String repository, String packageName) throws JSONException {
         Log.d("AugmentOsService", "Installing app from repository: " + packageName);
@@ -1130,6 +1171,66 @@ public class AugmentosService extends Service implements AugmentOsActionsCallbac
         }
     }
 
+    @Override
+    public void setAudioUplinkCodec(String codecName) {
+        AudioUplinkCodec codec = AudioUplinkCodec.fromWireName(codecName);
+        if (codec == null) {
+            blePeripheral.sendNotifyManager("Unknown audio codec " + codecName, "error");
+            return;
+        }
+        AugmentosSmartGlassesService.setAudioUplinkCodec(this, codec);
+        ServerComms serverComms = ServerComms.getInstance();
+        serverComms.setUplinkCodec(codec, serverComms.getOpusBitrateBps(), serverComms.getOpusFrameMs());
+        sendStatusToAugmentOsManager();
+    }
+
+    @Override
+    public void setG1IncrementalTextEnabled(boolean enabled) {
+        saveIncrementalTextEnabled(this, enabled);
+        if(smartGlassesService != null && smartGlassesService.getConnectedSmartGlasses() != null) {
+            blePeripheral.sendNotifyManager(this.getResources().getString(R.string.SETTING_WILL_APPLY_ON_NEXT_GLASSES_CONNECTION), "success");
+        }
+        sendStatusToAugmentOsManager();
+    }
+
+    @Override
+    public void setG1PartialBitmapUpdatesEnabled(boolean enabled) {
+        savePartialBitmapUpdatesEnabled(this, enabled);
+        if(smartGlassesService != null && smartGlassesService.getConnectedSmartGlasses() != null) {
+            blePeripheral.sendNotifyManager(this.getResources().getString(R.string.SETTING_WILL_APPLY_ON_NEXT_GLASSES_CONNECTION), "success");
+        }
+        sendStatusToAugmentOsManager();
+    }
+
+    @Override
+    public void setG1MaxInFlightWrites(int maxInFlightWrites) {
+        if (maxInFlightWrites < 1) {
+            blePeripheral.sendNotifyManager("Max in-flight writes must be at least 1", "error");
+            return;
+        }
+        saveMaxInFlightWrites(this, maxInFlightWrites);
+        if(smartGlassesService != null && smartGlassesService.getConnectedSmartGlasses() != null) {
+            blePeripheral.sendNotifyManager(this.getResources().getString(R.string.SETTING_WILL_APPLY_ON_NEXT_GLASSES_CONNECTION), "success");
+        }
+        sendStatusToAugmentOsManager();
+    }
+
+    @Override
+    public void setG1BitmapDitherMode(String ditherModeName) {
+        MonochromeBmpEncoder.DitherMode ditherMode;
+        try {
+            ditherMode = MonochromeBmpEncoder.DitherMode.valueOf(ditherModeName.toUpperCase(Locale.US));
+        } catch (IllegalArgumentException e) {
+            blePeripheral.sendNotifyManager("Unknown dither mode " + ditherModeName, "error");
+            return;
+        }
+        saveBitmapDitherMode(this, ditherMode);
+        if(smartGlassesService != null && smartGlassesService.getConnectedSmartGlasses() != null) {
+            blePeripheral.sendNotifyManager(this.getResources().getString(R.string.SETTING_WILL_APPLY_ON_NEXT_GLASSES_CONNECTION), "success");
+        }
+        sendStatusToAugmentOsManager();
+    }
+
     @Override
     public void setAuthSecretKey(String uniqueUserId, String authSecretKey) {
         Log.d("AugmentOsService", "Setting auth secret key: " + authSecretKey);
@@ -1208,6 +1309,10 @@ public class AugmentosService extends Service implements AugmentOsActionsCallbac
             edgeTpaSystem.destroy();
         }
 
+        if (asrPlanner != null) {
+            asrPlanner.destroy();
+        }
+
         if (webSocketLifecycleManager != null) {
             webSocketLifecycleManager.cleanup();
         }
@@ -0,0 +1,180 @@
+package com.augmentos.augmentos_core;
+
+import android.util.Log;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The most recent final transcripts, with when they were heard, their language and which TPAs got
+ * them.
+ *
+ * Segments live in a ring that holds at most {@link #MAX_SEGMENTS} of them and
+ * {@link #MAX_CHARS} characters of text, so memory stays flat however long core runs. Times
+ * only go forward in the ring, which lets range queries binary search for their start. If a spill
+ * file is set, every segment is also appended to it, off the calling thread.
+ */
+public class TranscriptStore {
+    private static final String TAG = "WearableAi_TranscriptStore";
+    public static final int MAX_SEGMENTS = 4096;
+    public static final int MAX_CHARS = 512 * 1024;
+    // The spill file is rolled over to <name>.1 past this, so disk use is bounded too
+    private static final long MAX_SPILL_BYTES = 8 * 1024 * 1024;
+    private static final String[] NO_TPAS = new String[0];
+
+    public static class Segment {
+        public final long timeMs;
+        public final String languageCode;
+        public final String text;
+        // Packages the transcript was sent to, shared with AsrPlanner, don't modify it
+        public final String[] tpaPackageNames;
+
+        Segment(long timeMs, String languageCode, String text, String[] tpaPackageNames) {
+            this.timeMs = timeMs;
+            this.languageCode = languageCode;
+            this.text = text;
+            this.tpaPackageNames = tpaPackageNames;
+        }
+    }
+
+    private final Segment[] ring = new Segment[MAX_SEGMENTS];
+    private int oldest = 0;
+    private int size = 0;
+    private long totalChars = 0;
+    private long lastTimeMs = 0;
+
+    private ExecutorService spillExecutor;
+    private File spillFile;
+
+    // Counters, guarded by this
+    private long added = 0;
+    private long evicted = 0;
+    private long spillErrors = 0;
+
+    public synchronized void add(long timeMs, String languageCode, String text, String[] tpaPackageNames) {
+        if (text == null) {
+            return;
+        }
+        // A clock step backwards mustn't break the ordering the queries rely on
+        lastTimeMs = Math.max(lastTimeMs, timeMs);
+        Segment segment = new Segment(lastTimeMs, languageCode, text, tpaPackageNames == null ? NO_TPAS : tpaPackageNames);
+
+        if (size == MAX_SEGMENTS) {
+            evictOldest();
+        }
+        ring[(oldest + size) % MAX_SEGMENTS] = segment;
+        size++;
+        totalChars += text.length();
+        while (totalChars > MAX_CHARS && size > 1) {
+            evictOldest();
+        }
+        added++;
+
+        if (spillExecutor != null) {
+            File file = spillFile;
+            spillExecutor.execute(() -> spill(file, segment));
+        }
+    }
+
+    private void evictOldest() {
+        totalChars -= ring[oldest].text.length();
+        ring[oldest] = null;
+        oldest = (oldest + 1) % MAX_SEGMENTS;
+        size--;
+        evicted++;
+    }
+
+    private Segment get(int index) {
+        return ring[(oldest + index) % MAX_SEGMENTS];
+    }
+
+    // Index of the first segment at or after timeMs, or size if there's none
+    private int firstAtOrAfter(long timeMs) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (get(mid).timeMs < timeMs) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Segments from fromMs up to but not including toMs, oldest first.
+     */
+    public synchronized List<Segment> getRange(long fromMs, long toMs) {
+        int start = firstAtOrAfter(fromMs);
+        int end = firstAtOrAfter(toMs);
+        List<Segment> segments = new ArrayList<>(Math.max(0, end - start));
+        for (int i = start; i < end; i++) {
+            segments.add(get(i));
+        }
+        return segments;
+    }
+
+    public List<Segment> getLastMinutes(int minutes) {
+        return getRange(System.currentTimeMillis() - minutes * 60_000L, Long.MAX_VALUE);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized long getTotalChars() {
+        return totalChars;
+    }
+
+    /**
+     * Also appends every segment from now on to the file, one tab-separated line each. Null stops
+     * spilling; segments already queued are still written.
+     */
+    public synchronized void setSpillFile(File file) {
+        spillFile = file;
+        if (file == null) {
+            destroy();
+        } else if (spillExecutor == null) {
+            spillExecutor = Executors.newSingleThreadExecutor();
+        }
+    }
+
+    private void spill(File file, Segment segment) {
+        if (file.length() > MAX_SPILL_BYTES && !file.renameTo(new File(file.getPath() + ".1"))) {
+            Log.d(TAG, "Couldn't roll over " + file);
+        }
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file, true))) {
+            writer.write(segment.timeMs + "\t" + segment.languageCode + "\t"
+                    + String.join(",", segment.tpaPackageNames) + "\t"
+                    + segment.text.replace('\n', ' ').replace('\t', ' '));
+            writer.newLine();
+        } catch (IOException e) {
+            synchronized (this) {
+                spillErrors++;
+            }
+            Log.e(TAG, "Couldn't spill transcript to " + file, e);
+        }
+    }
+
+    public synchronized void destroy() {
+        if (spillExecutor != null) {
+            spillExecutor.shutdown();
+            spillExecutor = null;
+        }
+    }
+
+    public synchronized String getStatsSummary() {
+        return String.format(Locale.US,
+                "transcript store: segments=%d/%d chars=%d/%d added=%d evicted=%d spillErrors=%d",
+                size, MAX_SEGMENTS, totalChars, MAX_CHARS, added, evicted, spillErrors);
+    }
+}
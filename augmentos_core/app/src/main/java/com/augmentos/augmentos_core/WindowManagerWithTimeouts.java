@@ -4,10 +4,12 @@ import android.util.Log;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class WindowManagerWithTimeouts {
     public static final String TAG = "WindowManager";
     private static final int DEFAULT_LINGER_TIME = 0; // or any default you want
+    private static final int STATS_LOG_INTERVAL_RENDERS = 100;
     private final int globalTimeoutSeconds;
     private long lastGlobalUpdate; // track when *any* layer was last updated
 
@@ -21,6 +23,19 @@ public class WindowManagerWithTimeouts {
     private long currentlyDisplayedLayerTimestamp = 0;
     private boolean globalTimedOut = false;
 
+    // Renders run on the scheduler thread. Updates that arrive while one is pending just
+    // replace the layer's command, so a burst only draws (and decodes) its last frame.
+    private final AtomicBoolean renderPending = new AtomicBoolean(false);
+
+    // Render stats, guarded by this. Requests are show/hide calls, superseded ones were merged
+    // into a render that was already pending, idle renders found nothing new to draw
+    private long renderRequests = 0;
+    private long supersededRequests = 0;
+    private long renders = 0;
+    private long idleRenders = 0;
+    private long totalRenderMs = 0;
+    private long maxRenderMs = 0;
+    private long peakUsedHeapBytes = 0;
 
     /**
      * @param globalTimeoutSeconds - if no updates for this many seconds, call globalTimeoutAction
@@ -41,7 +56,7 @@ public class WindowManagerWithTimeouts {
      * @param displayCommand - code that does the actual display
      * @param lingerTimeSecs - after how many seconds this layer should auto-hide (0 = never, -1 = match global)
      */
-    public void showAppLayer(String layerId, Runnable displayCommand, int lingerTimeSecs) {
+    public synchronized void showAppLayer(String layerId, Runnable displayCommand, int lingerTimeSecs) {
         globalTimedOut = false; // new user update => no longer timed out
         Layer layer = findLayer(layerId);
         if (layer == null) {
@@ -53,21 +68,21 @@ public class WindowManagerWithTimeouts {
         layer.setLastUpdated(System.currentTimeMillis());
         layer.setLingerTimeSeconds(lingerTimeSecs == -1 ? globalTimeoutSeconds : lingerTimeSecs);
         updateGlobalTimestamp();
-        updateDisplay();
+        requestDisplayUpdate();
     }
 
-    public void hideAppLayer(String layerId) {
+    public synchronized void hideAppLayer(String layerId) {
         Layer layer = findLayer(layerId);
         if (layer != null) {
             layer.setVisible(false);
-            updateDisplay();
+            requestDisplayUpdate();
         }
     }
 
     /**
      * Dashboard is always on top if visible.
      */
-    public void showDashboard(Runnable displayCommand, int lingerTimeSecs) {
+    public synchronized void showDashboard(Runnable displayCommand, int lingerTimeSecs) {
         globalTimedOut = false; // new user update => no longer timed out
         Layer dash = findLayer("DASHBOARD");
         if (dash == null) {
@@ -80,14 +95,14 @@ public class WindowManagerWithTimeouts {
         dash.setLastUpdated(System.currentTimeMillis());
         dash.setLingerTimeSeconds(lingerTimeSecs == -1 ? globalTimeoutSeconds : lingerTimeSecs);
         updateGlobalTimestamp();
-        updateDisplay();
+        requestDisplayUpdate();
     }
 
-    public void hideDashboard() {
+    public synchronized void hideDashboard() {
         Layer dash = findLayer("DASHBOARD");
         if (dash != null) {
             dash.setVisible(false);
-            updateDisplay();
+            requestDisplayUpdate();
         }
     }
 
@@ -95,7 +110,7 @@ public class WindowManagerWithTimeouts {
      * Check if any layer’s lingerTime has passed; if so, hide that layer.
      * Also check for global inactivity.
      */
-    private void checkTimeouts() {
+    private synchronized void checkTimeouts() {
         long now = System.currentTimeMillis();
 
         // Check global timeout
@@ -122,15 +137,55 @@ public class WindowManagerWithTimeouts {
         updateDisplay();
     }
 
+    // Called with this held, for a show or hide; the timeout checks don't count as requests
+    private void requestDisplayUpdate() {
+        renderRequests++;
+        if (!updateDisplay()) {
+            supersededRequests++;
+        }
+    }
+
+    /**
+     * Schedules a render of whichever layer is on top, unless one is already pending.
+     * @return false if one was already pending
+     */
+    private boolean updateDisplay() {
+        if (!renderPending.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            scheduler.execute(this::render);
+        } catch (RejectedExecutionException e) {
+            // shut down
+            renderPending.set(false);
+        }
+        return true;
+    }
+
     /**
      * Renders whichever layer is on top. If the dashboard is visible, it wins.
      */
-    private void updateDisplay() {
+    private void render() {
+        renderPending.set(false);
+        Runnable command = pickCommand();
+        if (command == null) {
+            synchronized (this) {
+                idleRenders++;
+            }
+            return;
+        }
+
+        // Run outside the lock so new updates aren't held up by a slow draw
+        long start = System.currentTimeMillis();
+        command.run();
+        recordRender(System.currentTimeMillis() - start);
+    }
+
+    private synchronized Runnable pickCommand() {
         // Dashboard first
         Layer dash = findLayer("DASHBOARD");
         if (dash != null && dash.isVisible()) {
-            maybeRunLayer(dash);
-            return;
+            return maybeRunLayer(dash);
         }
 
         // Otherwise newest visible layer
@@ -139,40 +194,59 @@ public class WindowManagerWithTimeouts {
                 .max(Comparator.comparingLong(Layer::getLastUpdated))
                 .orElse(null);
 
-        if (top != null) {
-            maybeRunLayer(top);
-        } else {
-            // No visible layers => optional clear
-            maybeRunLayer(null);
-        }
+        // No visible layers => optional clear
+        return maybeRunLayer(top);
     }
 
     /**
-     * Only call runCommand() if:
+     * Only returns something to run if:
      *  - The top layer is different from the currently displayed layer
      *  - OR the same layer but with a more recent lastUpdated
      *  - OR null if we want to clear the screen
      */
-    private void maybeRunLayer(Layer newTop) {
+    private Runnable maybeRunLayer(Layer newTop) {
         if (newTop == null) {
             // We want to clear the display if something *was* shown before
             if (currentlyDisplayedLayer != null) {
-                // Clear
-                globalTimeoutAction.run();
                 currentlyDisplayedLayer = null;
                 currentlyDisplayedLayerTimestamp = 0;
+                // Clear
+                return globalTimeoutAction;
             }
-            return;
+            return null;
         }
 
         boolean isDifferentLayer = (currentlyDisplayedLayer != newTop);
         boolean isUpdatedContent = (newTop.getLastUpdated() != currentlyDisplayedLayerTimestamp);
 
         if (isDifferentLayer || isUpdatedContent) {
-            newTop.runCommand();
             currentlyDisplayedLayer = newTop;
             currentlyDisplayedLayerTimestamp = newTop.getLastUpdated();
+            return newTop.getDisplayCommand();
         }
+        return null;
+    }
+
+    private synchronized void recordRender(long renderMs) {
+        renders++;
+        totalRenderMs += renderMs;
+        maxRenderMs = Math.max(maxRenderMs, renderMs);
+        Runtime runtime = Runtime.getRuntime();
+        peakUsedHeapBytes = Math.max(peakUsedHeapBytes, runtime.totalMemory() - runtime.freeMemory());
+        if (renders % STATS_LOG_INTERVAL_RENDERS == 0) {
+            Log.d(TAG, getStatsSummary());
+        }
+    }
+
+    /**
+     * Superseded is how many show/hide requests were folded into a later frame instead of drawn.
+     */
+    public synchronized String getStatsSummary() {
+        return String.format(Locale.US,
+                "display: requests=%d superseded=%d renders=%d idleRenders=%d avgRender=%.1fms maxRender=%dms peakHeap=%.1fMB",
+                renderRequests, supersededRequests, renders, idleRenders,
+                renders == 0 ? 0 : (double) totalRenderMs / renders, maxRenderMs,
+                peakUsedHeapBytes / (1024.0 * 1024.0));
     }
 
     private Layer findLayer(String layerId) {
@@ -188,7 +262,7 @@ public class WindowManagerWithTimeouts {
         lastGlobalUpdate = System.currentTimeMillis();
     }
 
-    public void clearAll() {
+    public synchronized void clearAll() {
         layers.clear();  // Remove all layers
         //currentlyDisplayedLayer = null;
         currentlyDisplayedLayerTimestamp = 0;
@@ -200,7 +274,7 @@ public class WindowManagerWithTimeouts {
         scheduler.shutdownNow();
     }
 
-    public boolean isDashboardShowing() {
+    public synchronized boolean isDashboardShowing() {
         if (currentlyDisplayedLayer != null && currentlyDisplayedLayer.id.equals("DASHBOARD")) {
             Log.d(TAG, "Dashboard is showing confirmed!");
             return true;
@@ -228,10 +302,8 @@ public class WindowManagerWithTimeouts {
         public void setDisplayCommand(Runnable cmd) {
             this.displayCommand = cmd;
         }
-        public void runCommand() {
-            if (displayCommand != null) {
-                displayCommand.run();
-            }
+        public Runnable getDisplayCommand() {
+            return displayCommand;
         }
 
         public boolean isVisible() { return visible; }
@@ -0,0 +1,98 @@
+package com.augmentos.augmentos_core.augmentos_backend;
+
+/**
+ * Fixed-capacity, sequence-numbered log of the encoded audio chunks we've captured, so audio
+ * missed while the WebSocket was down can be replayed in order once it's back.
+ *
+ * Every chunk gets the next chunk sequence number, and the sequence number of its first frame.
+ * Frames are 10ms of audio whatever the codec: one LC3 frame, or half of a 20ms Opus packet. When the journal is full the oldest chunk is overwritten; readers that fell behind see
+ * that as a gap between the frame sequence they expected and the first one still held.
+ */
+public class AudioJournal {
+    public static final int LC3_FRAME_BYTES = 20;
+
+    public static class Entry {
+        public final long seq;
+        public final long firstFrameSeq;
+        public final long capturedAtMs;
+        public final byte[] data;
+        public final int frames;
+        public final AudioUplinkCodec codec;
+
+        Entry(long seq, long firstFrameSeq, long capturedAtMs, byte[] data, int frames, AudioUplinkCodec codec) {
+            this.seq = seq;
+            this.firstFrameSeq = firstFrameSeq;
+            this.capturedAtMs = capturedAtMs;
+            this.data = data;
+            this.frames = frames;
+            this.codec = codec;
+        }
+
+        public int frameCount() {
+            return frames;
+        }
+    }
+
+    private final Entry[] entries;
+    private long nextSeq = 0;
+    private long nextFrameSeq = 0;
+
+    public AudioJournal(int capacityChunks) {
+        this.entries = new Entry[capacityChunks];
+    }
+
+    public synchronized void append(byte[] lc3) {
+        append(lc3, lc3.length / LC3_FRAME_BYTES, AudioUplinkCodec.LC3);
+    }
+
+    /**
+     * @param frames how many 10ms frames of audio {@code data} holds
+     */
+    public synchronized void append(byte[] data, int frames, AudioUplinkCodec codec) {
+        Entry entry = new Entry(nextSeq, nextFrameSeq, System.currentTimeMillis(), data, frames, codec);
+        entries[(int) (nextSeq % entries.length)] = entry;
+        nextSeq++;
+        nextFrameSeq += entry.frameCount();
+        notifyAll();
+    }
+
+    /**
+     * Sequence number the next appended chunk will get.
+     */
+    public synchronized long getNextSeq() {
+        return nextSeq;
+    }
+
+    /**
+     * Oldest sequence number still held.
+     */
+    public synchronized long getOldestSeq() {
+        return Math.max(0, nextSeq - entries.length);
+    }
+
+    /**
+     * @return the entry for {@code seq}, or null if it was overwritten or hasn't been appended yet
+     */
+    public synchronized Entry get(long seq) {
+        if (seq < getOldestSeq() || seq >= nextSeq) {
+            return null;
+        }
+        return entries[(int) (seq % entries.length)];
+    }
+
+    /**
+     * Blocks until a chunk with sequence number {@code seq} or later has been appended.
+     * @return false if that didn't happen within {@code timeoutMs}
+     */
+    public synchronized boolean awaitSeq(long seq, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (nextSeq <= seq) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,369 @@
+package com.augmentos.augmentos_core.augmentos_backend;
+
+import android.util.Log;
+
+import java.nio.ByteBuffer;
+import java.util.Locale;
+
+/**
+ * Sends journaled audio over the WebSocket, packing consecutive chunks into one binary message.
+ *
+ * Audio goes into an {@link AudioJournal} and one long-lived sender thread follows it with a
+ * cursor that only moves once a message has been handed to the socket. Between {@link #stop()}
+ * and the next {@link #start()} (a connection_ack) the thread waits with the cursor where it is,
+ * so the missed window is then replayed in capture order, back to back, before live audio.
+ * Anything that fell out of the journal meanwhile is reported to the sink as a lost frame range
+ * just before the audio that follows it.
+ *
+ * How much gets packed is driven by a latency budget: a message goes out once it holds at least
+ * budget-worth of audio, or once its oldest chunk has waited that long. A backlog (e.g. replay
+ * after a reconnect) drains in large messages. With a budget of 0 every chunk is its own
+ * message, as before.
+ *
+ * In framed mode each message starts with a {@link #HEADER_SIZE}-byte big-endian header:
+ * version (1 byte), frame count (1 byte), sequence number of the first frame (4 bytes),
+ * capture time of the first frame in epoch ms (8 bytes). Frames are 10ms of audio (see
+ * {@link AudioJournal}) and their sequence numbers come from the journal, so a jump between
+ * messages is lost audio. Unframed messages are the plain concatenated chunks, which for LC3 the
+ * server already decodes.
+ *
+ * Only chunks in the current {@link AudioUplinkCodec} are sent; ones captured in another codec
+ * before a switch are skipped and reported as lost.
+ */
+public class AudioUplinkBatcher {
+    private static final String TAG = "WearableAi_AudioUplinkBatcher";
+
+    public static final int LC3_FRAME_MS = 10;
+    // Used until a pref or the server says otherwise, 4 G1 chunks
+    public static final int DEFAULT_LATENCY_BUDGET_MS = 40;
+    public static final int FRAMING_VERSION = 1;
+    public static final int HEADER_SIZE = 14;
+    // Frame count is one byte in the header
+    private static final int MAX_FRAMES_PER_MESSAGE = 255;
+    private static final long STATS_LOG_INTERVAL_MS = 60000;
+    // After the socket refused a message, e.g. with the audio lane full
+    private static final long SEND_RETRY_MS = 100;
+
+    public interface BinarySink {
+        /**
+         * @return false if the socket didn't accept the message, it'll be retried
+         */
+        boolean sendBinary(byte[] data, int offset, int length);
+
+        /**
+         * Frames [fromFrameSeq, toFrameSeq) were dropped from the journal before they could be sent.
+         */
+        void onAudioLost(long fromFrameSeq, long toFrameSeq);
+    }
+
+    private final AudioJournal journal;
+    private final BinarySink sink;
+    private final ByteBuffer message = ByteBuffer.allocate(HEADER_SIZE + MAX_FRAMES_PER_MESSAGE * AudioJournal.LC3_FRAME_BYTES);
+    private volatile int latencyBudgetMs = 0;
+    private volatile boolean framingEnabled = false;
+    private volatile AudioUplinkCodec codec = AudioUplinkCodec.LC3;
+    // Whether there's a session to send to, guarded by this
+    private boolean sessionOpen = false;
+    private volatile boolean shutDown = false;
+    // Guards creating and ending the sender thread, which never takes it
+    private final Object lifecycleLock = new Object();
+    private Thread senderThread;
+
+    // Sender cursor, only touched by the sender thread
+    private long sendSeq = 0;        // next journal chunk to send
+    private long expectedFrameSeq = 0; // first frame of that chunk, unless some were lost
+    private long messageEndSeq = 0;    // chunk after the last one in message
+    private AudioUplinkCodec messageCodec; // codec of the chunks in message
+    private boolean messageFramed;         // whether message starts with the header
+    private long lostFromFrameSeq = -1;
+    private long lostToFrameSeq = -1;
+
+    // Counters, guarded by this
+    private long messagesSent = 0;
+    private long framesSent = 0;
+    private long bytesSent = 0;
+    private long framesLost = 0;
+    private long gaps = 0;
+    private long totalBatchDelayMs = 0;
+    private long maxBatchDelayMs = 0;
+    private long statsStartMs = System.currentTimeMillis();
+
+    public AudioUplinkBatcher(int capacityChunks, BinarySink sink) {
+        this.journal = new AudioJournal(capacityChunks);
+        this.sink = sink;
+    }
+
+    /**
+     * Max audio, in ms, to hold back so it can share a message with the audio after it. 0 sends
+     * every chunk on its own; 40, 80 and 120 are the settings we compare.
+     */
+    public void setLatencyBudgetMs(int latencyBudgetMs) {
+        this.latencyBudgetMs = Math.max(0, latencyBudgetMs);
+    }
+
+    public int getLatencyBudgetMs() {
+        return latencyBudgetMs;
+    }
+
+    // The server has to strip the header, so only turn this on for servers that expect it
+    public void setFramingEnabled(boolean framingEnabled) {
+        this.framingEnabled = framingEnabled;
+    }
+
+    public boolean isFramingEnabled() {
+        return framingEnabled;
+    }
+
+    // What the server expects on this connection
+    public void setCodec(AudioUplinkCodec codec) {
+        this.codec = codec;
+    }
+
+    public AudioUplinkCodec getCodec() {
+        return codec;
+    }
+
+    public void offer(byte[] lc3) {
+        journal.append(lc3);
+    }
+
+    /**
+     * @param frames how many 10ms frames of audio {@code data} holds
+     */
+    public void offer(byte[] data, int frames, AudioUplinkCodec codec) {
+        journal.append(data, frames, codec);
+    }
+
+    /**
+     * A session is up (connection_ack): send from where the cursor is. The sender thread is
+     * created on the first call and then kept, so there's never more than one.
+     */
+    public void start() {
+        synchronized (lifecycleLock) {
+            shutDown = false;
+            setSessionOpen(true);
+            if (senderThread == null) {
+                senderThread = new Thread(this::sendLoop, "AudioSenderThread");
+                senderThread.start();
+            }
+        }
+    }
+
+    /**
+     * The session is gone: the sender waits, keeping its place, until the next {@link #start()}.
+     */
+    public void stop() {
+        setSessionOpen(false);
+    }
+
+    /**
+     * Ends the sender thread for good and waits for it to exit.
+     */
+    public void shutdown() {
+        synchronized (lifecycleLock) {
+            shutDown = true;
+            setSessionOpen(false);
+            if (senderThread == null) {
+                return;
+            }
+            senderThread.interrupt();
+            try {
+                senderThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            senderThread = null;
+        }
+    }
+
+    private synchronized void setSessionOpen(boolean open) {
+        sessionOpen = open;
+        notifyAll();
+    }
+
+    // Blocks while there's no session; false once shut down
+    private synchronized boolean awaitSession() throws InterruptedException {
+        while (!sessionOpen && !shutDown) {
+            wait();
+        }
+        return !shutDown;
+    }
+
+    // Waits out a refused send, or less if the session opens or closes meanwhile
+    private synchronized void awaitRetry() throws InterruptedException {
+        if (!shutDown) {
+            wait(SEND_RETRY_MS);
+        }
+    }
+
+    private void sendLoop() {
+        long lastStatsLogMs = System.currentTimeMillis();
+        try {
+            while (!shutDown) {
+                if (!journal.awaitSeq(sendSeq, STATS_LOG_INTERVAL_MS)) {
+                    continue;
+                }
+                int frames = fillMessage();
+                if (frames < 0) {
+                    continue;
+                }
+                if (frames == 0) {
+                    // nothing sendable in it
+                    sendSeq = messageEndSeq;
+                    continue;
+                }
+                // Keep our place, we pick up from here after the next connection_ack
+                if (!awaitSession()) break;
+                if (messageCodec != codec || messageFramed != framingEnabled) {
+                    // the new session wants another codec or framing than we built for, rebuild
+                    continue;
+                }
+
+                if (lostFromFrameSeq >= 0) {
+                    sink.onAudioLost(lostFromFrameSeq, lostToFrameSeq);
+                    lostFromFrameSeq = -1;
+                    lostToFrameSeq = -1;
+                }
+                if (!sink.sendBinary(message.array(), 0, message.position())) {
+                    awaitRetry();
+                    continue;
+                }
+                sendSeq = messageEndSeq;
+                expectedFrameSeq += frames;
+                recordSent(frames, message.position());
+
+                long now = System.currentTimeMillis();
+                if (now - lastStatsLogMs >= STATS_LOG_INTERVAL_MS) {
+                    Log.d(TAG, getStatsSummary());
+                    lastStatsLogMs = now;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Builds a message starting at the cursor: the first chunk still in the journal, then more
+     * chunks until the budget is met, the oldest one has waited out the budget, or the message
+     * is full. Records any frames lost before the first chunk.
+     * @return the number of frames in {@link #message}, or -1 if the chunk at the cursor was in
+     * another codec and got skipped
+     */
+    private int fillMessage() throws InterruptedException {
+        AudioJournal.Entry first = journal.get(sendSeq);
+        while (first == null) {
+            // overwritten while we were behind, skip to the oldest chunk still held
+            sendSeq = journal.getOldestSeq();
+            first = journal.get(sendSeq);
+        }
+        AudioUplinkCodec currentCodec = codec;
+        if (first.codec != currentCodec) {
+            // Captured before a codec switch, the server can't decode it; shows up as a gap
+            sendSeq = first.seq + 1;
+            return -1;
+        }
+        if (first.firstFrameSeq > expectedFrameSeq) {
+            long lost = first.firstFrameSeq - expectedFrameSeq;
+            if (lostFromFrameSeq < 0) {
+                lostFromFrameSeq = expectedFrameSeq;
+            }
+            lostToFrameSeq = first.firstFrameSeq;
+            synchronized (this) {
+                framesLost += lost;
+                gaps++;
+            }
+            Log.w(TAG, "Lost " + lost + " audio frames (" + lost * LC3_FRAME_MS + "ms) before they could be sent");
+            expectedFrameSeq = first.firstFrameSeq;
+        }
+
+        boolean framed = framingEnabled;
+        int budgetMs = latencyBudgetMs;
+        message.clear();
+        if (framed) {
+            message.position(HEADER_SIZE);
+        }
+        int frames = append(first);
+        long seq = first.seq + 1;
+        long deadline = first.capturedAtMs + budgetMs;
+
+        while (budgetMs > 0) {
+            AudioJournal.Entry next = journal.get(seq);
+            if (next == null) {
+                // nothing queued up behind: wait for more audio only while under budget
+                if (seq < journal.getOldestSeq() || frames * LC3_FRAME_MS >= budgetMs) break;
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0 || !journal.awaitSeq(seq, wait)) break;
+                continue;
+            }
+            if (next.codec != currentCodec || next.data.length > message.remaining()
+                    || frames + next.frameCount() > MAX_FRAMES_PER_MESSAGE) {
+                break;
+            }
+            frames += append(next);
+            seq++;
+        }
+        messageEndSeq = seq;
+        messageCodec = currentCodec;
+        messageFramed = framed;
+
+        if (framed) {
+            message.put(0, (byte) FRAMING_VERSION);
+            message.put(1, (byte) frames);
+            message.putInt(2, (int) first.firstFrameSeq);
+            message.putLong(6, first.capturedAtMs);
+        }
+
+        long delay = System.currentTimeMillis() - first.capturedAtMs;
+        synchronized (this) {
+            totalBatchDelayMs += delay;
+            maxBatchDelayMs = Math.max(maxBatchDelayMs, delay);
+        }
+        return frames;
+    }
+
+    private int append(AudioJournal.Entry entry) {
+        if (entry.data.length > message.remaining()) {
+            // Only possible for a single oversized chunk; LC3 splits on frames, Opus can't be split
+            if (entry.codec != AudioUplinkCodec.LC3) {
+                Log.w(TAG, "Dropping oversized " + entry.codec + " chunk of " + entry.data.length + " bytes");
+                return 0;
+            }
+            int length = message.remaining() - message.remaining() % AudioJournal.LC3_FRAME_BYTES;
+            message.put(entry.data, 0, length);
+            return length / AudioJournal.LC3_FRAME_BYTES;
+        }
+        message.put(entry.data);
+        return entry.frameCount();
+    }
+
+    private synchronized void recordSent(int frames, int bytes) {
+        messagesSent++;
+        framesSent += frames;
+        bytesSent += bytes;
+    }
+
+    public synchronized void resetStats() {
+        messagesSent = 0;
+        framesSent = 0;
+        bytesSent = 0;
+        framesLost = 0;
+        gaps = 0;
+        totalBatchDelayMs = 0;
+        maxBatchDelayMs = 0;
+        statsStartMs = System.currentTimeMillis();
+    }
+
+    /**
+     * Messages per second is what costs radio wakeups, so compare it (and bytes per second for
+     * header overhead) across budgets.
+     */
+    public synchronized String getStatsSummary() {
+        double elapsedSec = Math.max(1, System.currentTimeMillis() - statsStartMs) / 1000.0;
+        return String.format(Locale.US,
+                "audio uplink (%s budget=%dms framed=%b): msgs=%d (%.1f/s) frames/msg=%.1f %.0fB/s avgBatchDelay=%.1fms maxBatchDelay=%dms lost=%d frames in %d gaps",
+                codec, latencyBudgetMs, framingEnabled, messagesSent, messagesSent / elapsedSec,
+                messagesSent == 0 ? 0 : (double) framesSent / messagesSent, bytesSent / elapsedSec,
+                messagesSent == 0 ? 0 : (double) totalBatchDelayMs / messagesSent, maxBatchDelayMs, framesLost, gaps);
+    }
+}
@@ -0,0 +1,28 @@
+package com.augmentos.augmentos_core.augmentos_backend;
+
+/**
+ * Codec of the audio we stream to the cloud. connection_init offers the ones this build can
+ * encode, preferred one first, and the server may pick another in connection_ack.
+ */
+public enum AudioUplinkCodec {
+    // 10ms frames of 20 bytes, concatenated
+    LC3("lc3"),
+    // Raw Opus packets, each prefixed with its 2-byte big-endian length
+    OPUS("opus");
+
+    public final String wireName;
+
+    AudioUplinkCodec(String wireName) {
+        this.wireName = wireName;
+    }
+
+    // Null for anything we don't know
+    public static AudioUplinkCodec fromWireName(String wireName) {
+        for (AudioUplinkCodec codec : values()) {
+            if (codec.wireName.equals(wireName)) {
+                return codec;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,296 @@
+package com.augmentos.augmentos_core.augmentos_backend;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * Encoding for the hot core/cloud control messages, plus cheap parsing of their JSON form.
+ *
+ * When both sides agree on {@link #PROTOCOL_BINARY} (offered in connection_init, picked in
+ * connection_ack), these messages go as binary WebSocket frames instead of JSON. Each frame is a
+ * kind byte followed by its body. {@link #KIND_AUDIO} is framed LC3 audio (see
+ * {@link AudioUplinkBatcher}) and {@link #KIND_CONTROL} is one protobuf-encoded message:
+ *
+ * <pre>
+ * message ControlMessage {
+ *   MessageType type = 1;
+ *   int64 timestamp = 2;          // epoch ms
+ *   bool status = 3;              // VAD
+ *   string position = 4;          // HEAD_POSITION
+ *   int32 level = 5;              // *_BATTERY
+ *   bool charging = 6;            // *_BATTERY
+ *   int32 time_remaining = 7;     // *_BATTERY, optional
+ *   double lat = 8;               // LOCATION
+ *   double lng = 9;               // LOCATION
+ *   string json = 10;             // CORE_STATUS, the free-form status object
+ *   string text = 11;             // INTERIM / FINAL
+ *   string language = 12;         // INTERIM / FINAL
+ *   string translate_language = 13; // INTERIM / FINAL, only for translations
+ * }
+ * </pre>
+ *
+ * Everything else stays JSON, as does everything when the server only speaks JSON.
+ */
+public final class CloudMessageCodec {
+    public static final String PROTOCOL_JSON = "json";
+    public static final String PROTOCOL_BINARY = "pb1";
+
+    public static final byte KIND_AUDIO = AudioUplinkBatcher.FRAMING_VERSION;
+    public static final byte KIND_CONTROL = 0x02;
+
+    // MessageType
+    public static final int TYPE_VAD = 1;
+    public static final int TYPE_HEAD_POSITION = 2;
+    public static final int TYPE_GLASSES_BATTERY = 3;
+    public static final int TYPE_PHONE_BATTERY = 4;
+    public static final int TYPE_LOCATION = 5;
+    public static final int TYPE_CORE_STATUS = 6;
+    public static final int TYPE_INTERIM = 7;
+    public static final int TYPE_FINAL = 8;
+
+    private static final int FIELD_TYPE = 1;
+    private static final int FIELD_TIMESTAMP = 2;
+    private static final int FIELD_STATUS = 3;
+    private static final int FIELD_POSITION = 4;
+    private static final int FIELD_LEVEL = 5;
+    private static final int FIELD_CHARGING = 6;
+    private static final int FIELD_TIME_REMAINING = 7;
+    private static final int FIELD_LAT = 8;
+    private static final int FIELD_LNG = 9;
+    private static final int FIELD_JSON = 10;
+    private static final int FIELD_TEXT = 11;
+    private static final int FIELD_LANGUAGE = 12;
+    private static final int FIELD_TRANSLATE_LANGUAGE = 13;
+
+    /**
+     * An interim or final transcript, from either encoding.
+     */
+    public static class Transcript {
+        public boolean isFinal;
+        public String text;
+        public String language;
+        public String translateLanguage; // null unless this is a translation
+        public long timestampMs;
+    }
+
+    private CloudMessageCodec() {
+    }
+
+    // ------------------------------------------------------------------------
+    // ENCODING (core -> cloud)
+    // ------------------------------------------------------------------------
+
+    public static byte[] encodeVad(boolean isSpeaking) {
+        return encode(TYPE_VAD, (out) -> out.writeBool(FIELD_STATUS, isSpeaking));
+    }
+
+    public static byte[] encodeHeadPosition(String position) {
+        return encode(TYPE_HEAD_POSITION, (out) -> out.writeString(FIELD_POSITION, position));
+    }
+
+    public static byte[] encodeBattery(int type, int level, boolean charging, Integer timeRemaining) {
+        return encode(type, (out) -> {
+            out.writeInt32(FIELD_LEVEL, level);
+            out.writeBool(FIELD_CHARGING, charging);
+            if (timeRemaining != null) {
+                out.writeInt32(FIELD_TIME_REMAINING, timeRemaining);
+            }
+        });
+    }
+
+    public static byte[] encodeLocation(double lat, double lng) {
+        return encode(TYPE_LOCATION, (out) -> {
+            out.writeDouble(FIELD_LAT, lat);
+            out.writeDouble(FIELD_LNG, lng);
+        });
+    }
+
+    public static byte[] encodeCoreStatus(String statusJson) {
+        return encode(TYPE_CORE_STATUS, (out) -> out.writeString(FIELD_JSON, statusJson));
+    }
+
+    // The server's side of a transcript, for tests
+    static byte[] encodeTranscript(Transcript transcript) {
+        return encode(transcript.isFinal ? TYPE_FINAL : TYPE_INTERIM, transcript.timestampMs, (out) -> {
+            out.writeString(FIELD_TEXT, transcript.text);
+            out.writeString(FIELD_LANGUAGE, transcript.language);
+            if (transcript.translateLanguage != null) {
+                out.writeString(FIELD_TRANSLATE_LANGUAGE, transcript.translateLanguage);
+            }
+        });
+    }
+
+    private interface BodyWriter {
+        void write(CodedOutputStream out) throws IOException;
+    }
+
+    private static byte[] encode(int type, BodyWriter body) {
+        return encode(type, System.currentTimeMillis(), body);
+    }
+
+    private static byte[] encode(int type, long timestampMs, BodyWriter body) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            bytes.write(KIND_CONTROL);
+            CodedOutputStream out = CodedOutputStream.newInstance(bytes, 64);
+            out.writeEnum(FIELD_TYPE, type);
+            out.writeInt64(FIELD_TIMESTAMP, timestampMs);
+            body.write(out);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            // ByteArrayOutputStream doesn't throw
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // DECODING (cloud -> core)
+    // ------------------------------------------------------------------------
+
+    /**
+     * Decodes a {@link #KIND_CONTROL} frame carrying a transcript.
+     * @return the transcript, or null if the frame is some other message type
+     */
+    public static Transcript decodeTranscript(byte[] frame) throws IOException {
+        if (frame.length == 0 || frame[0] != KIND_CONTROL) {
+            return null;
+        }
+        CodedInputStream in = CodedInputStream.newInstance(frame, 1, frame.length - 1);
+        Transcript transcript = new Transcript();
+        int type = 0;
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case FIELD_TYPE:
+                    type = in.readEnum();
+                    break;
+                case FIELD_TIMESTAMP:
+                    transcript.timestampMs = in.readInt64();
+                    break;
+                case FIELD_TEXT:
+                    transcript.text = in.readString();
+                    break;
+                case FIELD_LANGUAGE:
+                    transcript.language = in.readString();
+                    break;
+                case FIELD_TRANSLATE_LANGUAGE:
+                    transcript.translateLanguage = in.readString();
+                    break;
+                default:
+                    in.skipField(tag);
+                    break;
+            }
+        }
+        if (type != TYPE_INTERIM && type != TYPE_FINAL) {
+            return null;
+        }
+        transcript.isFinal = type == TYPE_FINAL;
+        return transcript;
+    }
+
+    /**
+     * Reads the top-level "type" of a JSON message without parsing the rest of it.
+     * @return the type, or null if there isn't a string one
+     */
+    public static String peekJsonType(String json) {
+        int depth = 0;
+        int n = json.length();
+        for (int i = 0; i < n; i++) {
+            char c = json.charAt(i);
+            if (c == '"') {
+                int end = skipString(json, i);
+                if (end < 0) return null;
+                if (depth == 1 && end == i + 5 && json.startsWith("type", i + 1)) {
+                    int j = skipWhitespace(json, end + 1);
+                    if (j < n && json.charAt(j) == ':') {
+                        j = skipWhitespace(json, j + 1);
+                        if (j >= n || json.charAt(j) != '"') return null;
+                        int valueEnd = skipString(json, j);
+                        return valueEnd < 0 ? null : json.substring(j + 1, valueEnd);
+                    }
+                }
+                i = end;
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                depth--;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Streams the fields of an "interim"/"final" JSON message, without building a JSONObject.
+     * The JSON timestamp is in seconds. Throws IOException if text, language or timestamp is
+     * missing or null, as the JSONObject getters this replaced did.
+     */
+    public static Transcript parseJsonTranscript(String json) throws IOException {
+        Transcript transcript = new Transcript();
+        boolean hasTimestamp = false;
+        try (JsonReader reader = new JsonReader(new StringReader(json))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "type":
+                        transcript.isFinal = "final".equals(reader.nextString());
+                        break;
+                    case "text":
+                        transcript.text = reader.nextString();
+                        break;
+                    case "language":
+                        transcript.language = reader.nextString();
+                        break;
+                    case "translateLanguage":
+                        transcript.translateLanguage = reader.nextString();
+                        break;
+                    case "timestamp":
+                        transcript.timestampMs = (long) (reader.nextDouble() * 1000);
+                        hasTimestamp = true;
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException("Malformed transcript: " + e.getMessage(), e);
+        }
+        if (transcript.text == null || transcript.language == null || !hasTimestamp) {
+            throw new IOException("Transcript is missing text, language or timestamp");
+        }
+        return transcript;
+    }
+
+    private static int skipString(String s, int openQuote) {
+        for (int k = openQuote + 1; k < s.length(); k++) {
+            char c = s.charAt(k);
+            if (c == '\\') {
+                k++;
+            } else if (c == '"') {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipWhitespace(String s, int i) {
+        while (i < s.length() && Character.isWhitespace(s.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+}
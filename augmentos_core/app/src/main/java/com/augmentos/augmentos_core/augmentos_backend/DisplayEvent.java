@@ -0,0 +1,124 @@
+package com.augmentos.augmentos_core.augmentos_backend;
+
+import android.graphics.Bitmap;
+import android.util.Base64;
+
+import com.augmentos.augmentos_core.smarterglassesmanager.utils.BitmapJavaUtils;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A display_event from the server, read with a streaming parser instead of a JSONObject.
+ *
+ * Only the fields the layouts use are kept. A bitmap_view's image stays as its Base64 text
+ * until {@link #getBitmap()} is first called, which is when the window manager actually shows
+ * it, so dashboard updates that are only cached and frames replaced by a newer one before they
+ * are shown never get decoded.
+ */
+public class DisplayEvent {
+    public final String rawJson;
+    public String view;
+    public String layoutType;
+    public String title;
+    public String text;
+    public String topText;
+    public String bottomText;
+    public String[] rows;
+
+    private String bitmapBase64;
+    private Bitmap bitmap;
+
+    private DisplayEvent(String rawJson) {
+        this.rawJson = rawJson;
+    }
+
+    public boolean isDashboard() {
+        return "dashboard".equals(view);
+    }
+
+    /**
+     * Decodes the bitmap_view image on first use.
+     * @return the image, or null if this isn't a bitmap_view or the data can't be decoded
+     */
+    public synchronized Bitmap getBitmap() {
+        if (bitmap == null && bitmapBase64 != null) {
+            byte[] decodedBytes = Base64.decode(bitmapBase64, Base64.DEFAULT);
+            bitmap = BitmapJavaUtils.bytesToBitmap(decodedBytes);
+            bitmapBase64 = null;
+        }
+        return bitmap;
+    }
+
+    public static DisplayEvent parse(String json) throws IOException {
+        DisplayEvent event = new DisplayEvent(json);
+        try (JsonReader reader = new JsonReader(new StringReader(json))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (name.equals("view") && reader.peek() == JsonToken.STRING) {
+                    event.view = reader.nextString();
+                } else if (name.equals("layout") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                    readLayout(reader, event);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException("Malformed display_event: " + e.getMessage(), e);
+        }
+        return event;
+    }
+
+    private static void readLayout(JsonReader reader, DisplayEvent event) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            JsonToken token = reader.peek();
+            if (token == JsonToken.BEGIN_ARRAY && name.equals("text")) {
+                // text_rows
+                List<String> rows = new ArrayList<>();
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    rows.add(reader.nextString());
+                }
+                reader.endArray();
+                event.rows = rows.toArray(new String[0]);
+                continue;
+            }
+            if (token != JsonToken.STRING) {
+                reader.skipValue();
+                continue;
+            }
+            switch (name) {
+                case "layoutType":
+                    event.layoutType = reader.nextString();
+                    break;
+                case "title":
+                    event.title = reader.nextString();
+                    break;
+                case "text":
+                    event.text = reader.nextString();
+                    break;
+                case "topText":
+                    event.topText = reader.nextString();
+                    break;
+                case "bottomText":
+                    event.bottomText = reader.nextString();
+                    break;
+                case "data":
+                    event.bitmapBase64 = reader.nextString();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+    }
+}
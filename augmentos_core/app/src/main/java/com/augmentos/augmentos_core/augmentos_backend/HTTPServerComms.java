@@ -25,7 +25,7 @@ public class HTTPServerComms {
 
     public HTTPServerComms() {
         BASE_URL = getServerUrl();
-        this.client = new OkHttpClient();
+        this.client = SharedOkHttpClient.get();
     }
 
     /**
@@ -0,0 +1,323 @@
+package com.augmentos.augmentos_core.augmentos_backend;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Locale;
+
+import okhttp3.WebSocket;
+import okio.ByteString;
+
+/**
+ * Orders what we hand to the WebSocket, so real-time audio doesn't queue up behind big status
+ * messages.
+ *
+ * OkHttp writes a WebSocket's messages strictly in the order they were sent, so once a large
+ * message is in its queue everything after it waits. Instead, messages wait here in one queue
+ * per {@link Lane}, and a single sender thread hands them to OkHttp highest lane first, and
+ * only while OkHttp's {@link WebSocket#queueSize()} is under that lane's limit. Audio may be
+ * sent on top of a fair amount of queued data, bulk status only onto a nearly drained socket.
+ *
+ * Each lane has its own bound and drop policy, and records how long its messages waited
+ * before being handed to OkHttp.
+ */
+public class OutboundScheduler {
+    private static final String TAG = "WearableAi_OutboundScheduler";
+    private static final long BACKPRESSURE_POLL_MS = 5;
+    private static final long STATS_LOG_INTERVAL_MS = 60000;
+
+    // Upper bounds, in ms, of the latency histogram buckets; the last bucket is everything over
+    private static final long[] LATENCY_BUCKETS_MS = {1, 5, 10, 25, 50, 100, 250, 500, 1000};
+
+    public enum DropPolicy {
+        // Refuse the new message; the caller still has it and can retry (audio is journaled)
+        REJECT_NEW,
+        // Make room by dropping the oldest queued state update, i.e. message with a coalesce key.
+        // One-off messages (no key) are never dropped; if they fill the lane it grows past its
+        // capacity until the socket drains or is detached
+        DROP_OLDEST
+    }
+
+    public enum Lane {
+        AUDIO(8, DropPolicy.REJECT_NEW, 64 * 1024),
+        INTERACTIVE(128, DropPolicy.DROP_OLDEST, 16 * 1024),
+        BULK(32, DropPolicy.DROP_OLDEST, 4 * 1024);
+
+        final int capacity;
+        final DropPolicy dropPolicy;
+        // Only hand a message to OkHttp while it has fewer than this many bytes queued
+        final long maxSocketQueueBytes;
+
+        Lane(int capacity, DropPolicy dropPolicy, long maxSocketQueueBytes) {
+            this.capacity = capacity;
+            this.dropPolicy = dropPolicy;
+            this.maxSocketQueueBytes = maxSocketQueueBytes;
+        }
+    }
+
+    private static class Message {
+        final String coalesceKey;
+        final long enqueuedAtMs;
+        String text;
+        ByteString bytes;
+
+        Message(String coalesceKey, String text, ByteString bytes) {
+            this.coalesceKey = coalesceKey;
+            this.enqueuedAtMs = SystemClock.elapsedRealtime();
+            this.text = text;
+            this.bytes = bytes;
+        }
+
+        long size() {
+            return text != null ? text.length() : bytes.size();
+        }
+    }
+
+    private static class LaneState {
+        final Lane lane;
+        final ArrayDeque<Message> queue = new ArrayDeque<>();
+        final long[] latencyHistogram = new long[LATENCY_BUCKETS_MS.length + 1];
+        long sent = 0;
+        long bytesSent = 0;
+        long dropped = 0;
+        long rejected = 0;
+        long coalesced = 0;
+        long overCapacity = 0;
+        long totalLatencyMs = 0;
+        long maxLatencyMs = 0;
+
+        LaneState(Lane lane) {
+            this.lane = lane;
+        }
+    }
+
+    // Everything below is guarded by this
+    private final LaneState[] lanes;
+    private WebSocket socket;
+    private Thread senderThread;
+    private boolean running = false;
+    private long backpressureWaits = 0;
+
+    public OutboundScheduler() {
+        Lane[] values = Lane.values();
+        lanes = new LaneState[values.length];
+        for (int i = 0; i < values.length; i++) {
+            lanes[i] = new LaneState(values[i]);
+        }
+    }
+
+    /**
+     * Starts sending to {@code socket}. Anything still queued for a previous socket is dropped.
+     */
+    public synchronized void attach(WebSocket socket) {
+        clearQueues();
+        this.socket = socket;
+        if (senderThread == null) {
+            running = true;
+            senderThread = new Thread(this::sendLoop, "WsOutboundThread");
+            senderThread.start();
+        }
+        notifyAll();
+    }
+
+    /**
+     * Stops sending; queued messages are dropped, just as they would be in OkHttp's own queue.
+     */
+    public synchronized void detach() {
+        socket = null;
+        clearQueues();
+    }
+
+    public synchronized void shutdown() {
+        detach();
+        running = false;
+        if (senderThread != null) {
+            senderThread.interrupt();
+            senderThread = null;
+        }
+    }
+
+    public boolean enqueueText(Lane lane, String coalesceKey, String text) {
+        return enqueue(lane, new Message(coalesceKey, text, null));
+    }
+
+    public boolean enqueueBinary(Lane lane, String coalesceKey, byte[] data, int offset, int length) {
+        // Copied here, so callers can reuse their buffer as soon as this returns
+        return enqueue(lane, new Message(coalesceKey, null, ByteString.of(data, offset, length)));
+    }
+
+    /**
+     * A message with the same non-null {@code coalesceKey} as one still queued in its lane
+     * replaces that one in place, since only the newest state is worth sending.
+     * @return false if there's no socket or the lane refused the message
+     */
+    private synchronized boolean enqueue(Lane lane, Message message) {
+        if (socket == null) {
+            return false;
+        }
+        LaneState state = lanes[lane.ordinal()];
+        if (message.coalesceKey != null) {
+            for (Message queued : state.queue) {
+                if (message.coalesceKey.equals(queued.coalesceKey)) {
+                    // keeps its place and enqueue time, so it isn't starved by its own updates
+                    queued.text = message.text;
+                    queued.bytes = message.bytes;
+                    state.coalesced++;
+                    return true;
+                }
+            }
+        }
+        if (state.queue.size() >= lane.capacity) {
+            if (lane.dropPolicy == DropPolicy.REJECT_NEW) {
+                state.rejected++;
+                return false;
+            }
+            if (dropOldestKeyed(state)) {
+                state.dropped++;
+                Log.w(TAG, lane + " lane full, dropped its oldest state update");
+            } else {
+                state.overCapacity++;
+            }
+        }
+        state.queue.addLast(message);
+        notifyAll();
+        return true;
+    }
+
+    private static boolean dropOldestKeyed(LaneState state) {
+        Iterator<Message> it = state.queue.iterator();
+        while (it.hasNext()) {
+            if (it.next().coalesceKey != null) {
+                it.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void sendLoop() {
+        long lastStatsLogMs = SystemClock.elapsedRealtime();
+        try {
+            while (true) {
+                WebSocket target;
+                Message message;
+                synchronized (this) {
+                    if (!running) break;
+                    if (socket == null || isEmpty()) {
+                        wait(STATS_LOG_INTERVAL_MS);
+                        continue;
+                    }
+                    target = socket;
+                    LaneState next = pickLane(target.queueSize());
+                    if (next == null) {
+                        // OkHttp is still busy writing, check again shortly
+                        backpressureWaits++;
+                        wait(BACKPRESSURE_POLL_MS);
+                        continue;
+                    }
+                    message = next.queue.pollFirst();
+                    recordSent(next, message);
+                }
+
+                // OkHttp's send doesn't block, but keep it outside our lock anyway
+                if (message.text != null) {
+                    target.send(message.text);
+                } else {
+                    target.send(message.bytes);
+                }
+
+                long now = SystemClock.elapsedRealtime();
+                if (now - lastStatsLogMs >= STATS_LOG_INTERVAL_MS) {
+                    Log.d(TAG, getStatsSummary());
+                    lastStatsLogMs = now;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return the highest lane with a message queued, unless the socket's backlog is over its limit
+     */
+    private LaneState pickLane(long socketQueuedBytes) {
+        for (LaneState state : lanes) {
+            if (!state.queue.isEmpty()) {
+                return socketQueuedBytes < state.lane.maxSocketQueueBytes ? state : null;
+            }
+        }
+        return null;
+    }
+
+    private boolean isEmpty() {
+        for (LaneState state : lanes) {
+            if (!state.queue.isEmpty()) return false;
+        }
+        return true;
+    }
+
+    private void clearQueues() {
+        for (LaneState state : lanes) {
+            state.dropped += state.queue.size();
+            state.queue.clear();
+        }
+    }
+
+    private void recordSent(LaneState state, Message message) {
+        long latency = SystemClock.elapsedRealtime() - message.enqueuedAtMs;
+        state.sent++;
+        state.bytesSent += message.size();
+        state.totalLatencyMs += latency;
+        state.maxLatencyMs = Math.max(state.maxLatencyMs, latency);
+        int bucket = 0;
+        while (bucket < LATENCY_BUCKETS_MS.length && latency >= LATENCY_BUCKETS_MS[bucket]) {
+            bucket++;
+        }
+        state.latencyHistogram[bucket]++;
+    }
+
+    public synchronized void resetStats() {
+        for (LaneState state : lanes) {
+            state.sent = 0;
+            state.bytesSent = 0;
+            state.dropped = 0;
+            state.rejected = 0;
+            state.coalesced = 0;
+            state.overCapacity = 0;
+            state.totalLatencyMs = 0;
+            state.maxLatencyMs = 0;
+            Arrays.fill(state.latencyHistogram, 0);
+        }
+        backpressureWaits = 0;
+    }
+
+    /**
+     * Per lane: counts, queueing latency and its histogram, where "<5:12" means 12 messages
+     * waited between 1 and 5ms.
+     */
+    public synchronized String getStatsSummary() {
+        StringBuilder sb = new StringBuilder("outbound lanes:");
+        for (LaneState state : lanes) {
+            sb.append(String.format(Locale.US,
+                    " [%s queued=%d sent=%d %dB dropped=%d rejected=%d coalesced=%d overCapacity=%d avgWait=%.1fms maxWait=%dms hist=",
+                    state.lane, state.queue.size(), state.sent, state.bytesSent, state.dropped, state.rejected,
+                    state.coalesced, state.overCapacity, state.sent == 0 ? 0 : (double) state.totalLatencyMs / state.sent,
+                    state.maxLatencyMs));
+            for (int i = 0; i < state.latencyHistogram.length; i++) {
+                if (i > 0) sb.append(',');
+                if (i < LATENCY_BUCKETS_MS.length) {
+                    sb.append('<').append(LATENCY_BUCKETS_MS[i]);
+                } else {
+                    sb.append(">=").append(LATENCY_BUCKETS_MS[LATENCY_BUCKETS_MS.length - 1]);
+                }
+                sb.append(':').append(state.latencyHistogram[i]);
+            }
+            sb.append(']');
+        }
+        sb.append(" backpressureWaits=").append(backpressureWaits);
+        return sb.toString();
+    }
+}
@@ -5,22 +5,22 @@ import android.util.Log;
 
 import com.augmentos.augmentos_core.BuildConfig;
 import com.augmentos.augmentos_core.augmentos_backend.WebSocketManager;
+import com.augmentos.augmentos_core.smarterglassesmanager.smartglassesconnection.SmartGlassesAndroidService;
 import com.augmentos.augmentos_core.smarterglassesmanager.speechrecognition.AsrStreamKey;
 import com.augmentos.augmentos_core.smarterglassesmanager.speechrecognition.augmentos.SpeechRecAugmentos;
 import com.augmentos.augmentos_core.smarterglassesmanager.utils.EnvHelper;
 import com.augmentos.augmentoslib.enums.AsrStreamType;
+import com.augmentos.smartglassesmanager.cpp.OpusCpp;
 
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
 
 /**
  * ServerComms is the single facade for all WebSocket interactions in AugmentOS_Core.
@@ -43,9 +43,15 @@ public class ServerComms {
     // ------------------------------------------------------------------------
     // AUDIO QUEUE SYSTEM (ADDED)
     // ------------------------------------------------------------------------
-    private final BlockingQueue<byte[]> audioQueue = new ArrayBlockingQueue<>((int) (10 / 0.01 / 10)); // 10 seconds into the past // calculation is roughly: (n seconds into the past we want) / (length of frame == 10) / (frames per chunk == 10 (Even G1))
-    private Thread audioSenderThread;
-    private volatile boolean audioSenderRunning = false;
+    private final AudioUplinkBatcher audioUplink;
+    private volatile boolean audioFramingRequested = false;
+    // Codec asked for with setUplinkCodec (the audio_uplink_codec pref at startup), offered first
+    // from the next connection; the server has the final say in connection_ack
+    private volatile AudioUplinkCodec requestedCodec;
+    private volatile int opusBitrateBps = 12000;
+    private volatile int opusFrameMs = 20;
+    // True once the server picked CloudMessageCodec.PROTOCOL_BINARY for this connection
+    private volatile boolean binaryProtocol = false;
 
 
     public static synchronized ServerComms getInstance(Context context) {
@@ -68,15 +74,38 @@ public class ServerComms {
     }
 
     private ServerComms(Context context) {
+        // Journal holds 10 seconds into the past // calculation is roughly: (n seconds into the past we want) / (length of frame == 10) / (frames per chunk == 10 (Even G1))
+        this.audioUplink = new AudioUplinkBatcher((int) (10 / 0.01 / 10), new AudioUplinkBatcher.BinarySink() {
+            @Override
+            public boolean sendBinary(byte[] data, int offset, int length) {
+                return wsManager.sendBinary(OutboundScheduler.Lane.AUDIO, null, data, offset, length);
+            }
+
+            @Override
+            public void onAudioLost(long fromFrameSeq, long toFrameSeq) {
+                sendAudioGap(fromFrameSeq, toFrameSeq);
+            }
+        });
+        this.requestedCodec = SmartGlassesAndroidService.getAudioUplinkCodec(context);
+        audioUplink.setLatencyBudgetMs(SmartGlassesAndroidService.getAudioBatchingBudgetMs(context));
+        setAudioFramingEnabled(SmartGlassesAndroidService.getAudioFramingEnabled(context));
+
         // Create the underlying WebSocketManager (OkHttp-based).
         this.wsManager = new WebSocketManager(context, new WebSocketManager.IncomingMessageHandler() {
             @Override
-            public void onIncomingMessage(JSONObject msg) {
-                handleIncomingMessage(msg);
+            public void onIncomingText(String text) {
+                handleIncomingText(text);
+            }
+
+            @Override
+            public void onIncomingBinary(byte[] data) {
+                handleIncomingBinary(data);
             }
 
             @Override
             public void onConnectionOpen() {
+                AudioUplinkCodec codec = applyUplinkCodec();
+
                 // As soon as the connection is open, send the "connection_init" message
                 // that your server expects.
 
@@ -88,6 +117,28 @@ public class ServerComms {
                         initMsg.put("type", "connection_init");
                         // You can send any additional fields if your server needs them, e.g. "userId".
                         initMsg.put("coreToken", coreToken);
+                        // Offer the binary control protocol, the server picks one in connection_ack
+                        JSONArray protocols = new JSONArray();
+                        protocols.put(CloudMessageCodec.PROTOCOL_BINARY);
+                        protocols.put(CloudMessageCodec.PROTOCOL_JSON);
+                        initMsg.put("protocols", protocols);
+                        initMsg.put("audioCodec", codec.wireName);
+                        // Everything we can encode, preferred first; connection_ack may pick another
+                        JSONArray audioCodecs = new JSONArray();
+                        audioCodecs.put(codec.wireName);
+                        for (AudioUplinkCodec other : AudioUplinkCodec.values()) {
+                            if (other != codec && canEncode(other)) {
+                                audioCodecs.put(other.wireName);
+                            }
+                        }
+                        initMsg.put("audioCodecs", audioCodecs);
+                        if (canEncode(AudioUplinkCodec.OPUS)) {
+                            initMsg.put("opusBitrate", opusBitrateBps);
+                            initMsg.put("opusFrameMs", opusFrameMs);
+                        }
+                        if (audioUplink.isFramingEnabled()) {
+                            initMsg.put("audioFraming", "lc3-batch-v" + AudioUplinkBatcher.FRAMING_VERSION);
+                        }
                         // add more fields if needed, e.g. initMsg.put("someField", "someValue");
 
                         // Send the JSON over the WebSocket
@@ -103,6 +154,7 @@ public class ServerComms {
             @Override
             public void onConnectionClosed() {
                 // Optional: place logic if needed on close
+                setBinaryProtocol(false);
                 stopAudioSenderThread();
             }
 
@@ -110,6 +162,7 @@ public class ServerComms {
             public void onError(String error) {
                 // Log errors
                 Log.e(TAG, "WebSocket error: " + error);
+                setBinaryProtocol(false);
                 stopAudioSenderThread();
 //                if (serverCommsCallback != null)
 //                    serverCommsCallback.onConnectionError("Websocket error");
@@ -179,10 +232,126 @@ public class ServerComms {
      * Sends a raw PCM audio chunk as binary data.
      */
     public void sendAudioChunk(byte[] audioData) {
-        // If the queue is full, remove the oldest entry before adding a new one
-        if (!audioQueue.offer(audioData)) {
-            audioQueue.poll(); // Remove the oldest item
-            audioQueue.offer(audioData); // Add the new chunk
+        audioUplink.offer(audioData);
+    }
+
+    /**
+     * Sends a chunk of encoded audio holding {@code frames} 10ms frames.
+     */
+    public void sendAudioChunk(byte[] audioData, int frames, AudioUplinkCodec codec) {
+        audioUplink.offer(audioData, frames, codec);
+    }
+
+    /**
+     * Codec for the audio uplink. Like framing, the server learns it from connection_init, so it
+     * only applies from the next connect.
+     * @param opusBitrateBps only for OPUS
+     * @param opusFrameMs only for OPUS: 10, 20, 40 or 60
+     */
+    public void setUplinkCodec(AudioUplinkCodec codec, int opusBitrateBps, int opusFrameMs) {
+        this.opusBitrateBps = opusBitrateBps;
+        this.opusFrameMs = opusFrameMs;
+        this.requestedCodec = codec;
+    }
+
+    /**
+     * Codec the current connection expects, which is what audio should be encoded in.
+     */
+    public AudioUplinkCodec getUplinkCodec() {
+        return audioUplink.getCodec();
+    }
+
+    public int getOpusBitrateBps() {
+        return opusBitrateBps;
+    }
+
+    public int getOpusFrameMs() {
+        return opusFrameMs;
+    }
+
+    private static boolean canEncode(AudioUplinkCodec codec) {
+        return codec != AudioUplinkCodec.OPUS || OpusCpp.isAvailable();
+    }
+
+    private AudioUplinkCodec applyUplinkCodec() {
+        AudioUplinkCodec codec = requestedCodec;
+        if (!canEncode(codec)) {
+            Log.w(TAG, "Opus uplink requested but the encoder isn't built, using LC3");
+            codec = AudioUplinkCodec.LC3;
+        }
+        audioUplink.setCodec(codec);
+        return codec;
+    }
+
+    // Older servers don't answer with a codec and get the one we offered first
+    private void applyAckedUplinkCodec(String wireName) {
+        if (wireName == null) {
+            return;
+        }
+        AudioUplinkCodec codec = AudioUplinkCodec.fromWireName(wireName);
+        if (codec == null || !canEncode(codec)) {
+            Log.w(TAG, "Server picked audio codec " + wireName + " which we didn't offer, keeping " + audioUplink.getCodec());
+            return;
+        }
+        if (codec != audioUplink.getCodec()) {
+            Log.d(TAG, "Server picked " + codec + " for the audio uplink");
+            audioUplink.setCodec(codec);
+        }
+    }
+
+    /**
+     * How long (ms) audio may be held back to share a WebSocket message with later audio.
+     * 0 sends each chunk on its own.
+     */
+    public void setAudioBatchingBudgetMs(int budgetMs) {
+        audioUplink.setLatencyBudgetMs(budgetMs);
+    }
+
+    // The server can override the audio_batching_budget_ms pref for its session, -1 leaves it
+    private void applyServerBatchingBudget(int budgetMs) {
+        if (budgetMs >= 0 && budgetMs != audioUplink.getLatencyBudgetMs()) {
+            Log.d(TAG, getAudioUplinkStats());
+            setAudioBatchingBudgetMs(budgetMs);
+            // Stats from here on are for the new budget
+            audioUplink.resetStats();
+        }
+    }
+
+    /**
+     * Prefix each audio message with sequence number, capture time and frame count. The server
+     * must expect this (it's announced in connection_init), so it only applies from the next connect.
+     */
+    public void setAudioFramingEnabled(boolean enabled) {
+        audioFramingRequested = enabled;
+        audioUplink.setFramingEnabled(enabled || binaryProtocol);
+    }
+
+    // With the binary protocol every binary frame starts with a kind byte, so audio must be framed
+    private void setBinaryProtocol(boolean enabled) {
+        binaryProtocol = enabled;
+        audioUplink.setFramingEnabled(enabled || audioFramingRequested);
+    }
+
+    public String getAudioUplinkStats() {
+        return audioUplink.getStatsSummary();
+    }
+
+    /**
+     * Tells the server which 10ms frames were lost from the reconnect backlog, so it knows the
+     * replayed audio around them isn't contiguous. Frame numbers come from the audio journal and
+     * keep counting across reconnects, they aren't reset per connection.
+     */
+    private void sendAudioGap(long fromFrameSeq, long toFrameSeq) {
+        try {
+            JSONObject gapMsg = new JSONObject();
+            gapMsg.put("type", "audio_gap");
+            gapMsg.put("fromFrameSeq", fromFrameSeq);
+            gapMsg.put("toFrameSeq", toFrameSeq);
+            gapMsg.put("durationMs", (toFrameSeq - fromFrameSeq) * AudioUplinkBatcher.LC3_FRAME_MS);
+            gapMsg.put("timestamp", System.currentTimeMillis());
+            wsManager.sendText(gapMsg.toString());
+        } catch (JSONException e) {
+            Log.e(TAG, "Error building audio_gap JSON", e);
         }
     }
 
@@ -190,6 +359,10 @@ public class ServerComms {
      * Sends a VAD message to indicate speaking or not.
      */
     public void sendVadStatus(boolean isSpeaking) {
+        if (binaryProtocol) {
+            wsManager.sendBinary(CloudMessageCodec.encodeVad(isSpeaking));
+            return;
+        }
         JSONObject vadMsg = new JSONObject();
         try {
             vadMsg.put("type", "VAD");
@@ -278,6 +451,7 @@ public class ServerComms {
             event.put("content", content);
             event.put("priority", priority);
             event.put("timestamp", System.currentTimeMillis());
+            // A one-off event, so it goes with the interactive messages rather than behind audio
             wsManager.sendText(event.toString());
         } catch (JSONException e) {
             Log.e(TAG, "Error building phone_notification JSON", e);
@@ -302,18 +476,28 @@ public class ServerComms {
     }
 
     public void sendHeadPosition(String position) {
+        if (binaryProtocol) {
+            byte[] encoded = CloudMessageCodec.encodeHeadPosition(position);
+            wsManager.sendBinary(OutboundScheduler.Lane.INTERACTIVE, "head_position", encoded, 0, encoded.length);
+            return;
+        }
         try {
             JSONObject event = new JSONObject();
             event.put("type", "head_position");
             event.put("position", position);
             event.put("timestamp", System.currentTimeMillis());
-            wsManager.sendText(event.toString());
+            // Only the latest position matters, so a queued one can be replaced or dropped
+            wsManager.sendText(OutboundScheduler.Lane.INTERACTIVE, "head_position", event.toString());
         } catch (JSONException e) {
             Log.e(TAG, "Error building head_position JSON", e);
         }
     }
 
     public void sendGlassesBatteryUpdate(int level, boolean charging, Integer timeRemaining) {
+        if (binaryProtocol) {
+            sendBulk("glasses_battery", CloudMessageCodec.encodeBattery(CloudMessageCodec.TYPE_GLASSES_BATTERY, level, charging, timeRemaining));
+            return;
+        }
         try {
             JSONObject event = new JSONObject();
             event.put("type", "glasses_battery_update");
@@ -323,7 +507,7 @@ public class ServerComms {
             if (timeRemaining != null) {
                 event.put("timeRemaining", timeRemaining);
             }
-            wsManager.sendText(event.toString());
+            sendBulk("glasses_battery", event.toString());
         } catch (JSONException e) {
             Log.e(TAG, "Error building battery_update JSON", e);
         }
@@ -331,6 +515,10 @@ public class ServerComms {
 
 
     public void sendPhoneBatteryUpdate(int level, boolean charging, Integer timeRemaining) {
+        if (binaryProtocol) {
+            sendBulk("phone_battery", CloudMessageCodec.encodeBattery(CloudMessageCodec.TYPE_PHONE_BATTERY, level, charging, timeRemaining));
+            return;
+        }
         try {
             JSONObject event = new JSONObject();
             event.put("type", "phone_battery_update");
@@ -340,7 +528,7 @@ public class ServerComms {
             if (timeRemaining != null) {
                 event.put("timeRemaining", timeRemaining);
             }
-            wsManager.sendText(event.toString());
+            sendBulk("phone_battery", event.toString());
         } catch (JSONException e) {
             Log.e(TAG, "Error building battery_update JSON", e);
         }
@@ -353,41 +541,133 @@ public class ServerComms {
             event.put("modelName", modelName);
             event.put("status", status);
             event.put("timestamp", System.currentTimeMillis());
-            wsManager.sendText(event.toString());
+            sendBulk("glasses_connection_state", event.toString());
         } catch (JSONException e) {
             Log.e(TAG, "Error building button_press JSON", e);
         }
     }
 
     public void sendLocationUpdate(double lat, double lng) {
+        if (binaryProtocol) {
+            sendBulk("location", CloudMessageCodec.encodeLocation(lat, lng));
+            return;
+        }
         try {
             JSONObject event = new JSONObject();
             event.put("type", "location_update");
             event.put("lat", lat);
             event.put("lng", lng);
             event.put("timestamp", System.currentTimeMillis());
-            wsManager.sendText(event.toString());
+            sendBulk("location", event.toString());
         } catch (JSONException e) {
             Log.e(TAG, "Error building location_update JSON", e);
         }
     }
 
     public void sendCoreStatus(JSONObject status) {
+        if (binaryProtocol) {
+            sendBulk("core_status", CloudMessageCodec.encodeCoreStatus(status.toString()));
+            return;
+        }
         try {
             JSONObject event = new JSONObject();
             event.put("type", "core_status");
             event.put("status", status);
             event.put("timestamp", System.currentTimeMillis());
-            wsManager.sendText(event.toString());
+            sendBulk("core_status", event.toString());
         } catch (JSONException e) {
             Log.e(TAG, "Error building location_update JSON", e);
         }
     }
 
+    // Periodic state updates: low priority, and a queued one is replaced by its newer version
+    private void sendBulk(String coalesceKey, String json) {
+        wsManager.sendText(OutboundScheduler.Lane.BULK, coalesceKey, json);
+    }
+
+    private void sendBulk(String coalesceKey, byte[] encoded) {
+        wsManager.sendBinary(OutboundScheduler.Lane.BULK, coalesceKey, encoded, 0, encoded.length);
+    }
+
+    public String getOutboundStats() {
+        return wsManager.getOutboundStats();
+    }
+
     // ------------------------------------------------------------------------
     // INTERNAL: Message Handling
     // ------------------------------------------------------------------------
 
+    /**
+     * Called by wsManager for every text frame. Transcripts are by far the most frequent, so they
+     * are streamed straight out of the text; everything else is parsed into a JSONObject.
+     */
+    private void handleIncomingText(String text) {
+        String type = CloudMessageCodec.peekJsonType(text);
+        if ("interim".equals(type) || "final".equals(type)) {
+            try {
+                dispatchTranscript(CloudMessageCodec.parseJsonTranscript(text));
+            } catch (IOException e) {
+                Log.e(TAG, "Error parsing transcript: " + text, e);
+            }
+            return;
+        }
+        if ("display_event".equals(type)) {
+            handleDisplayEvent(text);
+            return;
+        }
+
+        try {
+            handleIncomingMessage(new JSONObject(text));
+        } catch (JSONException e) {
+            Log.e(TAG, "Error parsing message: " + text, e);
+        }
+    }
+
+    /**
+     * Called by wsManager for every binary frame, which the server only sends with the binary protocol.
+     */
+    private void handleIncomingBinary(byte[] data) {
+        try {
+            CloudMessageCodec.Transcript transcript = CloudMessageCodec.decodeTranscript(data);
+            if (transcript != null) {
+                dispatchTranscript(transcript);
+            } else {
+                Log.w(TAG, "Unhandled binary message, size=" + data.length);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Error decoding binary message, size=" + data.length, e);
+        }
+    }
+
+    /**
+     * Display events can carry large Base64 bitmaps and arrive in bursts, so they are streamed
+     * into a DisplayEvent that decodes its bitmap only when it is actually shown.
+     */
+    private void handleDisplayEvent(String text) {
+        if (serverCommsCallback == null) return;
+        DisplayEvent event;
+        try {
+            event = DisplayEvent.parse(text);
+        } catch (IOException e) {
+            Log.e(TAG, "Error parsing display_event", e);
+            return;
+        }
+
+        if (event.isDashboard())
+            serverCommsCallback.onDashboardDisplayEvent(event);
+        else
+            serverCommsCallback.onDisplayEvent(event);
+    }
+
+    private void dispatchTranscript(CloudMessageCodec.Transcript transcript) {
+        if (speechRecAugmentos != null) {
+            speechRecAugmentos.handleTranscript(transcript.isFinal, transcript.text, transcript.language,
+                    transcript.translateLanguage, transcript.timestampMs);
+        } else {
+            Log.w(TAG, "Received speech message but speechRecAugmentos is null!");
+        }
+    }
+
     /**
      * Called by wsManager when a new JSON message arrives.
      */
@@ -397,11 +677,19 @@ public class ServerComms {
         JSONArray installedApps;
         JSONArray activeAppPackageNames;
 
-        Log.d(TAG, "Received message of type: " + msg);
+        Log.d(TAG, "Received message of type: " + type);
 
         switch (type) {
             case "connection_ack":
                 Log.d(TAG, "Received connection_ack. Possibly store sessionId if needed.");
+                setBinaryProtocol(CloudMessageCodec.PROTOCOL_BINARY.equals(msg.optString("protocol", CloudMessageCodec.PROTOCOL_JSON)));
+                applyAckedUplinkCodec(msg.optString("audioCodec", null));
+                applyServerBatchingBudget(msg.optInt("audioBatchingBudgetMs", -1));
+                wsManager.markSessionReady();
+                // A new session wants audio unless it says otherwise
+                if (speechRecAugmentos != null) {
+                    speechRecAugmentos.setServerNeedsAudio(msg.optBoolean("needsAudio", true));
+                }
                 startAudioSenderThread();
                 if (serverCommsCallback != null) {
                     serverCommsCallback.onAppStateChange(parseAppList(msg));
@@ -436,17 +724,18 @@ public class ServerComms {
                     serverCommsCallback.onMicrophoneStateChange(isMicrophoneEnabled);
                 break;
 
-            case "display_event":
-                //Log.d(TAG, "Received display_event: " + msg.toString());
-                String view = msg.optString("view");
-                boolean isDashboard = view.equals("dashboard");
-
-                if (serverCommsCallback == null) return;
-
-                if(isDashboard)
-                    serverCommsCallback.onDashboardDisplayEvent(msg);
-                else
-                    serverCommsCallback.onDisplayEvent(msg);
+            case "audio_uplink_state":
+                // Unlike microphone_state_change this leaves the mic and local VAD running,
+                // it only stops audio going up while no subscriber needs it
+                boolean needsAudio = msg.optBoolean("needsAudio", true);
+                int hangoverMs = msg.optInt("hangoverMs", -1);
+                applyServerBatchingBudget(msg.optInt("batchingBudgetMs", -1));
+                if (speechRecAugmentos != null) {
+                    speechRecAugmentos.setServerNeedsAudio(needsAudio);
+                    if (hangoverMs >= 0) {
+                        speechRecAugmentos.setUplinkHangoverMs(hangoverMs);
+                    }
+                }
                 break;
 
             case "request_single":
@@ -552,34 +841,11 @@ public class ServerComms {
     // AUDIO QUEUE SENDER THREAD (ADDED)
     // ------------------------------------------------------------------------
     private void startAudioSenderThread() {
-        if (audioSenderThread != null) return;
-
-        audioSenderRunning = true;
-        audioSenderThread = new Thread(() -> {
-            while (audioSenderRunning) {
-                try {
-                    byte[] chunk = audioQueue.take();
-                    if (wsManager.isConnected()) {
-                        wsManager.sendBinary(chunk);
-                    } else {
-                        // Re-enqueue the chunk if not connected, then wait a bit
-                        audioQueue.offer(chunk);
-                        Thread.sleep(100);
-                    }
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
-            }
-        }, "AudioSenderThread");
-        audioSenderThread.start();
+        audioUplink.start();
     }
 
     private void stopAudioSenderThread() {
-        audioSenderRunning = false;
-        if (audioSenderThread != null) {
-            audioSenderThread.interrupt();
-            audioSenderThread = null;
-        }
+        audioUplink.stop();
     }
 
 
@@ -587,5 +853,6 @@ public class ServerComms {
     public void cleanup() {
         wsManager.cleanup();
         disconnectWebSocket();
+        audioUplink.shutdown();
     }
 }
@@ -0,0 +1,52 @@
+package com.augmentos.augmentos_core.augmentos_backend;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+/**
+ * Process-wide OkHttp clients for talking to the AugmentOS server.
+ *
+ * Every client here is derived from one base client, so they share its connection pool,
+ * dispatcher threads and SSL socket factory. Sharing the socket factory is what lets a reconnect
+ * resume the previous TLS session instead of doing a full handshake; a fresh OkHttpClient gets a
+ * fresh SSLContext and with it an empty session cache.
+ */
+public final class SharedOkHttpClient {
+    private static OkHttpClient baseClient;
+    private static OkHttpClient webSocketClient;
+
+    private SharedOkHttpClient() {
+    }
+
+    /**
+     * Client for plain HTTP requests.
+     */
+    public static synchronized OkHttpClient get() {
+        if (baseClient == null) {
+            baseClient = new OkHttpClient.Builder()
+                    .connectionPool(new ConnectionPool(5, 5, TimeUnit.MINUTES))
+                    .build();
+        }
+        return baseClient;
+    }
+
+    /**
+     * Client for the glasses WebSocket. HTTP/1.1 only, which is what WebSocket upgrades use
+     * anyway, so a connection opened by {@link WebSocketManager#warmUp} can be reused for the
+     * upgrade.
+     */
+    public static synchronized OkHttpClient getWebSocketClient() {
+        if (webSocketClient == null) {
+            webSocketClient = get().newBuilder()
+                    .protocols(Collections.singletonList(Protocol.HTTP_1_1))
+                    .readTimeout(12, TimeUnit.SECONDS)
+                    .pingInterval(10, TimeUnit.SECONDS)
+                    .build();
+        }
+        return webSocketClient;
+    }
+}
@@ -3,13 +3,16 @@ package com.augmentos.augmentos_core.augmentos_backend;
 import android.content.Context;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 
-import org.json.JSONObject;
 
-import java.util.concurrent.TimeUnit;
+import java.io.IOException;
+import java.util.Locale;
 
-import okhttp3.OkHttpClient;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.HttpUrl;
 import okhttp3.Request;
 import okhttp3.Response;
 import okhttp3.WebSocket;
@@ -37,7 +40,9 @@ public class WebSocketManager extends WebSocketListener implements NetworkMonito
             DISCONNECTED
         }
 
-        void onIncomingMessage(JSONObject msg);
+        // Raw text frame, normally JSON; the handler decides how much of it to parse
+        void onIncomingText(String text);
+        void onIncomingBinary(byte[] data);
         void onConnectionOpen();
         void onConnectionClosed();
         void onError(String error);
@@ -45,7 +50,6 @@ public class WebSocketManager extends WebSocketListener implements NetworkMonito
     }
 
     private final IncomingMessageHandler handler;
-    private OkHttpClient client;
     private WebSocket webSocket;
     private boolean connected = false;
     private String serverUrl;
@@ -59,8 +63,20 @@ public class WebSocketManager extends WebSocketListener implements NetworkMonito
     private boolean reconnecting = false;
 
     private NetworkMonitor networkMonitor;
+    // Everything we send goes through here, in priority order
+    private final OutboundScheduler outbound = new OutboundScheduler();
     private boolean shouldAutoReconnect = true;
 
+    // Reconnect timing, guarded by connectionLock. 0 means not waiting on that event.
+    private long networkAvailableAtMs = 0;
+    private long connectStartedAtMs = 0;
+    private long readyCount = 0;
+    private long lastNetworkToReadyMs = -1;
+    private long totalNetworkToReadyMs = 0;
+    private long networkToReadySamples = 0;
+    private long maxNetworkToReadyMs = 0;
+    private long lastConnectToReadyMs = -1;
+
     // Exponential backoff runnable
     private final Runnable reconnectRunnable = new Runnable() {
         @Override
@@ -91,12 +107,87 @@ public class WebSocketManager extends WebSocketListener implements NetworkMonito
         synchronized (connectionLock) {
             // Reset reconnection state when network becomes available
             reconnecting = false;
+            if (!connected) {
+                networkAvailableAtMs = SystemClock.elapsedRealtime();
+            }
 
             // Only attempt reconnection if we should auto-reconnect and we're not already connected
             if (!intentionalDisconnect && shouldAutoReconnect && !connected && serverUrl != null) {
                 Log.d(TAG, "Initiating fresh connection after network restoration");
-                connectInternal();
+                retryAttempts = 0;
+                reconnectHandler.removeCallbacks(reconnectRunnable);
+                warmUp();
+            }
+        }
+    }
+
+    /**
+     * Opens a connection to the server (DNS, TCP, TLS) with a cheap GET /health, then connects the
+     * WebSocket over it. The pooled connection is reused for the upgrade and the TLS session is
+     * cached either way. If the network isn't actually usable yet we fall back to normal backoff
+     * instead of burning a WebSocket attempt.
+     */
+    private void warmUp() {
+        HttpUrl healthUrl = HttpUrl.parse(serverUrl.replaceFirst("^ws", "http"));
+        if (healthUrl == null) {
+            connectInternal();
+            return;
+        }
+        healthUrl = healthUrl.newBuilder().encodedPath("/health").build();
+        long start = SystemClock.elapsedRealtime();
+        Request request = new Request.Builder().url(healthUrl).get().build();
+        SharedOkHttpClient.getWebSocketClient().newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                Log.d(TAG, "Warm-up failed after " + (SystemClock.elapsedRealtime() - start) + "ms: " + e.getMessage());
+                synchronized (connectionLock) {
+                    scheduleReconnect();
+                }
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                response.close();
+                Log.d(TAG, "Warm-up done in " + (SystemClock.elapsedRealtime() - start) + "ms");
+                synchronized (connectionLock) {
+                    if (!intentionalDisconnect && shouldAutoReconnect && !connected) {
+                        connectInternal();
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Called once the server has acknowledged the session (connection_ack), to record how long
+     * reconnecting took.
+     */
+    public void markSessionReady() {
+        synchronized (connectionLock) {
+            long now = SystemClock.elapsedRealtime();
+            readyCount++;
+            if (connectStartedAtMs != 0) {
+                lastConnectToReadyMs = now - connectStartedAtMs;
+                connectStartedAtMs = 0;
+            }
+            if (networkAvailableAtMs != 0) {
+                lastNetworkToReadyMs = now - networkAvailableAtMs;
+                totalNetworkToReadyMs += lastNetworkToReadyMs;
+                networkToReadySamples++;
+                maxNetworkToReadyMs = Math.max(maxNetworkToReadyMs, lastNetworkToReadyMs);
+                networkAvailableAtMs = 0;
             }
+            Log.d(TAG, getReconnectStats());
+        }
+    }
+
+    public String getReconnectStats() {
+        synchronized (connectionLock) {
+            return String.format(Locale.US,
+                    "sessions=%d networkToReady last=%dms avg=%.0fms max=%dms connectToReady last=%dms",
+                    readyCount, lastNetworkToReadyMs,
+                    networkToReadySamples == 0 ? 0 : (double) totalNetworkToReadyMs / networkToReadySamples,
+                    maxNetworkToReadyMs, lastConnectToReadyMs);
         }
     }
 
@@ -150,13 +241,12 @@ public class WebSocketManager extends WebSocketListener implements NetworkMonito
             // Clean up any existing connection first
             cleanupSafe();
 
-            client = new OkHttpClient.Builder()
-                    .readTimeout(12, TimeUnit.SECONDS)
-                    .pingInterval(10, TimeUnit.SECONDS)
-                    .build();
-
+            if (connectStartedAtMs == 0) {
+                connectStartedAtMs = SystemClock.elapsedRealtime();
+            }
+            // Shared client, so reconnects reuse pooled connections and resume TLS sessions
             Request request = new Request.Builder().url(serverUrl).build();
-            webSocket = client.newWebSocket(request, this);
+            webSocket = SharedOkHttpClient.getWebSocketClient().newWebSocket(request, this);
         }
     }
 
@@ -168,6 +258,8 @@ public class WebSocketManager extends WebSocketListener implements NetworkMonito
             shouldAutoReconnect = false;
             intentionalDisconnect = true;
             reconnectHandler.removeCallbacks(reconnectRunnable);
+            networkAvailableAtMs = 0;
+            connectStartedAtMs = 0;
             if (webSocket != null && connected) {
                 webSocket.close(1000, "Normal closure");
             }
@@ -189,16 +281,31 @@ public class WebSocketManager extends WebSocketListener implements NetworkMonito
             networkMonitor.unregister();
         }
         disconnect();
+        outbound.shutdown();
+    }
+
+    public String getOutboundStats() {
+        return outbound.getStatsSummary();
     }
 
     /**
-     * Send text (JSON) over the WebSocket.
+     * Send text (JSON) over the WebSocket, in the interactive lane.
      */
     public void sendText(String text) {
+        sendText(OutboundScheduler.Lane.INTERACTIVE, null, text);
+    }
+
+    /**
+     * Send text (JSON) in {@code lane}. A message with a non-null {@code coalesceKey} replaces a
+     * still-queued one with the same key.
+     * @return true if the message was queued
+     */
+    public boolean sendText(OutboundScheduler.Lane lane, String coalesceKey, String text) {
         synchronized (connectionLock) {
             if (webSocket != null && connected) {
-                Log.d(TAG, "Sending websocket text: " + text);
-                webSocket.send(text);
+                // Payloads can be large (core status, app lists), so don't log them
+                Log.d(TAG, "Sending websocket text (" + lane + ", " + text.length() + " chars)");
+                return outbound.enqueueText(lane, coalesceKey, text);
             } else if (webSocket == null && connected) {
                 Log.d(TAG, "sendText in a weird state, trying to self-heal");
                 cleanupSafe();
@@ -206,16 +313,26 @@ public class WebSocketManager extends WebSocketListener implements NetworkMonito
             } else {
                 Log.e(TAG, "Cannot send text; WebSocket not open.");
             }
+            return false;
         }
     }
 
     /**
-     * Send binary data over the WebSocket (e.g. raw PCM audio).
+     * Send binary data over the WebSocket, in the interactive lane.
      */
     public void sendBinary(byte[] data) {
+        sendBinary(OutboundScheduler.Lane.INTERACTIVE, null, data, 0, data.length);
+    }
+
+    /**
+     * Send {@code length} bytes of {@code data} from {@code offset} in {@code lane}. The bytes are
+     * copied, so callers can reuse their buffer.
+     * @return true if the message was queued; the audio lane refuses messages when it's full
+     */
+    public boolean sendBinary(OutboundScheduler.Lane lane, String coalesceKey, byte[] data, int offset, int length) {
         synchronized (connectionLock) {
             if (webSocket != null && connected) {
-                webSocket.send(ByteString.of(data));
+                return outbound.enqueueBinary(lane, coalesceKey, data, offset, length);
             } else if (webSocket == null && connected) {
                 Log.d(TAG, "sendBinary in a weird state, trying to self-heal");
                 cleanupSafe();
@@ -223,6 +340,7 @@ public class WebSocketManager extends WebSocketListener implements NetworkMonito
             } else {
                 Log.e(TAG, "Cannot send binary; WebSocket not open.");
             }
+            return false;
         }
     }
 
@@ -265,6 +383,7 @@ public class WebSocketManager extends WebSocketListener implements NetworkMonito
             reconnecting = false;
             retryAttempts = 0; // Reset retry counter on successful connection
             Log.d(TAG, "WebSocket opened: " + response);
+            outbound.attach(webSocket);
             if (handler != null) {
                 handler.onConnectionOpen();
                 handler.onConnectionStatusChange(IncomingMessageHandler.WebSocketStatus.CONNECTED);
@@ -276,20 +395,24 @@ public class WebSocketManager extends WebSocketListener implements NetworkMonito
     public void onMessage(WebSocket webSocket, String text) {
         // A text message (likely JSON).
         try {
-            JSONObject json = new JSONObject(text);
             if (handler != null) {
-                handler.onIncomingMessage(json);
+                handler.onIncomingText(text);
             }
         } catch (Exception e) {
-            Log.e(TAG, "Error parsing message: " + text, e);
+            Log.e(TAG, "Error handling message: " + text, e);
         }
     }
 
     @Override
     public void onMessage(WebSocket webSocket, ByteString bytes) {
-        // Binary message, if the server sends any. In many cases, you won't get these.
-        Log.d(TAG, "Received binary message, size=" + bytes.size());
-        // If needed, handle or convert to JSON. Otherwise ignore.
+        // Binary message, only sent once the binary control protocol was negotiated
+        try {
+            if (handler != null) {
+                handler.onIncomingBinary(bytes.toByteArray());
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error handling binary message, size=" + bytes.size(), e);
+        }
     }
 
     @Override
@@ -337,6 +460,7 @@ public class WebSocketManager extends WebSocketListener implements NetworkMonito
     private void cleanupSafe() {
         synchronized (connectionLock) {
             connected = false;
+            outbound.detach();
 
             // Safe cleanup of websocket
             if (webSocket != null) {
@@ -347,18 +471,7 @@ public class WebSocketManager extends WebSocketListener implements NetworkMonito
                 }
                 webSocket = null;
             }
-
-            // Safe cleanup of client
-            if (client != null) {
-                try {
-                    client.dispatcher().executorService().shutdown();
-                    // Remove this line as it crashes the app eventually
-                    // client.connectionPool().evictAll();
-                } catch (Exception e) {
-                    Log.e(TAG, "Error cleaning up OkHttp client", e);
-                }
-                client = null;
-            }
+            // The OkHttp client is shared for the whole process, so it is never shut down here
         }
     }
 }
\ No newline at end of file
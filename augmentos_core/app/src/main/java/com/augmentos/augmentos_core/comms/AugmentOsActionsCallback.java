@@ -15,6 +15,7 @@ public interface AugmentOsActionsCallback {
     void setSensingEnabled(boolean sensingEnabled);
     void setForceCoreOnboardMic(boolean forceCoreOnboardMic);
     void setContextualDashboardEnabled(boolean contextualDashboardEnabled);
+    void setTranscriptSpillEnabled(boolean transcriptSpillEnabled);
     void installAppFromRepository(String repository, String packageName) throws JSONException;
     void uninstallApp(String packageName);
     void handleNotificationData(JSONObject notificationData);
@@ -25,4 +26,9 @@ public interface AugmentOsActionsCallback {
     void requestAppInfo(String packageNameToGetDetails);
     void updateGlassesBrightness(int brightness);
     void updateGlassesHeadUpAngle(int headUpAngle);
+    void setAudioUplinkCodec(String codec);
+    void setG1IncrementalTextEnabled(boolean enabled);
+    void setG1PartialBitmapUpdatesEnabled(boolean enabled);
+    void setG1MaxInFlightWrites(int maxInFlightWrites);
+    void setG1BitmapDitherMode(String ditherMode);
 }
@@ -74,6 +74,11 @@ public class AugmentOsManagerMessageParser {
                     callback.setContextualDashboardEnabled(dashboardEnabled);
                     break;
 
+                case "enable_transcript_spill":
+                    boolean transcriptSpillEnabled = commandObject.getJSONObject("params").getBoolean("enabled");
+                    callback.setTranscriptSpillEnabled(transcriptSpillEnabled);
+                    break;
+
                 case "install_app_from_repository": // TODO: Implement repository handling
 //                    String repo = commandObject.getJSONObject("params").getString("repository");
                     String packageNameToInstall = commandObject.getJSONObject("params").getString("target");
@@ -125,6 +130,31 @@ public class AugmentOsManagerMessageParser {
                     callback.updateGlassesHeadUpAngle(headUpAngle);
                     break;
 
+                case "update_audio_uplink_codec":
+                    String codec = commandObject.getJSONObject("params").getString("codec");
+                    callback.setAudioUplinkCodec(codec);
+                    break;
+
+                case "update_g1_incremental_text":
+                    boolean incrementalText = commandObject.getJSONObject("params").getBoolean("enabled");
+                    callback.setG1IncrementalTextEnabled(incrementalText);
+                    break;
+
+                case "update_g1_partial_bitmaps":
+                    boolean partialBitmaps = commandObject.getJSONObject("params").getBoolean("enabled");
+                    callback.setG1PartialBitmapUpdatesEnabled(partialBitmaps);
+                    break;
+
+                case "update_g1_max_in_flight_writes":
+                    int maxInFlightWrites = commandObject.getJSONObject("params").getInt("writes");
+                    callback.setG1MaxInFlightWrites(maxInFlightWrites);
+                    break;
+
+                case "update_g1_bitmap_dither_mode":
+                    String ditherMode = commandObject.getJSONObject("params").getString("mode");
+                    callback.setG1BitmapDitherMode(ditherMode);
+                    break;
+
                 default:
                     Log.w(TAG, "Unknown command: " + command);
             }
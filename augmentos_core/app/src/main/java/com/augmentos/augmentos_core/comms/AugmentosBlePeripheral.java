@@ -441,23 +441,20 @@ public class AugmentosBlePeripheral {
         sendDataToAugmentOsManager(data.toString());
     }
 
-    public void sendGlassesDisplayEventToManager(JSONObject displayEvent) {
+    public void sendGlassesDisplayEventToManager(String displayEventJson) {
         int binderLimitBytes = 400_000;  // pick something comfortably < 1 MB
-        String jsonString = displayEvent.toString();
-        int jsonBytesLength = jsonString.getBytes(StandardCharsets.UTF_8).length;
-        if (jsonBytesLength > binderLimitBytes) {
-            Log.d(TAG, "Display event too large to send to manager. Size: " + jsonBytesLength + " bytes. Limit: " + binderLimitBytes + " bytes.");
-            return;
+        // UTF-8 is at most 3 bytes per char, so only measure exactly when it could be over
+        if (displayEventJson.length() * 3 > binderLimitBytes) {
+            int jsonBytesLength = displayEventJson.getBytes(StandardCharsets.UTF_8).length;
+            if (jsonBytesLength > binderLimitBytes) {
+                Log.d(TAG, "Display event too large to send to manager. Size: " + jsonBytesLength + " bytes. Limit: " + binderLimitBytes + " bytes.");
+                return;
+            }
         }
 
         Log.d(TAG, "sendNotifyManager");
-        JSONObject data = new JSONObject();
-        try{
-            data.put("glasses_display_event", displayEvent);
-        } catch (JSONException e) {
-            throw new RuntimeException(e);
-        }
-        sendDataToAugmentOsManager(data.toString());
+        // The event is already JSON, so wrap it as text instead of re-parsing it into a JSONObject
+        sendDataToAugmentOsManager("{\"glasses_display_event\":" + displayEventJson + "}");
     }
 
     public void sendAppInfoToManager(ThirdPartyEdgeApp tpa) {
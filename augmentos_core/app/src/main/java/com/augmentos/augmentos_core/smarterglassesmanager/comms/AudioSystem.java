@@ -9,7 +9,6 @@ import io.reactivex.rxjava3.subjects.PublishSubject;
 
 import java.io.IOException;
 
-import org.greenrobot.eventbus.EventBus;
 import org.json.JSONObject;
 import org.json.JSONException;
 
@@ -32,7 +31,7 @@ import java.net.Socket;
 import android.util.Log;
 
 import com.augmentos.augmentos_core.R;
-import com.augmentos.augmentos_core.smarterglassesmanager.eventbusmessages.AudioChunkNewEvent;
+import com.augmentos.augmentos_core.smarterglassesmanager.hci.AudioFrameBus;
 import com.augmentos.augmentos_core.smarterglassesmanager.utils.AES;
 
 public class AudioSystem {
@@ -412,7 +411,7 @@ public class AudioSystem {
                     int chunk_len = 6416; //until we use a better protocol to specify start and end of packet, we need to to match the number in asg
                     byte [] raw_data = new byte[chunk_len];
                     input.readFully(raw_data, 0, chunk_len); // read the body
-                    EventBus.getDefault().post(new AudioChunkNewEvent(raw_data));
+                    publishPcm(raw_data);
                     //byte [] plain_audio_bytes = decryptBytes(raw_data);
                     //dataObservable.onNext(plain_audio_bytes);
                 } catch (IOException e) {
@@ -425,6 +424,11 @@ public class AudioSystem {
         }
     }
 
+    //hand raw PCM to local audio consumers, nothing else uses this path often enough to pool frames
+    private void publishPcm(byte [] pcm){
+        AudioFrameBus.publish(new AudioFrameBus.AudioFrame().set(ByteBuffer.wrap(pcm), null, 0, System.nanoTime()));
+    }
+
     public byte[] my_int_to_bb_be(int myInteger){
         return ByteBuffer.allocate(4).order(ByteOrder.BIG_ENDIAN).putInt(myInteger).array();
     }
@@ -455,7 +459,7 @@ public class AudioSystem {
             } else if (dataType.equals(MessageTypes.AUDIO_CHUNK_DECRYPTED)){
                 String encodedPlainData = data.getString(MessageTypes.AUDIO_DATA);
                 byte [] decodedPlainData = Base64.decode(encodedPlainData, Base64.DEFAULT);
-                EventBus.getDefault().post(new AudioChunkNewEvent(decodedPlainData));
+                publishPcm(decodedPlainData);
             }
         } catch (JSONException e){
             e.printStackTrace();
@@ -477,7 +481,7 @@ public class AudioSystem {
 //            dataObservable.onNext(decryptedData);
 
             //throw new audio event
-            EventBus.getDefault().post(new AudioChunkNewEvent(plainData));
+            publishPcm(plainData);
         } catch (JSONException e){
             e.printStackTrace();
         }
@@ -3,5 +3,11 @@ package com.augmentos.augmentos_core.smarterglassesmanager.hci;
 import java.nio.ByteBuffer;
 
 public interface AudioChunkCallback{
+    // chunk wraps a pooled buffer from its position to its limit; copy anything kept after returning
     void onSuccess(ByteBuffer chunk);
-}
\ No newline at end of file
+
+    // capturedAtNs is System.nanoTime() when the source got the chunk, for sources that know it
+    default void onSuccess(ByteBuffer chunk, long capturedAtNs) {
+        onSuccess(chunk);
+    }
+}
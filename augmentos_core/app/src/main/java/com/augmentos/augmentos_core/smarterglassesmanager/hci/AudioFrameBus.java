@@ -0,0 +1,181 @@
+package com.augmentos.augmentos_core.smarterglassesmanager.hci;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Fans captured audio out to local consumers with plain method calls, in place of posting
+ * every chunk through EventBus as an AudioChunkNewEvent and an LC3AudioChunkNewEvent.
+ *
+ * Each source keeps its own {@link AudioFrame}s and refills them, so publishing allocates
+ * nothing. Listeners are called in registration order on the publishing thread, which is the
+ * source's capture thread (the G1 ingest thread, the phone mic dispatch thread, ...), so a
+ * listener must be quick and safe to call from more than one of them.
+ */
+public final class AudioFrameBus {
+    private static final String TAG = "WearableAi_AudioFrameBus";
+    private static final long STATS_LOG_INTERVAL_MS = 10 * 60 * 1000;
+
+    public interface Listener {
+        /**
+         * The frame and its buffers belong to the source and are refilled after this returns;
+         * copy whatever has to outlive the call.
+         */
+        void onAudioFrame(AudioFrame frame);
+    }
+
+    /**
+     * One chunk of 16kHz mono audio: little-endian PCM, plus its LC3 encoding when the source
+     * has one.
+     */
+    public static final class AudioFrame {
+        private ByteBuffer pcm;
+        private int pcmPosition;
+        private int pcmLimit;
+        private byte[] lc3;
+        private int lc3Length;
+        private long capturedAtNs;
+
+        /**
+         * @param pcm PCM between its position and limit
+         * @param lc3 the same audio as LC3, or null
+         */
+        public AudioFrame set(ByteBuffer pcm, byte[] lc3, int lc3Length, long capturedAtNs) {
+            this.pcm = pcm;
+            this.pcmPosition = pcm.position();
+            this.pcmLimit = pcm.limit();
+            this.lc3 = lc3;
+            this.lc3Length = lc3 == null ? 0 : lc3Length;
+            this.capturedAtNs = capturedAtNs;
+            return this;
+        }
+
+        /**
+         * The PCM between position and limit. Listeners may move the position; it's reset for
+         * the next one.
+         */
+        public ByteBuffer pcm() {
+            return pcm;
+        }
+
+        public boolean hasLc3() {
+            return lc3 != null;
+        }
+
+        public byte[] lc3() {
+            return lc3;
+        }
+
+        public int lc3Length() {
+            return lc3Length;
+        }
+
+        public byte[] copyLc3() {
+            return lc3 == null ? null : Arrays.copyOf(lc3, lc3Length);
+        }
+
+        // System.nanoTime() when the source got this audio
+        public long capturedAtNs() {
+            return capturedAtNs;
+        }
+
+        private void rewind() {
+            pcm.limit(pcmLimit);
+            pcm.position(pcmPosition);
+        }
+    }
+
+    // Replaced on every change, so publishing just reads the volatile
+    private static volatile Listener[] listeners = new Listener[0];
+
+    // Counters, guarded by the class
+    private static long framesPublished = 0;
+    private static long pcmBytesPublished = 0;
+    private static long totalDispatchNs = 0;
+    private static long maxDispatchNs = 0;
+    private static long totalLatencyNs = 0;
+    private static long statsStartMs = SystemClock.elapsedRealtime();
+    private static long lastStatsLogMs = statsStartMs;
+
+    private AudioFrameBus() {
+        // Static only
+    }
+
+    public static synchronized void register(Listener listener) {
+        for (Listener l : listeners) {
+            if (l == listener) return;
+        }
+        Listener[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+        updated[listeners.length] = listener;
+        listeners = updated;
+    }
+
+    public static synchronized void unregister(Listener listener) {
+        Listener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == listener) {
+                Listener[] updated = new Listener[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                listeners = updated;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Calls every listener with {@code frame}, on this thread.
+     */
+    public static void publish(AudioFrame frame) {
+        Listener[] current = listeners;
+        long start = System.nanoTime();
+        for (Listener listener : current) {
+            frame.rewind();
+            try {
+                listener.onAudioFrame(frame);
+            } catch (Exception e) {
+                Log.e(TAG, "Error in audio frame listener", e);
+            }
+        }
+        long end = System.nanoTime();
+        frame.rewind();
+
+        synchronized (AudioFrameBus.class) {
+            framesPublished++;
+            pcmBytesPublished += frame.pcmLimit - frame.pcmPosition;
+            totalDispatchNs += end - start;
+            maxDispatchNs = Math.max(maxDispatchNs, end - start);
+            totalLatencyNs += start - frame.capturedAtNs;
+            long now = SystemClock.elapsedRealtime();
+            if (now - lastStatsLogMs >= STATS_LOG_INTERVAL_MS) {
+                Log.d(TAG, getStatsSummary());
+                lastStatsLogMs = now;
+            }
+        }
+    }
+
+    public static synchronized void resetStats() {
+        framesPublished = 0;
+        pcmBytesPublished = 0;
+        totalDispatchNs = 0;
+        maxDispatchNs = 0;
+        totalLatencyNs = 0;
+        statsStartMs = SystemClock.elapsedRealtime();
+    }
+
+    /**
+     * Dispatch is the time spent in all listeners per frame; latency is capture to publish.
+     */
+    public static synchronized String getStatsSummary() {
+        double seconds = Math.max(1, SystemClock.elapsedRealtime() - statsStartMs) / 1000.0;
+        return String.format(Locale.US,
+                "audio bus: listeners=%d frames=%d (%.1f/s) pcm=%.0fB/s avgDispatch=%.0fus maxDispatch=%dus avgLatency=%.1fms",
+                listeners.length, framesPublished, framesPublished / seconds, pcmBytesPublished / seconds,
+                framesPublished == 0 ? 0 : totalDispatchNs / 1000.0 / framesPublished, maxDispatchNs / 1000,
+                framesPublished == 0 ? 0 : totalLatencyNs / 1e6 / framesPublished);
+    }
+}
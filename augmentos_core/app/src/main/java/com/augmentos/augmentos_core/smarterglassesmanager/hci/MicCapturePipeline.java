@@ -0,0 +1,179 @@
+package com.augmentos.augmentos_core.smarterglassesmanager.hci;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.nio.ByteBuffer;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands phone mic audio from the AudioRecord thread to a separate dispatch thread.
+ *
+ * The recorder thread takes a recycled slab, reads PCM straight into it, stamps it with when the
+ * read returned and queues it; it never waits on whoever consumes the audio. The dispatch thread passes each slab to the
+ * {@link AudioChunkCallback} (which does the LC3 encode and fans out) along with that capture
+ * time, and recycles it once the callback returns. If the callback falls behind and every slab is in use, the recorder reads
+ * into a scratch slab and drops it, counted as an overrun. If the dispatch thread waits more
+ * than two chunk periods for audio, that's counted as an underrun.
+ */
+public class MicCapturePipeline {
+    private static final String TAG = "WearableAi_MicCapturePipeline";
+    private static final int POOL_SIZE = 8;
+    private static final long STATS_LOG_INTERVAL_MS = 10 * 60 * 1000;
+
+    /**
+     * What the recorder thread reads from, i.e. {@code AudioRecord::read}.
+     */
+    public interface AudioReader {
+        int read(byte[] data, int offset, int length);
+    }
+
+    private static class Slab {
+        final byte[] data;
+        int length;
+        long readAtNs;
+
+        Slab(int capacity) {
+            data = new byte[capacity];
+        }
+    }
+
+    private final int chunkBytes;
+    private final long chunkPeriodMs;
+    private final AudioChunkCallback callback;
+    private final ArrayBlockingQueue<Slab> freeSlabs = new ArrayBlockingQueue<>(POOL_SIZE);
+    private final ArrayBlockingQueue<Slab> filledSlabs = new ArrayBlockingQueue<>(POOL_SIZE);
+    // Only touched by the recorder thread, for reads made while the pool is empty
+    private final Slab scratch;
+    private volatile boolean running = false;
+    private Thread dispatchThread;
+
+    // Counters, guarded by this
+    private long chunksDispatched = 0;
+    private long overruns = 0;
+    private long underruns = 0;
+    private long shortReads = 0;
+    private int maxQueued = 0;
+    private long totalCallbackNs = 0;
+    private long maxCallbackNs = 0;
+    private long lastStatsLogMs = SystemClock.elapsedRealtime();
+
+    /**
+     * @param chunkBytes size of one AudioRecord read, 16kHz mono 16-bit PCM
+     */
+    public MicCapturePipeline(int chunkBytes, AudioChunkCallback callback) {
+        this.chunkBytes = chunkBytes;
+        this.chunkPeriodMs = chunkBytes / 2 * 1000L / 16000;
+        this.callback = callback;
+        for (int i = 0; i < POOL_SIZE; i++) {
+            freeSlabs.offer(new Slab(chunkBytes));
+        }
+        scratch = new Slab(chunkBytes);
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        dispatchThread = new Thread(this::dispatchLoop, "MicCaptureDispatch");
+        dispatchThread.setDaemon(true);
+        dispatchThread.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (dispatchThread != null) {
+            dispatchThread.interrupt();
+            dispatchThread = null;
+        }
+        Log.d(TAG, getStatsSummary());
+    }
+
+    /**
+     * Called on the recorder thread for every chunk. Reads into a free slab and queues it, or
+     * reads into the scratch slab and drops it if none is free, so the AudioRecord keeps draining.
+     * @return the read's result, negative on an AudioRecord error
+     */
+    public int readFrom(AudioReader reader) {
+        Slab slab = freeSlabs.poll();
+        boolean dropped = slab == null;
+        if (dropped) {
+            slab = scratch;
+        }
+        int result = reader.read(slab.data, 0, chunkBytes);
+        long readAtNs = System.nanoTime();
+        if (result <= 0) {
+            if (!dropped) freeSlabs.offer(slab);
+            return result;
+        }
+
+        synchronized (this) {
+            if (result < chunkBytes) {
+                shortReads++;
+            }
+            if (dropped) {
+                overruns++;
+                return result;
+            }
+            maxQueued = Math.max(maxQueued, filledSlabs.size() + 1);
+        }
+        slab.length = result;
+        slab.readAtNs = readAtNs;
+        filledSlabs.offer(slab);
+        return result;
+    }
+
+    private void dispatchLoop() {
+        try {
+            while (running) {
+                Slab slab = filledSlabs.poll(2 * chunkPeriodMs, TimeUnit.MILLISECONDS);
+                if (slab == null) {
+                    // One underrun per stall, then wait quietly, e.g. while the recorder restarts for SCO
+                    synchronized (this) {
+                        if (chunksDispatched > 0) underruns++;
+                    }
+                    slab = filledSlabs.take();
+                }
+                try {
+                    dispatch(slab);
+                } finally {
+                    freeSlabs.offer(slab);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            filledSlabs.drainTo(freeSlabs);
+        }
+    }
+
+    private void dispatch(Slab slab) {
+        long start = System.nanoTime();
+        try {
+            callback.onSuccess(ByteBuffer.wrap(slab.data, 0, slab.length), slab.readAtNs);
+        } catch (Exception e) {
+            Log.e(TAG, "Error in audio chunk callback", e);
+        }
+        long callbackNs = System.nanoTime() - start;
+
+        synchronized (this) {
+            chunksDispatched++;
+            totalCallbackNs += callbackNs;
+            maxCallbackNs = Math.max(maxCallbackNs, callbackNs);
+            long now = SystemClock.elapsedRealtime();
+            if (now - lastStatsLogMs >= STATS_LOG_INTERVAL_MS) {
+                Log.d(TAG, getStatsSummary());
+                lastStatsLogMs = now;
+            }
+        }
+    }
+
+    public synchronized String getStatsSummary() {
+        double avgCallbackUs = chunksDispatched == 0 ? 0 : totalCallbackNs / 1000.0 / chunksDispatched;
+        return String.format(Locale.US,
+                "phone mic: dispatched=%d overruns=%d underruns=%d shortReads=%d maxQueued=%d/%d avgCallback=%.0fus maxCallback=%dus",
+                chunksDispatched, overruns, underruns, shortReads, maxQueued, POOL_SIZE,
+                avgCallbackUs, maxCallbackNs / 1000);
+    }
+}
@@ -25,7 +25,6 @@ import com.augmentos.augmentos_core.smarterglassesmanager.eventbusmessages.ScoSt
 import org.greenrobot.eventbus.EventBus;
 
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class MicrophoneLocalAndBluetooth {
@@ -140,6 +139,7 @@ public class MicrophoneLocalAndBluetooth {
     private Context mContext;
 
     private AudioChunkCallback mChunkCallback;
+    private final MicCapturePipeline capturePipeline;
     private CountDownTimer mCountDown;
 
     public MicrophoneLocalAndBluetooth(Context context, boolean useBluetoothSco, AudioChunkCallback chunkCallback) {
@@ -158,6 +158,23 @@ public class MicrophoneLocalAndBluetooth {
 
         mChunkCallback = chunkCallback;
 
+        // The recorder thread only fills pooled slabs, the callback runs on the pipeline's own thread
+        capturePipeline = new MicCapturePipeline(bufferSize * 2, new AudioChunkCallback() {
+            @Override
+            public void onSuccess(ByteBuffer chunk) {
+                onSuccess(chunk, System.nanoTime());
+            }
+
+            @Override
+            public void onSuccess(ByteBuffer chunk, long capturedAtNs) {
+                AudioChunkCallback callback = mChunkCallback;
+                if (!isDestroyed.get() && callback != null) {
+                    callback.onSuccess(chunk, capturedAtNs);
+                }
+            }
+        });
+        capturePipeline.start();
+
         mHandler = new Handler();
 
         // Initialize the countdown timer
@@ -417,9 +434,6 @@ public class MicrophoneLocalAndBluetooth {
     private class RecordingRunnable implements Runnable {
         @Override
         public void run() {
-            short[] short_buffer = new short[bufferSize];
-            ByteBuffer b_buffer = ByteBuffer.allocate(short_buffer.length * 2);
-
             AudioRecord localRecorder;
             while (recordingInProgress.get() && !isDestroyed.get() && !Thread.currentThread().isInterrupted()) {
                 // Store a local reference to the recorder to prevent null pointer issues
@@ -431,29 +445,12 @@ public class MicrophoneLocalAndBluetooth {
                         break;
                     }
 
-                    int result = localRecorder.read(short_buffer, 0, short_buffer.length);
+                    // Blocks until a chunk is ready, so there's no need to sleep between reads
+                    int result = capturePipeline.readFrom(localRecorder::read);
                     if (result < 0) {
                         Log.d(TAG, "Error reading from AudioRecord: " + getBufferReadFailureReason(result));
                         break;
                     }
-
-                    b_buffer.order(ByteOrder.LITTLE_ENDIAN);
-                    b_buffer.asShortBuffer().put(short_buffer);
-                    if (!isDestroyed.get() && mChunkCallback != null) {
-                        mChunkCallback.onSuccess(b_buffer);
-                    }
-                    b_buffer.clear();
-
-                    // Update the local recorder reference for the next iteration
-                    localRecorder = recorder;
-
-                    // Add a small sleep to prevent thread from hogging CPU
-                    Thread.sleep(5);
-                } catch (InterruptedException e) {
-                    // Thread was interrupted, exit gracefully
-                    Thread.currentThread().interrupt();
-                    Log.d(TAG, "Recording thread interrupted");
-                    break;
                 } catch (Exception e) {
                     Log.e(TAG, "Error in recording thread", e);
                     break;
@@ -479,6 +476,10 @@ public class MicrophoneLocalAndBluetooth {
         }
     }
 
+    public String getCaptureStats() {
+        return capturePipeline.getStatsSummary();
+    }
+
     enum BluetoothState {
         AVAILABLE, UNAVAILABLE
     }
@@ -504,6 +505,7 @@ public class MicrophoneLocalAndBluetooth {
 
         // Stop recording
         stopRecording();
+        capturePipeline.stop();
 
         // Clean up Bluetooth SCO
         try {
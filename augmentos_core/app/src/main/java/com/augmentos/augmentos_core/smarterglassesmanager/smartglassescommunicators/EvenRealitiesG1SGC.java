@@ -23,13 +23,13 @@ import android.content.SharedPreferences;
 import android.graphics.Bitmap;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 
 import androidx.preference.PreferenceManager;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.concurrent.ConcurrentLinkedQueue;
 
 //BMP
 import java.util.ArrayList;
@@ -37,15 +37,13 @@ import java.util.List;
 import java.util.zip.CRC32;
 import java.nio.ByteBuffer;
 
-import com.augmentos.augmentos_core.smarterglassesmanager.eventbusmessages.LC3AudioChunkNewEvent;
 import com.augmentos.augmentos_core.smarterglassesmanager.smartglassesconnection.SmartGlassesAndroidService;
 import com.augmentos.augmentos_core.smarterglassesmanager.eventbusmessages.HeadUpAngleEvent;
 import com.augmentos.augmentos_core.smarterglassesmanager.utils.BitmapJavaUtils;
 import com.augmentos.augmentos_core.smarterglassesmanager.utils.G1FontLoader;
+import com.augmentos.augmentos_core.smarterglassesmanager.utils.MonochromeBmpEncoder;
 import com.augmentos.augmentos_core.smarterglassesmanager.utils.SmartGlassesConnectionState;
 import com.google.gson.Gson;
-import com.augmentos.augmentos_core.smarterglassesmanager.eventbusmessages.AudioChunkNewEvent;
-import com.augmentos.smartglassesmanager.cpp.L3cCpp;
 import com.augmentos.augmentos_core.smarterglassesmanager.eventbusmessages.BatteryLevelEvent;
 import com.augmentos.augmentos_core.smarterglassesmanager.eventbusmessages.BrightnessLevelEvent;
 import com.augmentos.augmentos_core.smarterglassesmanager.eventbusmessages.GlassesBluetoothSearchDiscoverEvent;
@@ -84,6 +82,10 @@ public class EvenRealitiesG1SGC extends SmartGlassesCommunicator {
     private static final UUID UART_RX_CHAR_UUID = UUID.fromString("6E400003-B5A3-F393-E0A9-E50E24DCCA9E");
     private static final UUID CLIENT_CHARACTERISTIC_CONFIG_UUID = UUID.fromString("00002902-0000-1000-8000-00805f9b34fb");
     private static final String SAVED_G1_ID_KEY = "SAVED_G1_ID_KEY";
+    private static final String INCREMENTAL_TEXT_KEY = "G1_INCREMENTAL_TEXT";
+    private static final String PARTIAL_BITMAP_UPDATES_KEY = "G1_PARTIAL_BITMAP_UPDATES";
+    private static final String MAX_IN_FLIGHT_WRITES_KEY = "G1_MAX_IN_FLIGHT_WRITES";
+    private static final String BITMAP_DITHER_MODE_KEY = "G1_BITMAP_DITHER_MODE";
     private Context context;
     private BluetoothGatt leftGlassGatt;
     private BluetoothGatt rightGlassGatt;
@@ -108,9 +110,11 @@ public class EvenRealitiesG1SGC extends SmartGlassesCommunicator {
     private int brightnessValue;
 
     private static final long DELAY_BETWEEN_SENDS_MS = 5; //not using now
-    private static final long DELAY_BETWEEN_CHUNKS_SEND = 5; //super small just in case
+    private static final long DELAY_BETWEEN_CHUNKS_SEND = 5; //not using now, writes are paced by onCharacteristicWrite
+    private static final int DEFAULT_MAX_IN_FLIGHT_WRITES = 1; //per arm, tune per phone model with the G1_MAX_IN_FLIGHT_WRITES pref
     private static final long DELAY_BETWEEN_ACTIONS_SEND = 250; //not using now
     private static final long HEARTBEAT_INTERVAL_MS = 15000;
+    private static final int TRANSPORT_STATS_EVERY_HEARTBEATS = 4; //log BLE transport stats once a minute
     private static final long MICBEAT_INTERVAL_MS = (1000 * 60) * 30; //micbeat every 30 minutes
     private int batteryLeft = -1;
     private int batteryRight = -1;
@@ -176,6 +180,12 @@ public class EvenRealitiesG1SGC extends SmartGlassesCommunicator {
 
     //remember when we connected
     private long lastConnectionTimestamp = 0;
+
+    //cold start to first text frame, logged once per communicator
+    private final long createdAtElapsedMs = SystemClock.elapsedRealtime();
+    private long connectedAtElapsedMs = 0;
+    private volatile boolean firstTextFrameLogged = false;
+
     private SmartGlassesDevice smartGlassesDevice;
 
     private static final long CONNECTION_TIMEOUT_MS = 10000; // 10 seconds
@@ -189,11 +199,13 @@ public class EvenRealitiesG1SGC extends SmartGlassesCommunicator {
     private Runnable rightConnectionTimeoutRunnable;
     private boolean isBondingReceiverRegistered = false;
     private boolean shouldRunOnboardMic;
+    private final G1AudioIngest audioIngest = new G1AudioIngest();
     private boolean lastThingDisplayedWasAnImage = false;
 
     // lock writing until the last write is successful
     //fonts in G1
     G1FontLoader fontLoader;
+    private G1LineBreaker lineBreaker;
 
     public EvenRealitiesG1SGC(Context context, SmartGlassesDevice smartGlassesDevice) {
         super();
@@ -203,11 +215,18 @@ public class EvenRealitiesG1SGC extends SmartGlassesCommunicator {
         this.smartGlassesDevice = smartGlassesDevice;
         preferredG1DeviceId = getPreferredG1DeviceId(context);
         brightnessValue = getSavedBrightnessValue(context);
+        textDeltaEncoder.setIncrementalEnabled(getIncrementalTextEnabled(context));
+        bitmapDeltaEncoder.setPartialUpdatesEnabled(getPartialBitmapUpdatesEnabled(context));
+        setMaxInFlightWrites(getMaxInFlightWrites(context));
+        setBitmapDitherMode(getBitmapDitherMode(context));
         this.bluetoothAdapter = BluetoothAdapter.getDefaultAdapter();
         this.shouldRunOnboardMic = SmartGlassesAndroidService.getSensingEnabled(context) && !SmartGlassesAndroidService.getForceCoreOnboardMic(context);
 
         //setup fonts
-        fontLoader = new G1FontLoader(context);
+        fontLoader = G1FontLoader.getInstance(context);
+        lineBreaker = new G1LineBreaker(fontLoader::getGlyphWidth);
+
+        audioIngest.start();
     }
 
     private final BluetoothGattCallback leftGattCallback = createGattCallback("Left");
@@ -255,7 +274,7 @@ public class EvenRealitiesG1SGC extends SmartGlassesCommunicator {
                         // Stop any periodic transmissions
                         stopHeartbeat();
                         stopMicBeat();
-                        sendQueue.clear();
+                        clearSendQueues();
                         Log.d(TAG, "Stopped heartbeat and mic beat; cleared sendQueue.");
 
                         updateConnectionState();
@@ -306,7 +325,7 @@ public class EvenRealitiesG1SGC extends SmartGlassesCommunicator {
                     Log.e(TAG, "Unexpected connection state encountered for " + side + " glass: " + newState);
                     stopHeartbeat();
                     stopMicBeat();
-                    sendQueue.clear();
+                    clearSendQueues();
 
                     // Mark both sides as not ready (you could also clear both if one disconnects)
                     leftServicesWaiter.setTrue();
@@ -426,11 +445,19 @@ public class EvenRealitiesG1SGC extends SmartGlassesCommunicator {
                     }
                 }
 
-                //clear the waiter
+                //the right arm only gets a text packet once the left one acked it, so this is when both show text
+                if (!firstTextFrameLogged && "Right".equals(side) && status == BluetoothGatt.GATT_SUCCESS) {
+                    byte[] value = characteristic.getValue();
+                    if (value != null && value.length > 0 && value[0] == TEXT_COMMAND) {
+                        logFirstTextFrame();
+                    }
+                }
+
+                //let the pipeline for this arm issue its next write
                 if ("Left".equals(side)) {
-                    leftWaiter.setFalse();
+                    leftWriter.onWriteComplete(status == BluetoothGatt.GATT_SUCCESS);
                 } else {
-                    rightWaiter.setFalse();
+                    rightWriter.onWriteComplete(status == BluetoothGatt.GATT_SUCCESS);
                 }
             }
 
@@ -448,34 +475,32 @@ public class EvenRealitiesG1SGC extends SmartGlassesCommunicator {
 
             @Override
             public void onCharacteristicChanged(BluetoothGatt gatt, BluetoothGattCharacteristic characteristic) {
+                // MIC audio goes straight to the ingest thread instead of through the main looper
+                if (characteristic.getUuid().equals(UART_RX_CHAR_UUID)) {
+                    byte[] data = characteristic.getValue();
+                    if (data != null && data.length > 0 && (data[0] & 0xFF) == 0xF1) {
+                        // only the right arm's mic is used; byte 1 is a sequence number, LC3 follows
+                        if ("Right".equals(side) && shouldRunOnboardMic) {
+                            audioIngest.offer(data, 2, data.length - 2);
+                        }
+                        return;
+                    }
+                }
+
                 characteristicHandler.post(() -> {
                     if (characteristic.getUuid().equals(UART_RX_CHAR_UUID)) {
                         byte[] data = characteristic.getValue();
                         String deviceName = gatt.getDevice().getName();
                         if (deviceName == null) return;
 
-                        // Handle MIC audio data
-                        if (data.length > 0 && (data[0] & 0xFF) == 0xF1) {
-                            int seq = data[1] & 0xFF; // Sequence number
-                            // eg. LC3 to PCM
-                            byte[] lc3 = Arrays.copyOfRange(data, 2, 202);
-                            byte[] pcmData = L3cCpp.decodeLC3(lc3);
-                            if (pcmData == null) {
-                                throw new IllegalStateException("Failed to decode LC3 data");
-                            }
-
-                            if (deviceName.contains("R_")) {
-                                // Log.d(TAG, "Audio data received. Seq: " + seq + ", from: " + deviceName + ", length: " + pcmData.length);
-                                if (shouldRunOnboardMic) {
-                                    EventBus.getDefault().post(new AudioChunkNewEvent(pcmData));
-                                    EventBus.getDefault().post(new LC3AudioChunkNewEvent(lc3));
-                                }
-                            } else {
-//                                Log.d(TAG, "Lc3 Audio data received. Seq: " + seq + ", Data: " + Arrays.toString(lc3) + ", from: " + deviceName);
-                            }
+                        // head up, touches etc. can make the firmware show its dashboard or exit our screen
+                        if (data.length > 0 && (data[0] & 0xFF) == 0xF5) {
+                            textDeltaEncoder.invalidate();
+                            bitmapDeltaEncoder.invalidate();
                         }
+
                         //HEAD UP MOVEMENTS
-                        else if (data.length > 1 && (data[0] & 0xFF) == 0xF5 && (data[1] & 0xFF) == 0x02) {
+                        if (data.length > 1 && (data[0] & 0xFF) == 0xF5 && (data[1] & 0xFF) == 0x02) {
                             // Only check head movements from the right sensor
                             if (deviceName.contains("R_")) {
                                 // Check for head down movement - initial F5 02 signal
@@ -665,11 +690,22 @@ public class EvenRealitiesG1SGC extends SmartGlassesCommunicator {
         }
     }
 
+    private void logFirstTextFrame() {
+        firstTextFrameLogged = true;
+        long now = SystemClock.elapsedRealtime();
+        Log.d(TAG, "Cold start: first text frame acked " + (now - android.os.Process.getStartElapsedRealtime())
+                + "ms after process start, " + (now - createdAtElapsedMs) + "ms after the communicator was created, "
+                + (connectedAtElapsedMs == 0 ? "?" : String.valueOf(now - connectedAtElapsedMs)) + "ms after both arms connected");
+    }
+
     private void updateConnectionState() {
         if (isLeftConnected && isRightConnected) {
             connectionState = SmartGlassesConnectionState.CONNECTED;
             Log.d(TAG, "Both glasses connected");
             lastConnectionTimestamp = System.currentTimeMillis();
+            if (connectedAtElapsedMs == 0) {
+                connectedAtElapsedMs = SystemClock.elapsedRealtime();
+            }
             connectionEvent(connectionState);
         } else if (isLeftConnected || isRightConnected) {
             connectionState = SmartGlassesConnectionState.CONNECTING;
@@ -793,6 +829,61 @@ public class EvenRealitiesG1SGC extends SmartGlassesCommunicator {
         return prefs.getString(SAVED_G1_ID_KEY, null);
     }
 
+    // Kept with the paired glasses, since these depend on their firmware
+    public static void saveIncrementalTextEnabled(Context context, boolean enabled){
+        context.getSharedPreferences(SHARED_PREFS_NAME, Context.MODE_PRIVATE)
+                .edit()
+                .putBoolean(INCREMENTAL_TEXT_KEY, enabled)
+                .apply();
+    }
+
+    public static boolean getIncrementalTextEnabled(Context context){
+        SharedPreferences prefs = context.getSharedPreferences(SHARED_PREFS_NAME, Context.MODE_PRIVATE);
+        return prefs.getBoolean(INCREMENTAL_TEXT_KEY, false);
+    }
+
+    public static void savePartialBitmapUpdatesEnabled(Context context, boolean enabled){
+        context.getSharedPreferences(SHARED_PREFS_NAME, Context.MODE_PRIVATE)
+                .edit()
+                .putBoolean(PARTIAL_BITMAP_UPDATES_KEY, enabled)
+                .apply();
+    }
+
+    public static boolean getPartialBitmapUpdatesEnabled(Context context){
+        SharedPreferences prefs = context.getSharedPreferences(SHARED_PREFS_NAME, Context.MODE_PRIVATE);
+        return prefs.getBoolean(PARTIAL_BITMAP_UPDATES_KEY, false);
+    }
+
+    public static void saveMaxInFlightWrites(Context context, int maxInFlight){
+        context.getSharedPreferences(SHARED_PREFS_NAME, Context.MODE_PRIVATE)
+                .edit()
+                .putInt(MAX_IN_FLIGHT_WRITES_KEY, maxInFlight)
+                .apply();
+    }
+
+    public static int getMaxInFlightWrites(Context context){
+        SharedPreferences prefs = context.getSharedPreferences(SHARED_PREFS_NAME, Context.MODE_PRIVATE);
+        return prefs.getInt(MAX_IN_FLIGHT_WRITES_KEY, DEFAULT_MAX_IN_FLIGHT_WRITES);
+    }
+
+    public static void saveBitmapDitherMode(Context context, MonochromeBmpEncoder.DitherMode ditherMode){
+        context.getSharedPreferences(SHARED_PREFS_NAME, Context.MODE_PRIVATE)
+                .edit()
+                .putString(BITMAP_DITHER_MODE_KEY, ditherMode.name())
+                .apply();
+    }
+
+    public static MonochromeBmpEncoder.DitherMode getBitmapDitherMode(Context context){
+        SharedPreferences prefs = context.getSharedPreferences(SHARED_PREFS_NAME, Context.MODE_PRIVATE);
+        String name = prefs.getString(BITMAP_DITHER_MODE_KEY, MonochromeBmpEncoder.DitherMode.NONE.name());
+        try {
+            return MonochromeBmpEncoder.DitherMode.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "Unknown bitmap dither mode " + name + ", using NONE");
+            return MonochromeBmpEncoder.DitherMode.NONE;
+        }
+    }
+
     public static int getSavedBrightnessValue(Context context){
         return Integer.parseInt(PreferenceManager.getDefaultSharedPreferences(context).getString(context.getResources().getString(R.string.SHARED_PREF_BRIGHTNESS), "50"));
     }
@@ -1211,6 +1302,12 @@ public class EvenRealitiesG1SGC extends SmartGlassesCommunicator {
         final boolean onlyLeft;
         final boolean onlyRight;
         public int waitTime = -1;
+        // Text pages are chunked per arm at dispatch time, against what that arm is showing
+        byte[] textPage = null;
+        // Same for BMP images, diffed chunk by chunk
+        byte[] bmpImage = null;
+        // Set on packets that replace whatever is on screen, e.g. bitmaps
+        boolean replacesScreen = false;
 
         SendRequest(byte[] data, boolean onlyLeft, boolean onlyRight) {
             this.data = data;
@@ -1226,21 +1323,21 @@ public class EvenRealitiesG1SGC extends SmartGlassesCommunicator {
         }
     }
 
-    // Queue to hold pending requests
-    private final ConcurrentLinkedQueue<SendRequest []> sendQueue = new ConcurrentLinkedQueue<>();
-    private volatile boolean isWorkerRunning = false;
+    // Parks while idle; pending display frames with the same key collapse to the newest one
+    private static final String DISPLAY_FRAME_KEY = "display_frame";
+    private final G1SendScheduler<SendRequest[]> sendScheduler = new G1SendScheduler<>("G1SendScheduler", this::dispatchRequests);
 
     // Non-blocking function to add new send request
     private void sendDataSequentially(byte[] data, boolean onlyLeft) {
         SendRequest [] chunks = {new SendRequest(data, onlyLeft, false)};
-        sendQueue.offer(chunks);
+        sendScheduler.submit(chunks);
         startWorkerIfNeeded();
     }
 
     // Non-blocking function to add new send request
     private void sendDataSequentially(byte[] data, boolean onlyLeft, int waitTime) {
         SendRequest [] chunks = {new SendRequest(data, onlyLeft, false, waitTime)};
-        sendQueue.offer(chunks);
+        sendScheduler.submit(chunks);
         startWorkerIfNeeded();
     }
 
@@ -1251,31 +1348,102 @@ public class EvenRealitiesG1SGC extends SmartGlassesCommunicator {
 
     private void sendDataSequentially(byte[] data, boolean onlyLeft, boolean onlyRight) {
         SendRequest [] chunks = {new SendRequest(data, onlyLeft, onlyRight)};
-        sendQueue.offer(chunks);
+        sendScheduler.submit(chunks);
         startWorkerIfNeeded();
     }
 
     private void sendDataSequentially(byte[] data, boolean onlyLeft, boolean onlyRight, int waitTime) {
         SendRequest [] chunks = {new SendRequest(data, onlyLeft, onlyRight, waitTime)};
-        sendQueue.offer(chunks);
+        sendScheduler.submit(chunks);
         startWorkerIfNeeded();
     }
 
     private void sendDataSequentially(List<byte[]> data, boolean onlyLeft, boolean onlyRight) {
+        sendScheduler.submit(toSendRequests(data, onlyLeft, onlyRight));
+        startWorkerIfNeeded();
+    }
+
+    // Sends a whole screen as one unit; a newer screen queued before this one goes out replaces it
+    private void sendDisplayFrame(List<byte[]> data) {
+        SendRequest[] chunks = toSendRequests(data, false, false);
+        for (SendRequest chunk : chunks) {
+            chunk.replacesScreen = true;
+        }
+        sendScheduler.submit(chunks, DISPLAY_FRAME_KEY);
+        startWorkerIfNeeded();
+    }
+
+    // Like sendDisplayFrame, but only the chunks of the image each arm doesn't already show are sent
+    private void sendBitmapFrame(byte[] bmpData) {
+        SendRequest request = new SendRequest(null, false, false);
+        request.bmpImage = bmpData;
+        sendScheduler.submit(new SendRequest[]{request}, DISPLAY_FRAME_KEY);
+        startWorkerIfNeeded();
+    }
+
+    // Like sendDisplayFrame, but only the part of the page each arm doesn't already show is sent
+    private void sendTextPage(byte[] page) {
+        SendRequest request = new SendRequest(null, false, false);
+        request.textPage = page;
+        sendScheduler.submit(new SendRequest[]{request}, DISPLAY_FRAME_KEY);
+        startWorkerIfNeeded();
+    }
+
+    private SendRequest[] toSendRequests(List<byte[]> data, boolean onlyLeft, boolean onlyRight) {
         SendRequest[] chunks = new SendRequest[data.size()];
         for (int i = 0; i < data.size(); i++) {
             chunks[i] = new SendRequest(data.get(i), onlyLeft, onlyRight);
         }
-        sendQueue.offer(chunks);
-        startWorkerIfNeeded();
+        return chunks;
+    }
+
+    // Start the sender threads if they're not already running
+    private void startWorkerIfNeeded() {
+        leftWriter.start();
+        rightWriter.start();
+        sendScheduler.start();
     }
 
-    // Start the worker thread if it's not already running
-    private synchronized void startWorkerIfNeeded() {
-        if (!isWorkerRunning) {
-            isWorkerRunning = true;
-            new Thread(this::processQueue).start();
+    // Independent write pipelines for each arm, paced by onCharacteristicWrite
+    private final G1SideWriter leftWriter = new G1SideWriter("Left", DEFAULT_MAX_IN_FLIGHT_WRITES,
+            data -> writeToGlass(leftGlassGatt, leftTxChar, isLeftConnected, data));
+    private final G1SideWriter rightWriter = new G1SideWriter("Right", DEFAULT_MAX_IN_FLIGHT_WRITES,
+            data -> writeToGlass(rightGlassGatt, rightTxChar, isRightConnected, data));
+
+    private boolean writeToGlass(BluetoothGatt gatt, BluetoothGattCharacteristic txChar, boolean isConnected, byte[] data) {
+        if (gatt == null || txChar == null || !isConnected) {
+            return false;
         }
+        txChar.setValue(data);
+        return gatt.writeCharacteristic(txChar);
+    }
+
+    private void clearSendQueues() {
+        sendScheduler.clear();
+        textDeltaEncoder.invalidate();
+        bitmapDeltaEncoder.invalidate();
+        leftWriter.clear();
+        rightWriter.clear();
+    }
+
+    public void setMaxInFlightWrites(int maxInFlight) {
+        leftWriter.setMaxInFlight(maxInFlight);
+        rightWriter.setMaxInFlight(maxInFlight);
+    }
+
+    public String getTransportStats() {
+        return audioIngest.getStatsSummary() + " | " + sendScheduler.getStatsSummary() + " | " + textDeltaEncoder.getStatsSummary()
+                + " | " + bitmapDeltaEncoder.getStatsSummary() + " | " + leftWriter.getStatsSummary() + " | " + rightWriter.getStatsSummary();
+    }
+
+    // Only send the changed suffix of text pages using new_char_pos, for firmware that supports it
+    public void setIncrementalTextEnabled(boolean enabled) {
+        textDeltaEncoder.setIncrementalEnabled(enabled);
+    }
+
+    // Only re-send the BMP chunks that changed, for firmware that keeps the previous image
+    public void setPartialBitmapUpdatesEnabled(boolean enabled) {
+        bitmapDeltaEncoder.setPartialUpdatesEnabled(enabled);
     }
 
 
@@ -1299,102 +1467,121 @@ public class EvenRealitiesG1SGC extends SmartGlassesCommunicator {
         }
     }
 
-    private final BooleanWaiter leftWaiter = new BooleanWaiter();
-    private final BooleanWaiter rightWaiter = new BooleanWaiter();
     private final BooleanWaiter leftServicesWaiter = new BooleanWaiter();
     private final BooleanWaiter rightServicesWaiter = new BooleanWaiter();
     private static final long INITIAL_CONNECTION_DELAY_MS = 350; // Adjust this value as needed
 
-    private void processQueue() {
+    // Runs on the scheduler thread: hands one request group to the arm writers and waits for it to land
+    private void dispatchRequests(SendRequest[] requests) throws InterruptedException {
         //first wait until the services are setup and ready to receive data
-        Log.d(TAG, "PROC_QUEUE - waiting on services waiters");
-        try {
-            leftServicesWaiter.waitWhileTrue();
-            rightServicesWaiter.waitWhileTrue();
-        } catch (InterruptedException e) {
-            Log.e(TAG, "Interrupted waiting for descriptor writes: " + e);
+        leftServicesWaiter.waitWhileTrue();
+        rightServicesWaiter.waitWhileTrue();
+
+        //force an initial delay so BLE gets all setup
+        long timeSinceConnection = System.currentTimeMillis() - lastConnectionTimestamp;
+        if (timeSinceConnection < INITIAL_CONNECTION_DELAY_MS) {
+            Thread.sleep(INITIAL_CONNECTION_DELAY_MS - timeSinceConnection);
         }
-        Log.d(TAG, "PROC_QUEUE - DONE waiting on services waiters");
 
-        while (true) {
-            try {
-                leftServicesWaiter.waitWhileTrue();
-                rightServicesWaiter.waitWhileTrue();
-            } catch (InterruptedException e) {
-                Log.e(TAG, "Interrupted waiting for descriptor writes: " + e);
+        // hand each packet to the arm(s) it targets, each arm pipelines its own writes
+        for (SendRequest request : requests) {
+            if (request.textPage != null) {
+                bitmapDeltaEncoder.invalidate();
+                enqueueTextPage(request.textPage);
+                continue;
             }
-
-            SendRequest[] requests = sendQueue.poll();
-            if (requests == null){
+            if (request.bmpImage != null) {
+                textDeltaEncoder.invalidate();
+                enqueueBitmap(request.bmpImage);
                 continue;
             }
+            if (request.replacesScreen || changesScreen(request.data)) {
+                textDeltaEncoder.invalidate();
+                bitmapDeltaEncoder.invalidate();
+            }
 
-            for (SendRequest request : requests) {
-                if (request == null) {
-                    isWorkerRunning = false;
-                    break;
-                }
-
-                try {
-                    //force an initial delay so BLE gets all setup
-                    long timeSinceConnection = System.currentTimeMillis() - lastConnectionTimestamp;
-                    if (timeSinceConnection < INITIAL_CONNECTION_DELAY_MS) {
-                        Thread.sleep(INITIAL_CONNECTION_DELAY_MS - timeSinceConnection);
-                    }
-
-                    boolean leftSuccess = true;
-                    boolean rightSuccess = true;
+            // a packet for both arms goes to the right one only once the left one acked it
+            G1SideWriter.Ack leftAck = null;
+            if (!request.onlyRight) {
+                leftAck = leftWriter.enqueue(request.data, request.waitTime);
+            }
+            if (!request.onlyLeft) {
+                rightWriter.enqueue(request.data, request.waitTime, leftAck);
+            }
+        }
 
-                    // Send to left glass
-                    if (!request.onlyRight && leftGlassGatt != null && leftTxChar != null && isLeftConnected) {
-                        leftWaiter.setTrue();
-                        leftTxChar.setValue(request.data);
-                        leftSuccess = leftGlassGatt.writeCharacteristic(leftTxChar);
-                    }
+        // keep later requests queued here (where they can be coalesced) until this group is out
+        leftWriter.awaitIdle();
+        rightWriter.awaitIdle();
+    }
 
-                    if (leftSuccess) {
-                        //Log.d(TAG, "PROC_QUEUE - WAIT ON LEFT");
-                        leftWaiter.waitWhileTrue();
-                        //Log.d(TAG, "PROC_QUEUE - DONE WAIT ON LEFT");
-                    } else {
-                        //Log.d(TAG, "PROC_QUEUE - LEFT send fail");
-                    }
+    // Raw packets that draw on or leave the display behind the delta encoders' backs. The heartbeat
+    // counts too, since the firmware may have switched to the dashboard since the last one.
+    private static boolean changesScreen(byte[] data) {
+        if (data == null || data.length == 0) {
+            return false;
+        }
+        switch (data[0]) {
+            case 0x4E: // text
+            case 0x15: // bmp chunk
+            case 0x16: // bmp crc
+            case 0x18: // exit
+            case 0x20: // bmp end
+            case 0x25: // heartbeat
+                return true;
+            default:
+                return false;
+        }
+    }
 
-//                    Thread.sleep(DELAY_BETWEEN_SENDS_MS);
+    private void enqueueBitmap(byte[] bmpData) {
+        List<byte[]> chunks = createBmpChunks(bmpData);
+        byte[] crcCommand = createBmpCrcCommand(bmpData);
+        enqueuePaired(bitmapPackets(G1BitmapDeltaEncoder.LEFT, bmpData, chunks, crcCommand),
+                bitmapPackets(G1BitmapDeltaEncoder.RIGHT, bmpData, chunks, crcCommand));
+    }
 
-                    // Send to right glass
-                    if (!request.onlyLeft && rightGlassGatt != null && rightTxChar != null && isRightConnected) {
-                        rightWaiter.setTrue();
-                        rightTxChar.setValue(request.data);
-                        rightSuccess = rightGlassGatt.writeCharacteristic(rightTxChar);
-                    }
+    private List<byte[]> bitmapPackets(int side, byte[] bmpData, List<byte[]> chunks, byte[] crcCommand) {
+        List<byte[]> packets = new ArrayList<>();
+        boolean[] changedChunks = bitmapDeltaEncoder.prepare(side, bmpData, BMP_CHUNK_SIZE);
+        if (changedChunks == null) {
+            return packets; // this arm already shows exactly this image
+        }
+        for (int i = 0; i < chunks.size(); i++) {
+            if (changedChunks[i]) {
+                packets.add(chunks.get(i));
+            }
+        }
+        packets.add(END_COMMAND);
+        packets.add(crcCommand);
+        return packets;
+    }
 
-                    //wait to make sure the right happens
-                    if (rightSuccess) {
-                        //Log.d(TAG, "PROC_QUEUE - WAIT ON RIGHT");
-                        rightWaiter.waitWhileTrue();
-                        //Log.d(TAG, "PROC_QUEUE - DONE WAIT ON RIGHT");
-                    } else {
-                        //Log.d(TAG, "PROC_QUEUE - LEFT send fail");
-                    }
+    private void enqueueTextPage(byte[] page) {
+        int seq = textSeqNum;
+        textSeqNum = (textSeqNum + 1) % 256;
+        enqueuePaired(textPagePackets(G1TextDeltaEncoder.LEFT, page, seq),
+                textPagePackets(G1TextDeltaEncoder.RIGHT, page, seq));
+    }
 
-                    Thread.sleep(DELAY_BETWEEN_CHUNKS_SEND);
+    private List<byte[]> textPagePackets(int side, byte[] page, int seq) {
+        int fromByte = textDeltaEncoder.prepare(side, page);
+        if (fromByte == G1TextDeltaEncoder.SKIP) {
+            return new ArrayList<>(); // this arm already shows exactly this page
+        }
+        return chunkTextPage(page, fromByte, seq);
+    }
 
-                    // if the packet asked us to do a delay, then do it
-                    if (request.waitTime != -1){
-                        Thread.sleep(request.waitTime);
-                    }
-                } catch (InterruptedException e) {
-                    Log.e(TAG, "Error sending data: " + e.getMessage());
-                    // Optionally re-add the failed request to the queue
-                    // sendQueue.offer(request);
-                }
-            }
-//            try {
-//                Thread.sleep(DELAY_BETWEEN_ACTIONS_SEND);
-//            } catch (InterruptedException e) {
-//                e.printStackTrace();
-//            }
+    // Each right-arm packet waits for the left arm to ack the matching one (or its last one, if the
+    // arms' deltas differ in length), the way the firmware expects paired sends
+    private void enqueuePaired(List<byte[]> leftPackets, List<byte[]> rightPackets) {
+        List<G1SideWriter.Ack> leftAcks = new ArrayList<>(leftPackets.size());
+        for (byte[] packet : leftPackets) {
+            leftAcks.add(leftWriter.enqueue(packet, -1));
+        }
+        for (int i = 0; i < rightPackets.size(); i++) {
+            G1SideWriter.Ack after = leftAcks.isEmpty() ? null : leftAcks.get(Math.min(i, leftAcks.size() - 1));
+            rightWriter.enqueue(rightPackets.get(i), -1, after);
         }
     }
 
@@ -1502,8 +1689,7 @@ public class EvenRealitiesG1SGC extends SmartGlassesCommunicator {
             return;
         }
 
-        List<byte[]> chunks = createTextWallChunks(title + "\n\n" + body);
-        sendChunks(chunks);
+        sendTextPage(buildTextWallPage(title + "\n\n" + body));
         Log.d(TAG, "Send simple reference card");
     }
 
@@ -1591,8 +1777,10 @@ public class EvenRealitiesG1SGC extends SmartGlassesCommunicator {
             queryBatteryStatusHandler.removeCallbacksAndMessages(null);
         }
 
-        sendQueue.clear();
-        isWorkerRunning = false;
+        sendScheduler.stop();
+        audioIngest.stop();
+        leftWriter.stop();
+        rightWriter.stop();
 
         isLeftConnected = false;
         isRightConnected = false;
@@ -1628,11 +1816,22 @@ public class EvenRealitiesG1SGC extends SmartGlassesCommunicator {
     @Override
     public void displayTextLine(String text) {}
 
+    // Reused across frames so screen mirroring doesn't churn the GC
+    private final MonochromeBmpEncoder bmpEncoder = new MonochromeBmpEncoder();
+    private volatile MonochromeBmpEncoder.DitherMode bmpDitherMode = MonochromeBmpEncoder.DitherMode.NONE;
+
+    public void setBitmapDitherMode(MonochromeBmpEncoder.DitherMode ditherMode) {
+        bmpDitherMode = ditherMode;
+    }
+
     @Override
     public void displayBitmap(Bitmap bmp) {
         try {
-            byte[] bmpBytes = convertBitmapTo1BitBmpBytes(bmp, false);
-            displayBitmapImage(bmpBytes);
+            // displayBitmapImage copies what it needs before returning, so the encoder's buffer can be reused
+            synchronized (bmpEncoder) {
+                ByteBuffer bmpBytes = bmpEncoder.encode(bmp, false, bmpDitherMode);
+                displayBitmapImage(bmpBytes.array());
+            }
         } catch (Exception e) {
             Log.e(TAG, e.getMessage());
         }
@@ -1641,8 +1840,7 @@ public class EvenRealitiesG1SGC extends SmartGlassesCommunicator {
     public void blankScreen() {}
 
     public void displayDoubleTextWall(String textTop, String textBottom) {
-        List<byte[]> chunks = createDoubleTextWallChunks(textTop, textBottom);
-        sendChunks(chunks);
+        sendTextPage(buildDoubleTextWallPage(textTop, textBottom).getBytes(StandardCharsets.UTF_8));
     }
 
     public void showHomeScreen() {
@@ -1678,8 +1876,7 @@ public class EvenRealitiesG1SGC extends SmartGlassesCommunicator {
     public void displayReferenceCardImage(String title, String body, String imgUrl) {}
 
     public void displayTextWall(String a) {
-        List<byte[]> chunks = createTextWallChunks(a);
-        sendChunks(chunks);
+        sendTextPage(buildTextWallPage(a));
     }
 
     public void setFontSizes() {}
@@ -1861,6 +2058,9 @@ public class EvenRealitiesG1SGC extends SmartGlassesCommunicator {
     }
 
     private void sendHeartbeat() {
+        if (heartbeatCount % TRANSPORT_STATS_EVERY_HEARTBEATS == 0) {
+            Log.d(TAG, "BLE transport stats: " + getTransportStats());
+        }
         byte[] heartbeatPacket = constructHeartbeat();
 //        Log.d(TAG, "Sending heartbeat: " + bytesToHex(heartbeatPacket));
 
@@ -2053,10 +2253,12 @@ public class EvenRealitiesG1SGC extends SmartGlassesCommunicator {
     private static final int MAX_CHUNK_SIZE = 176; // Maximum chunk size for BLE packets
 //    private static final int INDENT_SPACES = 32;    // Number of spaces to indent text
 
-    private int textSeqNum = 0; // Sequence number for text packets
+    private int textSeqNum = 0; // Sequence number for text packets, only used on the scheduler thread
+
+    private final G1TextDeltaEncoder textDeltaEncoder = new G1TextDeltaEncoder();
 
     //currently only a single page - 1PAGE CHANGE
-    private List<byte[]> createTextWallChunks(String text) {
+    private byte[] buildTextWallPage(String text) {
         int margin = 5;
 
         // Get width of single space character
@@ -2067,85 +2269,72 @@ public class EvenRealitiesG1SGC extends SmartGlassesCommunicator {
         int effectiveWidth = DISPLAY_WIDTH - (2 * marginWidth); // Subtract left and right margins
 
         // Split text into lines based on effective display width
-        List<String> lines = splitIntoLines(text, effectiveWidth);
+        List<String> lines = lineBreaker.splitIntoLines(text, effectiveWidth);
 
-        // Calculate total pages
-        int totalPages = 1; //hard set to 1 since we only do 1 page - 1PAGECHANGE
+        // Get lines for the first (only) page
+        List<String> pageLines = lines.subList(0, Math.min(LINES_PER_SCREEN, lines.size()));
 
-        List<byte[]> allChunks = new ArrayList<>();
+        // Combine lines for this page with proper indentation
+        StringBuilder pageText = new StringBuilder();
+        String indentation = " ".repeat(margin);
+        for (String line : pageLines) {
+            pageText.append(indentation).append(line).append("\n");
+        }
 
-        // Process each page
-        for (int page = 0; page < totalPages; page++) {
-            // Get lines for current page
-            int startLine = page * LINES_PER_SCREEN;
-            int endLine = Math.min(startLine + LINES_PER_SCREEN, lines.size());
-            List<String> pageLines = lines.subList(startLine, endLine);
+        return pageText.toString().getBytes(StandardCharsets.UTF_8);
+    }
 
-            // Combine lines for this page with proper indentation
-            StringBuilder pageText = new StringBuilder();
+    /**
+     * Splits a text page into 0x4E packets, starting at {@code fromByte}. A non-zero offset is
+     * sent as an incremental update with new_char_pos pointing at the first changed character.
+     */
+    private List<byte[]> chunkTextPage(byte[] textBytes, int fromByte, int seq) {
+        int newCharPos = G1TextDeltaEncoder.charIndexOf(textBytes, fromByte);
+        int payloadLength = textBytes.length - fromByte;
+        int totalChunks = (int) Math.ceil((double) payloadLength / MAX_CHUNK_SIZE);
 
-            for (String line : pageLines) {
-                // Add the exact number of spaces for indentation
-                String indentation = " ".repeat(margin);
-                pageText.append(indentation).append(line).append("\n");
-            }
+        List<byte[]> allChunks = new ArrayList<>();
+        for (int i = 0; i < totalChunks; i++) {
+            int start = fromByte + i * MAX_CHUNK_SIZE;
+            int end = Math.min(start + MAX_CHUNK_SIZE, textBytes.length);
 
-            byte[] textBytes = pageText.toString().getBytes(StandardCharsets.UTF_8);
-            int totalChunks = (int) Math.ceil((double) textBytes.length / MAX_CHUNK_SIZE);
-
-            // Create chunks for this page
-            for (int i = 0; i < totalChunks; i++) {
-                int start = i * MAX_CHUNK_SIZE;
-                int end = Math.min(start + MAX_CHUNK_SIZE, textBytes.length);
-                byte[] payloadChunk = Arrays.copyOfRange(textBytes, start, end);
-
-                // Create header with protocol specifications
-                byte screenStatus = 0x71; // New content (0x01) + Text Show (0x70)
-                byte[] header = new byte[] {
-                        (byte) TEXT_COMMAND,    // Command type
-                        (byte) textSeqNum,      // Sequence number
-                        (byte) totalChunks,     // Total packages
-                        (byte) i,               // Current package number
-                        screenStatus,           // Screen status
-                        (byte) 0x00,            // new_char_pos0 (high)
-                        (byte) 0x00,            // new_char_pos1 (low)
-                        (byte) page,            // Current page number
-                        (byte) totalPages       // Max page number
-                };
-
-                // Combine header and payload
-                ByteBuffer chunk = ByteBuffer.allocate(header.length + payloadChunk.length);
-                chunk.put(header);
-                chunk.put(payloadChunk);
-
-                allChunks.add(chunk.array());
-            }
+            // Create header with protocol specifications
+            byte screenStatus = 0x71; // New content (0x01) + Text Show (0x70)
+            byte[] header = new byte[]{
+                    (byte) TEXT_COMMAND,                // Command type
+                    (byte) seq,                         // Sequence number
+                    (byte) totalChunks,                 // Total packages
+                    (byte) i,                           // Current package number
+                    screenStatus,                       // Screen status
+                    (byte) ((newCharPos >> 8) & 0xFF),  // new_char_pos0 (high)
+                    (byte) (newCharPos & 0xFF),         // new_char_pos1 (low)
+                    (byte) 0x00,                        // Current page number (always 0 for now)
+                    (byte) 0x01                         // Max page number (always 1)
+            };
 
-            // Increment sequence number for next page
-            textSeqNum = (textSeqNum + 1) % 256;
-            break; //hard set to 1  - 1PAGECHANGE
+            // Combine header and payload
+            ByteBuffer chunk = ByteBuffer.allocate(header.length + (end - start));
+            chunk.put(header);
+            chunk.put(textBytes, start, end - start);
+
+            allChunks.add(chunk.array());
         }
 
         return allChunks;
     }
 
     private int calculateTextWidth(String text) {
-        int width = 0;
-        for (char c : text.toCharArray()) {
-            G1FontLoader.FontGlyph glyph = fontLoader.getGlyph(c);
-            width += glyph.width + 1; // Add 1 pixel per character for spacing
-        }
-        return width * 2;
+        return lineBreaker.textWidth(text);
     }
 
-    private List<byte[]> createDoubleTextWallChunks(String text1, String text2) {
+    private String buildDoubleTextWallPage(String text1, String text2) {
         // Define column widths and positions
         final int LEFT_COLUMN_WIDTH = (int)(DISPLAY_WIDTH * 0.5);  // 40% of display for left column
         final int RIGHT_COLUMN_START = (int)(DISPLAY_WIDTH * 0.6);  // Right column starts at 60%
 
         // Split texts into lines with specific width constraints
-        List<String> lines1 = splitIntoLines(text1, LEFT_COLUMN_WIDTH);
-        List<String> lines2 = splitIntoLines(text2, DISPLAY_WIDTH - RIGHT_COLUMN_START);
+        List<String> lines1 = lineBreaker.splitIntoLines(text1, LEFT_COLUMN_WIDTH);
+        List<String> lines2 = lineBreaker.splitIntoLines(text2, DISPLAY_WIDTH - RIGHT_COLUMN_START);
 
         // Ensure we have exactly LINES_PER_SCREEN lines (typically 5)
         while (lines1.size() < LINES_PER_SCREEN) lines1.add("");
@@ -2180,8 +2369,7 @@ public class EvenRealitiesG1SGC extends SmartGlassesCommunicator {
                     .append("\n");
         }
 
-        // Convert to bytes and chunk for transmission
-        return chunkTextForTransmission(pageText.toString());
+        return pageText.toString();
     }
 
     private int calculateSpacesForAlignment(int currentWidth, int targetPosition, int spaceWidth) {
@@ -2200,141 +2388,6 @@ public class EvenRealitiesG1SGC extends SmartGlassesCommunicator {
         return Math.min(spaces, 100);
     }
 
-    private List<byte[]> chunkTextForTransmission(String text) {
-        byte[] textBytes = text.getBytes(StandardCharsets.UTF_8);
-        int totalChunks = (int) Math.ceil((double) textBytes.length / MAX_CHUNK_SIZE);
-
-        List<byte[]> allChunks = new ArrayList<>();
-        for (int i = 0; i < totalChunks; i++) {
-            int start = i * MAX_CHUNK_SIZE;
-            int end = Math.min(start + MAX_CHUNK_SIZE, textBytes.length);
-            byte[] payloadChunk = Arrays.copyOfRange(textBytes, start, end);
-
-            // Create header with protocol specifications
-            byte screenStatus = 0x71; // New content (0x01) + Text Show (0x70)
-            byte[] header = new byte[]{
-                    (byte) TEXT_COMMAND,    // Command type
-                    (byte) textSeqNum,      // Sequence number
-                    (byte) totalChunks,     // Total packages
-                    (byte) i,               // Current package number
-                    screenStatus,           // Screen status
-                    (byte) 0x00,            // new_char_pos0 (high)
-                    (byte) 0x00,            // new_char_pos1 (low)
-                    (byte) 0x00,            // Current page number (always 0 for now)
-                    (byte) 0x01             // Max page number (always 1)
-            };
-
-            // Combine header and payload
-            ByteBuffer chunk = ByteBuffer.allocate(header.length + payloadChunk.length);
-            chunk.put(header);
-            chunk.put(payloadChunk);
-
-            allChunks.add(chunk.array());
-        }
-
-        // Increment sequence number for next page
-        textSeqNum = (textSeqNum + 1) % 256;
-
-        return allChunks;
-    }
-
-    private int calculateSubstringWidth(String text, int start, int end) {
-        return calculateTextWidth(text.substring(start, end));
-    }
-
-    private List<String> splitIntoLines(String text, int maxDisplayWidth) {
-        // Replace specific symbols
-        text = text.replace("⬆", "^").replace("⟶", "-");
-
-        List<String> lines = new ArrayList<>();
-
-        // Handle empty or single space case
-        if (text.isEmpty() || " ".equals(text)) {
-            lines.add(text);
-            return lines;
-        }
-
-        // Split by newlines first
-        String[] rawLines = text.split("\n");
-
-        Log.d(TAG, "Splitting text into lines..." + Arrays.toString(rawLines));
-
-        for (String rawLine : rawLines) {
-            // Add empty lines for newlines
-            if (rawLine.isEmpty()) {
-                lines.add("");
-                continue;
-            }
-
-            int lineLength = rawLine.length();
-            int startIndex = 0;
-
-            while (startIndex < lineLength) {
-                // Get maximum possible end index
-                int endIndex = lineLength;
-
-                // Calculate width of the entire remaining text
-                int lineWidth = calculateSubstringWidth(rawLine, startIndex, endIndex);
-
-                Log.d(TAG, "Line length: " + rawLine);
-                Log.d(TAG, "Calculating line width: " + lineWidth);
-
-                // If entire line fits, add it and move to next line
-                if (lineWidth <= maxDisplayWidth) {
-                    lines.add(rawLine.substring(startIndex));
-                    break;
-                }
-
-                // Binary search to find the maximum number of characters that fit
-                int left = startIndex + 1;
-                int right = lineLength;
-                int bestSplitIndex = startIndex + 1;
-
-                while (left <= right) {
-                    int mid = left + (right - left) / 2;
-                    int width = calculateSubstringWidth(rawLine, startIndex, mid);
-
-                    if (width <= maxDisplayWidth) {
-                        bestSplitIndex = mid;
-                        left = mid + 1;
-                    } else {
-                        right = mid - 1;
-                    }
-                }
-
-                // Now find a good place to break (preferably at a space)
-                int splitIndex = bestSplitIndex;
-
-                // Look for a space to break at
-                boolean foundSpace = false;
-                for (int i = bestSplitIndex; i > startIndex; i--) {
-                    if (rawLine.charAt(i - 1) == ' ') {
-                        splitIndex = i;
-                        foundSpace = true;
-                        break;
-                    }
-                }
-
-                // If we couldn't find a space in a reasonable range, use the calculated split point
-                if (!foundSpace && bestSplitIndex - startIndex > 2) {
-                    splitIndex = bestSplitIndex;
-                }
-
-                // Add the line
-                String line = rawLine.substring(startIndex, splitIndex).trim();
-                lines.add(line);
-
-                // Skip any spaces at the beginning of the next line
-                while (splitIndex < lineLength && rawLine.charAt(splitIndex) == ' ') {
-                    splitIndex++;
-                }
-
-                startIndex = splitIndex;
-            }
-        }
-
-        return lines;
-    }
 
     private void sendPeriodicTextWall() {
         if (!isConnected()) {
@@ -2350,18 +2403,7 @@ public class EvenRealitiesG1SGC extends SmartGlassesCommunicator {
                 "Each page contains multiple lines, and each line is carefully formatted to fit the display width. " +
                 "The text continues across multiple pages, showing how longer content can be handled effectively.";
 
-        List<byte[]> chunks = createTextWallChunks(sampleText);
-
-        // Send each chunk with a delay between sends
-        for (byte[] chunk : chunks) {
-            sendDataSequentially(chunk);
-
-//            try {
-//                Thread.sleep(150); // 150ms delay between chunks
-//            } catch (InterruptedException e) {
-//                e.printStackTrace();
-//            }
-        }
+        sendTextPage(buildTextWallPage(sampleText));
 
         // Log.d(TAG, "Sent text wall");
     }
@@ -2470,19 +2512,6 @@ public class EvenRealitiesG1SGC extends SmartGlassesCommunicator {
         Log.d(TAG, "DISPLAY CUSTOM CONTENT");
     }
 
-    private void sendChunks(List<byte[]> chunks){
-        // Send each chunk with a delay between sends
-        for (byte[] chunk : chunks) {
-            sendDataSequentially(chunk);
-
-//            try {
-//                Thread.sleep(DELAY_BETWEEN_CHUNKS_SEND); // delay between chunks
-//            } catch (InterruptedException e) {
-//                e.printStackTrace();
-//            }
-        }
-    }
-
 //    public int DEFAULT_CARD_SHOW_TIME = 6;
 //    public void homeScreenInNSeconds(int n){
 //        if (n == -1){
@@ -2522,18 +2551,9 @@ public class EvenRealitiesG1SGC extends SmartGlassesCommunicator {
             }
             Log.d(TAG, "Processing BMP data, size: " + bmpData.length + " bytes");
 
-            // Split into chunks and send
-            List<byte[]> chunks = createBmpChunks(bmpData);
-            Log.d(TAG, "Created " + chunks.size() + " chunks");
-
-            // Send all chunks
-            sendBmpChunks(chunks);
-
-            // Send end command
-            sendBmpEndCommand();
-
-            // Calculate and send CRC
-            sendBmpCRC(bmpData);
+            // Chunks, end command and CRC are built per arm at dispatch time, against what that arm shows.
+            // Copy since callers may reuse their buffer (see displayBitmap) and we keep it for diffing.
+            sendBitmapFrame(Arrays.copyOf(bmpData, bmpData.length));
 
             lastThingDisplayedWasAnImage = true;
 
@@ -2542,6 +2562,8 @@ public class EvenRealitiesG1SGC extends SmartGlassesCommunicator {
         }
     }
 
+    private final G1BitmapDeltaEncoder bitmapDeltaEncoder = new G1BitmapDeltaEncoder();
+
     private List<byte[]> createBmpChunks(byte[] bmpData) {
         List<byte[]> chunks = new ArrayList<>();
         int totalChunks = (int) Math.ceil((double) bmpData.length / BMP_CHUNK_SIZE);
@@ -2571,32 +2593,7 @@ public class EvenRealitiesG1SGC extends SmartGlassesCommunicator {
         return chunks;
     }
 
-    private void sendBmpChunks(List<byte[]> chunks) {
-        for (int i = 0; i < chunks.size(); i++) {
-            byte[] chunk = chunks.get(i);
-            Log.d(TAG, "Sending chunk " + i + " of " + chunks.size() + ", size: " + chunk.length);
-            sendDataSequentially(chunk);
-
-//            try {
-//                Thread.sleep(25); // Small delay between chunks
-//            } catch (InterruptedException e) {
-//                Log.e(TAG, "Sleep interrupted: " + e.getMessage());
-//            }
-        }
-    }
-
-    private void sendBmpEndCommand() {
-        Log.d(TAG, "Sending BMP end command");
-        sendDataSequentially(END_COMMAND);
-
-//        try {
-//            Thread.sleep(100); // Give it time to process
-//        } catch (InterruptedException e) {
-//            Log.e(TAG, "Sleep interrupted: " + e.getMessage());
-//        }
-    }
-
-    private void sendBmpCRC(byte[] bmpData) {
+    private byte[] createBmpCrcCommand(byte[] bmpData) {
         // Create data with address for CRC calculation
         byte[] dataWithAddress = new byte[GLASSES_ADDRESS.length + bmpData.length];
         System.arraycopy(GLASSES_ADDRESS, 0, dataWithAddress, 0, GLASSES_ADDRESS.length);
@@ -2615,8 +2612,8 @@ public class EvenRealitiesG1SGC extends SmartGlassesCommunicator {
         crcCommand[3] = (byte)((crcValue >> 8) & 0xFF);
         crcCommand[4] = (byte)(crcValue & 0xFF);
 
-        Log.d(TAG, "Sending CRC command, CRC value: " + Long.toHexString(crcValue));
-        sendDataSequentially(crcCommand);
+        Log.d(TAG, "Created CRC command, CRC value: " + Long.toHexString(crcValue));
+        return crcCommand;
     }
 
     private byte[] loadEmptyBmpFromAssets() {
@@ -2633,12 +2630,15 @@ public class EvenRealitiesG1SGC extends SmartGlassesCommunicator {
     public void clearBmpDisplay() {
         Log.d(TAG, "Clearing BMP display with EXIT command");
         byte[] exitCommand = new byte[]{0x18};
-        sendDataSequentially(exitCommand);
+        SendRequest request = new SendRequest(exitCommand, false, false);
+        request.replacesScreen = true;
+        sendScheduler.submit(new SendRequest[]{request});
+        startWorkerIfNeeded();
     }
 
     private void sendLoremIpsum(){
         String text = "Lorem ipsum dolor sit amet, consectetur adipiscing elit. Sed do eiusmod tempor incididunt ut labore et dolore magna aliqua. Ut enim ad minim veniam, quis nostrud exercitation ullamco laboris nisi ut aliquip ex ea commodo consequat. Duis aute irure dolor in reprehenderit in voluptate velit esse cillum dolore eu fugiat nulla pariatur. ";
-        sendDataSequentially(createTextWallChunks(text));
+        sendTextPage(buildTextWallPage(text));
     }
 
     private void quickRestartG1(){
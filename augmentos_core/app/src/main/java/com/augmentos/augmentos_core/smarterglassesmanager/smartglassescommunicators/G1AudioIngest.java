@@ -0,0 +1,153 @@
+package com.augmentos.augmentos_core.smarterglassesmanager.smartglassescommunicators;
+
+import android.util.Log;
+
+import com.augmentos.augmentos_core.smarterglassesmanager.hci.AudioFrameBus;
+import com.augmentos.smartglassesmanager.cpp.L3cCpp;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Decodes G1 microphone packets on a dedicated thread, off the main looper.
+ *
+ * The BLE callback copies each packet's LC3 payload into a pooled frame and returns. The ingest
+ * thread decodes it with a long-lived native decoder straight into that frame's direct PCM
+ * buffer and publishes the frame on the {@link AudioFrameBus}. Frames go back to the pool after
+ * the listeners return, so nothing is allocated per packet. If the pool runs dry because the
+ * listeners are too slow, new packets are dropped and counted.
+ */
+public class G1AudioIngest {
+    private static final String TAG = "WearableAi_G1AudioIngest";
+
+    // One 0xF1 notification carries 10 LC3 frames of 10ms at 16kHz, 20 bytes each
+    public static final int LC3_PACKET_BYTES = 200;
+    public static final int PCM_PACKET_BYTES = 3200;
+    private static final long PACKET_INTERVAL_NS = 100_000_000L;
+    private static final int POOL_SIZE = 8;
+
+    private static class Frame {
+        final byte[] lc3 = new byte[LC3_PACKET_BYTES];
+        final ByteBuffer pcm = ByteBuffer.allocateDirect(PCM_PACKET_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        final AudioFrameBus.AudioFrame busFrame = new AudioFrameBus.AudioFrame();
+        int lc3Length;
+        long arrivedAtNs;
+    }
+
+    private final ArrayBlockingQueue<Frame> freeFrames = new ArrayBlockingQueue<>(POOL_SIZE);
+    private final ArrayBlockingQueue<Frame> filledFrames = new ArrayBlockingQueue<>(POOL_SIZE);
+    private volatile boolean running = false;
+    private Thread ingestThread;
+
+    // Counters, guarded by this
+    private long packetsDecoded = 0;
+    private long packetsDropped = 0;
+    private long decodeErrors = 0;
+    private long lastArrivalNs = 0;
+    private double jitterMs = 0;
+    private long maxGapMs = 0;
+    private long totalDecodeNs = 0;
+    private long maxDecodeNs = 0;
+
+    public G1AudioIngest() {
+        for (int i = 0; i < POOL_SIZE; i++) {
+            freeFrames.offer(new Frame());
+        }
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        ingestThread = new Thread(this::ingestLoop, "G1AudioIngest");
+        ingestThread.setPriority(Thread.MAX_PRIORITY);
+        ingestThread.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (ingestThread != null) {
+            ingestThread.interrupt();
+            ingestThread = null;
+        }
+    }
+
+    /**
+     * Called from the BLE callback with a mic notification's LC3 payload.
+     * @return false if the packet was dropped
+     */
+    public boolean offer(byte[] data, int offset, int length) {
+        Frame frame = freeFrames.poll();
+        if (frame == null) {
+            synchronized (this) {
+                packetsDropped++;
+            }
+            return false;
+        }
+        frame.lc3Length = Math.min(length, LC3_PACKET_BYTES);
+        System.arraycopy(data, offset, frame.lc3, 0, frame.lc3Length);
+        frame.arrivedAtNs = System.nanoTime();
+        filledFrames.offer(frame);
+        return true;
+    }
+
+    private void ingestLoop() {
+        long decoder = L3cCpp.createLC3Decoder();
+        if (decoder == 0) {
+            Log.e(TAG, "Failed to create LC3 decoder, G1 mic audio is disabled");
+            return;
+        }
+        try {
+            while (running) {
+                Frame frame = filledFrames.take();
+                try {
+                    decodeAndDispatch(decoder, frame);
+                } finally {
+                    freeFrames.offer(frame);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            filledFrames.drainTo(freeFrames);
+            L3cCpp.destroyLC3Decoder(decoder);
+        }
+    }
+
+    private void decodeAndDispatch(long decoder, Frame frame) {
+        long start = System.nanoTime();
+        int pcmBytes = L3cCpp.decodeLC3Into(decoder, frame.lc3, 0, frame.lc3Length, frame.pcm, 0);
+        long decodeNs = System.nanoTime() - start;
+
+        synchronized (this) {
+            if (pcmBytes < 0) {
+                decodeErrors++;
+                return;
+            }
+            packetsDecoded++;
+            totalDecodeNs += decodeNs;
+            maxDecodeNs = Math.max(maxDecodeNs, decodeNs);
+
+            // RFC 3550 style interarrival jitter against the nominal packet interval
+            if (lastArrivalNs != 0) {
+                long gapNs = frame.arrivedAtNs - lastArrivalNs;
+                double deviationMs = Math.abs(gapNs - PACKET_INTERVAL_NS) / 1e6;
+                jitterMs += (deviationMs - jitterMs) / 16;
+                maxGapMs = Math.max(maxGapMs, gapNs / 1_000_000);
+            }
+            lastArrivalNs = frame.arrivedAtNs;
+        }
+
+        frame.pcm.clear();
+        frame.pcm.limit(pcmBytes);
+        AudioFrameBus.publish(frame.busFrame.set(frame.pcm, frame.lc3, frame.lc3Length, frame.arrivedAtNs));
+    }
+
+    public synchronized String getStatsSummary() {
+        double avgDecodeUs = packetsDecoded == 0 ? 0 : totalDecodeNs / 1000.0 / packetsDecoded;
+        return String.format(Locale.US,
+                "mic: decoded=%d dropped=%d errors=%d jitter=%.1fms maxGap=%dms avgDecode=%.0fus maxDecode=%dus",
+                packetsDecoded, packetsDropped, decodeErrors, jitterMs, maxGapMs, avgDecodeUs, maxDecodeNs / 1000);
+    }
+}
@@ -0,0 +1,103 @@
+package com.augmentos.augmentos_core.smarterglassesmanager.smartglassescommunicators;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Remembers the last BMP sent to each G1 arm and works out which 0x15 chunks of a new BMP
+ * actually have to go over BLE.
+ *
+ * A frame identical to the one an arm already shows is skipped, unless it was sent long enough
+ * ago that the glasses may have drawn something else since. With partial updates on, only chunks
+ * whose bytes changed are re-sent (chunk 0 always goes, since it carries the load address), and
+ * the end command and CRC still cover the whole image. Partial updates are off by default because
+ * the G1 firmware is not known to keep the previous image between uploads.
+ */
+public class G1BitmapDeltaEncoder {
+    public static final int LEFT = 0;
+    public static final int RIGHT = 1;
+
+    // Re-send identical frames after this long in case the screen was replaced in between
+    private static final long MAX_SKIP_AGE_MS = 10000;
+
+    private final byte[][] lastBmp = new byte[2][];
+    private final long[] lastSentAtMs = new long[2];
+    private volatile boolean partialUpdatesEnabled = false;
+
+    // Counters, guarded by this
+    private long fullFrames = 0;
+    private long partialFrames = 0;
+    private long skippedFrames = 0;
+    private long chunksTotal = 0;
+    private long chunksSent = 0;
+
+    public void setPartialUpdatesEnabled(boolean enabled) {
+        partialUpdatesEnabled = enabled;
+    }
+
+    /**
+     * Records {@code bmp} as the image now on {@code side}.
+     *
+     * @return which of the {@code chunkSize}-byte chunks to send, or null to skip the frame
+     */
+    public synchronized boolean[] prepare(int side, byte[] bmp, int chunkSize) {
+        byte[] previous = lastBmp[side];
+        long now = System.currentTimeMillis();
+        int chunkCount = (bmp.length + chunkSize - 1) / chunkSize;
+        chunksTotal += chunkCount;
+
+        boolean sameSize = previous != null && previous.length == bmp.length;
+        if (sameSize && now - lastSentAtMs[side] < MAX_SKIP_AGE_MS && Arrays.equals(previous, bmp)) {
+            skippedFrames++;
+            return null;
+        }
+
+        lastBmp[side] = bmp;
+        lastSentAtMs[side] = now;
+
+        boolean[] send = new boolean[chunkCount];
+        if (!partialUpdatesEnabled || !sameSize) {
+            Arrays.fill(send, true);
+            fullFrames++;
+            chunksSent += chunkCount;
+            return send;
+        }
+
+        int changed = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            int start = i * chunkSize;
+            int end = Math.min(start + chunkSize, bmp.length);
+            send[i] = i == 0 || !rangeEquals(previous, bmp, start, end);
+            if (send[i]) changed++;
+        }
+        if (changed == chunkCount) {
+            fullFrames++;
+        } else {
+            partialFrames++;
+        }
+        chunksSent += changed;
+        return send;
+    }
+
+    private static boolean rangeEquals(byte[] a, byte[] b, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (a[i] != b[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Forgets what each arm is showing, e.g. after text replaced the image or a reconnect.
+     */
+    public synchronized void invalidate() {
+        lastBmp[LEFT] = null;
+        lastBmp[RIGHT] = null;
+    }
+
+    public synchronized String getStatsSummary() {
+        double saved = chunksTotal == 0 ? 0 : 100.0 * (chunksTotal - chunksSent) / chunksTotal;
+        return String.format(Locale.US,
+                "bmp: full=%d partial=%d skipped=%d chunks=%d/%d (%.1f%% saved)",
+                fullFrames, partialFrames, skippedFrames, chunksSent, chunksTotal, saved);
+    }
+}
@@ -0,0 +1,139 @@
+package com.augmentos.augmentos_core.smarterglassesmanager.smartglassescommunicators;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Line breaking for G1 text pages, measured in the display's pixels.
+ *
+ * Every character takes its glyph width plus one pixel of spacing, doubled for the display. A raw
+ * line's widths are summed once into a reused prefix array, so wrapping is linear in the text and
+ * doesn't allocate per character.
+ */
+public class G1LineBreaker {
+    public interface GlyphWidths {
+        int getGlyphWidth(char character);
+    }
+
+    private final GlyphWidths glyphWidths;
+    // Rendered width of line[0, i) at index i, reused across calls to splitIntoLines (guarded by this)
+    private int[] lineWidthPrefix = new int[256];
+
+    public G1LineBreaker(GlyphWidths glyphWidths) {
+        this.glyphWidths = glyphWidths;
+    }
+
+    public int textWidth(String text) {
+        int width = 0;
+        for (int i = 0; i < text.length(); i++) {
+            width += glyphWidths.getGlyphWidth(text.charAt(i)) + 1; // Add 1 pixel per character for spacing
+        }
+        return width * 2;
+    }
+
+    /**
+     * Wraps {@code text} into lines no wider than {@code maxDisplayWidth}, preferring to break at
+     * spaces. Newlines always start a new line.
+     */
+    public synchronized List<String> splitIntoLines(String text, int maxDisplayWidth) {
+        // Replace specific symbols
+        text = text.replace("⬆", "^").replace("⟶", "-");
+
+        List<String> lines = new ArrayList<>();
+
+        // Handle empty or single space case
+        if (text.isEmpty() || " ".equals(text)) {
+            lines.add(text);
+            return lines;
+        }
+
+        // Split by newlines first
+        String[] rawLines = text.split("\n");
+
+        for (String rawLine : rawLines) {
+            // Add empty lines for newlines
+            if (rawLine.isEmpty()) {
+                lines.add("");
+                continue;
+            }
+
+            int lineLength = rawLine.length();
+            int startIndex = 0;
+
+            // prefix[j] - prefix[i] is the rendered width of rawLine[i, j)
+            int[] prefix = buildWidthPrefix(rawLine);
+
+            while (startIndex < lineLength) {
+                // Calculate width of the entire remaining text
+                int lineWidth = prefix[lineLength] - prefix[startIndex];
+
+                // If entire line fits, add it and move to next line
+                if (lineWidth <= maxDisplayWidth) {
+                    lines.add(rawLine.substring(startIndex));
+                    break;
+                }
+
+                // Binary search to find the maximum number of characters that fit
+                int left = startIndex + 1;
+                int right = lineLength;
+                int bestSplitIndex = startIndex + 1;
+
+                while (left <= right) {
+                    int mid = left + (right - left) / 2;
+                    int width = prefix[mid] - prefix[startIndex];
+
+                    if (width <= maxDisplayWidth) {
+                        bestSplitIndex = mid;
+                        left = mid + 1;
+                    } else {
+                        right = mid - 1;
+                    }
+                }
+
+                // Now find a good place to break (preferably at a space)
+                int splitIndex = bestSplitIndex;
+
+                // Look for a space to break at
+                boolean foundSpace = false;
+                for (int i = bestSplitIndex; i > startIndex; i--) {
+                    if (rawLine.charAt(i - 1) == ' ') {
+                        splitIndex = i;
+                        foundSpace = true;
+                        break;
+                    }
+                }
+
+                // If we couldn't find a space in a reasonable range, use the calculated split point
+                if (!foundSpace && bestSplitIndex - startIndex > 2) {
+                    splitIndex = bestSplitIndex;
+                }
+
+                // Add the line
+                String line = rawLine.substring(startIndex, splitIndex).trim();
+                lines.add(line);
+
+                // Skip any spaces at the beginning of the next line
+                while (splitIndex < lineLength && rawLine.charAt(splitIndex) == ' ') {
+                    splitIndex++;
+                }
+
+                startIndex = splitIndex;
+            }
+        }
+
+        return lines;
+    }
+
+    private int[] buildWidthPrefix(String line) {
+        int length = line.length();
+        if (lineWidthPrefix.length < length + 1) {
+            lineWidthPrefix = new int[Math.max(length + 1, lineWidthPrefix.length * 2)];
+        }
+        int[] prefix = lineWidthPrefix;
+        prefix[0] = 0;
+        for (int i = 0; i < length; i++) {
+            prefix[i + 1] = prefix[i] + (glyphWidths.getGlyphWidth(line.charAt(i)) + 1) * 2;
+        }
+        return prefix;
+    }
+}
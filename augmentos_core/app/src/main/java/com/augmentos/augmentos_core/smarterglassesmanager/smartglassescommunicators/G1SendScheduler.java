@@ -0,0 +1,144 @@
+package com.augmentos.augmentos_core.smarterglassesmanager.smartglassescommunicators;
+
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Locale;
+
+/**
+ * Single worker that feeds queued G1 send requests to the per-arm writers.
+ *
+ * The worker parks while the queue is empty instead of spinning. Requests submitted with a
+ * coalesce key replace any still-pending request with the same key, so a burst of screen updates
+ * collapses to the newest frame rather than drawing every intermediate one.
+ */
+public class G1SendScheduler<T> {
+    private static final String TAG = "WearableAi_G1SendScheduler";
+
+    public interface Dispatcher<T> {
+        void dispatch(T item) throws InterruptedException;
+    }
+
+    private static class Entry<T> {
+        final T item;
+        final String coalesceKey;
+
+        Entry(T item, String coalesceKey) {
+            this.item = item;
+            this.coalesceKey = coalesceKey;
+        }
+    }
+
+    private final String name;
+    private final Dispatcher<T> dispatcher;
+    private final ArrayDeque<Entry<T>> queue = new ArrayDeque<>();
+    private Thread workerThread;
+    private boolean running = false;
+
+    // Counters, guarded by this
+    private long submitted = 0;
+    private long dispatched = 0;
+    private long coalescedDrops = 0;
+    private int maxQueueDepth = 0;
+    private long idleMs = 0;
+    private long busyMs = 0;
+
+    public G1SendScheduler(String name, Dispatcher<T> dispatcher) {
+        this.name = name;
+        this.dispatcher = dispatcher;
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        workerThread = new Thread(this::runLoop, name);
+        workerThread.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        queue.clear();
+        if (workerThread != null) {
+            workerThread.interrupt();
+            workerThread = null;
+        }
+    }
+
+    public void submit(T item) {
+        submit(item, null);
+    }
+
+    /**
+     * Queues {@code item}. If {@code coalesceKey} is non-null, any pending item with the same key
+     * is dropped in favour of this one.
+     */
+    public synchronized void submit(T item, String coalesceKey) {
+        if (coalesceKey != null) {
+            Iterator<Entry<T>> it = queue.iterator();
+            while (it.hasNext()) {
+                if (coalesceKey.equals(it.next().coalesceKey)) {
+                    it.remove();
+                    coalescedDrops++;
+                }
+            }
+        }
+        queue.addLast(new Entry<>(item, coalesceKey));
+        submitted++;
+        maxQueueDepth = Math.max(maxQueueDepth, queue.size());
+        notifyAll();
+    }
+
+    public synchronized void clear() {
+        queue.clear();
+    }
+
+    private synchronized T take() throws InterruptedException {
+        long parkedAt = System.currentTimeMillis();
+        while (queue.isEmpty()) {
+            wait();
+        }
+        idleMs += System.currentTimeMillis() - parkedAt;
+        return queue.pollFirst().item;
+    }
+
+    private void runLoop() {
+        while (true) {
+            synchronized (this) {
+                if (!running) return;
+            }
+            try {
+                T item = take();
+                long startedAt = System.currentTimeMillis();
+                dispatcher.dispatch(item);
+                synchronized (this) {
+                    dispatched++;
+                    busyMs += System.currentTimeMillis() - startedAt;
+                }
+            } catch (InterruptedException e) {
+                Log.d(TAG, name + " interrupted, stopping");
+                return;
+            } catch (Exception e) {
+                Log.e(TAG, name + " failed to dispatch request", e);
+            }
+        }
+    }
+
+    public synchronized int getQueueDepth() {
+        return queue.size();
+    }
+
+    public synchronized long getCoalescedDrops() {
+        return coalescedDrops;
+    }
+
+    public synchronized long getIdleMs() {
+        return idleMs;
+    }
+
+    public synchronized String getStatsSummary() {
+        return String.format(Locale.US,
+                "%s: submitted=%d dispatched=%d coalesced=%d queued=%d maxQueued=%d idle=%dms busy=%dms",
+                name, submitted, dispatched, coalescedDrops, queue.size(), maxQueueDepth, idleMs, busyMs);
+    }
+}
@@ -0,0 +1,358 @@
+package com.augmentos.augmentos_core.smarterglassesmanager.smartglassescommunicators;
+
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * BLE write pipeline for one arm of the Even Realities G1.
+ *
+ * Each arm has its own GATT connection, so the left and right writers run independently on
+ * their own threads. A writer issues the next packet as soon as the number of outstanding writes
+ * drops below its window; completion comes from onCharacteristicWrite via
+ * {@link #onWriteComplete(boolean)} instead of fixed sleeps.
+ *
+ * A write can be gated on an {@link Ack} from the other arm's writer: the G1 firmware expects a
+ * packet meant for both arms to reach the right arm only after the left one acknowledged it.
+ *
+ * Note that Android's BluetoothGatt only accepts one outstanding operation per connection, so a
+ * window larger than 1 only helps on stacks that queue write-without-response internally.
+ */
+public class G1SideWriter {
+    private static final String TAG = "WearableAi_G1SideWriter";
+
+    // If the stack never calls back for a write, assume it was lost and move on
+    private static final long WRITE_TIMEOUT_MS = 1000;
+    // A timed out write keeps its place this long, so its late callback isn't taken for a newer one's
+    private static final long LATE_CALLBACK_GRACE_MS = 5000;
+
+    public interface CharacteristicWriter {
+        /**
+         * Starts a write of {@code data} to this arm.
+         * @return true if the write was handed to the BLE stack
+         */
+        boolean write(byte[] data);
+    }
+
+    /**
+     * Signalled once a write was acknowledged, failed, timed out or was cleared.
+     */
+    public static class Ack {
+        private boolean done = false;
+
+        synchronized void complete() {
+            done = true;
+            notifyAll();
+        }
+
+        public synchronized void await() throws InterruptedException {
+            while (!done) {
+                wait();
+            }
+        }
+    }
+
+    private static class PendingWrite {
+        final byte[] data;
+        final int waitTime;
+        final Ack after;
+        final long generation;
+        final long enqueuedAtMs;
+        final Ack ack = new Ack();
+
+        PendingWrite(byte[] data, int waitTime, Ack after, long generation) {
+            this.data = data;
+            this.waitTime = waitTime;
+            this.after = after;
+            this.generation = generation;
+            this.enqueuedAtMs = System.currentTimeMillis();
+        }
+    }
+
+    // A write handed to the stack, oldest first; callbacks arrive in the order writes were issued
+    private static class InFlight {
+        final long tag;
+        final long startedAtMs;
+        final Ack ack;
+        // Timed out or cleared: no longer holds a window slot, its late callback is ignored
+        boolean abandoned = false;
+
+        InFlight(long tag, long startedAtMs, Ack ack) {
+            this.tag = tag;
+            this.startedAtMs = startedAtMs;
+            this.ack = ack;
+        }
+    }
+
+    private final String side;
+    private final CharacteristicWriter characteristicWriter;
+    private final LinkedBlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+    private final ArrayDeque<InFlight> inFlight = new ArrayDeque<>();
+    private int liveInFlight = 0; // in flight and not abandoned, guarded by this
+    private long nextTag = 0;
+    // Bumped by clear(), so a write taken off the queue before it doesn't go out after it
+    private long generation = 0;
+    private volatile int maxInFlight;
+    private int outstanding = 0; // queued or being written, guarded by this
+    private volatile boolean running = false;
+    private Thread writerThread;
+
+    // Counters, guarded by this
+    private long writesCompleted = 0;
+    private long writesFailed = 0;
+    private long writesTimedOut = 0;
+    private long lateCallbacks = 0;
+    private long bytesWritten = 0;
+    private long totalWriteLatencyMs = 0;
+    private long maxWriteLatencyMs = 0;
+    private long totalQueueWaitMs = 0;
+    private long statsStartMs = System.currentTimeMillis();
+
+    public G1SideWriter(String side, int maxInFlight, CharacteristicWriter characteristicWriter) {
+        this.side = side;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.characteristicWriter = characteristicWriter;
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        writerThread = new Thread(this::writeLoop, "G1SideWriter-" + side);
+        writerThread.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (writerThread != null) {
+            writerThread.interrupt();
+            writerThread = null;
+        }
+        clear();
+    }
+
+    public Ack enqueue(byte[] data, int waitTime) {
+        return enqueue(data, waitTime, null);
+    }
+
+    /**
+     * @param after if not null, the write isn't issued before this is signalled
+     * @return signalled once this write is done with
+     */
+    public synchronized Ack enqueue(byte[] data, int waitTime, Ack after) {
+        outstanding++;
+        PendingWrite write = new PendingWrite(data, waitTime, after, generation);
+        queue.offer(write);
+        return write.ack;
+    }
+
+    /**
+     * Drops everything queued or in flight, e.g. after a disconnect.
+     */
+    public synchronized void clear() {
+        generation++;
+        ArrayList<PendingWrite> dropped = new ArrayList<>();
+        queue.drainTo(dropped);
+        outstanding -= dropped.size();
+        for (PendingWrite write : dropped) {
+            write.ack.complete();
+        }
+        for (InFlight write : inFlight) {
+            abandon(write);
+        }
+        notifyAll();
+    }
+
+    /**
+     * Blocks until everything enqueued so far has been written and acknowledged (or timed out).
+     */
+    public synchronized void awaitIdle() throws InterruptedException {
+        while (outstanding > 0 || liveInFlight > 0) {
+            long wait = expireStaleWrites();
+            wait(wait > 0 ? wait : WRITE_TIMEOUT_MS);
+        }
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = Math.max(1, maxInFlight);
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Called from onCharacteristicWrite for this arm.
+     */
+    public synchronized void onWriteComplete(boolean success) {
+        InFlight write = inFlight.pollFirst();
+        if (write == null) {
+            return;
+        }
+        if (write.abandoned) {
+            lateCallbacks++;
+            Log.d(TAG, side + " ignoring late callback for write #" + write.tag);
+            return;
+        }
+        liveInFlight--;
+        write.ack.complete();
+        long latency = System.currentTimeMillis() - write.startedAtMs;
+        totalWriteLatencyMs += latency;
+        maxWriteLatencyMs = Math.max(maxWriteLatencyMs, latency);
+        if (success) {
+            writesCompleted++;
+        } else {
+            writesFailed++;
+        }
+        notifyAll();
+    }
+
+    private void writeLoop() {
+        while (running) {
+            try {
+                PendingWrite write = queue.take();
+                if (write.after != null) {
+                    write.after.await();
+                }
+                awaitWindow(maxInFlight);
+
+                InFlight entry;
+                synchronized (this) {
+                    if (write.generation != generation) {
+                        // cleared while this write waited
+                        write.ack.complete();
+                        outstanding = Math.max(0, outstanding - 1);
+                        notifyAll();
+                        continue;
+                    }
+                    long now = System.currentTimeMillis();
+                    entry = new InFlight(nextTag++, now, write.ack);
+                    inFlight.addLast(entry);
+                    liveInFlight++;
+                    totalQueueWaitMs += now - write.enqueuedAtMs;
+                }
+
+                if (characteristicWriter.write(write.data)) {
+                    synchronized (this) {
+                        bytesWritten += write.data.length;
+                    }
+                } else {
+                    synchronized (this) {
+                        // nothing went out, so no callback is coming for it
+                        if (inFlight.remove(entry) && !entry.abandoned) {
+                            liveInFlight--;
+                        }
+                        entry.ack.complete();
+                        writesFailed++;
+                        notifyAll();
+                    }
+                }
+
+                // if the packet asked us to do a delay, let it land first and then wait
+                if (write.waitTime > 0) {
+                    awaitWindow(1);
+                    Thread.sleep(write.waitTime);
+                }
+
+                synchronized (this) {
+                    outstanding = Math.max(0, outstanding - 1);
+                    notifyAll();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+    }
+
+    /**
+     * Blocks until fewer than {@code window} writes are outstanding.
+     */
+    private synchronized void awaitWindow(int window) throws InterruptedException {
+        while (liveInFlight >= window) {
+            long remaining = expireStaleWrites();
+            if (remaining > 0 && liveInFlight >= window) {
+                wait(remaining);
+            }
+        }
+    }
+
+    /**
+     * Gives up on in-flight writes whose callback never arrived.
+     * @return ms until the oldest remaining write times out, or 0 if nothing is in flight
+     */
+    private synchronized long expireStaleWrites() {
+        long now = System.currentTimeMillis();
+        // Abandoned writes that never called back at all are forgotten after the grace period
+        while (!inFlight.isEmpty() && inFlight.peekFirst().abandoned
+                && now - inFlight.peekFirst().startedAtMs > LATE_CALLBACK_GRACE_MS) {
+            inFlight.pollFirst();
+        }
+        for (InFlight write : inFlight) {
+            if (write.abandoned) {
+                continue;
+            }
+            long waited = now - write.startedAtMs;
+            long remaining = WRITE_TIMEOUT_MS - waited;
+            if (remaining > 0) {
+                return remaining;
+            }
+            Log.w(TAG, side + " write #" + write.tag + " timed out after " + waited + "ms, dropping it from the window");
+            abandon(write);
+            writesTimedOut++;
+        }
+        notifyAll();
+        return 0;
+    }
+
+    private void abandon(InFlight write) {
+        if (!write.abandoned) {
+            write.abandoned = true;
+            liveInFlight--;
+            write.ack.complete();
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public synchronized int getInFlightCount() {
+        return liveInFlight;
+    }
+
+    public synchronized double getThroughputBytesPerSecond() {
+        long elapsed = Math.max(1, System.currentTimeMillis() - statsStartMs);
+        return bytesWritten * 1000.0 / elapsed;
+    }
+
+    public synchronized double getAverageWriteLatencyMs() {
+        long done = writesCompleted + writesFailed;
+        return done == 0 ? 0 : (double) totalWriteLatencyMs / done;
+    }
+
+    public synchronized double getAverageQueueWaitMs() {
+        long issued = writesCompleted + writesFailed + writesTimedOut + liveInFlight;
+        return issued == 0 ? 0 : (double) totalQueueWaitMs / issued;
+    }
+
+    public synchronized void resetStats() {
+        writesCompleted = 0;
+        writesFailed = 0;
+        writesTimedOut = 0;
+        lateCallbacks = 0;
+        bytesWritten = 0;
+        totalWriteLatencyMs = 0;
+        maxWriteLatencyMs = 0;
+        totalQueueWaitMs = 0;
+        statsStartMs = System.currentTimeMillis();
+    }
+
+    public synchronized String getStatsSummary() {
+        return String.format(Locale.US,
+                "%s: ok=%d failed=%d timedOut=%d lateCallbacks=%d queued=%d inFlight=%d/%d %.0fB/s avgLatency=%.1fms maxLatency=%dms avgQueueWait=%.1fms",
+                side, writesCompleted, writesFailed, writesTimedOut, lateCallbacks, queue.size(), liveInFlight, maxInFlight,
+                getThroughputBytesPerSecond(), getAverageWriteLatencyMs(), maxWriteLatencyMs, getAverageQueueWaitMs());
+    }
+}
@@ -0,0 +1,120 @@
+package com.augmentos.augmentos_core.smarterglassesmanager.smartglassescommunicators;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Remembers the last text page sent to each G1 arm and works out how much of a new page
+ * actually has to go over BLE.
+ *
+ * With incremental mode on, a page identical to the previous one is skipped, unless that was sent
+ * more than {@link #MAX_SKIP_AGE_MS} ago, and a page that shares a prefix with it is sent from the
+ * first changed character, whose index goes in the new_char_pos header fields. Incremental mode is
+ * off by default because not every G1 firmware is known to honour new_char_pos; without it every
+ * page goes out in full. Anything else that changes the screen must {@link #invalidate()}.
+ */
+public class G1TextDeltaEncoder {
+    public static final int LEFT = 0;
+    public static final int RIGHT = 1;
+
+    /** Returned by {@link #prepare(int, byte[])} when the arm already shows this page. */
+    public static final int SKIP = -1;
+
+    // Re-send identical pages after this long in case the screen was replaced in between
+    private static final long MAX_SKIP_AGE_MS = 10000;
+
+    private final byte[][] lastPage = new byte[2][];
+    private final long[] lastSentAtMs = new long[2];
+    private volatile boolean incrementalEnabled = false;
+
+    // Counters, guarded by this
+    private long fullPages = 0;
+    private long deltaPages = 0;
+    private long skippedPages = 0;
+    private long pageBytes = 0;
+    private long sentBytes = 0;
+
+    public void setIncrementalEnabled(boolean enabled) {
+        incrementalEnabled = enabled;
+    }
+
+    public boolean isIncrementalEnabled() {
+        return incrementalEnabled;
+    }
+
+    /**
+     * Records {@code page} as the page now on {@code side} and returns the byte offset to start
+     * sending from: 0 for a full page, a positive offset for a suffix, or {@link #SKIP}.
+     */
+    public synchronized int prepare(int side, byte[] page) {
+        byte[] previous = lastPage[side];
+        long now = System.currentTimeMillis();
+        pageBytes += page.length;
+
+        // past the skip age, don't trust the previous page for a skip or a suffix either
+        boolean recent = previous != null && now - lastSentAtMs[side] < MAX_SKIP_AGE_MS;
+        if (incrementalEnabled && recent && Arrays.equals(previous, page)) {
+            skippedPages++;
+            return SKIP;
+        }
+        lastPage[side] = page;
+        lastSentAtMs[side] = now;
+
+        int offset = 0;
+        if (incrementalEnabled && recent) {
+            offset = commonPrefixLength(previous, page);
+            // never start mid code point, and always send at least one byte
+            while (offset > 0 && (offset >= page.length || (page[offset] & 0xC0) == 0x80)) {
+                offset--;
+            }
+            if (charIndexOf(page, offset) > 0xFFFF) {
+                offset = 0;
+            }
+        }
+
+        if (offset > 0) {
+            deltaPages++;
+        } else {
+            fullPages++;
+        }
+        sentBytes += page.length - offset;
+        return offset;
+    }
+
+    /**
+     * Forgets what each arm is showing, e.g. after a bitmap replaced the text or a reconnect.
+     */
+    public synchronized void invalidate() {
+        lastPage[LEFT] = null;
+        lastPage[RIGHT] = null;
+    }
+
+    /**
+     * Number of UTF-8 code points in {@code utf8[0, byteOffset)}.
+     */
+    public static int charIndexOf(byte[] utf8, int byteOffset) {
+        int chars = 0;
+        for (int i = 0; i < byteOffset; i++) {
+            if ((utf8[i] & 0xC0) != 0x80) {
+                chars++;
+            }
+        }
+        return chars;
+    }
+
+    private static int commonPrefixLength(byte[] a, byte[] b) {
+        int n = Math.min(a.length, b.length);
+        int i = 0;
+        while (i < n && a[i] == b[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    public synchronized String getStatsSummary() {
+        double saved = pageBytes == 0 ? 0 : 100.0 * (pageBytes - sentBytes) / pageBytes;
+        return String.format(Locale.US,
+                "text: full=%d delta=%d skipped=%d bytes=%d/%d (%.1f%% saved)",
+                fullPages, deltaPages, skippedPages, sentBytes, pageBytes, saved);
+    }
+}
@@ -22,6 +22,8 @@ import androidx.lifecycle.LifecycleService;
 import androidx.preference.PreferenceManager;
 
 import com.augmentos.augmentos_core.R;
+import com.augmentos.augmentos_core.augmentos_backend.AudioUplinkBatcher;
+import com.augmentos.augmentos_core.augmentos_backend.AudioUplinkCodec;
 import com.augmentos.augmentos_core.smarterglassesmanager.camera.CameraRecordingService;
 import com.augmentos.augmentos_core.smarterglassesmanager.eventbusmessages.NewAsrLanguagesEvent;
 import com.augmentos.augmentos_core.smarterglassesmanager.smartglassescommunicators.SmartGlassesFontSize;
@@ -44,6 +46,7 @@ import com.augmentos.augmentoslib.events.TextLineViewRequestEvent;
 import com.augmentos.augmentos_core.smarterglassesmanager.eventbusmessages.TextToSpeechEvent;
 import com.augmentos.augmentos_core.smarterglassesmanager.speechrecognition.ASR_FRAMEWORKS;
 import com.augmentos.augmentos_core.smarterglassesmanager.speechrecognition.SpeechRecSwitchSystem;
+import com.augmentos.augmentos_core.smarterglassesmanager.speechrecognition.augmentos.AudioUplinkPolicy;
 import com.augmentos.augmentos_core.smarterglassesmanager.supportedglasses.AudioWearable;
 import com.augmentos.augmentos_core.smarterglassesmanager.supportedglasses.EvenRealitiesG1;
 import com.augmentos.augmentos_core.smarterglassesmanager.supportedglasses.InmoAirOne;
@@ -317,6 +320,59 @@ public abstract class SmartGlassesAndroidService extends LifecycleService {
         editor.apply();
     }
 
+    /** How long audio keeps streaming after the VAD stops hearing speech. */
+    public static int getVadHangoverMs(Context context) {
+        SharedPreferences sharedPreferences = context.getSharedPreferences("AugmentOSPrefs", Context.MODE_PRIVATE);
+        return sharedPreferences.getInt(context.getResources().getString(R.string.VAD_HANGOVER_MS), AudioUplinkPolicy.DEFAULT_HANGOVER_MS);
+    }
+
+    public static void setVadHangoverMs(Context context, int hangoverMs) {
+        SharedPreferences sharedPreferences = context.getSharedPreferences("AugmentOSPrefs", Context.MODE_PRIVATE);
+        SharedPreferences.Editor editor = sharedPreferences.edit();
+        editor.putInt(context.getResources().getString(R.string.VAD_HANGOVER_MS), hangoverMs);
+        editor.apply();
+    }
+
+    /** Codec to offer the server first for the audio uplink; it only applies from the next connection. */
+    public static AudioUplinkCodec getAudioUplinkCodec(Context context) {
+        SharedPreferences sharedPreferences = context.getSharedPreferences("AugmentOSPrefs", Context.MODE_PRIVATE);
+        AudioUplinkCodec codec = AudioUplinkCodec.fromWireName(sharedPreferences.getString(context.getResources().getString(R.string.AUDIO_UPLINK_CODEC), AudioUplinkCodec.LC3.wireName));
+        return codec == null ? AudioUplinkCodec.LC3 : codec;
+    }
+
+    public static void setAudioUplinkCodec(Context context, AudioUplinkCodec codec) {
+        SharedPreferences sharedPreferences = context.getSharedPreferences("AugmentOSPrefs", Context.MODE_PRIVATE);
+        SharedPreferences.Editor editor = sharedPreferences.edit();
+        editor.putString(context.getResources().getString(R.string.AUDIO_UPLINK_CODEC), codec.wireName);
+        editor.apply();
+    }
+
+    /** How long uplink audio may wait to share a WebSocket message, 0 sends every chunk on its own. */
+    public static int getAudioBatchingBudgetMs(Context context) {
+        SharedPreferences sharedPreferences = context.getSharedPreferences("AugmentOSPrefs", Context.MODE_PRIVATE);
+        return sharedPreferences.getInt(context.getResources().getString(R.string.AUDIO_BATCHING_BUDGET_MS), AudioUplinkBatcher.DEFAULT_LATENCY_BUDGET_MS);
+    }
+
+    public static void setAudioBatchingBudgetMs(Context context, int budgetMs) {
+        SharedPreferences sharedPreferences = context.getSharedPreferences("AugmentOSPrefs", Context.MODE_PRIVATE);
+        SharedPreferences.Editor editor = sharedPreferences.edit();
+        editor.putInt(context.getResources().getString(R.string.AUDIO_BATCHING_BUDGET_MS), budgetMs);
+        editor.apply();
+    }
+
+    /** Whether uplink audio messages carry the sequence/timestamp header, for servers that expect it. */
+    public static boolean getAudioFramingEnabled(Context context) {
+        SharedPreferences sharedPreferences = context.getSharedPreferences("AugmentOSPrefs", Context.MODE_PRIVATE);
+        return sharedPreferences.getBoolean(context.getResources().getString(R.string.AUDIO_FRAMING_ENABLED), false);
+    }
+
+    public static void setAudioFramingEnabled(Context context, boolean enabled) {
+        SharedPreferences sharedPreferences = context.getSharedPreferences("AugmentOSPrefs", Context.MODE_PRIVATE);
+        SharedPreferences.Editor editor = sharedPreferences.edit();
+        editor.putBoolean(context.getResources().getString(R.string.AUDIO_FRAMING_ENABLED), enabled);
+        editor.apply();
+    }
+
     /** Gets the preferred wearable from shared preference. */
     public static boolean getForceCoreOnboardMic(Context context) {
 //        Log.d(TAG, "GETTING PREFERRED WEARABLE");
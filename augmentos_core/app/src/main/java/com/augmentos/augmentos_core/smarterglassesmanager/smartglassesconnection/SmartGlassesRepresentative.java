@@ -12,10 +12,10 @@ import android.util.Log;
 //custom, our code
 import androidx.lifecycle.LifecycleOwner;
 
-import com.augmentos.augmentos_core.smarterglassesmanager.eventbusmessages.AudioChunkNewEvent;
+import com.augmentos.augmentos_core.augmentos_backend.AudioUplinkCodec;
+import com.augmentos.augmentos_core.augmentos_backend.ServerComms;
 import com.augmentos.augmentos_core.smarterglassesmanager.eventbusmessages.DisableBleScoAudioEvent;
 import com.augmentos.augmentos_core.smarterglassesmanager.smartglassescommunicators.special.SelfSGC;
-import com.augmentos.augmentos_core.smarterglassesmanager.eventbusmessages.LC3AudioChunkNewEvent;
 import com.augmentos.augmentoslib.events.DisplayCustomContentRequestEvent;
 import com.augmentos.augmentoslib.events.DoubleTextWallViewRequestEvent;
 import com.augmentos.augmentoslib.events.HomeScreenEvent;
@@ -36,6 +36,7 @@ import com.augmentos.augmentoslib.events.PromptViewRequestEvent;
 import com.augmentos.augmentoslib.events.ScrollingTextViewStartRequestEvent;
 import com.augmentos.augmentoslib.events.ScrollingTextViewStopRequestEvent;
 import com.augmentos.augmentos_core.smarterglassesmanager.hci.AudioChunkCallback;
+import com.augmentos.augmentos_core.smarterglassesmanager.hci.AudioFrameBus;
 import com.augmentos.augmentos_core.smarterglassesmanager.hci.MicrophoneLocalAndBluetooth;
 //import com.augmentos.augmentos_core.smarterglassesmanager.smartglassescommunicators.ActiveLookSGC;
 import com.augmentos.augmentos_core.smarterglassesmanager.smartglassescommunicators.AndroidSGC;
@@ -62,6 +63,8 @@ class SmartGlassesRepresentative {
     public SmartGlassesDevice smartGlassesDevice;
     SmartGlassesCommunicator smartGlassesCommunicator;
     MicrophoneLocalAndBluetooth bluetoothAudio;
+    // Only used on the mic capture pipeline's thread
+    private final AudioFrameBus.AudioFrame micFrame = new AudioFrameBus.AudioFrame();
 
     //timing settings
     long referenceCardDelayTime = 10000;
@@ -199,23 +202,35 @@ class SmartGlassesRepresentative {
                 bluetoothAudio = new MicrophoneLocalAndBluetooth(context, useBluetoothSco, new AudioChunkCallback(){
                     @Override
                     public void onSuccess(ByteBuffer chunk){
-                        receiveChunk(chunk);
+                        receiveChunk(chunk, System.nanoTime());
+                    }
+
+                    @Override
+                    public void onSuccess(ByteBuffer chunk, long capturedAtNs){
+                        receiveChunk(chunk, capturedAtNs);
                     }
                 });
             }
         });
     }
 
-    private void receiveChunk(ByteBuffer chunk){
-        byte[] audio_bytes = chunk.array();
+    //runs on the mic capture pipeline's thread, not the AudioRecord one, so a slow encode can't delay the next read
+    //capturedAtNs is when the AudioRecord read returned, so the bus latency includes the wait for this thread
+    private void receiveChunk(ByteBuffer chunk, long capturedAtNs){
 
-        //encode as LC3
-        byte[] lc3Data = L3cCpp.encodeLC3(chunk.array());
-        // Log.d(TAG, "LC3 Data encoded: " + lc3Data.toString());
+        // With an Opus uplink the PCM is encoded straight to Opus, so only encode LC3 when it's what goes up
+        byte[] lc3Data = null;
+        if (ServerComms.getInstance().getUplinkCodec() == AudioUplinkCodec.LC3) {
+            byte[] audio_bytes = chunk.array();
+            if (chunk.arrayOffset() != 0 || chunk.remaining() != audio_bytes.length) {
+                audio_bytes = new byte[chunk.remaining()];
+                chunk.duplicate().get(audio_bytes);
+            }
+            lc3Data = L3cCpp.encodeLC3(audio_bytes);
+        }
 
-        //throw off new audio chunk event
-        EventBus.getDefault().post(new AudioChunkNewEvent(audio_bytes));
-        EventBus.getDefault().post(new LC3AudioChunkNewEvent(lc3Data));
+        //the chunk's buffer is recycled after listeners return, they copy what they keep
+        AudioFrameBus.publish(micFrame.set(chunk, lc3Data, lc3Data == null ? 0 : lc3Data.length, capturedAtNs));
     }
 
     public void destroy(){
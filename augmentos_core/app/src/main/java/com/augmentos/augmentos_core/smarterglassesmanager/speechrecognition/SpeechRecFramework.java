@@ -2,6 +2,7 @@ package com.augmentos.augmentos_core.smarterglassesmanager.speechrecognition;
 
 import android.content.Context;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 
 public abstract class SpeechRecFramework {
@@ -13,6 +14,13 @@ public abstract class SpeechRecFramework {
     public abstract void destroy();
     public abstract void ingestAudioChunk(byte [] audioChunk);
 
+    // PCM between position and limit of a pooled buffer that is reused once this returns
+    public void ingestAudioChunk(ByteBuffer audioChunk) {
+        byte[] copy = new byte[audioChunk.remaining()];
+        audioChunk.duplicate().get(copy);
+        ingestAudioChunk(copy);
+    }
+
     public abstract void ingestLC3AudioChunk(byte [] audioChunk);
 
     public void pauseAsr(boolean pauseAsrFlag){
@@ -1,9 +1,8 @@
 package com.augmentos.augmentos_core.smarterglassesmanager.speechrecognition;
 
 import android.content.Context;
-import com.augmentos.augmentos_core.smarterglassesmanager.eventbusmessages.AudioChunkNewEvent;
-import com.augmentos.augmentos_core.smarterglassesmanager.eventbusmessages.LC3AudioChunkNewEvent;
 import com.augmentos.augmentos_core.smarterglassesmanager.eventbusmessages.PauseAsrEvent;
+import com.augmentos.augmentos_core.smarterglassesmanager.hci.AudioFrameBus;
 import com.augmentos.augmentos_core.smarterglassesmanager.speechrecognition.augmentos.SpeechRecAugmentos;
 
 import org.greenrobot.eventbus.EventBus;
@@ -12,7 +11,7 @@ import org.greenrobot.eventbus.Subscribe;
 import java.util.List;
 
 //send audio to one of the built in ASR frameworks.
-public class SpeechRecSwitchSystem {
+public class SpeechRecSwitchSystem implements AudioFrameBus.Listener {
     private final String TAG = "WearableAi_SpeechRecSwitchSystem";
     private ASR_FRAMEWORKS asrFramework;
     private SpeechRecFramework speechRecFramework;
@@ -48,21 +47,19 @@ public class SpeechRecSwitchSystem {
         //start asr
         speechRecFramework.start();
         EventBus.getDefault().register(this);
+        AudioFrameBus.register(this);
     }
 
-    @Subscribe
-    public void onAudioChunkNewEvent(AudioChunkNewEvent receivedEvent){
-        //redirect audio to the currently in use ASR framework, if it's not paused
-        if (!speechRecFramework.pauseAsrFlag) {
-            speechRecFramework.ingestAudioChunk(receivedEvent.thisChunk);
-        }
-    }
-
-    @Subscribe
-    public void onLC3AudioChunkNewEvent(LC3AudioChunkNewEvent receivedEvent){
+    //mic audio comes straight from the capture thread in pooled buffers rather than over EventBus
+    @Override
+    public void onAudioFrame(AudioFrameBus.AudioFrame frame){
         //redirect audio to the currently in use ASR framework, if it's not paused
         if (!speechRecFramework.pauseAsrFlag) {
-            speechRecFramework.ingestLC3AudioChunk(receivedEvent.thisChunk);
+            speechRecFramework.ingestAudioChunk(frame.pcm());
+            if (frame.hasLc3()) {
+                //the LC3 chunk is queued for upload, so it needs its own copy
+                speechRecFramework.ingestLC3AudioChunk(frame.copyLc3());
+            }
         }
     }
 
@@ -73,6 +70,7 @@ public class SpeechRecSwitchSystem {
     }
 
     public void destroy(){
+        AudioFrameBus.unregister(this);
         if (speechRecFramework != null){
             speechRecFramework.destroy();
         }
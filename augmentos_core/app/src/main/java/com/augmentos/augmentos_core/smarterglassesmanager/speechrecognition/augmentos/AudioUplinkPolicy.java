@@ -0,0 +1,253 @@
+package com.augmentos.augmentos_core.smarterglassesmanager.speechrecognition.augmentos;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.Locale;
+
+/**
+ * Decides whether captured audio goes up to the cloud.
+ *
+ * Audio flows only while both of these hold:
+ *  - speech is active: the VAD hears speech, or stopped hearing it less than the hangover ago
+ *    (always true with the VAD bypassed)
+ *  - the server wants audio: it can say nobody subscribed needs it with an audio_uplink_state
+ *    message, and it's assumed to want audio again after every connection_ack
+ *
+ * The listener is told when speech activity changes (that's what VAD status messages report)
+ * and when the uplink opens, so the pre-roll buffer can be sent before live audio. Callbacks
+ * run after the policy is unlocked, one at a time and in the order the changes happened, on the
+ * thread that made the change or on one that called in meanwhile. The end of a hangover is
+ * scheduled on the main thread, so it closes the uplink even if no more audio comes in.
+ */
+public class AudioUplinkPolicy {
+    private static final String TAG = "WearableAi_AudioUplinkPolicy";
+    public static final int DEFAULT_HANGOVER_MS = 1500;
+    private static final long STATS_LOG_INTERVAL_MS = 10 * 60 * 1000;
+
+    public interface Listener {
+        void onSpeechActiveChanged(boolean active);
+
+        void onUplinkOpened();
+    }
+
+    private final Listener listener;
+    private final boolean vadEnabled;
+    private int hangoverMs;
+    private boolean vadSpeech = false;
+    private long speechEndedAtMs = 0;
+    private boolean serverNeedsAudio = true;
+    private boolean speechActive = false;
+    private boolean uplinkOpen = false;
+    // Listener calls for changes made under the lock, run by dispatchPending() once it's released
+    private final ArrayDeque<Runnable> pending = new ArrayDeque<>();
+    // Queued or running listener calls, guarded by this
+    private int undelivered = 0;
+    // Held while calling the listener, never taken while holding this
+    private final Object dispatchLock = new Object();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable hangoverExpiry = this::onHangoverExpired;
+
+    // Stats
+    private long bytesOffered = 0;
+    private long bytesSent = 0;
+    private long bytesSuppressedByVad = 0;
+    private long bytesSuppressedByServer = 0;
+    private long uplinkOpenings = 0;
+    private long statsStartMs = SystemClock.elapsedRealtime();
+    private long lastStatsLogMs = statsStartMs;
+
+    public AudioUplinkPolicy(boolean vadEnabled, int hangoverMs, Listener listener) {
+        this.vadEnabled = vadEnabled;
+        this.hangoverMs = Math.max(0, hangoverMs);
+        this.listener = listener;
+    }
+
+    public void onVadSpeechStart() {
+        synchronized (this) {
+            vadSpeech = true;
+            handler.removeCallbacks(hangoverExpiry);
+            update(SystemClock.elapsedRealtime());
+        }
+        dispatchPending();
+    }
+
+    public void onVadSpeechEnd() {
+        synchronized (this) {
+            if (!vadSpeech) {
+                // Already ended, e.g. by endSpeechNow, don't start a hangover after the fact
+                return;
+            }
+            vadSpeech = false;
+            speechEndedAtMs = SystemClock.elapsedRealtime();
+            update(speechEndedAtMs);
+            scheduleHangoverExpiry(speechEndedAtMs);
+        }
+        dispatchPending();
+    }
+
+    /**
+     * Ends speech without a hangover, e.g. when the mic turns off.
+     */
+    public void endSpeechNow() {
+        synchronized (this) {
+            vadSpeech = false;
+            speechEndedAtMs = 0;
+            handler.removeCallbacks(hangoverExpiry);
+            update(SystemClock.elapsedRealtime());
+        }
+        dispatchPending();
+    }
+
+    /**
+     * Server hint: false when no subscriber needs audio right now.
+     */
+    public void setServerNeedsAudio(boolean needsAudio) {
+        synchronized (this) {
+            if (needsAudio != serverNeedsAudio) {
+                Log.d(TAG, "Server " + (needsAudio ? "needs" : "doesn't need") + " audio");
+            }
+            serverNeedsAudio = needsAudio;
+            update(SystemClock.elapsedRealtime());
+        }
+        dispatchPending();
+    }
+
+    public void setHangoverMs(int hangoverMs) {
+        synchronized (this) {
+            this.hangoverMs = Math.max(0, hangoverMs);
+            long now = SystemClock.elapsedRealtime();
+            update(now);
+            scheduleHangoverExpiry(now);
+        }
+        dispatchPending();
+    }
+
+    /**
+     * Called for every captured chunk.
+     * @return true if the chunk should be sent
+     */
+    public boolean shouldSend(int chunkBytes) {
+        boolean send;
+        synchronized (this) {
+            long now = SystemClock.elapsedRealtime();
+            update(now);
+            bytesOffered += chunkBytes;
+            if (uplinkOpen) {
+                bytesSent += chunkBytes;
+            } else if (!speechActive) {
+                bytesSuppressedByVad += chunkBytes;
+            } else {
+                bytesSuppressedByServer += chunkBytes;
+            }
+            if (now - lastStatsLogMs >= STATS_LOG_INTERVAL_MS) {
+                Log.d(TAG, getStatsSummary());
+                lastStatsLogMs = now;
+            }
+            send = uplinkOpen;
+        }
+        dispatchPending();
+        return send;
+    }
+
+    // Removes any callbacks still scheduled, e.g. when speech recognition is torn down
+    public void destroy() {
+        handler.removeCallbacks(hangoverExpiry);
+    }
+
+    // Guarded by this
+    private void scheduleHangoverExpiry(long now) {
+        handler.removeCallbacks(hangoverExpiry);
+        if (vadEnabled && !vadSpeech && speechEndedAtMs != 0) {
+            long remainingMs = speechEndedAtMs + hangoverMs - now;
+            if (remainingMs > 0) {
+                handler.postDelayed(hangoverExpiry, remainingMs);
+            }
+        }
+    }
+
+    private void onHangoverExpired() {
+        synchronized (this) {
+            long now = SystemClock.elapsedRealtime();
+            update(now);
+            // Early by the clocks' drift, e.g. across deep sleep: try again for the rest
+            scheduleHangoverExpiry(now);
+        }
+        dispatchPending();
+    }
+
+    // Guarded by this, only queues the listener calls
+    private void update(long now) {
+        boolean active = !vadEnabled || vadSpeech || (speechEndedAtMs != 0 && now - speechEndedAtMs < hangoverMs);
+        boolean open = active && serverNeedsAudio;
+        if (active != speechActive) {
+            speechActive = active;
+            pending.add(() -> listener.onSpeechActiveChanged(active));
+            undelivered++;
+        }
+        if (open != uplinkOpen) {
+            uplinkOpen = open;
+            if (open) {
+                uplinkOpenings++;
+                pending.add(listener::onUplinkOpened);
+                undelivered++;
+            }
+        }
+    }
+
+    /**
+     * Runs queued listener calls in order, without holding this. If another thread is still
+     * running earlier ones this waits for it, so e.g. a chunk can't go out live before the
+     * pre-roll that onUplinkOpened sends.
+     */
+    private void dispatchPending() {
+        synchronized (this) {
+            if (undelivered == 0) {
+                return;
+            }
+        }
+        synchronized (dispatchLock) {
+            while (true) {
+                Runnable next;
+                synchronized (this) {
+                    next = pending.poll();
+                }
+                if (next == null) {
+                    return;
+                }
+                try {
+                    next.run();
+                } finally {
+                    synchronized (this) {
+                        undelivered--;
+                    }
+                }
+            }
+        }
+    }
+
+    public synchronized void resetStats() {
+        bytesOffered = 0;
+        bytesSent = 0;
+        bytesSuppressedByVad = 0;
+        bytesSuppressedByServer = 0;
+        uplinkOpenings = 0;
+        statsStartMs = SystemClock.elapsedRealtime();
+    }
+
+    /**
+     * Bytes sent per hour is the number to compare across hangover settings; the suppressed
+     * counts show whether the VAD or the server hints saved more.
+     */
+    public synchronized String getStatsSummary() {
+        double hours = Math.max(1, SystemClock.elapsedRealtime() - statsStartMs) / 3600000.0;
+        return String.format(Locale.US,
+                "audio uplink policy (vad=%b hangover=%dms serverNeedsAudio=%b): sent=%dB of %dB (%.1f%%) %.0fKB/h openings=%d suppressedByVad=%dB suppressedByServer=%dB",
+                vadEnabled, hangoverMs, serverNeedsAudio, bytesSent, bytesOffered,
+                bytesOffered == 0 ? 0 : 100.0 * bytesSent / bytesOffered, bytesSent / 1024.0 / hours,
+                uplinkOpenings, bytesSuppressedByVad, bytesSuppressedByServer);
+    }
+}
@@ -0,0 +1,141 @@
+package com.augmentos.augmentos_core.smarterglassesmanager.speechrecognition.augmentos;
+
+import android.os.Debug;
+import android.util.Log;
+
+import com.augmentos.smartglassesmanager.cpp.OpusCpp;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Streams 16kHz PCM into Opus packets for the cloud uplink, keeping partial frames between calls.
+ *
+ * Also measures what the encode costs, as thread CPU time per second of audio, so the same
+ * build can be compared against LC3 on x86 and ARM devices.
+ */
+public class OpusUplinkEncoder {
+    private static final String TAG = "WearableAi_OpusUplinkEncoder";
+    private static final int SAMPLE_RATE_HZ = 16000;
+    private static final long STATS_LOG_INTERVAL_MS = 60000;
+
+    private final int bitrateBps;
+    private final int frameMs;
+    private long handle;
+    // Room for several packets per call, each at most 1275 bytes plus its length
+    private final byte[] out = new byte[8 * 1024];
+
+    // Stats
+    private long pcmBytesIn = 0;
+    private long encodedBytesOut = 0;
+    private long packetsOut = 0;
+    private long encodeCpuNanos = 0;
+    private long lastStatsLogMs = System.currentTimeMillis();
+
+    private OpusUplinkEncoder(int bitrateBps, int frameMs, long handle) {
+        this.bitrateBps = bitrateBps;
+        this.frameMs = frameMs;
+        this.handle = handle;
+    }
+
+    /**
+     * @return the encoder, or null if Opus isn't built into this app or rejected the settings
+     */
+    public static OpusUplinkEncoder create(int bitrateBps, int frameMs) {
+        if (!OpusCpp.isAvailable()) {
+            return null;
+        }
+        long handle = OpusCpp.createOpusEncoder(bitrateBps, frameMs);
+        if (handle == 0) {
+            Log.e(TAG, "Couldn't create Opus encoder for " + bitrateBps + "bps, " + frameMs + "ms frames");
+            return null;
+        }
+        return new OpusUplinkEncoder(bitrateBps, frameMs, handle);
+    }
+
+    public boolean hasSettings(int bitrateBps, int frameMs) {
+        return this.bitrateBps == bitrateBps && this.frameMs == frameMs;
+    }
+
+    public int getFrameMs() {
+        return frameMs;
+    }
+
+    /**
+     * @return length-prefixed packets for every frame completed by this PCM, or null if none was
+     */
+    public synchronized byte[] encode(byte[] pcm, int offset, int length) {
+        if (handle == 0) return null;
+        long start = Debug.threadCpuTimeNanos();
+        int written = OpusCpp.encodeOpus(handle, pcm, offset, length, out);
+        return finish(start, length, written);
+    }
+
+    /**
+     * Same, from the buffer's position to its limit; the position isn't moved.
+     */
+    public synchronized byte[] encode(ByteBuffer pcm) {
+        if (handle == 0) return null;
+        if (!pcm.isDirect()) {
+            return encode(pcm.array(), pcm.arrayOffset() + pcm.position(), pcm.remaining());
+        }
+        long start = Debug.threadCpuTimeNanos();
+        int written = OpusCpp.encodeOpusDirect(handle, pcm, pcm.position(), pcm.remaining(), out);
+        return finish(start, pcm.remaining(), written);
+    }
+
+    private byte[] finish(long startCpuNanos, int pcmLength, int written) {
+        encodeCpuNanos += Debug.threadCpuTimeNanos() - startCpuNanos;
+        pcmBytesIn += pcmLength;
+        if (written < 0) {
+            Log.e(TAG, "Opus encode failed");
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (now - lastStatsLogMs >= STATS_LOG_INTERVAL_MS) {
+            Log.d(TAG, getStatsSummary());
+            lastStatsLogMs = now;
+        }
+        if (written == 0) {
+            return null;
+        }
+        encodedBytesOut += written;
+        packetsOut += countPackets(out, written);
+        return Arrays.copyOf(out, written);
+    }
+
+    /**
+     * Number of 10ms frames of audio in {@code packets}, as the uplink journal counts them.
+     */
+    public int frameCount(byte[] packets) {
+        return countPackets(packets, packets.length) * frameMs / 10;
+    }
+
+    private static int countPackets(byte[] packets, int length) {
+        int count = 0;
+        for (int i = 0; i + 2 <= length; i += 2 + (((packets[i] & 0xFF) << 8) | (packets[i + 1] & 0xFF))) {
+            count++;
+        }
+        return count;
+    }
+
+    public synchronized void destroy() {
+        if (handle != 0) {
+            OpusCpp.destroyOpusEncoder(handle);
+            handle = 0;
+        }
+    }
+
+    /**
+     * Encode CPU per second of audio is the number to compare across devices and against LC3.
+     */
+    public synchronized String getStatsSummary() {
+        double audioSec = pcmBytesIn / 2.0 / SAMPLE_RATE_HZ;
+        return String.format(Locale.US,
+                "opus uplink (%dbps %dms): audio=%.1fs packets=%d actual=%.0fbps encodeCpu=%.2fms per audio second",
+                bitrateBps, frameMs, audioSec, packetsOut,
+                audioSec == 0 ? 0 : encodedBytesOut * 8 / audioSec,
+                audioSec == 0 ? 0 : encodeCpuNanos / 1e6 / audioSec);
+    }
+}
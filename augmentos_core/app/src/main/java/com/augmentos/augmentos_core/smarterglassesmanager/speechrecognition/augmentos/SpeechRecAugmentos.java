@@ -3,11 +3,13 @@ package com.augmentos.augmentos_core.smarterglassesmanager.speechrecognition.aug
 import android.content.Context;
 import android.util.Log;
 
+import com.augmentos.augmentos_core.augmentos_backend.AudioUplinkCodec;
 import com.augmentos.augmentos_core.augmentos_backend.ServerComms;
 import com.augmentos.augmentos_core.smarterglassesmanager.smartglassesconnection.SmartGlassesAndroidService;
 import com.augmentos.augmentos_core.smarterglassesmanager.speechrecognition.AsrStreamKey;
 import com.augmentos.augmentos_core.smarterglassesmanager.speechrecognition.SpeechRecFramework;
 import com.augmentos.augmentos_core.smarterglassesmanager.speechrecognition.vad.VadGateSpeechPolicy;
+import com.augmentos.augmentos_core.smarterglassesmanager.speechrecognition.vad.VadStateListener;
 import com.augmentos.augmentoslib.events.SpeechRecOutputEvent;
 import com.augmentos.augmentoslib.events.TranslateOutputEvent;
 //import com.augmentos.augmentos_core.smarterglassesmanager.speechrecognition.AsrStreamKey;
@@ -19,7 +21,6 @@ import org.json.JSONObject;
 
 import java.lang.reflect.Field;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
@@ -35,23 +36,50 @@ public class SpeechRecAugmentos extends SpeechRecFramework {
     private static SpeechRecAugmentos instance;
 
     private final Context mContext;
-    private final BlockingQueue<byte[]> rollingBuffer;
+    private final BlockingQueue<EncodedChunk> rollingBuffer;
     private final int bufferMaxSize;
+    // Only while the session's uplink codec is Opus, guarded by this
+    private OpusUplinkEncoder opusEncoder;
+
+    private static class EncodedChunk {
+        final byte[] data;
+        final int frames;
+        final AudioUplinkCodec codec;
+
+        EncodedChunk(byte[] data, int frames, AudioUplinkCodec codec) {
+            this.data = data;
+            this.frames = frames;
+            this.codec = codec;
+        }
+    }
 
-    // VAD
-    private VadGateSpeechPolicy vadPolicy;
-    private volatile boolean isSpeaking = false; // Track VAD state
-    private boolean vadEnabled = true;
+    // VAD, set by the init thread once the model is loaded
+    private volatile VadGateSpeechPolicy vadPolicy;
+    // The VAD only debounces short pauses, the uplink policy adds the (longer) hangover
+    private static final int VAD_SILENCE_DURATION_MS = 300;
+    private final AudioUplinkPolicy uplinkPolicy;
 
-    // VAD buffer for chunking
-    private final BlockingQueue<Short> vadBuffer = new LinkedBlockingQueue<>();
+    // VAD buffer for chunking: ~1s of preallocated samples, handed off in 512-sample frames
     private final int vadFrameSize = 512; // 512-sample frames for VAD
+    private final VadFrameRingBuffer vadBuffer = new VadFrameRingBuffer(16000, vadFrameSize);
     private volatile boolean vadRunning = true;
 
     private SpeechRecAugmentos(Context context) {
         this.mContext = context;
 
-        vadEnabled = !SmartGlassesAndroidService.getBypassVadEnabled(context);
+        boolean vadEnabled = !SmartGlassesAndroidService.getBypassVadEnabled(context);
+        uplinkPolicy = new AudioUplinkPolicy(vadEnabled, SmartGlassesAndroidService.getVadHangoverMs(context),
+                new AudioUplinkPolicy.Listener() {
+                    @Override
+                    public void onSpeechActiveChanged(boolean active) {
+                        sendVadStatus(active);
+                    }
+
+                    @Override
+                    public void onUplinkOpened() {
+                        sendBufferedAudio();
+                    }
+                });
 
         // 1) Create or fetch your single ServerComms (the new consolidated manager).
         //    For example, we create a new instance here:
@@ -72,7 +100,7 @@ public class SpeechRecAugmentos extends SpeechRecFramework {
      */
     private void initVadAsync() {
         new Thread(() -> {
-            vadPolicy = new VadGateSpeechPolicy(mContext);
+            vadPolicy = new VadGateSpeechPolicy(mContext, VAD_SILENCE_DURATION_MS);
             vadPolicy.init(512);
             setupVadListener();
             startVadProcessingThread();
@@ -80,44 +108,34 @@ public class SpeechRecAugmentos extends SpeechRecFramework {
     }
 
     /**
-     * Sets up a loop that checks VAD state and sends VAD on/off to the server.
+     * Feeds VAD transitions to the uplink policy, which sends VAD on/off to the server once
+     * speech starts and once the hangover after it runs out.
+     * Callbacks arrive on the VAD processing thread at the frame where the state flips.
      */
     private void setupVadListener() {
-        new Thread(() -> {
-            while (true) {
-                boolean newVadIsSpeakingState = vadPolicy.shouldPassAudioToRecognizer();
-
-                if (newVadIsSpeakingState && !isSpeaking) {
-                    // VAD opened
-                    sendVadStatus(true);
-                    sendBufferedAudio();
-                    isSpeaking = true;
-                } else if (!newVadIsSpeakingState && isSpeaking) {
-                    // VAD closed
-                    sendVadStatus(false);
-                    isSpeaking = false;
-                }
+        vadPolicy.setVadStateListener(new VadStateListener() {
+            @Override
+            public void onSpeechStart() {
+                uplinkPolicy.onVadSpeechStart();
+            }
 
-                try {
-                    Thread.sleep(50);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    return;
-                }
+            @Override
+            public void onSpeechEnd() {
+                uplinkPolicy.onVadSpeechEnd();
             }
-        }).start();
+        });
     }
 
     /**
-     * Drains the rolling buffer (last ~150ms) and sends it immediately when VAD opens.
+     * Drains the rolling buffer (last ~220ms) and sends it immediately when the uplink opens.
      */
     private void sendBufferedAudio() {
-        List<byte[]> bufferDump = new ArrayList<>();
+        List<EncodedChunk> bufferDump = new ArrayList<>();
         rollingBuffer.drainTo(bufferDump);
 
-        for (byte[] chunk : bufferDump) {
+        for (EncodedChunk chunk : bufferDump) {
             // Now we send audio chunks through ServerComms (single WebSocket).
-            ServerComms.getInstance().sendAudioChunk(chunk);
+            ServerComms.getInstance().sendAudioChunk(chunk.data, chunk.frames, chunk.codec);
         }
     }
 
@@ -126,23 +144,19 @@ public class SpeechRecAugmentos extends SpeechRecFramework {
      */
     private void startVadProcessingThread() {
         new Thread(() -> {
+            short[] vadChunk = new short[vadFrameSize];
             while (vadRunning) {
                 try {
-                    while (vadBuffer.size() < vadFrameSize) {
-                        Thread.sleep(5);
-                    }
-                    short[] vadChunk = new short[vadFrameSize];
-                    for (int i = 0; i < vadFrameSize; i++) {
-                        vadChunk[i] = vadBuffer.poll();
+                    if (!vadBuffer.awaitFrame(vadChunk)) {
+                        break;
                     }
-                    byte[] bytes = shortsToBytes(vadChunk);
-                    vadPolicy.processAudioBytes(bytes, 0, bytes.length);
+                    vadPolicy.processAudioFrame(vadChunk);
                 } catch (InterruptedException e) {
                     Thread.currentThread().interrupt();
                     break;
                 }
             }
-        }).start();
+        }, "VadProcessingThread").start();
     }
 
     /**
@@ -158,6 +172,10 @@ public class SpeechRecAugmentos extends SpeechRecFramework {
      */
     @Override
     public void ingestAudioChunk(byte[] audioChunk) {
+        OpusUplinkEncoder encoder = opusEncoderForSession();
+        if (encoder != null) {
+            uplinkOpus(encoder, encoder.encode(audioChunk, 0, audioChunk.length));
+        }
         if (vadPolicy == null) {
             Log.e(TAG, "VAD not initialized yet. Skipping audio.");
             return;
@@ -166,13 +184,19 @@ public class SpeechRecAugmentos extends SpeechRecFramework {
             Log.e(TAG, "VAD model not initialized. Skipping audio.");
             return;
         }
-        short[] audioSamples = bytesToShort(audioChunk);
-        for (short sample : audioSamples) {
-            if (vadBuffer.size() >= 16000) {
-                vadBuffer.poll();
-            }
-            vadBuffer.offer(sample);
+        vadBuffer.writePcm16le(audioChunk, 0, audioChunk.length);
+    }
+
+    @Override
+    public void ingestAudioChunk(ByteBuffer audioChunk) {
+        OpusUplinkEncoder encoder = opusEncoderForSession();
+        if (encoder != null) {
+            uplinkOpus(encoder, encoder.encode(audioChunk));
+        }
+        if (vadPolicy == null || !isVadInitialized()) {
+            return;
         }
+        vadBuffer.writePcm16le(audioChunk);
     }
 
     /**
@@ -180,37 +204,61 @@ public class SpeechRecAugmentos extends SpeechRecFramework {
      */
     @Override
     public void ingestLC3AudioChunk(byte[] LC3audioChunk) {
-        // If currently speaking, send data live
-        if (!vadEnabled || isSpeaking) {
-            ServerComms.getInstance().sendAudioChunk(LC3audioChunk);
+        if (ServerComms.getInstance().getUplinkCodec() != AudioUplinkCodec.LC3) {
+            // The uplink is encoded from PCM instead
+            return;
+        }
+        uplinkChunk(new EncodedChunk(LC3audioChunk, LC3audioChunk.length / 20, AudioUplinkCodec.LC3));
+    }
+
+    private void uplinkOpus(OpusUplinkEncoder encoder, byte[] packets) {
+        if (packets != null) {
+            uplinkChunk(new EncodedChunk(packets, encoder.frameCount(packets), AudioUplinkCodec.OPUS));
+        }
+    }
+
+    private void uplinkChunk(EncodedChunk chunk) {
+        // Send live only while someone is speaking and the server wants the audio
+        if (uplinkPolicy.shouldSend(chunk.data.length)) {
+            ServerComms.getInstance().sendAudioChunk(chunk.data, chunk.frames, chunk.codec);
         }
 
         // Maintain rolling buffer for "catch-up"
         if (rollingBuffer.size() >= bufferMaxSize) {
             rollingBuffer.poll();
         }
-        rollingBuffer.offer(LC3audioChunk);
+        rollingBuffer.offer(chunk);
     }
 
-
     /**
-     * Converts short[] -> byte[] (little-endian)
+     * The Opus encoder for the current session's settings, or null while the uplink is LC3.
      */
-    private byte[] shortsToBytes(short[] shorts) {
-        ByteBuffer byteBuffer = ByteBuffer.allocate(shorts.length * 2);
-        byteBuffer.order(ByteOrder.LITTLE_ENDIAN).asShortBuffer().put(shorts);
-        return byteBuffer.array();
+    private synchronized OpusUplinkEncoder opusEncoderForSession() {
+        ServerComms serverComms = ServerComms.getInstance();
+        if (serverComms.getUplinkCodec() != AudioUplinkCodec.OPUS) {
+            if (opusEncoder != null) {
+                opusEncoder.destroy();
+                opusEncoder = null;
+            }
+            return null;
+        }
+        int bitrateBps = serverComms.getOpusBitrateBps();
+        int frameMs = serverComms.getOpusFrameMs();
+        if (opusEncoder == null || !opusEncoder.hasSettings(bitrateBps, frameMs)) {
+            if (opusEncoder != null) {
+                Log.d(TAG, opusEncoder.getStatsSummary());
+                opusEncoder.destroy();
+            }
+            opusEncoder = OpusUplinkEncoder.create(bitrateBps, frameMs);
+        }
+        return opusEncoder;
     }
 
-    /**
-     * Converts byte[] -> short[] (little-endian)
-     */
-    private short[] bytesToShort(byte[] bytes) {
-        short[] shorts = new short[bytes.length / 2];
-        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer().get(shorts);
-        return shorts;
+    public synchronized String getOpusEncoderStats() {
+        return opusEncoder == null ? "opus uplink: not in use" : opusEncoder.getStatsSummary();
     }
 
+
     /**
      * Simple reflection-based check to see if the VAD model is loaded.
      */
@@ -241,6 +289,14 @@ public class SpeechRecAugmentos extends SpeechRecFramework {
     public void destroy() {
         Log.d(TAG, "Destroying Speech Recognition Service");
         vadRunning = false;
+        vadBuffer.close();
+        uplinkPolicy.destroy();
+        synchronized (this) {
+            if (opusEncoder != null) {
+                opusEncoder.destroy();
+                opusEncoder = null;
+            }
+        }
         //ServerComms.getInstance().disconnectWebSocket();
     }
 
@@ -273,31 +329,46 @@ public class SpeechRecAugmentos extends SpeechRecFramework {
             String type = msg.getString("type"); // "interim" or "final"
             String language = msg.getString("language");
             String translateLanguage = msg.optString("translateLanguage", null);
-            boolean isTranslation = (translateLanguage != null);
             String text = msg.getString("text");
-
-            if ("interim".equals(type)) {
-                if (isTranslation) {
-                    EventBus.getDefault().post(new TranslateOutputEvent(text, language, translateLanguage, timestamp, false));
-                } else {
-                    EventBus.getDefault().post(new SpeechRecOutputEvent(text, language, timestamp, false));
-                }
-            } else {
-                // "final"
-                if (isTranslation) {
-                    EventBus.getDefault().post(new TranslateOutputEvent(text, language, translateLanguage, timestamp, true));
-                } else {
-                    EventBus.getDefault().post(new SpeechRecOutputEvent(text, language, timestamp, true));
-                }
-            }
+            handleTranscript(!"interim".equals(type), text, language, translateLanguage, timestamp);
         } catch (Exception e) {
             Log.e(TAG, "Error parsing speech JSON: " + msg, e);
         }
     }
 
+    /**
+     * Posts an already parsed transcript, from either the JSON or the binary protocol.
+     */
+    public void handleTranscript(boolean isFinal, String text, String language, String translateLanguage, long timestamp) {
+        boolean isTranslation = (translateLanguage != null);
+        if (isTranslation) {
+            EventBus.getDefault().post(new TranslateOutputEvent(text, language, translateLanguage, timestamp, isFinal));
+        } else {
+            EventBus.getDefault().post(new SpeechRecOutputEvent(text, language, timestamp, isFinal));
+        }
+    }
+
+    /**
+     * Server hint: false while no subscriber needs audio. The VAD keeps running meanwhile.
+     */
+    public void setServerNeedsAudio(boolean needsAudio) {
+        uplinkPolicy.setServerNeedsAudio(needsAudio);
+    }
+
+    public void setUplinkHangoverMs(int hangoverMs) {
+        uplinkPolicy.setHangoverMs(hangoverMs);
+    }
+
+    public String getUplinkPolicyStats() {
+        return uplinkPolicy.getStatsSummary();
+    }
+
     public void microphoneStateChanged(boolean state){
         if (vadPolicy != null){
             vadPolicy.microphoneStateChanged(state);
         }
+        if (!state) {
+            uplinkPolicy.endSpeechNow();
+        }
     }
 }
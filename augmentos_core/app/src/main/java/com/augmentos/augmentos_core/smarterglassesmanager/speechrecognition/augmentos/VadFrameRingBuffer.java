@@ -0,0 +1,146 @@
+package com.augmentos.augmentos_core.smarterglassesmanager.speechrecognition.augmentos;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Preallocated ring of 16-bit PCM samples that hands fixed-size frames to the VAD thread.
+ *
+ * PCM can arrive from more than one thread (the glasses' ingest thread, the phone mic's
+ * capture pipeline, the audio system path), so writers are serialized on the buffer's monitor.
+ * The single consumer (the VAD thread) never takes the lock, it parks until a full frame is
+ * available. Producers convert little-endian PCM bytes straight into the ring. Nothing is
+ * allocated per sample or per frame. If the consumer falls behind and the ring fills up, the
+ * newest samples are dropped and counted rather than blocking the audio thread.
+ */
+public class VadFrameRingBuffer {
+    private final short[] ring;
+    private final int mask;
+    private final int frameSize;
+
+    // Total samples written / read since creation. writeSeq is only advanced under the producer
+    // lock and readSeq only by the consumer, so lazySet is enough to publish them to the other side.
+    private final AtomicLong writeSeq = new AtomicLong();
+    private final AtomicLong readSeq = new AtomicLong();
+
+    private volatile Thread consumerThread;
+    private volatile boolean closed = false;
+    // Only written under the producer lock
+    private volatile long droppedSamples = 0;
+
+    /**
+     * @param minCapacitySamples minimum number of samples to hold, rounded up to a power of two
+     * @param frameSize number of samples handed to the consumer per frame
+     */
+    public VadFrameRingBuffer(int minCapacitySamples, int frameSize) {
+        int capacity = Integer.highestOneBit(Math.max(minCapacitySamples, frameSize) - 1) << 1;
+        this.ring = new short[capacity];
+        this.mask = capacity - 1;
+        this.frameSize = frameSize;
+    }
+
+    /**
+     * Producer side: appends 16-bit little-endian PCM samples from {@code bytes} and wakes the
+     * consumer once a full frame is buffered. Safe to call from several threads.
+     *
+     * @return the number of samples actually written
+     */
+    public synchronized int writePcm16le(byte[] bytes, int offset, int length) {
+        long w = writeSeq.get();
+        int toWrite = reserve(w, length / 2);
+
+        int b = offset;
+        for (int i = 0; i < toWrite; i++) {
+            ring[(int) ((w + i) & mask)] = (short) ((bytes[b] & 0xFF) | (bytes[b + 1] << 8));
+            b += 2;
+        }
+        publish(w, toWrite);
+        return toWrite;
+    }
+
+    /**
+     * Same as {@link #writePcm16le(byte[], int, int)} for the samples between {@code pcm}'s
+     * position and limit, e.g. a pooled direct buffer. Doesn't move the buffer's position.
+     */
+    public synchronized int writePcm16le(ByteBuffer pcm) {
+        long w = writeSeq.get();
+        int toWrite = reserve(w, pcm.remaining() / 2);
+
+        int b = pcm.position();
+        for (int i = 0; i < toWrite; i++) {
+            ring[(int) ((w + i) & mask)] = (short) ((pcm.get(b) & 0xFF) | (pcm.get(b + 1) << 8));
+            b += 2;
+        }
+        publish(w, toWrite);
+        return toWrite;
+    }
+
+    // How many of {@code samples} fit after writeSeq {@code w}, counting the rest as dropped
+    private int reserve(long w, int samples) {
+        long free = ring.length - (w - readSeq.get());
+        int toWrite = (int) Math.min(samples, free);
+        if (toWrite < samples) {
+            droppedSamples += samples - toWrite;
+        }
+        return toWrite;
+    }
+
+    private void publish(long w, int toWrite) {
+        writeSeq.lazySet(w + toWrite);
+
+        if (w + toWrite - readSeq.get() >= frameSize) {
+            Thread consumer = consumerThread;
+            if (consumer != null) {
+                LockSupport.unpark(consumer);
+            }
+        }
+    }
+
+    /**
+     * Consumer side: blocks until a full frame is available and copies it into {@code frame}.
+     *
+     * @return true if a frame was copied, false if the buffer was closed
+     */
+    public boolean awaitFrame(short[] frame) throws InterruptedException {
+        consumerThread = Thread.currentThread();
+        long r = readSeq.get();
+        while (writeSeq.get() - r < frameSize) {
+            if (closed) {
+                return false;
+            }
+            LockSupport.park(this);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+
+        int start = (int) (r & mask);
+        int firstPart = Math.min(frameSize, ring.length - start);
+        System.arraycopy(ring, start, frame, 0, firstPart);
+        if (firstPart < frameSize) {
+            System.arraycopy(ring, 0, frame, firstPart, frameSize - firstPart);
+        }
+        readSeq.lazySet(r + frameSize);
+        return true;
+    }
+
+    /**
+     * Releases a consumer blocked in {@link #awaitFrame(short[])}.
+     */
+    public void close() {
+        closed = true;
+        Thread consumer = consumerThread;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    public int getFrameSize() {
+        return frameSize;
+    }
+
+    public long getDroppedSamples() {
+        return droppedSamples;
+    }
+}
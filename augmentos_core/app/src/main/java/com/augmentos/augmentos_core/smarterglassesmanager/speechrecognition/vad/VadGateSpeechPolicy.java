@@ -14,17 +14,31 @@ import com.konovalov.vad.silero.config.SampleRate;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.util.Arrays;
 
 /** A speech detector that always reports hearing speech. */
 public class VadGateSpeechPolicy implements SpeechDetectionPolicy {
     public final String TAG = "WearLLM_VadGateService";
     private Context mContext;
     private VadSilero vad;
-    private boolean isCurrentlySpeech;
+    // Only written on the VAD thread, read from anywhere
+    private volatile boolean isCurrentlySpeech;
+    // Set when the mic turns off, handled by the VAD thread before its next frame
+    private volatile boolean micOffPending = false;
+    private final short[] frameScratch = new short[512];
+    private final short[] silentFrame = new short[512];
+    private volatile VadStateListener stateListener;
+    private final int silenceDurationMs;
 
     public VadGateSpeechPolicy(Context context){
+        this(context, 12000);
+    }
+
+    /**
+     * @param silenceDurationMs how long silence must last before the VAD reports it
+     */
+    public VadGateSpeechPolicy(Context context, int silenceDurationMs){
         mContext = context;
+        this.silenceDurationMs = silenceDurationMs;
         isCurrentlySpeech = false;
     }
 
@@ -34,16 +48,20 @@ public class VadGateSpeechPolicy implements SpeechDetectionPolicy {
                 .setSampleRate(SampleRate.SAMPLE_RATE_16K)
                 .setFrameSize(FrameSize.FRAME_SIZE_512)
                 .setMode(Mode.NORMAL)
-                .setSilenceDurationMs(12000)
+                .setSilenceDurationMs(silenceDurationMs)
                 .setSpeechDurationMs(50)
                 .build();
 
         Log.d(TAG, "VAD init'ed.");
     }
 
+    public void setVadStateListener(VadStateListener listener) {
+        stateListener = listener;
+    }
+
     @Override
     public boolean shouldPassAudioToRecognizer() {
-        return isCurrentlySpeech;
+        return isCurrentlySpeech && !micOffPending;
     }
 
     @Override
@@ -63,14 +81,9 @@ public class VadGateSpeechPolicy implements SpeechDetectionPolicy {
 
     @Override
     public void processAudioBytes(byte[] bytes, int offset, int length) {
-        short[] audioBytesFull = bytesToShort(bytes);
-
-        // Keep track of previous state
-        boolean previousSpeechState = isCurrentlySpeech;
-
         // Ensure we process only full 512-sample frames
-        int totalSamples = audioBytesFull.length;
-        int frameSize = 512;
+        int totalSamples = length / 2;
+        int frameSize = frameScratch.length;
 
         if (totalSamples % frameSize != 0) {
             Log.e(TAG, "Invalid audio frame size: " + totalSamples + " samples. Needs to be multiple of 512.");
@@ -78,16 +91,46 @@ public class VadGateSpeechPolicy implements SpeechDetectionPolicy {
         }
 
         for (int i = 0; i < totalSamples / frameSize; i++) {
-            int startIdx = i * frameSize;
-            short[] audioBytesPartial = Arrays.copyOfRange(audioBytesFull, startIdx, startIdx + frameSize);
+            int b = offset + i * frameSize * 2;
+            for (int j = 0; j < frameSize; j++, b += 2) {
+                frameScratch[j] = (short) ((bytes[b] & 0xFF) | (bytes[b + 1] << 8));
+            }
+            processAudioFrame(frameScratch);
+        }
+    }
 
-            isCurrentlySpeech = vad.isSpeech(audioBytesPartial);
+    /**
+     * Runs the VAD on a single 512-sample frame without copying it.
+     */
+    public void processAudioFrame(short[] frame) {
+        if (micOffPending) {
+            micOffPending = false;
+            handleMicOff();
+        }
+        boolean previousSpeechState = isCurrentlySpeech;
+        isCurrentlySpeech = isSpeech(frame);
 
-            // Log only when the state changes
-            if (isCurrentlySpeech != previousSpeechState) {
-                Log.d(TAG, "Speech detection changed to: " + (isCurrentlySpeech ? "SPEECH" : "SILENCE"));
-                previousSpeechState = isCurrentlySpeech;
-            }
+        // Log and notify only when the state changes
+        if (isCurrentlySpeech != previousSpeechState) {
+            Log.d(TAG, "Speech detection changed to: " + (isCurrentlySpeech ? "SPEECH" : "SILENCE"));
+            notifyStateChanged(isCurrentlySpeech);
+        }
+    }
+
+    // The model behind processAudioFrame, only ever called on the VAD thread
+    protected boolean isSpeech(short[] frame) {
+        return vad.isSpeech(frame);
+    }
+
+    private void notifyStateChanged(boolean isSpeech) {
+        VadStateListener listener = stateListener;
+        if (listener == null) {
+            return;
+        }
+        if (isSpeech) {
+            listener.onSpeechStart();
+        } else {
+            listener.onSpeechEnd();
         }
     }
 
@@ -96,17 +139,23 @@ public class VadGateSpeechPolicy implements SpeechDetectionPolicy {
         vad.close();
     }
 
+    /**
+     * Called from the mic state thread. The model isn't thread-safe, so the VAD thread resets it
+     * before the next frame; until then it already reports silence.
+     */
     public void microphoneStateChanged(boolean state) {
         if (!state) {
-            // Microphone turned off: force immediate silence.
-            isCurrentlySpeech = false;
+            micOffPending = true;
+        }
+    }
 
-            // Optionally flush the VAD's internal state by processing a silent frame.
-            short[] silentFrame = new short[512];
-            vad.isSpeech(silentFrame);
-            Log.d(TAG, "Microphone turned off; forced state to SILENCE.");
+    private void handleMicOff() {
+        // Microphone turned off: force silence and flush the VAD's internal state
+        if (isCurrentlySpeech) {
+            isCurrentlySpeech = false;
+            notifyStateChanged(false);
         }
+        isSpeech(silentFrame);
+        Log.d(TAG, "Microphone turned off; forced state to SILENCE.");
     }
 }
-
-
@@ -0,0 +1,10 @@
+package com.augmentos.augmentos_core.smarterglassesmanager.speechrecognition.vad;
+
+/**
+ * Notified by {@link VadGateSpeechPolicy} on the VAD thread at the exact frame where the
+ * speech/silence decision flips.
+ */
+public interface VadStateListener {
+    void onSpeechStart();
+    void onSpeechEnd();
+}
@@ -2,63 +2,148 @@ package com.augmentos.augmentos_core.smarterglassesmanager.utils;
 
 
 import android.content.Context;
+import android.os.SystemClock;
 import android.util.Log;
 import org.json.JSONArray;
 import org.json.JSONObject;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
-import java.util.Map;
-import android.content.Context;
-import android.util.Log;
-import org.json.JSONArray;
-import org.json.JSONObject;
-import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
-import java.util.Map;
 
 public class G1FontLoader {
+    private static final String TAG = "G1FontLoader";
 
     private static final String FONT_FILE_NAME = "g1_fonts.json";
-    private final Map<Character, FontGlyph> fontMap = new HashMap<>();
+    // Generated from FONT_FILE_NAME at build time by the generateG1FontTable gradle task
+    private static final String FONT_TABLE_FILE_NAME = "g1_font_widths.bin";
+    private static final int FONT_TABLE_MAGIC = 0x47314657; // "G1FW"
+    private static final int FONT_TABLE_VERSION = 1;
+    private static final int DEFAULT_HEIGHT = 26;
+
+    // Parsed once per process, reconnects reuse it
+    private static volatile G1FontLoader instance;
+
+    // Glyph widths indexed by code point, 0 for unknown glyphs, so layout never boxes or allocates
+    private int[] glyphWidths = new int[0];
+    private int glyphHeight = DEFAULT_HEIGHT;
+    private FontGlyph[] glyphsByWidth = new FontGlyph[]{new FontGlyph(0, DEFAULT_HEIGHT)};
+
+    public static G1FontLoader getInstance(Context context) {
+        if (instance == null) {
+            synchronized (G1FontLoader.class) {
+                if (instance == null) {
+                    instance = new G1FontLoader(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
 
     public G1FontLoader(Context context) {
-        loadFontData(context);
+        long start = SystemClock.elapsedRealtime();
+        boolean loaded = loadFontTable(context) || loadFontData(context);
+        if (loaded) {
+            buildGlyphCache();
+        }
+        Log.d(TAG, "Font widths ready in " + (SystemClock.elapsedRealtime() - start) + "ms");
+    }
+
+    /**
+     * Loads the precompiled width table: magic, version, glyph height, table length, then one
+     * unsigned width byte per code point.
+     */
+    private boolean loadFontTable(Context context) {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(context.getAssets().open(FONT_TABLE_FILE_NAME), 16 * 1024))) {
+            if (in.readInt() != FONT_TABLE_MAGIC || in.readUnsignedByte() != FONT_TABLE_VERSION) {
+                Log.e(TAG, FONT_TABLE_FILE_NAME + " has an unexpected header, falling back to JSON");
+                return false;
+            }
+            int height = in.readUnsignedByte();
+            int length = in.readInt();
+            byte[] packed = new byte[length];
+            in.readFully(packed);
+
+            int[] widths = new int[length];
+            for (int i = 0; i < length; i++) {
+                widths[i] = packed[i] & 0xFF;
+            }
+            glyphWidths = widths;
+            glyphHeight = height;
+            Log.d(TAG, "Font table loaded: " + length + " code points.");
+            return true;
+        } catch (IOException e) {
+            Log.d(TAG, FONT_TABLE_FILE_NAME + " not available, falling back to JSON");
+            return false;
+        }
     }
 
-    private void loadFontData(Context context) {
+    private boolean loadFontData(Context context) {
         try {
             // Read JSON file from assets
-            InputStream is = context.getAssets().open(FONT_FILE_NAME);
-            byte[] buffer = new byte[is.available()];
-            is.read(buffer);
-            is.close();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (InputStream is = context.getAssets().open(FONT_FILE_NAME)) {
+                byte[] buffer = new byte[16 * 1024];
+                int read;
+                while ((read = is.read(buffer)) != -1) {
+                    bytes.write(buffer, 0, read);
+                }
+            }
 
             // Parse JSON
-            String json = new String(buffer, StandardCharsets.UTF_8);
+            String json = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
             JSONObject fontJson = new JSONObject(json);
             JSONArray glyphsArray = fontJson.getJSONArray("glyphs");
 
-            // Map characters directly to FontGlyph objects
+            int maxCodePoint = 0;
             for (int i = 0; i < glyphsArray.length(); i++) {
-                JSONObject glyph = glyphsArray.getJSONObject(i);
-                char character = (char) glyph.getInt("code_point");  // Convert Unicode code point to char
-                int width = glyph.getInt("width");
-                int height = glyph.getInt("height");
-
-                fontMap.put(character, new FontGlyph(width, height));
+                maxCodePoint = Math.max(maxCodePoint, glyphsArray.getJSONObject(i).getInt("code_point"));
             }
 
-            Log.d("G1FontLoader", "Font data loaded successfully! " + fontMap.size() + " glyphs mapped.");
+            // Map code points directly to widths
+            int[] widths = new int[maxCodePoint + 1];
+            for (int i = 0; i < glyphsArray.length(); i++) {
+                JSONObject glyph = glyphsArray.getJSONObject(i);
+                widths[glyph.getInt("code_point")] = glyph.getInt("width");
+                glyphHeight = glyph.getInt("height");
+            }
+            glyphWidths = widths;
 
+            Log.d(TAG, "Font data loaded successfully! " + glyphsArray.length() + " glyphs mapped.");
+            return true;
         } catch (Exception e) {
-            Log.e("G1FontLoader", "Error loading " + FONT_FILE_NAME, e);
+            Log.e(TAG, "Error loading " + FONT_FILE_NAME, e);
+            return false;
+        }
+    }
+
+    // One shared FontGlyph per distinct width, so getGlyph doesn't allocate
+    private void buildGlyphCache() {
+        int maxWidth = 0;
+        for (int width : glyphWidths) {
+            maxWidth = Math.max(maxWidth, width);
+        }
+        FontGlyph[] glyphs = new FontGlyph[maxWidth + 1];
+        for (int width = 0; width <= maxWidth; width++) {
+            glyphs[width] = new FontGlyph(width, glyphHeight);
         }
+        glyphsByWidth = glyphs;
     }
 
     public FontGlyph getGlyph(char character) {
-        return fontMap.getOrDefault(character, new FontGlyph(0, 26)); // Default width=6, height=26
+        return glyphsByWidth[getGlyphWidth(character)]; // Default width=0, height=26
+    }
+
+    /**
+     * Width of {@code character} in font pixels, 0 if the font has no glyph for it.
+     */
+    public int getGlyphWidth(char character) {
+        int[] widths = glyphWidths;
+        return character < widths.length ? widths[character] : 0;
     }
 
     public static class FontGlyph {
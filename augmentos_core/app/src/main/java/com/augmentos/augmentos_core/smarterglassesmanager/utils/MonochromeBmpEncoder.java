@@ -0,0 +1,224 @@
+package com.augmentos.augmentos_core.smarterglassesmanager.utils;
+
+import android.graphics.Bitmap;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Encodes Android Bitmaps as 1-bit-per-pixel BMP files without per-frame garbage.
+ *
+ * <p>Pixels are read with a single {@code getPixels} call into a reused {@code int[]}, turned
+ * into black/white in place (optionally dithered), and packed 32 at a time into words written
+ * straight into the output buffer. Scratch arrays only grow when the frame size grows, so
+ * repeated frames at the same resolution (e.g. screen mirroring) allocate nothing.
+ *
+ * <p>Instances are not thread safe; use one per producer thread or synchronize on it.
+ */
+public class MonochromeBmpEncoder {
+    public enum DitherMode {
+        /** Plain threshold on the channel average, same output as the original encoder. */
+        NONE,
+        /** 4x4 Bayer ordered dithering, cheap and stable between frames. */
+        ORDERED,
+        /** Floyd-Steinberg error diffusion, best for photos. */
+        FLOYD_STEINBERG
+    }
+
+    // 14 byte file header + 40 byte BITMAPINFOHEADER + 2 palette entries of 4 bytes
+    public static final int HEADER_SIZE = 62;
+
+    private static final int[] BAYER_4X4 = {
+            0, 8, 2, 10,
+            12, 4, 14, 6,
+            3, 11, 1, 9,
+            15, 7, 13, 5
+    };
+
+    private int[] pixels = new int[0];
+    private int[] errorCurrent = new int[0];
+    private int[] errorNext = new int[0];
+    private ByteBuffer frameBuffer;
+
+    public static int rowSizeBytes(int width) {
+        // Each row is padded to a multiple of 4 bytes (32 bits).
+        return ((width + 31) / 32) * 4;
+    }
+
+    public static int encodedSize(int width, int height) {
+        return HEADER_SIZE + rowSizeBytes(width) * height;
+    }
+
+    /**
+     * Encodes into a buffer owned by this encoder and reused across calls. The returned buffer's
+     * backing array is exactly one BMP file long and is overwritten by the next call.
+     */
+    public ByteBuffer encode(Bitmap bitmap, boolean invert, DitherMode mode) {
+        int size = encodedSize(bitmap.getWidth(), bitmap.getHeight());
+        if (frameBuffer == null || frameBuffer.capacity() != size) {
+            frameBuffer = ByteBuffer.allocate(size);
+        }
+        frameBuffer.clear();
+        encode(bitmap, invert, mode, frameBuffer);
+        frameBuffer.flip();
+        return frameBuffer;
+    }
+
+    /**
+     * Encodes {@code bitmap} as a 1-bpp BMP at {@code out}'s position, which may be a direct
+     * buffer. Bits of 1 are dark pixels; {@code invert} swaps the palette as in
+     * {@link BitmapJavaUtils#convertBitmapTo1BitBmpBytes(Bitmap, boolean)}.
+     *
+     * @return the number of bytes written
+     */
+    public int encode(Bitmap bitmap, boolean invert, DitherMode mode, ByteBuffer out) {
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        checkRoom(width, height, out);
+        ensurePixels(width * height);
+        bitmap.getPixels(pixels, 0, width, 0, 0, width, height);
+        return encodeScratch(width, height, invert, mode, out);
+    }
+
+    /**
+     * Same as {@link #encode(Bitmap, boolean, DitherMode, ByteBuffer)} for ARGB pixels in row
+     * order, e.g. from an ImageReader plane. {@code argb} isn't modified.
+     */
+    public int encode(int[] argb, int width, int height, boolean invert, DitherMode mode, ByteBuffer out) {
+        checkRoom(width, height, out);
+        ensurePixels(width * height);
+        System.arraycopy(argb, 0, pixels, 0, width * height);
+        return encodeScratch(width, height, invert, mode, out);
+    }
+
+    private static void checkRoom(int width, int height, ByteBuffer out) {
+        if (out.remaining() < encodedSize(width, height)) {
+            throw new IllegalArgumentException("Output buffer too small for " + width + "x" + height + " BMP");
+        }
+    }
+
+    private void ensurePixels(int pixelCount) {
+        if (pixels.length < pixelCount) {
+            pixels = new int[pixelCount];
+        }
+    }
+
+    // Encodes the frame already read into pixels
+    private int encodeScratch(int width, int height, boolean invert, DitherMode mode, ByteBuffer out) {
+        int rowSize = rowSizeBytes(width);
+        int imageSize = rowSize * height;
+        toBlackAndWhite(width, height, mode);
+
+        int start = out.position();
+        ByteOrder originalOrder = out.order();
+        out.order(ByteOrder.LITTLE_ENDIAN);
+        writeHeader(out, width, height, imageSize, invert);
+
+        // Pixel words go out big-endian so the leftmost pixel lands in the MSB of the first byte.
+        // Rows are written bottom-to-top as BMP expects.
+        out.order(ByteOrder.BIG_ENDIAN);
+        int wordsPerRow = rowSize / 4;
+        for (int py = height - 1; py >= 0; py--) {
+            int rowStart = py * width;
+            for (int word = 0; word < wordsPerRow; word++) {
+                int x0 = word * 32;
+                int count = Math.min(32, width - x0);
+                int bits = 0;
+                for (int k = 0; k < count; k++) {
+                    bits |= pixels[rowStart + x0 + k] << (31 - k);
+                }
+                out.putInt(bits);
+            }
+        }
+
+        out.order(originalOrder);
+        return out.position() - start;
+    }
+
+    /**
+     * Replaces each ARGB pixel with 1 (dark) or 0 (light), in source row order.
+     */
+    private void toBlackAndWhite(int width, int height, DitherMode mode) {
+        if (mode == DitherMode.FLOYD_STEINBERG && errorCurrent.length < width + 2) {
+            errorCurrent = new int[width + 2];
+            errorNext = new int[width + 2];
+        }
+        if (mode == DitherMode.FLOYD_STEINBERG) {
+            Arrays.fill(errorCurrent, 0);
+            Arrays.fill(errorNext, 0);
+        }
+
+        for (int y = 0; y < height; y++) {
+            int rowStart = y * width;
+            for (int x = 0; x < width; x++) {
+                int color = pixels[rowStart + x];
+                int r = (color >> 16) & 0xFF;
+                int g = (color >> 8) & 0xFF;
+                int b = color & 0xFF;
+
+                int dark;
+                switch (mode) {
+                    case ORDERED: {
+                        int luma = (r * 77 + g * 150 + b * 29) >> 8;
+                        int threshold = BAYER_4X4[((y & 3) << 2) | (x & 3)] * 16 + 8;
+                        dark = luma < threshold ? 1 : 0;
+                        break;
+                    }
+                    case FLOYD_STEINBERG: {
+                        // errors are kept in 1/16ths, offset by one so x-1 never underflows
+                        int value = ((r * 77 + g * 150 + b * 29) >> 8) + (errorCurrent[x + 1] >> 4);
+                        dark = value < 128 ? 1 : 0;
+                        int err = value - (dark == 1 ? 0 : 255);
+                        errorCurrent[x + 2] += err * 7;
+                        errorNext[x] += err * 3;
+                        errorNext[x + 1] += err * 5;
+                        errorNext[x + 2] += err;
+                        break;
+                    }
+                    default:
+                        // same as (r + g + b) / 3 < 128, without the division
+                        dark = (r + g + b) < 384 ? 1 : 0;
+                        break;
+                }
+                pixels[rowStart + x] = dark;
+            }
+
+            if (mode == DitherMode.FLOYD_STEINBERG) {
+                int[] swap = errorCurrent;
+                errorCurrent = errorNext;
+                errorNext = swap;
+                Arrays.fill(errorNext, 0);
+            }
+        }
+    }
+
+    private static void writeHeader(ByteBuffer out, int width, int height, int imageSize, boolean invert) {
+        // ================== BMP FILE HEADER (14 bytes) ==================
+        out.put((byte) 'B');
+        out.put((byte) 'M');
+        out.putInt(HEADER_SIZE + imageSize); // File size
+        out.putInt(0);                       // Reserved
+        out.putInt(HEADER_SIZE);             // Offset to pixel data
+
+        // ================== DIB HEADER: BITMAPINFOHEADER (40 bytes) ==================
+        out.putInt(40);        // DIB header size
+        out.putInt(width);     // Width
+        out.putInt(height);    // Height (positive => bottom-to-top)
+        out.putShort((short) 1); // Planes = 1
+        out.putShort((short) 1); // Bits per pixel = 1
+        out.putInt(0);         // Compression = BI_RGB (uncompressed)
+        out.putInt(imageSize); // Image size
+        out.putInt(2835);      // X pixels per meter (72 DPI)
+        out.putInt(2835);      // Y pixels per meter (72 DPI)
+        out.putInt(2);         // # of colors in palette
+        out.putInt(0);         // # of important colors
+
+        // ================== COLOR TABLE (2 entries of Blue, Green, Red, Reserved) ==================
+        // If invert=false, then 0 => White, 1 => Black. Otherwise, 0 => Black, 1 => White.
+        int white = 0x00FFFFFF;
+        int black = 0;
+        out.putInt(invert ? black : white);
+        out.putInt(invert ? white : black);
+    }
+}
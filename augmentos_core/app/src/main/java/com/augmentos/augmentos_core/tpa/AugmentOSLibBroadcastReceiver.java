@@ -9,9 +9,12 @@ import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
+import android.os.Bundle;
+import android.os.IBinder;
 import android.util.Log;
 
 import com.augmentos.augmentoslib.AugmentOSGlobalConstants;
+import com.augmentos.augmentoslib.BitmapChannel;
 import com.augmentos.augmentoslib.events.BulletPointListViewRequestEvent;
 import com.augmentos.augmentoslib.events.CenteredTextViewRequestEvent;
 import com.augmentos.augmentoslib.events.DisplayCustomContentRequestEvent;
@@ -28,11 +31,13 @@ import com.augmentos.augmentoslib.events.RowsCardViewRequestEvent;
 import com.augmentos.augmentoslib.events.ScrollingTextViewStartRequestEvent;
 import com.augmentos.augmentoslib.events.ScrollingTextViewStopRequestEvent;
 import com.augmentos.augmentoslib.events.SendBitmapViewRequestEvent;
+import com.augmentos.augmentoslib.events.SendSharedBitmapViewRequestEvent;
 import com.augmentos.augmentoslib.events.StartAsrStreamRequestEvent;
 import com.augmentos.augmentoslib.events.StopAsrStreamRequestEvent;
 import com.augmentos.augmentoslib.events.SubscribeDataStreamRequestEvent;
 import com.augmentos.augmentoslib.events.TextLineViewRequestEvent;
 import com.augmentos.augmentoslib.events.TextWallViewRequestEvent;
+import com.augmentos.augmentoslib.events.TpaReadyEvent;
 import com.augmentos.augmentos_core.events.ThirdPartyEdgeAppErrorEvent;
 import com.augmentos.augmentos_core.tpa.eventbusmessages.TPARequestEvent;
 
@@ -71,6 +76,16 @@ public class AugmentOSLibBroadcastReceiver extends BroadcastReceiver {
             return;
         }
 
+        IBinder bitmapChannel = null;
+        if (SendSharedBitmapViewRequestEvent.eventId.equals(eventId)) {
+            Bundle channelBundle = intent.getBundleExtra(BitmapChannel.BINDER_KEY);
+            bitmapChannel = channelBundle == null ? null : channelBundle.getBinder(BitmapChannel.BINDER_KEY);
+        }
+        routeEvent(eventId, serializedEvent, sendingPackage, bitmapChannel);
+    }
+
+    //routes an event from a TPA, whether it came by broadcast or over TpaIpcService
+    public void routeEvent(String eventId, Serializable serializedEvent, String sendingPackage, IBinder bitmapChannel) {
         //map from id to event
         switch (eventId) {
             //if it's a request to run something on glasses or anything else having to do with commands, pipe this through the command system
@@ -93,12 +108,18 @@ public class AugmentOSLibBroadcastReceiver extends BroadcastReceiver {
             case DisplayCustomContentRequestEvent.eventId:
             case StartAsrStreamRequestEvent.eventId:
             case StopAsrStreamRequestEvent.eventId:
+            case TpaReadyEvent.eventId:
+            case SubscribeDataStreamRequestEvent.eventId:
 //                Log.d(TAG, "Piping command event to ThirdPartyAppSystem for verification before broadcast.");
                 EventBus.getDefault().post(new TPARequestEvent(eventId, serializedEvent, sendingPackage));
                 break;
-            case SubscribeDataStreamRequestEvent.eventId:
-                Log.d(TAG, "Resending subscribe to data stream request event");
-                EventBus.getDefault().post((SubscribeDataStreamRequestEvent) serializedEvent);
+            case SendSharedBitmapViewRequestEvent.eventId:
+                //the pixels are fetched through the TPA's bitmap channel once the frame is shown
+                if (bitmapChannel == null) {
+                    Log.d(TAG, "Shared bitmap from " + sendingPackage + " without a bitmap channel");
+                    break;
+                }
+                EventBus.getDefault().post(new TPARequestEvent(eventId, serializedEvent, sendingPackage, bitmapChannel));
                 break;
             case ManagerToCoreRequestEvent.eventId:
 //                Log.d(TAG, "Got a manager to core request event");
@@ -2,10 +2,12 @@ package com.augmentos.augmentos_core.tpa;
 
 import static com.augmentos.augmentoslib.AugmentOSGlobalConstants.EVENT_BUNDLE;
 import static com.augmentos.augmentoslib.AugmentOSGlobalConstants.EVENT_ID;
+import static com.augmentos.augmentoslib.AugmentOSGlobalConstants.IPC_DELIVERED_PACKAGES;
 
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
+import android.os.SystemClock;
 import android.util.Log;
 
 import com.augmentos.augmentoslib.AugmentOSCommand;
@@ -20,15 +22,37 @@ import org.greenrobot.eventbus.EventBus;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
 
 public class AugmentOSLibBroadcastSender {
     private String TAG = "WearableAi_AugmentOSLibBroadcastSEnder";
     private String intentPkg;
     Context context;
+    private final TpaReadinessGate readinessGate = new TpaReadinessGate(new TpaReadinessGate.Dispatcher() {
+        @Override
+        public void dispatch(String eventId, Serializable event, String tpaPackageName, long dispatchedAtMs) {
+            deliver(eventId, event, tpaPackageName, dispatchedAtMs);
+        }
+
+        @Override
+        public void dispatchToAll(String eventId, Serializable event, List<String> skipPackages, long dispatchedAtMs) {
+            deliverToAll(eventId, event, skipPackages, dispatchedAtMs);
+        }
+    });
 
     public AugmentOSLibBroadcastSender(Context context) {
         this.context = context;
         this.intentPkg = AugmentOSGlobalConstants.TO_TPA_FILTER;
+        //whatever couldn't go over IPC before a TPA went away goes out as a broadcast
+        TpaIpcHub.getInstance().setBroadcastFallback((eventId, eventBundle, tpaPackageName) ->
+                sendBroadcast(eventId, eventBundle, tpaPackageName, null));
+        //a TPA that says it sends TpaReadyEvent gets the full wait for it
+        TpaIpcHub.getInstance().setRegistrationListener((packageName, sendsReady) -> {
+            if (sendsReady) {
+                readinessGate.onSendsReady(packageName);
+            }
+        });
     }
 
     public void sendEventToAllTPAs(String eventId, Serializable eventBundle) {
@@ -37,30 +61,97 @@ public class AugmentOSLibBroadcastSender {
 
     public void sendEventToTPAs(String eventId, Serializable eventBundle, String tpaPackageName) {
         //If we're triggering a command, make sure the command's respective service is running
-        if(eventId == CommandTriggeredEvent.eventId){
+        boolean isCommand = eventId == CommandTriggeredEvent.eventId;
+        if(isCommand){
             AugmentOSCommand cmd = ((CommandTriggeredEvent)eventBundle).command;
             startSgmCommandService(cmd);
-            //delay a short time so the service can start before we send it the data
-            try {
-                Thread.sleep(450);
-            } catch (InterruptedException e){
-                e.printStackTrace();
-                Log.d(TAG, "Interrupted while waiting for TPA service to start.");
+        }
+
+        //a TPA that's still starting gets it once it reports ready, instead of us sleeping here
+        if (tpaPackageName == null) {
+            if (isCommand) {
+                readinessGate.sendCommandToAll(eventId, eventBundle);
+            } else {
+                deliverToAll(eventId, eventBundle, Collections.emptyList(), SystemClock.elapsedRealtime());
             }
+            return;
+        }
+        if (readinessGate.holdIfStarting(eventId, eventBundle, tpaPackageName)) {
+            return;
         }
+        deliver(eventId, eventBundle, tpaPackageName, SystemClock.elapsedRealtime());
+    }
 
-        //setup intent to send
-        Intent intent = new Intent();
-        intent.setAction(intentPkg);
+    //sends one event to several TPAs, e.g. everyone subscribed to a stream
+    public void sendEventToSubscribers(String eventId, Serializable eventBundle, String[] tpaPackageNames) {
+        TpaIpcHub hub = TpaIpcHub.getInstance();
+        Intent broadcast = null;
+        for (String tpaPackageName : tpaPackageNames) {
+            if (readinessGate.holdIfStarting(eventId, eventBundle, tpaPackageName)
+                    || hub.send(tpaPackageName, eventId, eventBundle)) {
+                continue;
+            }
+            //the ones still on broadcasts share one intent
+            if (broadcast == null) {
+                broadcast = buildBroadcast(eventId, eventBundle, null);
+            }
+            context.sendBroadcast(new Intent(broadcast).setPackage(tpaPackageName));
+        }
+    }
+
+    //TPA told us it finished starting up
+    public void onTpaReady(String tpaPackageName) {
+        readinessGate.onReady(tpaPackageName);
+    }
+
+    public String getReadinessStats() {
+        return readinessGate.getStatsSummary();
+    }
+
+    private void deliver(String eventId, Serializable eventBundle, String tpaPackageName, long dispatchedAtMs) {
+        //TPAs connected over TpaIpcService get it there, batched, the rest by broadcast
+        if (!TpaIpcHub.getInstance().send(tpaPackageName, eventId, eventBundle)) {
+            sendBroadcast(eventId, eventBundle, tpaPackageName, null);
+        }
+        recordLatency(eventId, dispatchedAtMs);
+    }
+
+    //skipPackages get their own copy later, so they ignore the broadcast along with the IPC ones
+    private void deliverToAll(String eventId, Serializable eventBundle, List<String> skipPackages, long dispatchedAtMs) {
+        List<String> delivered = TpaIpcHub.getInstance().sendToAll(eventId, eventBundle, skipPackages);
+        delivered.addAll(skipPackages);
+        sendBroadcast(eventId, eventBundle, null, delivered);
+        recordLatency(eventId, dispatchedAtMs);
+    }
+
+    private void recordLatency(String eventId, long dispatchedAtMs) {
+        if (eventId == CommandTriggeredEvent.eventId) {
+            readinessGate.recordCommandLatency(SystemClock.elapsedRealtime() - dispatchedAtMs);
+        }
+    }
+
+    private void sendBroadcast(String eventId, Serializable eventBundle, String tpaPackageName, List<String> deliveredPackages) {
+        Intent intent = buildBroadcast(eventId, eventBundle, deliveredPackages);
         if (tpaPackageName != null) {
             intent.setPackage(tpaPackageName);
         }
+        context.sendBroadcast(intent);
+    }
+
+    //deliveredPackages already got the event over IPC, so they ignore the broadcast
+    private Intent buildBroadcast(String eventId, Serializable eventBundle, List<String> deliveredPackages) {
+        //setup intent to send
+        Intent intent = new Intent();
+        intent.setAction(intentPkg);
         intent.setFlags(Intent.FLAG_INCLUDE_STOPPED_PACKAGES);
 
         //load in and send data
         intent.putExtra(EVENT_ID, eventId);
         intent.putExtra(EVENT_BUNDLE, eventBundle);
-        context.sendBroadcast(intent);
+        if (deliveredPackages != null && !deliveredPackages.isEmpty()) {
+            intent.putExtra(IPC_DELIVERED_PACKAGES, deliveredPackages.toArray(new String[0]));
+        }
+        return intent;
     }
 
     public boolean startThirdPartyApp(ThirdPartyEdgeApp tpa){
@@ -72,6 +163,7 @@ public class AugmentOSLibBroadcastSender {
         i.setAction(SmartGlassesAndroidService.INTENT_ACTION);
         i.putExtra(SmartGlassesAndroidService.TPA_ACTION, SmartGlassesAndroidService.ACTION_START_FOREGROUND_SERVICE);
         i.setComponent(new ComponentName(tpa.packageName, tpa.serviceName));
+        readinessGate.markStarting(tpa.packageName, TpaIpcHub.getInstance().sendsReady(tpa.packageName));
         ComponentName c = context.startForegroundService(i);
 
         return true;
@@ -84,6 +176,9 @@ public class AugmentOSLibBroadcastSender {
             return; // Initially forgetting to add this return statement has cost me hours of my fleeting life
         };
 
+        //nothing held for it should go out after it's gone
+        readinessGate.forget(tpa.packageName);
+
         // KINDLY ask the TPA to kill itself
         EventBus.getDefault().post(new KillTpaEvent(tpa));
 
@@ -147,6 +242,7 @@ public class AugmentOSLibBroadcastSender {
 //        i.setAction(SmartGlassesAndroidService.INTENT_ACTION);
 //        i.putExtra(SmartGlassesAndroidService.TPA_ACTION, SmartGlassesAndroidService.ACTION_START_FOREGROUND_SERVICE);
 //        i.setComponent(new ComponentName(augmentosCommand.packageName, augmentosCommand.serviceName));
+//        readinessGate.markStarting(augmentosCommand.packageName, TpaIpcHub.getInstance().sendsReady(augmentosCommand.packageName));
 //        ComponentName c = context.startForegroundService(i);
     }
 }
@@ -20,6 +20,7 @@ import android.widget.Toast;
 
 import com.google.gson.Gson;
 import com.augmentos.augmentoslib.AugmentOSCommand;
+import com.augmentos.augmentoslib.DataStreamType;
 import com.augmentos.augmentoslib.ThirdPartyEdgeApp;
 import com.augmentos.augmentoslib.ThirdPartyAppType;
 import com.augmentos.augmentoslib.events.BulletPointListViewRequestEvent;
@@ -39,12 +40,15 @@ import com.augmentos.augmentoslib.events.RegisterCommandRequestEvent;
 import com.augmentos.augmentoslib.events.RegisterTpaRequestEvent;
 import com.augmentos.augmentoslib.events.ScrollingTextViewStartRequestEvent;
 import com.augmentos.augmentoslib.events.ScrollingTextViewStopRequestEvent;
+import com.augmentos.augmentoslib.events.SendSharedBitmapViewRequestEvent;
 import com.augmentos.augmentoslib.events.SmartRingButtonOutputEvent;
 import com.augmentos.augmentoslib.events.SpeechRecOutputEvent;
 import com.augmentos.augmentoslib.events.StartAsrStreamRequestEvent;
 import com.augmentos.augmentoslib.events.StopAsrStreamRequestEvent;
+import com.augmentos.augmentoslib.events.SubscribeDataStreamRequestEvent;
 import com.augmentos.augmentoslib.events.TextLineViewRequestEvent;
 import com.augmentos.augmentoslib.events.TextWallViewRequestEvent;
+import com.augmentos.augmentoslib.events.TpaReadyEvent;
 import com.augmentos.augmentoslib.events.TranslateOutputEvent;
 import com.augmentos.augmentos_core.AugmentosSmartGlassesService;
 import com.augmentos.augmentos_core.events.TriggerSendStatusToAugmentOsManagerEvent;
@@ -55,7 +59,9 @@ import org.greenrobot.eventbus.Subscribe;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -86,6 +92,8 @@ public class EdgeTPASystem {
     private Handler healthCheckHandler;
     private Runnable healthCheckRunnable;
     private AugmentosSmartGlassesService smartGlassesService;
+    private final SharedBitmapReceiver sharedBitmapReceiver = new SharedBitmapReceiver();
+    private final SubscriptionIndex subscriptionIndex = new SubscriptionIndex();
 
     public EdgeTPASystem(Context context, AugmentosSmartGlassesService smartGlassesService){
         mContext = context;
@@ -300,6 +308,7 @@ public class EdgeTPASystem {
     @Subscribe
     public void onKillTpaEvent(KillTpaEvent killTpaEvent) {
         augmentOsLibBroadcastSender.sendEventToTPAs(KillTpaEvent.eventId, killTpaEvent, killTpaEvent.tpa.packageName);
+        subscriptionIndex.unsubscribeAll(killTpaEvent.tpa.packageName);
     }
 
 //    @Subscribe
@@ -328,12 +337,12 @@ public class EdgeTPASystem {
         augmentOsLibBroadcastSender.sendEventToTPAs(CoreToManagerOutputEvent.eventId, event, AugmentOSManagerPackageName);
     }
 
-    public void sendTranscriptEventToTpa(SpeechRecOutputEvent event, String packageName) {
-        augmentOsLibBroadcastSender.sendEventToTPAs(SpeechRecOutputEvent.eventId, event, packageName);
+    public void sendTranscriptEventToTpas(SpeechRecOutputEvent event, String[] packageNames) {
+        augmentOsLibBroadcastSender.sendEventToSubscribers(SpeechRecOutputEvent.eventId, event, packageNames);
     }
 
-    public void sendTranslateEventToTpa(TranslateOutputEvent event, String packageName) {
-        augmentOsLibBroadcastSender.sendEventToTPAs(TranslateOutputEvent.eventId, event, packageName);
+    public void sendTranslateEventToTpas(TranslateOutputEvent event, String[] packageNames) {
+        augmentOsLibBroadcastSender.sendEventToSubscribers(TranslateOutputEvent.eventId, event, packageNames);
     }
 
     @Subscribe
@@ -343,18 +352,30 @@ public class EdgeTPASystem {
 
     @Subscribe
     public void onSmartRingButtonEvent(SmartRingButtonOutputEvent event){
-        boolean tpaIsSubscribed = true; //TODO: Hash out implementation
-        if(tpaIsSubscribed){
-            augmentOsLibBroadcastSender.sendEventToAllTPAs(SmartRingButtonOutputEvent.eventId, event);
-        }
+        sendToStreamSubscribers(SmartRingButtonOutputEvent.eventId, event, DataStreamType.SMART_RING_BUTTON);
     }
 
     @Subscribe
     public void onGlassesTapEvent(GlassesTapOutputEvent event){
-        boolean tpaIsSubscribed = true; //TODO: Hash out implementation
-        if(tpaIsSubscribed){
-            augmentOsLibBroadcastSender.sendEventToAllTPAs(GlassesTapOutputEvent.eventId, event);
+        sendToStreamSubscribers(GlassesTapOutputEvent.eventId, event, DataStreamType.GLASSES_SIDE_TAP);
+    }
+
+    //TPAs on an AugmentOSLib from before stream subscriptions never subscribe, so every running one
+    //that hasn't subscribed to anything or said it's on a newer lib still gets it; their lib filters it
+    private void sendToStreamSubscribers(String eventId, Serializable event, DataStreamType dataStreamType) {
+        String[] subscribers = subscriptionIndex.getSubscribers(dataStreamType);
+        List<String> recipients = null;
+        for (String packageName : getRunningApps()) {
+            if (subscriptionIndex.hasSubscribed(packageName) || TpaIpcHub.getInstance().sendsReady(packageName)) {
+                continue;
+            }
+            if (recipients == null) {
+                recipients = new ArrayList<>(Arrays.asList(subscribers));
+            }
+            recipients.add(packageName);
         }
+        augmentOsLibBroadcastSender.sendEventToSubscribers(eventId, event,
+                recipients == null ? subscribers : recipients.toArray(new String[0]));
     }
 
     public void registerThirdPartyApp(ThirdPartyEdgeApp app) {
@@ -441,6 +462,16 @@ public class EdgeTPASystem {
                 Log.d(TAG, "Resending register TPA request event");
                 EventBus.getDefault().post((RegisterTpaRequestEvent) receivedEvent.serializedEvent);
                 return;
+            case TpaReadyEvent.eventId:
+                //send whatever we held for it while it was starting
+                augmentOsLibBroadcastSender.onTpaReady(receivedEvent.sendingPackage);
+                return;
+            case SubscribeDataStreamRequestEvent.eventId:
+                //TPAs resubscribe when they reconnect, e.g. after core restarted and before it knows they're running
+                SubscribeDataStreamRequestEvent subscribeEvent = (SubscribeDataStreamRequestEvent) receivedEvent.serializedEvent;
+                subscriptionIndex.subscribe(subscribeEvent.dataStreamType, receivedEvent.sendingPackage);
+                EventBus.getDefault().post(subscribeEvent.withPackageName(receivedEvent.sendingPackage));
+                return;
         }
 
         //  Check if this TPA should even be running
@@ -515,6 +546,11 @@ public class EdgeTPASystem {
                 case DisplayCustomContentRequestEvent.eventId:
                     smartGlassesService.windowManager.showAppLayer(receivedEvent.sendingPackage, () -> EventBus.getDefault().post((DisplayCustomContentRequestEvent) receivedEvent.serializedEvent), -1);
                     //EventBus.getDefault().post((DisplayCustomContentRequestEvent) receivedEvent.serializedEvent);
+                    break;
+                case SendSharedBitmapViewRequestEvent.eventId:
+                    //pixels are only copied out of the TPA if this layer actually gets shown
+                    smartGlassesService.windowManager.showAppLayer(receivedEvent.sendingPackage, () -> sharedBitmapReceiver.show(receivedEvent), -1);
+                    break;
             }
         } else {
             Log.d(TAG, "smartGlassesService in TPASystem is null!");
@@ -0,0 +1,79 @@
+package com.augmentos.augmentos_core.tpa;
+
+import android.graphics.Bitmap;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.augmentos.augmentos_core.tpa.eventbusmessages.TPARequestEvent;
+import com.augmentos.augmentoslib.BitmapChannel;
+import com.augmentos.augmentoslib.events.SendBitmapViewRequestEvent;
+import com.augmentos.augmentoslib.events.SendSharedBitmapViewRequestEvent;
+
+import org.greenrobot.eventbus.EventBus;
+
+import java.util.Locale;
+
+/**
+ * Shows bitmaps TPAs send through their {@link BitmapChannel}, and measures how long they take
+ * from the TPA to the glasses and how big they get.
+ */
+public class SharedBitmapReceiver {
+    private static final String TAG = "WearableAi_SharedBitmapReceiver";
+    private static final int STATS_LOG_EVERY = 20;
+
+    // Counters, guarded by this
+    private long delivered = 0;
+    private long notFetched = 0;
+    private long totalFetchLatencyMs = 0;
+    private long totalDisplayLatencyMs = 0;
+    private long maxDisplayLatencyMs = 0;
+    private int largestWidth = 0;
+    private int largestHeight = 0;
+
+    /**
+     * Fetches the frame and hands it to the glasses, on the calling thread (the window manager's).
+     */
+    public void show(TPARequestEvent request) {
+        SendSharedBitmapViewRequestEvent event = (SendSharedBitmapViewRequestEvent) request.serializedEvent;
+        Bitmap bmp = request.bitmapChannel == null ? null : BitmapChannel.fetch(request.bitmapChannel, event.frameId);
+        long fetchedAtMs = SystemClock.elapsedRealtime();
+        if (bmp == null) {
+            // Usually replaced by a newer frame before we got to it
+            synchronized (this) {
+                notFetched++;
+            }
+            Log.d(TAG, "Bitmap " + event.frameId + " from " + request.sendingPackage + " is gone");
+            return;
+        }
+
+        EventBus.getDefault().post(new SendBitmapViewRequestEvent(bmp));
+        long displayedAtMs = SystemClock.elapsedRealtime();
+
+        synchronized (this) {
+            delivered++;
+            totalFetchLatencyMs += fetchedAtMs - event.sentAtMs;
+            totalDisplayLatencyMs += displayedAtMs - event.sentAtMs;
+            maxDisplayLatencyMs = Math.max(maxDisplayLatencyMs, displayedAtMs - event.sentAtMs);
+            if ((long) bmp.getWidth() * bmp.getHeight() > (long) largestWidth * largestHeight) {
+                largestWidth = bmp.getWidth();
+                largestHeight = bmp.getHeight();
+            }
+            if (delivered % STATS_LOG_EVERY == 0) {
+                Log.d(TAG, getStatsSummary());
+            }
+        }
+    }
+
+    /**
+     * Latencies run from the TPA's send to the frame being copied out, and to the glasses
+     * communicator having taken it.
+     */
+    public synchronized String getStatsSummary() {
+        return String.format(Locale.US,
+                "tpa bitmaps: delivered=%d notFetched=%d avgFetch=%.1fms avgDisplay=%.1fms maxDisplay=%dms largest=%dx%d (%dKB)",
+                delivered, notFetched,
+                delivered == 0 ? 0 : (double) totalFetchLatencyMs / delivered,
+                delivered == 0 ? 0 : (double) totalDisplayLatencyMs / delivered,
+                maxDisplayLatencyMs, largestWidth, largestHeight, largestWidth * largestHeight * 4 / 1024);
+    }
+}
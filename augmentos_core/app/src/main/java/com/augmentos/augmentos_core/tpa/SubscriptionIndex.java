@@ -0,0 +1,74 @@
+package com.augmentos.augmentos_core.tpa;
+
+import android.util.Log;
+
+import com.augmentos.augmentoslib.DataStreamType;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Which TPAs subscribed to which {@link DataStreamType}, from their SubscribeDataStreamRequestEvents.
+ *
+ * Subscribers are kept as arrays that are replaced, never changed, when someone subscribes or goes
+ * away, so the hot path can read them without locking or copying. It also knows which packages
+ * subscribed to anything at all, since TPAs on an older AugmentOSLib never do.
+ */
+public class SubscriptionIndex {
+    private static final String TAG = "WearableAi_SubscriptionIndex";
+    private static final String[] NONE = new String[0];
+
+    // Guarded by this for writes, read without locking
+    private volatile Map<DataStreamType, String[]> subscribers = new EnumMap<>(DataStreamType.class);
+    private volatile Set<String> subscribedPackages = Collections.emptySet();
+
+    public synchronized void subscribe(DataStreamType dataStreamType, String packageName) {
+        String[] current = getSubscribers(dataStreamType);
+        if (Arrays.asList(current).contains(packageName)) {
+            return;
+        }
+        String[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = packageName;
+        Map<DataStreamType, String[]> next = new EnumMap<>(subscribers);
+        next.put(dataStreamType, updated);
+        subscribers = next;
+        if (!subscribedPackages.contains(packageName)) {
+            Set<String> packages = new HashSet<>(subscribedPackages);
+            packages.add(packageName);
+            subscribedPackages = packages;
+        }
+        Log.d(TAG, packageName + " subscribed to " + dataStreamType);
+    }
+
+    public synchronized void unsubscribeAll(String packageName) {
+        Map<DataStreamType, String[]> next = new EnumMap<>(DataStreamType.class);
+        for (Map.Entry<DataStreamType, String[]> entry : subscribers.entrySet()) {
+            String[] remaining = Arrays.stream(entry.getValue())
+                    .filter(pkg -> !pkg.equals(packageName))
+                    .toArray(String[]::new);
+            if (remaining.length > 0) {
+                next.put(entry.getKey(), remaining);
+            }
+        }
+        subscribers = next;
+        if (subscribedPackages.contains(packageName)) {
+            Set<String> packages = new HashSet<>(subscribedPackages);
+            packages.remove(packageName);
+            subscribedPackages = packages;
+        }
+    }
+
+    public boolean hasSubscribed(String packageName) {
+        return subscribedPackages.contains(packageName);
+    }
+
+    // Shared, don't modify it
+    public String[] getSubscribers(DataStreamType dataStreamType) {
+        String[] packages = subscribers.get(dataStreamType);
+        return packages == null ? NONE : packages;
+    }
+}
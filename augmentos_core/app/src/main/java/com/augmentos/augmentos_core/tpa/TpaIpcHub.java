@@ -0,0 +1,264 @@
+package com.augmentos.augmentos_core.tpa;
+
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.IBinder;
+import android.os.Message;
+import android.os.Messenger;
+import android.os.RemoteException;
+import android.util.Log;
+
+import com.augmentos.augmentoslib.IpcEventBatch;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * TPAs connected to core over {@link TpaIpcService}, and the batched sending to them.
+ *
+ * Events for a TPA are queued in its outbox and sent from the hub's thread. Whatever queues up
+ * before that thread gets to the outbox goes in the same message, and an interim transcript
+ * replaces the previous one for the same language if that hasn't been sent yet. If a TPA dies
+ * with events queued, they go out as broadcasts instead.
+ */
+public class TpaIpcHub {
+    private static final String TAG = "WearableAi_TpaIpcHub";
+    private static final int STATS_LOG_EVERY = 500;
+    private static TpaIpcHub instance;
+
+    public interface BroadcastFallback {
+        void broadcast(String eventId, Serializable event, String tpaPackageName);
+    }
+
+    public interface RegistrationListener {
+        void onRegistered(String packageName, boolean sendsReady);
+    }
+
+    private static class Connection {
+        final String packageName;
+        final Messenger messenger;
+        final IBinder bitmapChannel;
+        IpcEventBatch outbox;
+        boolean flushPosted = false;
+
+        Connection(String packageName, Messenger messenger, IBinder bitmapChannel) {
+            this.packageName = packageName;
+            this.messenger = messenger;
+            this.bitmapChannel = bitmapChannel;
+        }
+    }
+
+    private final Map<String, Connection> connections = new HashMap<>();
+    // Packages whose last registration said they send TpaReadyEvent, kept after they disconnect
+    private final Set<String> sendsReady = new HashSet<>();
+    private final Handler handler;
+    private BroadcastFallback fallback;
+    private RegistrationListener registrationListener;
+
+    // Counters, guarded by this
+    private long eventsQueued = 0;
+    private long interimsReplaced = 0;
+    private long batchesSent = 0;
+    private long eventsFallenBack = 0;
+
+    private TpaIpcHub() {
+        HandlerThread thread = new HandlerThread("TpaIpcHub");
+        thread.start();
+        handler = new Handler(thread.getLooper());
+    }
+
+    public static synchronized TpaIpcHub getInstance() {
+        if (instance == null) {
+            instance = new TpaIpcHub();
+        }
+        return instance;
+    }
+
+    public synchronized void setBroadcastFallback(BroadcastFallback fallback) {
+        this.fallback = fallback;
+    }
+
+    public synchronized void setRegistrationListener(RegistrationListener listener) {
+        this.registrationListener = listener;
+    }
+
+    /**
+     * @param sendsReady whether the TPA's AugmentOSLib sends TpaReadyEvent once it's started
+     */
+    public void register(String packageName, Messenger messenger, IBinder bitmapChannel, boolean sendsReady) {
+        Connection connection = new Connection(packageName, messenger, bitmapChannel);
+        try {
+            messenger.getBinder().linkToDeath(() -> unregister(messenger), 0);
+        } catch (RemoteException e) {
+            // Already dead
+            return;
+        }
+        RegistrationListener listener;
+        synchronized (this) {
+            connections.put(packageName, connection);
+            if (sendsReady) {
+                this.sendsReady.add(packageName);
+            } else {
+                this.sendsReady.remove(packageName);
+            }
+            listener = registrationListener;
+        }
+        Log.d(TAG, "TPA connected over IPC: " + packageName);
+        if (listener != null) {
+            listener.onRegistered(packageName, sendsReady);
+        }
+    }
+
+    /**
+     * Whether the TPA said it sends TpaReadyEvent the last time it registered.
+     */
+    public synchronized boolean sendsReady(String packageName) {
+        return sendsReady.contains(packageName);
+    }
+
+    public void unregister(Messenger messenger) {
+        Connection removed = null;
+        synchronized (this) {
+            for (Connection connection : connections.values()) {
+                if (connection.messenger.equals(messenger)) {
+                    removed = connection;
+                    break;
+                }
+            }
+            if (removed == null) {
+                return;
+            }
+            connections.remove(removed.packageName);
+        }
+        Log.d(TAG, "TPA disconnected from IPC: " + removed.packageName);
+        fallBack(removed);
+    }
+
+    public synchronized String packageFor(Messenger messenger) {
+        for (Connection connection : connections.values()) {
+            if (connection.messenger.equals(messenger)) {
+                return connection.packageName;
+            }
+        }
+        return null;
+    }
+
+    public synchronized IBinder getBitmapChannel(String packageName) {
+        Connection connection = connections.get(packageName);
+        return connection == null ? null : connection.bitmapChannel;
+    }
+
+    /**
+     * Queues an event for one TPA.
+     * @return false if it isn't connected, so the caller should broadcast instead
+     */
+    public synchronized boolean send(String packageName, String eventId, Serializable event) {
+        Connection connection = connections.get(packageName);
+        if (connection == null) {
+            return false;
+        }
+        queue(connection, eventId, event);
+        return true;
+    }
+
+    /**
+     * Queues an event for every connected TPA but the skipped ones.
+     * @return the packages it was queued for, the rest need a broadcast
+     */
+    public synchronized List<String> sendToAll(String eventId, Serializable event, List<String> skipPackages) {
+        List<String> delivered = new ArrayList<>(connections.size());
+        for (Connection connection : connections.values()) {
+            if (skipPackages.contains(connection.packageName)) {
+                continue;
+            }
+            queue(connection, eventId, event);
+            delivered.add(connection.packageName);
+        }
+        return delivered;
+    }
+
+    private void queue(Connection connection, String eventId, Serializable event) {
+        if (connection.outbox == null) {
+            connection.outbox = new IpcEventBatch();
+        }
+        eventsQueued++;
+        if (connection.outbox.addOrReplaceInterim(eventId, event)) {
+            interimsReplaced++;
+        }
+        if (!connection.flushPosted) {
+            connection.flushPosted = true;
+            handler.post(() -> flush(connection));
+        }
+    }
+
+    private void flush(Connection connection) {
+        IpcEventBatch batch;
+        synchronized (this) {
+            batch = connection.outbox;
+            connection.outbox = null;
+            connection.flushPosted = false;
+        }
+        if (batch == null) {
+            return;
+        }
+        Message msg = Message.obtain(null, IpcEventBatch.MSG_EVENTS);
+        Bundle data = new Bundle();
+        data.putParcelable(IpcEventBatch.KEY_BATCH, batch);
+        msg.setData(data);
+        try {
+            connection.messenger.send(msg);
+        } catch (RemoteException e) {
+            Log.d(TAG, "Couldn't reach " + connection.packageName + " over IPC, broadcasting instead");
+            unregister(connection.messenger);
+            broadcast(connection.packageName, batch);
+            return;
+        }
+        synchronized (this) {
+            batchesSent++;
+            if (batchesSent % STATS_LOG_EVERY == 0) {
+                Log.d(TAG, getStatsSummary());
+            }
+        }
+    }
+
+    // Broadcasts whatever was still queued for a TPA that went away
+    private void fallBack(Connection connection) {
+        IpcEventBatch batch;
+        synchronized (this) {
+            batch = connection.outbox;
+            connection.outbox = null;
+        }
+        if (batch != null) {
+            broadcast(connection.packageName, batch);
+        }
+    }
+
+    private void broadcast(String packageName, IpcEventBatch batch) {
+        BroadcastFallback broadcastFallback;
+        synchronized (this) {
+            broadcastFallback = fallback;
+            eventsFallenBack += batch.size();
+        }
+        if (broadcastFallback == null) {
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            broadcastFallback.broadcast(batch.eventIds.get(i), batch.events.get(i), packageName);
+        }
+    }
+
+    public synchronized String getStatsSummary() {
+        return String.format(Locale.US,
+                "tpa ipc: connected=%d queued=%d interimsReplaced=%d batches=%d (%.2f events/batch) fellBack=%d",
+                connections.size(), eventsQueued, interimsReplaced, batchesSent,
+                batchesSent == 0 ? 0 : (double) (eventsQueued - interimsReplaced - eventsFallenBack) / batchesSent,
+                eventsFallenBack);
+    }
+}
@@ -0,0 +1,98 @@
+package com.augmentos.augmentos_core.tpa;
+
+import android.app.Service;
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.IBinder;
+import android.os.Looper;
+import android.os.Message;
+import android.os.Messenger;
+import android.util.Log;
+
+import com.augmentos.augmentoslib.BitmapChannel;
+import com.augmentos.augmentoslib.IpcEventBatch;
+import com.augmentos.augmentoslib.events.SendSharedBitmapViewRequestEvent;
+
+/**
+ * The service TPAs bind to for the bound-service channel to core, see AugmentOSIpcClient.
+ *
+ * Events from TPAs go through the same routing as broadcasts from them, on the main thread like
+ * broadcasts were. Events to TPAs go through {@link TpaIpcHub}.
+ */
+public class TpaIpcService extends Service {
+    private static final String TAG = "WearableAi_TpaIpcService";
+
+    private final AugmentOSLibBroadcastReceiver router = new AugmentOSLibBroadcastReceiver();
+    private final Messenger messenger = new Messenger(new Handler(Looper.getMainLooper(), this::handleMessage));
+
+    @Override
+    public IBinder onBind(Intent intent) {
+        return messenger.getBinder();
+    }
+
+    private boolean handleMessage(Message msg) {
+        TpaIpcHub hub = TpaIpcHub.getInstance();
+        switch (msg.what) {
+            case IpcEventBatch.MSG_REGISTER:
+                Bundle registration = msg.getData();
+                String packageName = registration.getString(IpcEventBatch.KEY_PACKAGE);
+                if (msg.replyTo == null || !isCallersPackage(msg.sendingUid, packageName)) {
+                    Log.d(TAG, "Ignoring IPC registration for " + packageName + " from uid " + msg.sendingUid);
+                    return true;
+                }
+                hub.register(packageName, msg.replyTo, registration.getBinder(BitmapChannel.BINDER_KEY),
+                        registration.getBoolean(IpcEventBatch.KEY_SENDS_READY, false));
+                return true;
+            case IpcEventBatch.MSG_UNREGISTER:
+                if (msg.replyTo != null) {
+                    hub.unregister(msg.replyTo);
+                }
+                return true;
+            case IpcEventBatch.MSG_EVENTS:
+                String sendingPackage = msg.replyTo == null ? null : hub.packageFor(msg.replyTo);
+                if (sendingPackage == null) {
+                    Log.d(TAG, "Ignoring events from unregistered uid " + msg.sendingUid);
+                    return true;
+                }
+                Bundle data = msg.getData();
+                data.setClassLoader(IpcEventBatch.class.getClassLoader());
+                IpcEventBatch batch;
+                try {
+                    batch = data.getParcelable(IpcEventBatch.KEY_BATCH);
+                } catch (RuntimeException e) {
+                    Log.d(TAG, "ERROR: TPA BUILT FOR INCOMPATIBLE AUGMENTOSLIB VERSION: " + sendingPackage, e);
+                    return true;
+                }
+                if (batch == null) {
+                    return true;
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    String eventId = batch.eventIds.get(i);
+                    IBinder bitmapChannel = SendSharedBitmapViewRequestEvent.eventId.equals(eventId)
+                            ? hub.getBitmapChannel(sendingPackage) : null;
+                    router.routeEvent(eventId, batch.events.get(i), sendingPackage, bitmapChannel);
+                }
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // The package name is only trusted if it belongs to the uid that sent it
+    private boolean isCallersPackage(int uid, String packageName) {
+        if (packageName == null) {
+            return false;
+        }
+        String[] packages = getPackageManager().getPackagesForUid(uid);
+        if (packages == null) {
+            return false;
+        }
+        for (String candidate : packages) {
+            if (packageName.equals(candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,242 @@
+package com.augmentos.augmentos_core.tpa;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Holds events for TPAs that core has started but that haven't sent a TpaReadyEvent yet, and
+ * sends them once the TPA is ready or its timeout passes, whichever comes first.
+ *
+ * Only TPAs that said at IPC registration that they send TpaReadyEvent get
+ * {@link #READY_TIMEOUT_MS}. Older ones never send it, so they get
+ * {@link #LEGACY_READY_TIMEOUT_MS}, the sleep every command used to get.
+ *
+ * Events for one TPA wait for that TPA. A command sent to every TPA goes to the ones that
+ * aren't starting right away, and a copy of it waits for each one that is. Older TPAs can't
+ * skip a broadcast that isn't for them yet, so while one of those is starting, the command
+ * waits for it first. Nothing waits for TPAs core didn't start, since those are already running.
+ */
+public class TpaReadinessGate {
+    private static final String TAG = "WearableAi_TpaReadinessGate";
+    public static final long READY_TIMEOUT_MS = 3000;
+    public static final long LEGACY_READY_TIMEOUT_MS = 450;
+    private static final int LATENCY_WINDOW = 256;
+    private static final int STATS_LOG_EVERY = 20;
+
+    public interface Dispatcher {
+        void dispatch(String eventId, Serializable event, String tpaPackageName, long dispatchedAtMs);
+
+        /**
+         * Sends to every TPA but the skipped ones, which get their own copy once they're ready.
+         */
+        void dispatchToAll(String eventId, Serializable event, List<String> skipPackages, long dispatchedAtMs);
+    }
+
+    private static class Held {
+        final String eventId;
+        final Serializable event;
+        final String tpaPackageName;
+        final long dispatchedAtMs;
+
+        Held(String eventId, Serializable event, String tpaPackageName, long dispatchedAtMs) {
+            this.eventId = eventId;
+            this.event = event;
+            this.tpaPackageName = tpaPackageName;
+            this.dispatchedAtMs = dispatchedAtMs;
+        }
+    }
+
+    private static class Starting {
+        final List<Held> held = new ArrayList<>();
+        long startedAtUptimeMs;
+        boolean sendsReady;
+    }
+
+    private final Dispatcher dispatcher;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    // Starting TPAs and what's held for them, guarded by this
+    private final Map<String, Starting> starting = new HashMap<>();
+    // Sent-to-all commands waiting for the starting TPAs that don't send TpaReadyEvent, guarded by this
+    private final List<Held> heldForAll = new ArrayList<>();
+
+    // Counters, guarded by this
+    private long readyAcks = 0;
+    private long timeouts = 0;
+    private long legacyTimeouts = 0;
+    private long eventsHeld = 0;
+    private final long[] commandLatenciesMs = new long[LATENCY_WINDOW];
+    private long commandsDelivered = 0;
+
+    public TpaReadinessGate(Dispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * @param sendsReady whether the TPA is known to send TpaReadyEvent, see {@link #onSendsReady}
+     */
+    public synchronized void markStarting(String packageName, boolean sendsReady) {
+        Starting tpa = starting.get(packageName);
+        if (tpa == null) {
+            tpa = new Starting();
+            starting.put(packageName, tpa);
+        }
+        // A restart pushes the timeout back
+        tpa.startedAtUptimeMs = SystemClock.uptimeMillis();
+        tpa.sendsReady = sendsReady;
+        scheduleTimeout(packageName, tpa);
+    }
+
+    /**
+     * The TPA registered over IPC and said it sends TpaReadyEvent, so it gets the full timeout.
+     */
+    public synchronized void onSendsReady(String packageName) {
+        Starting tpa = starting.get(packageName);
+        if (tpa == null || tpa.sendsReady) {
+            return;
+        }
+        tpa.sendsReady = true;
+        scheduleTimeout(packageName, tpa);
+        releaseHeldForAll();
+    }
+
+    public void onReady(String packageName) {
+        release(packageName, false);
+    }
+
+    // Stops waiting for a TPA without sending what was held for it, e.g. when it's being killed
+    public synchronized void forget(String packageName) {
+        handler.removeCallbacksAndMessages(packageName);
+        if (starting.remove(packageName) != null) {
+            releaseHeldForAll();
+        }
+    }
+
+    // Guarded by this; the package name is the token, so rescheduling replaces the old timeout
+    private void scheduleTimeout(String packageName, Starting tpa) {
+        handler.removeCallbacksAndMessages(packageName);
+        long timeoutMs = tpa.sendsReady ? READY_TIMEOUT_MS : LEGACY_READY_TIMEOUT_MS;
+        handler.postAtTime(() -> release(packageName, true), packageName, tpa.startedAtUptimeMs + timeoutMs);
+    }
+
+    /**
+     * Holds an event for one TPA if that TPA is still starting.
+     * @return false if it can be sent now
+     */
+    public synchronized boolean holdIfStarting(String eventId, Serializable event, String tpaPackageName) {
+        Starting tpa = starting.get(tpaPackageName);
+        if (tpa == null) {
+            return false;
+        }
+        tpa.held.add(new Held(eventId, event, tpaPackageName, SystemClock.elapsedRealtime()));
+        eventsHeld++;
+        return true;
+    }
+
+    /**
+     * Sends a command meant for every TPA, through the dispatcher, holding it where needed.
+     */
+    public synchronized void sendCommandToAll(String eventId, Serializable event) {
+        Held command = new Held(eventId, event, null, SystemClock.elapsedRealtime());
+        if (legacyStarting()) {
+            heldForAll.add(command);
+            eventsHeld++;
+            return;
+        }
+        sendToAllNow(command);
+    }
+
+    // Guarded by this
+    private boolean legacyStarting() {
+        for (Starting tpa : starting.values()) {
+            if (!tpa.sendsReady) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Guarded by this; every starting TPA skips the broadcast and gets a copy once it's ready
+    private void sendToAllNow(Held command) {
+        List<String> skip = starting.isEmpty() ? Collections.emptyList() : new ArrayList<>(starting.keySet());
+        for (String packageName : skip) {
+            starting.get(packageName).held.add(new Held(command.eventId, command.event, packageName, command.dispatchedAtMs));
+            eventsHeld++;
+        }
+        dispatcher.dispatchToAll(command.eventId, command.event, skip, command.dispatchedAtMs);
+    }
+
+    // Sends under the lock, so nothing sent after the release can overtake what was held
+    private synchronized void release(String packageName, boolean timedOut) {
+        handler.removeCallbacksAndMessages(packageName);
+        Starting tpa = starting.remove(packageName);
+        if (tpa == null) {
+            return;
+        }
+        if (timedOut) {
+            if (tpa.sendsReady) {
+                timeouts++;
+                Log.d(TAG, packageName + " didn't report ready within " + READY_TIMEOUT_MS + "ms, sending " + tpa.held.size() + " held events anyway");
+            } else {
+                legacyTimeouts++;
+            }
+        } else {
+            readyAcks++;
+        }
+        for (Held h : tpa.held) {
+            dispatcher.dispatch(h.eventId, h.event, h.tpaPackageName, h.dispatchedAtMs);
+        }
+        releaseHeldForAll();
+    }
+
+    // Guarded by this
+    private void releaseHeldForAll() {
+        if (heldForAll.isEmpty() || legacyStarting()) {
+            return;
+        }
+        for (Held h : heldForAll) {
+            sendToAllNow(h);
+        }
+        heldForAll.clear();
+    }
+
+    // Time from a command being dispatched in core to it going out to the TPA
+    public synchronized void recordCommandLatency(long latencyMs) {
+        commandLatenciesMs[(int) (commandsDelivered % LATENCY_WINDOW)] = latencyMs;
+        commandsDelivered++;
+        if (commandsDelivered % STATS_LOG_EVERY == 0) {
+            Log.d(TAG, getStatsSummary());
+        }
+    }
+
+    /**
+     * Command latency percentiles are over the last {@link #LATENCY_WINDOW} commands.
+     */
+    public synchronized String getStatsSummary() {
+        int count = (int) Math.min(commandsDelivered, LATENCY_WINDOW);
+        long[] sorted = Arrays.copyOf(commandLatenciesMs, count);
+        Arrays.sort(sorted);
+        return String.format(Locale.US,
+                "tpa readiness: starting=%d acks=%d timeouts=%d legacyTimeouts=%d held=%d commands=%d p50=%dms p90=%dms p99=%dms max=%dms",
+                starting.size(), readyAcks, timeouts, legacyTimeouts, eventsHeld, commandsDelivered,
+                percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99),
+                count == 0 ? 0 : sorted[count - 1]);
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, sorted.length * percent / 100)];
+    }
+}
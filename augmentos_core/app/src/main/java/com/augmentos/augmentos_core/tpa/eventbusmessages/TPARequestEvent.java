@@ -1,15 +1,24 @@
 package com.augmentos.augmentos_core.tpa.eventbusmessages;
 
+import android.os.IBinder;
+
 import java.io.Serializable;
 
 public class TPARequestEvent {
     public String eventId;
     public Serializable serializedEvent;
     public String sendingPackage;
+    //the sender's bitmap channel, for shared bitmap requests
+    public IBinder bitmapChannel;
 
     public TPARequestEvent(String eventId, Serializable serializedEvent, String sendingPackage){
+        this(eventId, serializedEvent, sendingPackage, null);
+    }
+
+    public TPARequestEvent(String eventId, Serializable serializedEvent, String sendingPackage, IBinder bitmapChannel){
         this.eventId = eventId;
         this.serializedEvent = serializedEvent;
         this.sendingPackage = sendingPackage;
+        this.bitmapChannel = bitmapChannel;
     }
 }
@@ -0,0 +1,156 @@
+package com.augmentos.augmentos_core;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TranscriptStoreTest {
+
+    @Test
+    public void keepsAtMostMaxSegments() {
+        TranscriptStore store = new TranscriptStore();
+        int extra = 1000;
+        for (int i = 0; i < TranscriptStore.MAX_SEGMENTS + extra; i++) {
+            store.add(i, "en-US", "segment " + i, null);
+        }
+        assertEquals(TranscriptStore.MAX_SEGMENTS, store.size());
+
+        List<TranscriptStore.Segment> all = store.getRange(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(TranscriptStore.MAX_SEGMENTS, all.size());
+        // The oldest ones went first
+        assertEquals("segment " + extra, all.get(0).text);
+        assertEquals("segment " + (TranscriptStore.MAX_SEGMENTS + extra - 1), all.get(all.size() - 1).text);
+    }
+
+    @Test
+    public void keepsAtMostMaxChars() {
+        TranscriptStore store = new TranscriptStore();
+        char[] kilobyte = new char[1024];
+        Arrays.fill(kilobyte, 'a');
+        String text = new String(kilobyte);
+        int count = TranscriptStore.MAX_CHARS / text.length() * 2;
+        for (int i = 0; i < count; i++) {
+            store.add(i, "en-US", text, null);
+        }
+        assertEquals(TranscriptStore.MAX_CHARS / text.length(), store.size());
+        assertEquals(count - store.size(), store.getRange(Long.MIN_VALUE, Long.MAX_VALUE).get(0).timeMs);
+
+        // One segment bigger than the cap on its own is still kept, alone
+        char[] huge = new char[TranscriptStore.MAX_CHARS + 1];
+        Arrays.fill(huge, 'b');
+        store.add(count, "en-US", new String(huge), null);
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    public void getRangeMatchesLinearScan() {
+        TranscriptStore store = new TranscriptStore();
+        Random random = new Random(42);
+        long time = 1_000;
+        // Enough to wrap the ring, with repeated times and the odd clock step backwards
+        for (int i = 0; i < TranscriptStore.MAX_SEGMENTS * 2; i++) {
+            int step = random.nextInt(10);
+            time += step == 0 ? -random.nextInt(50) : step == 1 ? 0 : random.nextInt(100);
+            store.add(time, "en-US", "s" + i, null);
+        }
+        List<TranscriptStore.Segment> all = store.getRange(Long.MIN_VALUE, Long.MAX_VALUE);
+        for (int i = 1; i < all.size(); i++) {
+            assertTrue(all.get(i - 1).timeMs <= all.get(i).timeMs);
+        }
+
+        long first = all.get(0).timeMs;
+        long last = all.get(all.size() - 1).timeMs;
+        for (int query = 0; query < 2000; query++) {
+            long from = first - 100 + (long) (random.nextDouble() * (last - first + 200));
+            long to = from + random.nextInt(query % 2 == 0 ? 500 : 50_000) - 10;
+            List<TranscriptStore.Segment> expected = new ArrayList<>();
+            for (TranscriptStore.Segment segment : all) {
+                if (segment.timeMs >= from && segment.timeMs < to) {
+                    expected.add(segment);
+                }
+            }
+            assertEquals(expected, store.getRange(from, to));
+        }
+    }
+
+    /**
+     * Twelve hours of conversation in simulated time: an utterance every few seconds with quiet
+     * spells in between. The ring must stay within its segment and character caps the whole time
+     * while the last few minutes stay queryable.
+     */
+    @Test
+    public void twelveHoursStayBounded() {
+        TranscriptStore store = new TranscriptStore();
+        Random random = new Random(12);
+        long start = 1_760_000_000_000L;
+        long end = start + 12 * 60 * 60_000L;
+        long now = start;
+        long nextCheck = start + 60 * 60_000L;
+        int added = 0;
+        List<Long> addedAt = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+
+        while (now < end) {
+            // Mostly 2 to 8 s apart, with the odd minute or two of silence
+            now += random.nextInt(20) == 0 ? 60_000 + random.nextInt(60_000) : 2_000 + random.nextInt(6_000);
+            text.setLength(0);
+            int words = 3 + random.nextInt(40);
+            for (int w = 0; w < words; w++) {
+                text.append(w == 0 ? "" : " ").append("word").append(random.nextInt(1000));
+            }
+            store.add(now, "en-US", text.toString(), null);
+            addedAt.add(now);
+            added++;
+
+            assertTrue(store.size() <= TranscriptStore.MAX_SEGMENTS);
+            assertTrue(store.getTotalChars() <= TranscriptStore.MAX_CHARS);
+            if (now >= nextCheck) {
+                // The last five minutes are all still there
+                long from = now - 5 * 60_000L;
+                int expected = 0;
+                for (int i = addedAt.size() - 1; i >= 0 && addedAt.get(i) >= from; i--) {
+                    expected++;
+                }
+                assertEquals(expected, store.getRange(from, Long.MAX_VALUE).size());
+                nextCheck += 60 * 60_000L;
+            }
+        }
+
+        // More was said than either cap holds, and the newest segments survived
+        assertTrue(added > TranscriptStore.MAX_SEGMENTS);
+        assertTrue(store.size() < added);
+        List<TranscriptStore.Segment> all = store.getRange(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(now, all.get(all.size() - 1).timeMs);
+        assertEquals(addedAt.get(added - store.size()).longValue(), all.get(0).timeMs);
+    }
+
+    @Test
+    public void nullSpillFileStopsSpilling() throws Exception {
+        TranscriptStore store = new TranscriptStore();
+        File file = File.createTempFile("transcripts", ".tsv");
+        file.deleteOnExit();
+        store.setSpillFile(file);
+        store.add(1, "en-US", "spilled", new String[]{"com.example.tpa"});
+        store.setSpillFile(null);
+        store.add(2, "en-US", "not spilled", null);
+        assertEquals(2, store.size());
+
+        // The queued segment is still written after spilling stops
+        long deadline = System.currentTimeMillis() + 2000;
+        while (file.length() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        assertEquals(1, lines.size());
+        assertEquals("1\ten-US\tcom.example.tpa\tspilled", lines.get(0));
+        store.destroy();
+    }
+}
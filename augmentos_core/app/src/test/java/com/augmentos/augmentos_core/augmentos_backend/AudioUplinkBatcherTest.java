@@ -0,0 +1,278 @@
+package com.augmentos.augmentos_core.augmentos_backend;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AudioUplinkBatcherTest {
+    private static final long TIMEOUT_MS = 5000;
+
+    /**
+     * Stands in for the server end of the WebSocket: keeps every frame it receives, in order, and
+     * refuses messages while the connection is down, the way a closing socket does. Messages that
+     * don't match the framing the session agreed on are counted and dropped, as the server would
+     * misparse them.
+     */
+    private static class StandInServer implements AudioUplinkBatcher.BinarySink {
+        final List<Long> frameSeqs = new ArrayList<>();
+        final List<Integer> payloadFrames = new ArrayList<>();
+        final List<long[]> lost = new ArrayList<>();
+        private boolean connected = true;
+        private boolean framed = true;
+        int refused = 0;
+        int misframed = 0;
+
+        synchronized void setConnected(boolean connected) {
+            this.connected = connected;
+        }
+
+        synchronized void setFramed(boolean framed) {
+            this.framed = framed;
+        }
+
+        @Override
+        public synchronized boolean sendBinary(byte[] data, int offset, int length) {
+            if (!connected) {
+                refused++;
+                return false;
+            }
+            ByteBuffer message = ByteBuffer.wrap(data, offset, length);
+            if (!framed) {
+                // No header, so the payloads are all there is to go on
+                if (length % AudioJournal.LC3_FRAME_BYTES != 0) {
+                    misframed++;
+                    return true;
+                }
+                for (int i = 0; i < length / AudioJournal.LC3_FRAME_BYTES; i++) {
+                    int payload = message.getInt(offset + i * AudioJournal.LC3_FRAME_BYTES);
+                    frameSeqs.add((long) payload);
+                    payloadFrames.add(payload);
+                }
+                notifyAll();
+                return true;
+            }
+            int frames = message.get(offset + 1) & 0xff;
+            if (message.get(offset) != AudioUplinkBatcher.FRAMING_VERSION
+                    || length != AudioUplinkBatcher.HEADER_SIZE + frames * AudioJournal.LC3_FRAME_BYTES) {
+                misframed++;
+                return true;
+            }
+            long firstFrameSeq = message.getInt(offset + 2) & 0xffffffffL;
+            for (int i = 0; i < frames; i++) {
+                frameSeqs.add(firstFrameSeq + i);
+                payloadFrames.add(message.getInt(offset + AudioUplinkBatcher.HEADER_SIZE + i * AudioJournal.LC3_FRAME_BYTES));
+            }
+            notifyAll();
+            return true;
+        }
+
+        @Override
+        public synchronized void onAudioLost(long fromFrameSeq, long toFrameSeq) {
+            lost.add(new long[]{fromFrameSeq, toFrameSeq});
+        }
+
+        synchronized void awaitFrame(long frameSeq) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+            while (frameSeqs.isEmpty() || frameSeqs.get(frameSeqs.size() - 1) < frameSeq) {
+                long wait = deadline - System.currentTimeMillis();
+                assertTrue("frame " + frameSeq + " never arrived", wait > 0);
+                wait(wait);
+            }
+        }
+    }
+
+    // One LC3 frame whose payload carries its own number, so reordered bytes show up too
+    private static byte[] frame(int number) {
+        return ByteBuffer.allocate(AudioJournal.LC3_FRAME_BYTES).putInt(number).array();
+    }
+
+    private static AudioUplinkBatcher newBatcher(int capacityChunks, StandInServer server) {
+        AudioUplinkBatcher batcher = new AudioUplinkBatcher(capacityChunks, server);
+        batcher.setFramingEnabled(true);
+        batcher.setLatencyBudgetMs(40);
+        return batcher;
+    }
+
+    @Test
+    public void forcedDisconnectReplaysBacklogInOrder() throws Exception {
+        StandInServer server = new StandInServer();
+        AudioUplinkBatcher batcher = newBatcher(1000, server);
+        batcher.start();
+        int next = 0;
+        for (; next < 200; next++) {
+            batcher.offer(frame(next));
+            if (next % 10 == 0) Thread.sleep(1);
+        }
+
+        // Socket drops: sends start failing before the close callback stops the batcher
+        server.setConnected(false);
+        for (; next < 250; next++) {
+            batcher.offer(frame(next));
+        }
+        Thread.sleep(150);
+        batcher.stop();
+        for (; next < 400; next++) {
+            batcher.offer(frame(next));
+        }
+        Thread.sleep(50);
+
+        // connection_ack
+        server.setConnected(true);
+        batcher.start();
+        for (; next < 500; next++) {
+            batcher.offer(frame(next));
+        }
+        server.awaitFrame(next - 1);
+        batcher.shutdown();
+
+        synchronized (server) {
+            assertEquals(next, server.frameSeqs.size());
+            for (int i = 0; i < next; i++) {
+                assertEquals(i, (long) server.frameSeqs.get(i));
+                assertEquals(i, (int) server.payloadFrames.get(i));
+            }
+            assertTrue(server.lost.isEmpty());
+            assertTrue("sends were never refused, the disconnect wasn't exercised", server.refused > 0);
+        }
+    }
+
+    @Test
+    public void framesLostDuringDisconnectAreReportedNotReordered() throws Exception {
+        StandInServer server = new StandInServer();
+        AudioUplinkBatcher batcher = newBatcher(32, server);
+        batcher.start();
+        int next = 0;
+        for (; next < 20; next++) {
+            batcher.offer(frame(next));
+        }
+        server.awaitFrame(next - 1);
+
+        server.setConnected(false);
+        batcher.stop();
+        // Far more than the journal holds, the oldest of these get overwritten
+        for (; next < 300; next++) {
+            batcher.offer(frame(next));
+        }
+        server.setConnected(true);
+        batcher.start();
+        server.awaitFrame(next - 1);
+        batcher.shutdown();
+
+        synchronized (server) {
+            long previous = -1;
+            for (int i = 0; i < server.frameSeqs.size(); i++) {
+                long seq = server.frameSeqs.get(i);
+                assertTrue("frame " + seq + " came after " + previous, seq > previous);
+                assertEquals(seq, (long) server.payloadFrames.get(i));
+                if (seq != previous + 1) {
+                    assertTrue("gap before " + seq + " wasn't reported", reported(server.lost, previous + 1, seq));
+                }
+                previous = seq;
+            }
+            assertFalse(server.lost.isEmpty());
+        }
+    }
+
+    @Test
+    public void reconnectWithOtherFramingRebuildsWaitingAudio() throws Exception {
+        StandInServer server = new StandInServer();
+        AudioUplinkBatcher batcher = newBatcher(1000, server);
+        batcher.start();
+        int next = 0;
+        for (; next < 50; next++) {
+            batcher.offer(frame(next));
+        }
+        server.awaitFrame(next - 1);
+
+        // Drop, with audio built into a framed message while the socket is down
+        server.setConnected(false);
+        batcher.stop();
+        for (; next < 100; next++) {
+            batcher.offer(frame(next));
+        }
+        Thread.sleep(100);
+        // connection_ack falls back to JSON, which turns framing off
+        batcher.setFramingEnabled(false);
+        server.setFramed(false);
+        server.setConnected(true);
+        batcher.start();
+        for (; next < 150; next++) {
+            batcher.offer(frame(next));
+        }
+        server.awaitFrame(next - 1);
+
+        // Drop again: the close turns framing off, so this audio is built unframed
+        server.setConnected(false);
+        batcher.stop();
+        batcher.setFramingEnabled(false);
+        for (; next < 200; next++) {
+            batcher.offer(frame(next));
+        }
+        Thread.sleep(100);
+        // connection_ack picks pb1, which needs framing
+        batcher.setFramingEnabled(true);
+        server.setFramed(true);
+        server.setConnected(true);
+        batcher.start();
+        for (; next < 250; next++) {
+            batcher.offer(frame(next));
+        }
+        server.awaitFrame(next - 1);
+        batcher.shutdown();
+
+        synchronized (server) {
+            assertEquals(0, server.misframed);
+            assertEquals(next, server.frameSeqs.size());
+            for (int i = 0; i < next; i++) {
+                assertEquals(i, (int) server.payloadFrames.get(i));
+            }
+        }
+    }
+
+    private static boolean reported(List<long[]> lost, long from, long to) {
+        for (long[] range : lost) {
+            if (range[0] == from && range[1] == to) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void quickRestartsKeepOneSenderThread() throws Exception {
+        StandInServer server = new StandInServer();
+        AudioUplinkBatcher batcher = newBatcher(1000, server);
+        int next = 0;
+        for (int cycle = 0; cycle < 50; cycle++) {
+            batcher.start();
+            batcher.offer(frame(next++));
+            batcher.stop();
+            batcher.offer(frame(next++));
+        }
+        batcher.start();
+        assertEquals(1, countSenderThreads());
+        server.awaitFrame(next - 1);
+
+        batcher.shutdown();
+        assertEquals(0, countSenderThreads());
+        synchronized (server) {
+            for (int i = 0; i < next; i++) {
+                assertEquals(i, (long) server.frameSeqs.get(i));
+            }
+        }
+    }
+
+    private static int countSenderThreads() {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("AudioSenderThread") && thread.isAlive()) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,157 @@
+package com.augmentos.augmentos_core.augmentos_backend;
+
+import com.augmentos.augmentos_core.benchmark.Benchmark;
+import com.augmentos.augmentos_core.benchmark.BenchmarkSupport;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class CloudMessageCodecTest {
+    // An utterance as the server streams it: every interim repeats the text so far
+    private static final String[] WORDS = ("so the plan for tomorrow is to meet at the station around nine "
+            + "grab a coffee and then walk over to the office together before the standup starts").split(" ");
+    private static final int BENCH_ROUNDS = 200;
+    private static final int WARMUP_ROUNDS = 50;
+
+    private static String interimJson(String text, long timestampMs) {
+        // Same fields, in the same order, as the cloud's interim messages
+        return "{\"type\":\"interim\",\"text\":\"" + text + "\",\"isFinal\":false,\"language\":\"en-US\","
+                + "\"speakerId\":\"0\",\"duration\":" + (text.length() * 0.06) + ",\"timestamp\":" + (timestampMs / 1000.0) + "}";
+    }
+
+    private static CloudMessageCodec.Transcript interim(String text, long timestampMs) {
+        CloudMessageCodec.Transcript transcript = new CloudMessageCodec.Transcript();
+        transcript.text = text;
+        transcript.language = "en-US";
+        transcript.timestampMs = timestampMs;
+        return transcript;
+    }
+
+    // Interims of one utterance, one word longer each
+    private static String[] utteranceTexts() {
+        String[] texts = new String[WORDS.length];
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < WORDS.length; i++) {
+            if (i > 0) text.append(' ');
+            text.append(WORDS[i]);
+            texts[i] = text.toString();
+        }
+        return texts;
+    }
+
+    @Test
+    public void binaryAndJsonDecodeToTheSameTranscript() throws Exception {
+        long timestampMs = 1729260000123L;
+        String json = interimJson("meet at the \\\"station\\\"", timestampMs);
+        assertEquals("interim", CloudMessageCodec.peekJsonType(json));
+        CloudMessageCodec.Transcript fromJson = CloudMessageCodec.parseJsonTranscript(json);
+
+        CloudMessageCodec.Transcript sent = interim("meet at the \"station\"", timestampMs);
+        CloudMessageCodec.Transcript fromBinary = CloudMessageCodec.decodeTranscript(CloudMessageCodec.encodeTranscript(sent));
+
+        for (CloudMessageCodec.Transcript transcript : new CloudMessageCodec.Transcript[]{fromJson, fromBinary}) {
+            assertFalse(transcript.isFinal);
+            assertEquals("meet at the \"station\"", transcript.text);
+            assertEquals("en-US", transcript.language);
+            assertNull(transcript.translateLanguage);
+            assertEquals(timestampMs, transcript.timestampMs);
+        }
+
+        sent.isFinal = true;
+        sent.translateLanguage = "fr-FR";
+        CloudMessageCodec.Transcript translated = CloudMessageCodec.decodeTranscript(CloudMessageCodec.encodeTranscript(sent));
+        assertTrue(translated.isFinal);
+        assertEquals("fr-FR", translated.translateLanguage);
+    }
+
+    @Test
+    public void peekJsonTypeOnlyReadsTheTopLevel() {
+        assertEquals("final", CloudMessageCodec.peekJsonType("{\"data\":{\"type\":\"nested\"},\"type\" : \"final\"}"));
+        assertEquals("x", CloudMessageCodec.peekJsonType("{\"text\":\"\\\"type\\\":\\\"y\\\"\",\"type\":\"x\"}"));
+        assertNull(CloudMessageCodec.peekJsonType("{\"type\":3}"));
+        assertNull(CloudMessageCodec.peekJsonType("{\"text\":\"unterminated"));
+    }
+
+    @Test
+    public void jsonTranscriptWithoutRequiredFieldsThrowsIOException() {
+        String[] incomplete = {
+                "{\"type\":\"interim\",\"language\":\"en-US\",\"timestamp\":1.5}",
+                "{\"type\":\"interim\",\"text\":\"hi\",\"timestamp\":1.5}",
+                "{\"type\":\"final\",\"text\":null,\"language\":\"en-US\",\"timestamp\":1.5}",
+                "{\"type\":\"final\",\"text\":\"hi\",\"language\":\"en-US\"}",
+        };
+        for (String json : incomplete) {
+            try {
+                CloudMessageCodec.parseJsonTranscript(json);
+                fail("parsed " + json);
+            } catch (IOException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void decodeTranscriptIgnoresOtherMessages() throws Exception {
+        assertNull(CloudMessageCodec.decodeTranscript(CloudMessageCodec.encodeVad(true)));
+        assertNull(CloudMessageCodec.decodeTranscript(new byte[0]));
+        assertNull(CloudMessageCodec.decodeTranscript(new byte[]{CloudMessageCodec.KIND_AUDIO, 1, 0}));
+    }
+
+    @Test
+    @Category(Benchmark.class)
+    public void benchmarkInterimTranscripts() throws Exception {
+        String[] texts = utteranceTexts();
+        long timestampMs = 1729260000123L;
+        String[] jsonMessages = new String[texts.length];
+        byte[][] binaryMessages = new byte[texts.length][];
+        long jsonBytes = 0;
+        long binaryBytes = 0;
+        for (int i = 0; i < texts.length; i++) {
+            jsonMessages[i] = interimJson(texts[i], timestampMs + i * 300L);
+            binaryMessages[i] = CloudMessageCodec.encodeTranscript(interim(texts[i], timestampMs + i * 300L));
+            jsonBytes += jsonMessages[i].getBytes(StandardCharsets.UTF_8).length;
+            binaryBytes += binaryMessages[i].length;
+        }
+
+        BenchmarkSupport.warmUp(WARMUP_ROUNDS, () -> parseJson(jsonMessages), () -> decodeBinary(binaryMessages));
+        BenchmarkSupport.Measurement json = BenchmarkSupport.measure(BENCH_ROUNDS, () -> parseJson(jsonMessages));
+        BenchmarkSupport.Measurement binary = BenchmarkSupport.measure(BENCH_ROUNDS, () -> decodeBinary(binaryMessages));
+
+        long parses = (long) BENCH_ROUNDS * texts.length;
+        BenchmarkSupport.report(
+                "interim transcripts: json %.0fB/msg %.2fus/parse %dB alloc/parse, binary %.0fB/msg %.2fus/parse %dB alloc/parse",
+                (double) jsonBytes / texts.length, json.nanos / 1000.0 / parses, json.allocatedBytes / parses,
+                (double) binaryBytes / texts.length, binary.nanos / 1000.0 / parses, binary.allocatedBytes / parses);
+
+        int vadJsonBytes = "{\"type\":\"VAD\",\"status\":true}".getBytes(StandardCharsets.UTF_8).length;
+        int vadBinaryBytes = CloudMessageCodec.encodeVad(true).length;
+        BenchmarkSupport.report("VAD: json %dB/msg, binary %dB/msg", vadJsonBytes, vadBinaryBytes);
+
+        assertTrue(binaryBytes < jsonBytes);
+        if (json.hasAllocatedBytes() && binary.hasAllocatedBytes()) {
+            assertTrue("binary decode allocated more than the JSON parse", binary.allocatedBytes < json.allocatedBytes);
+        }
+    }
+
+    private static int parseJson(String[] messages) throws Exception {
+        int chars = 0;
+        for (String message : messages) {
+            if ("interim".equals(CloudMessageCodec.peekJsonType(message))) {
+                chars += CloudMessageCodec.parseJsonTranscript(message).text.length();
+            }
+        }
+        return chars;
+    }
+
+    private static int decodeBinary(byte[][] messages) throws Exception {
+        int chars = 0;
+        for (byte[] message : messages) {
+            chars += CloudMessageCodec.decodeTranscript(message).text.length();
+        }
+        return chars;
+    }
+}
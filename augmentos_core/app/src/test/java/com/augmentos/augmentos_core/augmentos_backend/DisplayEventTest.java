@@ -0,0 +1,183 @@
+package com.augmentos.augmentos_core.augmentos_backend;
+
+import com.augmentos.augmentos_core.benchmark.Benchmark;
+import com.augmentos.augmentos_core.benchmark.BenchmarkSupport;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+public class DisplayEventTest {
+    // A full G1 frame as the cloud sends it: a 1-bit BMP, Base64 encoded
+    private static final int WIDTH = 576;
+    private static final int HEIGHT = 136;
+    private static final int BMP_BYTES = 62 + WIDTH / 8 * HEIGHT;
+    // Cloud apps redraw in bursts, e.g. a map or a scrolling bitmap
+    private static final int BURST_EVENTS = 30;
+    private static final int BENCH_BURSTS = 20;
+    private static final int WARMUP_BURSTS = 5;
+
+    private static String bitmapEvent(String view, String base64) {
+        return "{\"type\":\"display_event\",\"view\":\"" + view + "\",\"packageName\":\"com.example.maps\","
+                + "\"durationMs\":null,\"layout\":{\"layoutType\":\"bitmap_view\",\"data\":\"" + base64 + "\"},"
+                + "\"timestamp\":\"2026-10-18T16:00:00.000Z\"}";
+    }
+
+    private static String[] burstBase64(int seed) {
+        String[] frames = new String[BURST_EVENTS];
+        for (int i = 0; i < BURST_EVENTS; i++) {
+            byte[] bmp = new byte[BMP_BYTES];
+            Arrays.fill(bmp, (byte) (seed * 31 + i));
+            bmp[0] = 'B';
+            bmp[1] = 'M';
+            frames[i] = Base64.getEncoder().encodeToString(bmp);
+        }
+        return frames;
+    }
+
+    @Test
+    public void parsesTheLayoutsWeDraw() throws Exception {
+        DisplayEvent wall = DisplayEvent.parse("{\"type\":\"display_event\",\"view\":\"main\",\"layout\":"
+                + "{\"layoutType\":\"text_wall\",\"text\":\"hello \\\"there\\\"\",\"extra\":{\"nested\":[1,2]}}}");
+        assertFalse(wall.isDashboard());
+        assertEquals("text_wall", wall.layoutType);
+        assertEquals("hello \"there\"", wall.text);
+
+        DisplayEvent card = DisplayEvent.parse("{\"view\":\"dashboard\",\"layout\":"
+                + "{\"layoutType\":\"reference_card\",\"title\":\"Title\",\"text\":\"Body\"}}");
+        assertTrue(card.isDashboard());
+        assertEquals("Title", card.title);
+        assertEquals("Body", card.text);
+
+        DisplayEvent doubleWall = DisplayEvent.parse("{\"layout\":{\"layoutType\":\"double_text_wall\","
+                + "\"topText\":\"top\",\"bottomText\":\"bottom\"},\"view\":\"main\"}");
+        assertEquals("top", doubleWall.topText);
+        assertEquals("bottom", doubleWall.bottomText);
+
+        DisplayEvent rows = DisplayEvent.parse("{\"view\":\"main\",\"layout\":{\"layoutType\":\"text_rows\",\"text\":[\"a\",\"b\"]}}");
+        assertArrayEquals(new String[]{"a", "b"}, rows.rows);
+    }
+
+    @Test
+    public void malformedEventsThrowIOException() {
+        try {
+            DisplayEvent.parse("{\"view\":\"main\",\"layout\":[}");
+            fail("parsed a malformed display_event");
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void bitmapViewKeepsTheRawMessage() throws Exception {
+        String json = bitmapEvent("main", burstBase64(1)[0]);
+        DisplayEvent event = DisplayEvent.parse(json);
+        assertEquals("bitmap_view", event.layoutType);
+        assertSame(json, event.rawJson);
+    }
+
+    /**
+     * Bursts of bitmap_view events, as the receiving thread sees them. Eager is what we did before
+     * DisplayEvent: decode every frame's Base64 and build its Bitmap on arrival (the Bitmap is
+     * stood in for by its ARGB_8888 pixel buffer, since there's no Bitmap off-device). Lazy is
+     * DisplayEvent.parse on arrival, then one decode for the frame the window manager ends up
+     * drawing.
+     */
+    @Test
+    @Category(Benchmark.class)
+    public void benchmarkDisplayEventBursts() throws Exception {
+        String[] warmUpFrames = burstBase64(BENCH_BURSTS);
+        BenchmarkSupport.warmUp(WARMUP_BURSTS,
+                () -> runBurst(warmUpFrames, true, null), () -> runBurst(warmUpFrames, false, null));
+
+        BurstStats eager = new BurstStats();
+        BurstStats lazy = new BurstStats();
+        for (int burst = 0; burst < BENCH_BURSTS; burst++) {
+            String[] frames = burstBase64(burst);
+            runBurst(frames, true, eager);
+            runBurst(frames, false, lazy);
+        }
+
+        BenchmarkSupport.report("display_event bursts of %d bitmap frames (%dB BMP):", BURST_EVENTS, BMP_BYTES);
+        BenchmarkSupport.report("  eager: %s", eager);
+        BenchmarkSupport.report("  lazy:  %s", lazy);
+
+        if (eager.allocatedBytes >= 0 && lazy.allocatedBytes >= 0) {
+            assertTrue("lazy parse allocated as much as eager decode", lazy.allocatedBytes < eager.allocatedBytes);
+        }
+    }
+
+    private static class BurstStats {
+        final List<Long> eventNs = new ArrayList<>();
+        long allocatedBytes = 0;
+        long peakHeapBytes = 0;
+
+        @Override
+        public String toString() {
+            long[] sorted = eventNs.stream().mapToLong(Long::longValue).sorted().toArray();
+            long total = Arrays.stream(sorted).sum();
+            return String.format(Locale.US,
+                    "receive-thread %.1fms/burst p50=%.0fus p99=%.0fus max=%.0fus, %s allocated/burst, peak heap +%.1fMB",
+                    total / 1e6 / BENCH_BURSTS, sorted[sorted.length / 2] / 1e3,
+                    sorted[Math.min(sorted.length - 1, sorted.length * 99 / 100)] / 1e3, sorted[sorted.length - 1] / 1e3,
+                    allocatedBytes < 0 ? "?" : String.format(Locale.US, "%.1fMB", allocatedBytes / 1e6 / BENCH_BURSTS),
+                    peakHeapBytes / 1e6);
+        }
+    }
+
+    private static void runBurst(String[] frames, boolean eager, BurstStats stats) throws Exception {
+        String[] messages = new String[frames.length];
+        for (int i = 0; i < frames.length; i++) {
+            messages[i] = bitmapEvent("main", frames[i]);
+        }
+        // Everything the burst leaves queued for the window manager stays reachable until it draws
+        List<Object> queued = new ArrayList<>();
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        long peakHeap = 0;
+        long allocatedBefore = BenchmarkSupport.allocatedBytes();
+
+        for (int i = 0; i < messages.length; i++) {
+            long start = System.nanoTime();
+            DisplayEvent event = DisplayEvent.parse(messages[i]);
+            if (eager) {
+                queued.add(decodeBitmap(frames[i]));
+            } else {
+                queued.add(event);
+            }
+            long elapsed = System.nanoTime() - start;
+            if (stats != null) {
+                stats.eventNs.add(elapsed);
+            }
+            peakHeap = Math.max(peakHeap, runtime.totalMemory() - runtime.freeMemory() - heapBefore);
+        }
+        if (!eager) {
+            // The window manager only draws the latest frame of the burst
+            queued.add(decodeBitmap(frames[frames.length - 1]));
+            peakHeap = Math.max(peakHeap, runtime.totalMemory() - runtime.freeMemory() - heapBefore);
+        }
+
+        long allocatedAfter = BenchmarkSupport.allocatedBytes();
+        if (stats != null) {
+            stats.allocatedBytes = allocatedBefore < 0 || stats.allocatedBytes < 0 ? -1
+                    : stats.allocatedBytes + allocatedAfter - allocatedBefore;
+            stats.peakHeapBytes = Math.max(stats.peakHeapBytes, peakHeap);
+        }
+        assertEquals(frames.length + (eager ? 0 : 1), queued.size());
+    }
+
+    // What getBitmap() costs on device: the Base64 decode plus an ARGB_8888 Bitmap
+    private static int[] decodeBitmap(String base64) {
+        byte[] bmp = Base64.getMimeDecoder().decode(base64);
+        assertEquals(BMP_BYTES, bmp.length);
+        return new int[WIDTH * HEIGHT];
+    }
+}
@@ -0,0 +1,8 @@
+package com.augmentos.augmentos_core.benchmark;
+
+/**
+ * JUnit category for the timing and allocation benchmarks. They are left out of
+ * testDebugUnitTest and only run with {@code ./gradlew testDebugUnitTest -Pbenchmarks}.
+ */
+public interface Benchmark {
+}
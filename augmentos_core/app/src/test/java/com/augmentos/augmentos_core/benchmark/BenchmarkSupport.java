@@ -0,0 +1,76 @@
+package com.augmentos.augmentos_core.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+
+/**
+ * Warm-up, timing, allocation and reporting shared by the {@link Benchmark} tests.
+ */
+public final class BenchmarkSupport {
+    // Set by build.gradle when run with -Pbenchmarks
+    public static final String ENABLED_PROPERTY = "augmentos.benchmarks";
+
+    public interface Work {
+        void run() throws Exception;
+    }
+
+    public static final class Measurement {
+        public final long nanos;
+        // -1 if the JVM can't count allocations
+        public final long allocatedBytes;
+
+        Measurement(long nanos, long allocatedBytes) {
+            this.nanos = nanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        public boolean hasAllocatedBytes() {
+            return allocatedBytes >= 0;
+        }
+    }
+
+    private BenchmarkSupport() {
+    }
+
+    // Runs every piece of work rounds times so the JIT has settled before measuring
+    public static void warmUp(int rounds, Work... works) throws Exception {
+        for (int i = 0; i < rounds; i++) {
+            for (Work work : works) {
+                work.run();
+            }
+        }
+    }
+
+    // Time and bytes allocated by this thread over rounds runs of work
+    public static Measurement measure(int rounds, Work work) throws Exception {
+        long startBytes = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            work.run();
+        }
+        long nanos = System.nanoTime() - start;
+        long bytes = startBytes < 0 ? -1 : allocatedBytes() - startBytes;
+        return new Measurement(nanos, bytes);
+    }
+
+    // Bytes allocated by this thread so far, or -1 if the JVM can't tell
+    public static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    // Prints one result line, only when benchmarks were asked for so plain test runs stay quiet
+    public static void report(String format, Object... args) {
+        if (isEnabled()) {
+            System.out.println(String.format(Locale.US, format, args));
+        }
+    }
+}
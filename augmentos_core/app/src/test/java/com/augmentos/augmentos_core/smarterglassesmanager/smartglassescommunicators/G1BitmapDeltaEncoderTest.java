@@ -0,0 +1,140 @@
+package com.augmentos.augmentos_core.smarterglassesmanager.smartglassescommunicators;
+
+import com.augmentos.augmentos_core.benchmark.BenchmarkSupport;
+import com.augmentos.augmentos_core.smarterglassesmanager.utils.MonochromeBmpEncoder;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class G1BitmapDeltaEncoderTest {
+    // What EvenRealitiesG1SGC splits a BMP into
+    private static final int CHUNK_SIZE = 194;
+    private static final int WIDTH = 576;
+    private static final int HEIGHT = 136;
+    private static final int FRAMES = 300;
+    // Mirroring switches to another screen every so often
+    private static final int FRAMES_PER_SCREEN = 60;
+
+    private static int chunkCount(byte[] bmp) {
+        return (bmp.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    }
+
+    private static int sentCount(boolean[] send) {
+        int sent = 0;
+        for (boolean chunk : send) {
+            if (chunk) sent++;
+        }
+        return sent;
+    }
+
+    @Test
+    public void disabledSendsEveryChunkButStillSkipsRepeats() {
+        G1BitmapDeltaEncoder encoder = new G1BitmapDeltaEncoder();
+        byte[] first = mirrorFrame(0, 0);
+        byte[] second = mirrorFrame(0, 1);
+        assertEquals(chunkCount(first), sentCount(encoder.prepare(G1BitmapDeltaEncoder.LEFT, first, CHUNK_SIZE)));
+        assertNull(encoder.prepare(G1BitmapDeltaEncoder.LEFT, first.clone(), CHUNK_SIZE));
+        assertEquals(chunkCount(second), sentCount(encoder.prepare(G1BitmapDeltaEncoder.LEFT, second, CHUNK_SIZE)));
+    }
+
+    @Test
+    public void partialSendsChunkZeroAndTheChangedChunks() {
+        G1BitmapDeltaEncoder encoder = new G1BitmapDeltaEncoder();
+        encoder.setPartialUpdatesEnabled(true);
+        byte[] first = mirrorFrame(0, 0);
+        encoder.prepare(G1BitmapDeltaEncoder.LEFT, first, CHUNK_SIZE);
+
+        byte[] second = first.clone();
+        int changedChunk = 20;
+        second[changedChunk * CHUNK_SIZE + 3] ^= 0x10;
+        boolean[] send = encoder.prepare(G1BitmapDeltaEncoder.LEFT, second, CHUNK_SIZE);
+        assertEquals(2, sentCount(send));
+        assertTrue(send[0]);
+        assertTrue(send[changedChunk]);
+
+        // A different size, or an invalidated arm, gets the whole image
+        byte[] smaller = Arrays.copyOf(second, second.length - 10);
+        assertEquals(chunkCount(smaller), sentCount(encoder.prepare(G1BitmapDeltaEncoder.LEFT, smaller, CHUNK_SIZE)));
+        encoder.invalidate();
+        assertEquals(chunkCount(second), sentCount(encoder.prepare(G1BitmapDeltaEncoder.LEFT, second, CHUNK_SIZE)));
+    }
+
+    /**
+     * A synthetic mirrored screen: a static layout with a ticking clock and a growing progress bar,
+     * switching to another layout every {@link #FRAMES_PER_SCREEN} frames. Applying only the sent
+     * chunks on top of what the arm already has must rebuild every frame exactly.
+     */
+    @Test
+    public void mirrorSequenceSendsFewerChunks() {
+        long fullChunks = 0;
+        long partialChunks = 0;
+        G1BitmapDeltaEncoder full = new G1BitmapDeltaEncoder();
+        G1BitmapDeltaEncoder partial = new G1BitmapDeltaEncoder();
+        partial.setPartialUpdatesEnabled(true);
+        byte[] onGlasses = null;
+
+        for (int frame = 0; frame < FRAMES; frame++) {
+            byte[] bmp = mirrorFrame(frame / FRAMES_PER_SCREEN, frame);
+            boolean[] fullSend = full.prepare(G1BitmapDeltaEncoder.LEFT, bmp, CHUNK_SIZE);
+            boolean[] partialSend = partial.prepare(G1BitmapDeltaEncoder.LEFT, bmp, CHUNK_SIZE);
+            if (fullSend != null) {
+                fullChunks += sentCount(fullSend);
+            }
+            if (partialSend == null) {
+                assertArrayEquals(bmp, onGlasses);
+                continue;
+            }
+            partialChunks += sentCount(partialSend);
+            assertTrue(partialSend[0]);
+
+            if (onGlasses == null || onGlasses.length != bmp.length) {
+                onGlasses = new byte[bmp.length];
+            }
+            for (int i = 0; i < partialSend.length; i++) {
+                if (partialSend[i]) {
+                    int start = i * CHUNK_SIZE;
+                    System.arraycopy(bmp, start, onGlasses, start, Math.min(CHUNK_SIZE, bmp.length - start));
+                }
+            }
+            assertArrayEquals("frame " + frame, bmp, onGlasses);
+        }
+
+        BenchmarkSupport.report("g1 bmp mirror over %d frames: full %d chunks (%s), partial %d chunks (%s)",
+                FRAMES, fullChunks, full.getStatsSummary(), partialChunks, partial.getStatsSummary());
+        // Only the clock, the bar and chunk 0 change between screen switches
+        assertTrue(partialChunks * 4 < fullChunks);
+    }
+
+    // One 1-bit BMP of the mirrored phone screen
+    private static byte[] mirrorFrame(int screen, int frame) {
+        int[] argb = new int[WIDTH * HEIGHT];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                // A layout of text-like blocks that depends on the screen
+                boolean ink = ((x / 6 + y / 10 + screen * 7) % 5 == 0) && y % 10 < 7 && x > 16 && x < WIDTH - 96;
+                argb[y * WIDTH + x] = ink ? 0xFF000000 : 0xFFFFFFFF;
+            }
+        }
+        // Clock in the top right, its digits change every frame
+        for (int y = 4; y < 20; y++) {
+            for (int x = WIDTH - 80; x < WIDTH - 16; x++) {
+                boolean ink = ((x + frame * 3) / 4 + y / 3) % 3 == 0;
+                argb[y * WIDTH + x] = ink ? 0xFF000000 : 0xFFFFFFFF;
+            }
+        }
+        // Progress bar along the bottom
+        int barEnd = 16 + (frame % FRAMES_PER_SCREEN) * (WIDTH - 32) / FRAMES_PER_SCREEN;
+        for (int y = HEIGHT - 8; y < HEIGHT - 4; y++) {
+            for (int x = 16; x < barEnd; x++) {
+                argb[y * WIDTH + x] = 0xFF000000;
+            }
+        }
+        ByteBuffer out = ByteBuffer.allocate(MonochromeBmpEncoder.encodedSize(WIDTH, HEIGHT));
+        new MonochromeBmpEncoder().encode(argb, WIDTH, HEIGHT, false, MonochromeBmpEncoder.DitherMode.NONE, out);
+        return out.array();
+    }
+}
@@ -0,0 +1,189 @@
+package com.augmentos.augmentos_core.smarterglassesmanager.smartglassescommunicators;
+
+import com.augmentos.augmentos_core.benchmark.Benchmark;
+import com.augmentos.augmentos_core.benchmark.BenchmarkSupport;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+public class G1LineBreakerTest {
+    // What buildTextWallPage wraps to: the display minus five spaces of margin on each side
+    private static final int TEXT_WALL_WIDTH = 488 - 2 * 5 * 6;
+    private static final String[] WORDS = {
+            "the", "and", "so", "I", "think", "we", "should", "probably", "meet", "tomorrow", "afternoon",
+            "at", "coffee", "shop", "near", "station", "because", "it's", "quieter", "there", "what",
+            "do", "you", "mean", "exactly", "yeah", "that", "makes", "sense", "translation", "München",
+            "über", "naïve", "café", "résumé", "Wi-Fi", "12:45", "$30", "okay,", "right?", "well...",
+            "supercalifragilisticexpialidocious", "https://example.com/a/very/long/path",
+    };
+
+    private int[] widths;
+    private G1LineBreaker breaker;
+
+    @Before
+    public void setUp() throws IOException {
+        widths = loadFontWidths();
+        breaker = new G1LineBreaker(c -> c < widths.length ? widths[c] : 0);
+    }
+
+    @Test
+    public void matchesTheSubstringSplitter() {
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            String text = captionText(random, 1 + random.nextInt(60));
+            int width = 100 + random.nextInt(TEXT_WALL_WIDTH);
+            assertEquals(text, referenceSplit(text, width), breaker.splitIntoLines(text, width));
+        }
+    }
+
+    @Test
+    public void linesFitUnlessASingleCharacterDoesnt() {
+        Random random = new Random(11);
+        for (int i = 0; i < 500; i++) {
+            for (String line : breaker.splitIntoLines(captionText(random, 40), TEXT_WALL_WIDTH)) {
+                assertTrue(line, line.length() <= 1 || breaker.textWidth(line) <= TEXT_WALL_WIDTH);
+            }
+        }
+    }
+
+    @Test
+    public void keepsNewlinesAndBlankText() {
+        List<String> lines = breaker.splitIntoLines("one\n\ntwo", TEXT_WALL_WIDTH);
+        assertEquals(3, lines.size());
+        assertEquals("", lines.get(1));
+        assertEquals(1, breaker.splitIntoLines(" ", TEXT_WALL_WIDTH).size());
+    }
+
+    // Time and allocation per caption update, against measuring substrings the way it used to
+    @Test
+    @Category(Benchmark.class)
+    public void benchmarkAgainstSubstringSplitter() throws Exception {
+        Random random = new Random(3);
+        String[] captions = new String[500];
+        for (int i = 0; i < captions.length; i++) {
+            captions[i] = captionText(random, 20 + random.nextInt(40));
+        }
+        BenchmarkSupport.warmUp(5, () -> runPrefix(captions), () -> runReference(captions));
+        BenchmarkSupport.Measurement prefix = BenchmarkSupport.measure(1, () -> runPrefix(captions));
+        BenchmarkSupport.Measurement reference = BenchmarkSupport.measure(1, () -> runReference(captions));
+
+        BenchmarkSupport.report("g1 line breaking per caption: prefix sums %d ns %d B, substrings %d ns %d B",
+                prefix.nanos / captions.length, prefix.allocatedBytes / captions.length,
+                reference.nanos / captions.length, reference.allocatedBytes / captions.length);
+        if (prefix.hasAllocatedBytes()) {
+            // What's left is the split lines themselves
+            assertTrue(prefix.allocatedBytes < reference.allocatedBytes);
+        }
+    }
+
+    private void runPrefix(String[] captions) {
+        int lines = 0;
+        for (String caption : captions) {
+            lines += breaker.splitIntoLines(caption, TEXT_WALL_WIDTH).size();
+        }
+        assertTrue(lines > 0);
+    }
+
+    private void runReference(String[] captions) {
+        int lines = 0;
+        for (String caption : captions) {
+            lines += referenceSplit(caption, TEXT_WALL_WIDTH).size();
+        }
+        assertTrue(lines > 0);
+    }
+
+    // The splitter as it was, measuring a substring for every probe of the binary search
+    private List<String> referenceSplit(String text, int maxDisplayWidth) {
+        text = text.replace("⬆", "^").replace("⟶", "-");
+        List<String> lines = new ArrayList<>();
+        if (text.isEmpty() || " ".equals(text)) {
+            lines.add(text);
+            return lines;
+        }
+        for (String rawLine : text.split("\n")) {
+            if (rawLine.isEmpty()) {
+                lines.add("");
+                continue;
+            }
+            int lineLength = rawLine.length();
+            int startIndex = 0;
+            while (startIndex < lineLength) {
+                if (substringWidth(rawLine, startIndex, lineLength) <= maxDisplayWidth) {
+                    lines.add(rawLine.substring(startIndex));
+                    break;
+                }
+                int left = startIndex + 1;
+                int right = lineLength;
+                int bestSplitIndex = startIndex + 1;
+                while (left <= right) {
+                    int mid = left + (right - left) / 2;
+                    if (substringWidth(rawLine, startIndex, mid) <= maxDisplayWidth) {
+                        bestSplitIndex = mid;
+                        left = mid + 1;
+                    } else {
+                        right = mid - 1;
+                    }
+                }
+                int splitIndex = bestSplitIndex;
+                for (int i = bestSplitIndex; i > startIndex; i--) {
+                    if (rawLine.charAt(i - 1) == ' ') {
+                        splitIndex = i;
+                        break;
+                    }
+                }
+                lines.add(rawLine.substring(startIndex, splitIndex).trim());
+                while (splitIndex < lineLength && rawLine.charAt(splitIndex) == ' ') {
+                    splitIndex++;
+                }
+                startIndex = splitIndex;
+            }
+        }
+        return lines;
+    }
+
+    private int substringWidth(String text, int start, int end) {
+        int width = 0;
+        for (char c : text.substring(start, end).toCharArray()) {
+            width += (c < widths.length ? widths[c] : 0) + 1;
+        }
+        return width * 2;
+    }
+
+    private static String captionText(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                text.append(random.nextInt(25) == 0 ? "\n" : " ");
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+
+    // The real font's widths, read without org.json since that's only stubbed in unit tests
+    static int[] loadFontWidths() throws IOException {
+        String json = new String(Files.readAllBytes(new File("src/main/assets/g1_fonts.json").toPath()), StandardCharsets.UTF_8);
+        Matcher glyph = Pattern.compile("\"code_point\":\\s*(\\d+).*?\"width\":\\s*(\\d+)", Pattern.DOTALL).matcher(json);
+        int[] widths = new int[0x10000];
+        while (glyph.find()) {
+            int codePoint = Integer.parseInt(glyph.group(1));
+            if (codePoint < widths.length) {
+                widths[codePoint] = Integer.parseInt(glyph.group(2));
+            }
+        }
+        return widths;
+    }
+}
@@ -0,0 +1,160 @@
+package com.augmentos.augmentos_core.smarterglassesmanager.smartglassescommunicators;
+
+import com.augmentos.augmentos_core.benchmark.BenchmarkSupport;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class G1TextDeltaEncoderTest {
+    // What chunkTextPage puts in each 0x4E packet
+    private static final int MAX_CHUNK_SIZE = 176;
+    private static final int HEADER_BYTES = 9;
+    // One write with response per packet, which is how G1SideWriter paces an arm by default
+    private static final int WRITE_ROUND_TRIP_MS = 15;
+    private static final String[] WORDS = {
+            "the", "and", "so", "I", "think", "we", "should", "probably", "meet", "tomorrow", "afternoon",
+            "at", "coffee", "shop", "near", "station", "because", "it's", "quieter", "there", "what",
+            "do", "you", "mean", "exactly", "yeah", "that", "makes", "sense", "München", "café", "okay,",
+    };
+
+    private static byte[] utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void disabledSendsEveryPageInFull() {
+        G1TextDeltaEncoder encoder = new G1TextDeltaEncoder();
+        assertEquals(0, encoder.prepare(G1TextDeltaEncoder.LEFT, utf8("hello")));
+        assertEquals(0, encoder.prepare(G1TextDeltaEncoder.LEFT, utf8("hello")));
+        assertEquals(0, encoder.prepare(G1TextDeltaEncoder.LEFT, utf8("hello there")));
+    }
+
+    @Test
+    public void sendsTheChangedSuffixAndSkipsRepeats() {
+        G1TextDeltaEncoder encoder = new G1TextDeltaEncoder();
+        encoder.setIncrementalEnabled(true);
+        assertEquals(0, encoder.prepare(G1TextDeltaEncoder.LEFT, utf8("hello")));
+        assertEquals(5, encoder.prepare(G1TextDeltaEncoder.LEFT, utf8("hello there")));
+        assertEquals(G1TextDeltaEncoder.SKIP, encoder.prepare(G1TextDeltaEncoder.LEFT, utf8("hello there")));
+        // Each arm is tracked on its own
+        assertEquals(0, encoder.prepare(G1TextDeltaEncoder.RIGHT, utf8("hello there")));
+
+        encoder.invalidate();
+        assertEquals(0, encoder.prepare(G1TextDeltaEncoder.LEFT, utf8("hello there")));
+    }
+
+    @Test
+    public void neverStartsInsideACodePoint() {
+        G1TextDeltaEncoder encoder = new G1TextDeltaEncoder();
+        encoder.setIncrementalEnabled(true);
+        // ü and ö share their first UTF-8 byte
+        byte[] first = utf8("grüße");
+        byte[] second = utf8("größe");
+        encoder.prepare(G1TextDeltaEncoder.LEFT, first);
+        int offset = encoder.prepare(G1TextDeltaEncoder.LEFT, second);
+        assertEquals(2, offset);
+        assertEquals(2, G1TextDeltaEncoder.charIndexOf(second, offset));
+
+        // A shorter page that is a prefix of the last still sends at least one byte
+        offset = encoder.prepare(G1TextDeltaEncoder.LEFT, utf8("grö"));
+        assertTrue(offset < utf8("grö").length);
+    }
+
+    /**
+     * Replays live captions the way the text wall sends them, each interim a word longer than the
+     * last with the odd revised word, and counts what goes over BLE to one arm with and without
+     * incremental pages. Update latency is modelled as packets times {@link #WRITE_ROUND_TRIP_MS}.
+     */
+    @Test
+    public void replayedCaptionsSendFewerBytesAndPackets() throws Exception {
+        int[] widths = G1LineBreakerTest.loadFontWidths();
+        G1LineBreaker breaker = new G1LineBreaker(c -> c < widths.length ? widths[c] : 0);
+        List<byte[]> pages = new ArrayList<>();
+        for (String caption : captionStream(new Random(17), 200)) {
+            pages.add(textWallPage(breaker, caption));
+        }
+
+        Replay full = replay(pages, false);
+        Replay incremental = replay(pages, true);
+
+        BenchmarkSupport.report("g1 text over %d caption updates: full %d B %d packets p50=%dms p90=%dms, "
+                        + "incremental %d B %d packets p50=%dms p90=%dms",
+                pages.size(), full.bytes, full.packets, full.percentileMs(50), full.percentileMs(90),
+                incremental.bytes, incremental.packets, incremental.percentileMs(50), incremental.percentileMs(90));
+
+        assertTrue(incremental.bytes * 2 < full.bytes);
+        assertTrue(incremental.packets < full.packets);
+        assertTrue(incremental.percentileMs(90) <= full.percentileMs(90));
+    }
+
+    private static class Replay {
+        long bytes = 0;
+        long packets = 0;
+        int[] latenciesMs;
+
+        int percentileMs(int percentile) {
+            int[] sorted = latenciesMs.clone();
+            Arrays.sort(sorted);
+            return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)];
+        }
+    }
+
+    private static Replay replay(List<byte[]> pages, boolean incremental) {
+        G1TextDeltaEncoder encoder = new G1TextDeltaEncoder();
+        encoder.setIncrementalEnabled(incremental);
+        Replay replay = new Replay();
+        replay.latenciesMs = new int[pages.size()];
+        for (int i = 0; i < pages.size(); i++) {
+            byte[] page = pages.get(i);
+            int offset = encoder.prepare(G1TextDeltaEncoder.LEFT, page);
+            if (offset == G1TextDeltaEncoder.SKIP) {
+                continue;
+            }
+            int payload = page.length - offset;
+            int packets = (payload + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE;
+            replay.bytes += payload + (long) packets * HEADER_BYTES;
+            replay.packets += packets;
+            replay.latenciesMs[i] = packets * WRITE_ROUND_TRIP_MS;
+        }
+        return replay;
+    }
+
+    // Interims of consecutive utterances, sometimes revising the last word
+    private static List<String> captionStream(Random random, int updates) {
+        List<String> captions = new ArrayList<>();
+        List<String> utterance = new ArrayList<>();
+        int utteranceWords = 8 + random.nextInt(25);
+        while (captions.size() < updates) {
+            if (utterance.size() == utteranceWords) {
+                utterance.clear();
+                utteranceWords = 8 + random.nextInt(25);
+            }
+            if (!utterance.isEmpty() && random.nextInt(5) == 0) {
+                utterance.set(utterance.size() - 1, WORDS[random.nextInt(WORDS.length)]);
+            } else {
+                utterance.add(WORDS[random.nextInt(WORDS.length)]);
+            }
+            captions.add(String.join(" ", utterance));
+        }
+        return captions;
+    }
+
+    // Same layout as EvenRealitiesG1SGC.buildTextWallPage
+    private static byte[] textWallPage(G1LineBreaker breaker, String text) {
+        int margin = 5;
+        int effectiveWidth = 488 - 2 * margin * breaker.textWidth(" ");
+        List<String> lines = breaker.splitIntoLines(text, effectiveWidth);
+        StringBuilder page = new StringBuilder();
+        for (String line : lines.subList(0, Math.min(5, lines.size()))) {
+            page.append("     ").append(line).append("\n");
+        }
+        return utf8(page.toString());
+    }
+}
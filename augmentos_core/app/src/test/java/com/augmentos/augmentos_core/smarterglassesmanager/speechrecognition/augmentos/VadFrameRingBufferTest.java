@@ -0,0 +1,178 @@
+package com.augmentos.augmentos_core.smarterglassesmanager.speechrecognition.augmentos;
+
+import com.augmentos.augmentos_core.benchmark.Benchmark;
+import com.augmentos.augmentos_core.benchmark.BenchmarkSupport;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static org.junit.Assert.*;
+
+public class VadFrameRingBufferTest {
+    private static final int FRAME_SIZE = 512;
+    // 10 seconds of 16 kHz audio, in the 10 ms chunks the mic pipeline hands over
+    private static final int BENCH_SAMPLES = 160_000;
+    private static final int CHUNK_SAMPLES = 160;
+
+    private static long sink;
+
+    @Test
+    public void framesComeOutInWriteOrder() throws Exception {
+        VadFrameRingBuffer buffer = new VadFrameRingBuffer(4096, FRAME_SIZE);
+        short[] frame = new short[FRAME_SIZE];
+        int next = 0;
+        int expected = 0;
+        // Odd chunk sizes so frames straddle writes and the ring wraps
+        for (int round = 0; round < 200; round++) {
+            int samples = 37 + (round * 13) % 300;
+            byte[] chunk = new byte[samples * 2];
+            for (int i = 0; i < samples; i++) {
+                putSample(chunk, i, (short) next++);
+            }
+            assertEquals(samples, buffer.writePcm16le(chunk, 0, chunk.length));
+            while (next - expected >= FRAME_SIZE) {
+                assertTrue(buffer.awaitFrame(frame));
+                for (short sample : frame) {
+                    assertEquals((short) expected++, sample);
+                }
+            }
+        }
+        assertEquals(0, buffer.getDroppedSamples());
+    }
+
+    @Test
+    public void concurrentProducersKeepEveryChunkIntact() throws Exception {
+        int producers = 3;
+        int samplesPerProducer = 8192;
+        VadFrameRingBuffer buffer = new VadFrameRingBuffer(65536, FRAME_SIZE);
+
+        List<short[]> frames = new ArrayList<>();
+        Thread consumer = new Thread(() -> {
+            try {
+                short[] frame = new short[FRAME_SIZE];
+                while (buffer.awaitFrame(frame)) {
+                    frames.add(frame.clone());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        consumer.start();
+
+        List<Thread> writers = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread writer = new Thread(() -> {
+                byte[] chunk = new byte[CHUNK_SAMPLES * 2];
+                for (int written = 0; written < samplesPerProducer; written += CHUNK_SAMPLES) {
+                    int samples = Math.min(CHUNK_SAMPLES, samplesPerProducer - written);
+                    for (int i = 0; i < samples; i++) {
+                        // Producer in the top bits, its own sample counter below
+                        putSample(chunk, i, (short) ((producer << 13) | (written + i)));
+                    }
+                    buffer.writePcm16le(chunk, 0, samples * 2);
+                }
+            });
+            writers.add(writer);
+            writer.start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        buffer.close();
+        consumer.join(5000);
+
+        assertEquals(0, buffer.getDroppedSamples());
+        assertEquals(producers * samplesPerProducer / FRAME_SIZE, frames.size());
+        int[] nextFromProducer = new int[producers];
+        for (short[] frame : frames) {
+            for (short sample : frame) {
+                int producer = sample >> 13;
+                assertEquals(nextFromProducer[producer]++, sample & 0x1FFF);
+            }
+        }
+        for (int count : nextFromProducer) {
+            assertEquals(samplesPerProducer, count);
+        }
+    }
+
+    @Test
+    public void fullRingDropsNewestSamples() {
+        VadFrameRingBuffer buffer = new VadFrameRingBuffer(1024, FRAME_SIZE);
+        byte[] chunk = new byte[600 * 2];
+        assertEquals(600, buffer.writePcm16le(chunk, 0, chunk.length));
+        assertEquals(424, buffer.writePcm16le(chunk, 0, chunk.length));
+        assertEquals(176, buffer.getDroppedSamples());
+    }
+
+    // Allocation and time per second of audio, against the LinkedBlockingQueue<Short> it replaced
+    @Test
+    @Category(Benchmark.class)
+    public void benchmarkAgainstBoxedQueue() throws Exception {
+        byte[] pcm = new byte[BENCH_SAMPLES * 2];
+        for (int i = 0; i < BENCH_SAMPLES; i++) {
+            putSample(pcm, i, (short) (Math.sin(i * 0.05) * 12000));
+        }
+        BenchmarkSupport.warmUp(3, () -> sink += runRing(pcm), () -> sink += runBoxedQueue(pcm));
+        BenchmarkSupport.Measurement ring = BenchmarkSupport.measure(1, () -> sink += runRing(pcm));
+        BenchmarkSupport.Measurement queue = BenchmarkSupport.measure(1, () -> sink += runBoxedQueue(pcm));
+
+        double seconds = BENCH_SAMPLES / 16000.0;
+        int frames = BENCH_SAMPLES / FRAME_SIZE;
+        BenchmarkSupport.report(
+                "vad front end: ring %.0f B/s of audio %d ns/frame, boxed queue %.0f B/s of audio %d ns/frame",
+                ring.allocatedBytes / seconds, ring.nanos / frames, queue.allocatedBytes / seconds, queue.nanos / frames);
+
+        if (ring.hasAllocatedBytes()) {
+            // The ring itself and the frame are allocated up front, nothing per sample
+            assertTrue("ring allocated " + ring.allocatedBytes + " bytes", ring.allocatedBytes < queue.allocatedBytes / 20);
+        }
+    }
+
+    // Returns a checksum of the frames, kept in sink so the work isn't optimised away
+    private static long runRing(byte[] pcm) throws InterruptedException {
+        VadFrameRingBuffer buffer = new VadFrameRingBuffer(16000, FRAME_SIZE);
+        short[] frame = new short[FRAME_SIZE];
+        long buffered = 0;
+        long checksum = 0;
+        for (int offset = 0; offset < pcm.length; offset += CHUNK_SAMPLES * 2) {
+            buffered += buffer.writePcm16le(pcm, offset, CHUNK_SAMPLES * 2);
+            while (buffered >= FRAME_SIZE) {
+                buffer.awaitFrame(frame);
+                checksum += frame[0];
+                buffered -= FRAME_SIZE;
+            }
+        }
+        assertEquals(0, buffer.getDroppedSamples());
+        return checksum;
+    }
+
+    // What ingestAudioChunk and the VAD thread used to do
+    private static long runBoxedQueue(byte[] pcm) {
+        BlockingQueue<Short> queue = new LinkedBlockingQueue<>(16000);
+        short[] frame = new short[FRAME_SIZE];
+        long checksum = 0;
+        for (int offset = 0; offset < pcm.length; offset += CHUNK_SAMPLES * 2) {
+            for (int b = offset; b < offset + CHUNK_SAMPLES * 2; b += 2) {
+                queue.offer((short) ((pcm[b] & 0xFF) | (pcm[b + 1] << 8)));
+            }
+            while (queue.size() >= FRAME_SIZE) {
+                for (int i = 0; i < FRAME_SIZE; i++) {
+                    frame[i] = queue.poll();
+                }
+                checksum += frame[0];
+            }
+        }
+        return checksum;
+    }
+
+    private static void putSample(byte[] pcm, int index, short sample) {
+        pcm[index * 2] = (byte) sample;
+        pcm[index * 2 + 1] = (byte) (sample >> 8);
+    }
+}
@@ -0,0 +1,195 @@
+package com.augmentos.augmentos_core.smarterglassesmanager.speechrecognition.vad;
+
+import com.augmentos.augmentos_core.benchmark.BenchmarkSupport;
+import com.augmentos.augmentos_core.smarterglassesmanager.speechrecognition.augmentos.VadFrameRingBuffer;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Replays PCM through the ring buffer and VAD thread the way SpeechRecAugmentos does, and reports
+ * how long after each speech onset onSpeechStart fires, in audio time.
+ *
+ * By default it replays a generated recording with known onsets. To replay a real one, pass
+ * -PvadReplayPcm=<16 kHz mono s16le file> with a <file>.onsets next to it listing the onset
+ * sample indices, one per line.
+ */
+public class VadOnsetLatencyTest {
+    private static final int SAMPLE_RATE = 16000;
+    private static final int FRAME_SIZE = 512;
+    private static final int CHUNK_SAMPLES = 160;
+    private static final int FRAME_MS = FRAME_SIZE * 1000 / SAMPLE_RATE;
+
+    // Stands in for Silero: frame energy, with the same 300 ms silence debounce core uses
+    private static class EnergyVad extends VadGateSpeechPolicy {
+        private static final double SPEECH_RMS = 1000;
+        private static final int SILENCE_FRAMES = 300 / FRAME_MS;
+        private boolean speech = false;
+        private int quietFrames = 0;
+
+        EnergyVad() {
+            super(null, 300);
+        }
+
+        @Override
+        protected boolean isSpeech(short[] frame) {
+            double sum = 0;
+            for (short sample : frame) {
+                sum += (double) sample * sample;
+            }
+            if (Math.sqrt(sum / frame.length) >= SPEECH_RMS) {
+                speech = true;
+                quietFrames = 0;
+            } else if (speech && ++quietFrames >= SILENCE_FRAMES) {
+                speech = false;
+            }
+            return speech;
+        }
+    }
+
+    @Test
+    public void onsetLatencyIsBoundedByTheFrame() throws Exception {
+        List<Integer> onsets = new ArrayList<>();
+        short[] pcm = loadRecording(onsets);
+
+        VadFrameRingBuffer buffer = new VadFrameRingBuffer(pcm.length + FRAME_SIZE, FRAME_SIZE);
+        EnergyVad vad = new EnergyVad();
+        long[] framesDone = new long[1];
+        List<Long> detectedAtSample = new ArrayList<>();
+        vad.setVadStateListener(new VadStateListener() {
+            @Override
+            public void onSpeechStart() {
+                // Called from inside processAudioFrame, so the current frame counts as done
+                detectedAtSample.add((framesDone[0] + 1) * FRAME_SIZE);
+            }
+
+            @Override
+            public void onSpeechEnd() {
+            }
+        });
+
+        Thread vadThread = new Thread(() -> {
+            short[] frame = new short[FRAME_SIZE];
+            try {
+                while (buffer.awaitFrame(frame)) {
+                    vad.processAudioFrame(frame);
+                    framesDone[0]++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "VadProcessingThread");
+        vadThread.start();
+
+        byte[] chunk = new byte[CHUNK_SAMPLES * 2];
+        for (int offset = 0; offset < pcm.length; offset += CHUNK_SAMPLES) {
+            int samples = Math.min(CHUNK_SAMPLES, pcm.length - offset);
+            for (int i = 0; i < samples; i++) {
+                chunk[i * 2] = (byte) pcm[offset + i];
+                chunk[i * 2 + 1] = (byte) (pcm[offset + i] >> 8);
+            }
+            buffer.writePcm16le(chunk, 0, samples * 2);
+        }
+        buffer.close();
+        vadThread.join(10000);
+
+        assertEquals(0, buffer.getDroppedSamples());
+        assertEquals("onsets detected", onsets.size(), detectedAtSample.size());
+        long[] latenciesMs = new long[onsets.size()];
+        for (int i = 0; i < onsets.size(); i++) {
+            latenciesMs[i] = (detectedAtSample.get(i) - onsets.get(i)) * 1000 / SAMPLE_RATE;
+            assertTrue("detected before the onset", latenciesMs[i] >= 0);
+        }
+        Arrays.sort(latenciesMs);
+        BenchmarkSupport.report("vad onset latency over %d onsets: p50=%dms p90=%dms p99=%dms max=%dms",
+                latenciesMs.length, percentile(latenciesMs, 50), percentile(latenciesMs, 90),
+                percentile(latenciesMs, 99), latenciesMs[latenciesMs.length - 1]);
+
+        // Onset lands somewhere in a frame and the decision is made when the frame is full; an
+        // onset right at the end of a frame may need the next one to cross the threshold
+        assertTrue(latenciesMs[latenciesMs.length - 1] <= 2 * FRAME_MS);
+    }
+
+    @Test
+    public void micOffForcesSilenceOnTheVadThread() {
+        EnergyVad vad = new EnergyVad();
+        int[] ends = new int[1];
+        vad.setVadStateListener(new VadStateListener() {
+            @Override
+            public void onSpeechStart() {
+            }
+
+            @Override
+            public void onSpeechEnd() {
+                ends[0]++;
+            }
+        });
+        short[] loud = new short[FRAME_SIZE];
+        Arrays.fill(loud, (short) 4000);
+        vad.processAudioFrame(loud);
+        assertTrue(vad.shouldPassAudioToRecognizer());
+
+        vad.microphoneStateChanged(false);
+        assertFalse(vad.shouldPassAudioToRecognizer());
+        assertEquals(0, ends[0]);
+
+        vad.processAudioFrame(new short[FRAME_SIZE]);
+        assertEquals(1, ends[0]);
+    }
+
+    private static short[] loadRecording(List<Integer> onsets) throws IOException {
+        String path = System.getProperty("vad.replay.pcm");
+        if (path == null || path.isEmpty()) {
+            return generateRecording(onsets, 60);
+        }
+        byte[] bytes = Files.readAllBytes(new File(path).toPath());
+        short[] pcm = new short[bytes.length / 2];
+        for (int i = 0; i < pcm.length; i++) {
+            pcm[i] = (short) ((bytes[i * 2] & 0xFF) | (bytes[i * 2 + 1] << 8));
+        }
+        for (String line : Files.readAllLines(new File(path + ".onsets").toPath())) {
+            if (!line.trim().isEmpty()) {
+                onsets.add(Integer.parseInt(line.trim()));
+            }
+        }
+        return pcm;
+    }
+
+    // Low noise with voiced bursts at random offsets, seeded so runs compare
+    private static short[] generateRecording(List<Integer> onsets, int seconds) {
+        Random random = new Random(42);
+        short[] pcm = new short[seconds * SAMPLE_RATE];
+        int position = SAMPLE_RATE / 2 + random.nextInt(SAMPLE_RATE);
+        while (true) {
+            int length = SAMPLE_RATE * 2 / 5 + random.nextInt(SAMPLE_RATE * 2);
+            if (position + length >= pcm.length) {
+                break;
+            }
+            onsets.add(position);
+            double pitch = 100 + random.nextInt(150);
+            for (int i = 0; i < length; i++) {
+                double t = (double) i / SAMPLE_RATE;
+                double voice = Math.sin(2 * Math.PI * pitch * t) + 0.5 * Math.sin(4 * Math.PI * pitch * t);
+                pcm[position + i] = (short) (voice * 6000 * (0.7 + 0.3 * Math.sin(2 * Math.PI * 4 * t)));
+            }
+            position += length + SAMPLE_RATE / 2 + random.nextInt(SAMPLE_RATE * 5 / 2);
+        }
+        for (int i = 0; i < pcm.length; i++) {
+            pcm[i] += (short) (random.nextGaussian() * 200);
+        }
+        return pcm;
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * percent / 100)];
+    }
+}
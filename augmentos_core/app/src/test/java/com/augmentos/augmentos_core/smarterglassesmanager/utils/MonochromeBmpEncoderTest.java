@@ -0,0 +1,138 @@
+package com.augmentos.augmentos_core.smarterglassesmanager.utils;
+
+import com.augmentos.augmentos_core.benchmark.Benchmark;
+import com.augmentos.augmentos_core.benchmark.BenchmarkSupport;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class MonochromeBmpEncoderTest {
+    private static final int FRAMES = 200;
+
+    @Test
+    public void matchesTheRowByRowEncoderWithoutDithering() {
+        Random random = new Random(5);
+        MonochromeBmpEncoder encoder = new MonochromeBmpEncoder();
+        int[][] sizes = {{576, 136}, {640, 200}, {33, 7}, {1, 1}};
+        for (int[] size : sizes) {
+            int[] argb = randomImage(random, size[0], size[1]);
+            for (boolean invert : new boolean[]{false, true}) {
+                ByteBuffer out = ByteBuffer.allocate(MonochromeBmpEncoder.encodedSize(size[0], size[1]));
+                int written = encoder.encode(argb, size[0], size[1], invert, MonochromeBmpEncoder.DitherMode.NONE, out);
+                assertEquals(out.capacity(), written);
+                assertArrayEquals(referenceEncode(argb, size[0], size[1], invert), out.array());
+            }
+        }
+    }
+
+    @Test
+    public void ditheringKeepsMidGrayAtHalfCoverage() {
+        int width = 640;
+        int height = 200;
+        int[] gray = new int[width * height];
+        Arrays.fill(gray, 0xFF808080);
+        MonochromeBmpEncoder encoder = new MonochromeBmpEncoder();
+        for (MonochromeBmpEncoder.DitherMode mode : MonochromeBmpEncoder.DitherMode.values()) {
+            ByteBuffer out = ByteBuffer.allocate(MonochromeBmpEncoder.encodedSize(width, height));
+            encoder.encode(gray, width, height, false, mode, out);
+            double dark = darkFraction(out.array(), width, height);
+            if (mode == MonochromeBmpEncoder.DitherMode.NONE) {
+                assertEquals(mode.name(), 0.0, dark, 0.0001);
+            } else {
+                assertEquals(mode.name(), 0.5, dark, 0.05);
+            }
+        }
+    }
+
+    // Frame rate and garbage per frame at the G1's mirror resolutions, into a reused direct buffer
+    @Test
+    @Category(Benchmark.class)
+    public void benchmarkMirrorResolutions() throws Exception {
+        Random random = new Random(9);
+        int[][] sizes = {{576, 136}, {640, 200}};
+        for (int[] size : sizes) {
+            int width = size[0];
+            int height = size[1];
+            int[] argb = randomImage(random, width, height);
+            ByteBuffer out = ByteBuffer.allocateDirect(MonochromeBmpEncoder.encodedSize(width, height));
+            MonochromeBmpEncoder encoder = new MonochromeBmpEncoder();
+
+            for (MonochromeBmpEncoder.DitherMode mode : MonochromeBmpEncoder.DitherMode.values()) {
+                BenchmarkSupport.Work encode = () -> {
+                    out.clear();
+                    encoder.encode(argb, width, height, false, mode, out);
+                };
+                BenchmarkSupport.warmUp(20, encode);
+                BenchmarkSupport.Measurement result = BenchmarkSupport.measure(FRAMES, encode);
+                long ns = result.nanos / FRAMES;
+                long bytes = result.allocatedBytes / FRAMES;
+                BenchmarkSupport.report("bmp %dx%d %s: %d us/frame (%.0f fps) %d B/frame",
+                        width, height, mode, ns / 1000, 1e9 / ns, bytes);
+                if (result.hasAllocatedBytes()) {
+                    assertTrue(mode + " allocated " + bytes + " B/frame", bytes < 256);
+                }
+            }
+
+            BenchmarkSupport.Measurement reference = BenchmarkSupport.measure(FRAMES,
+                    () -> referenceEncode(argb, width, height, false));
+            BenchmarkSupport.report("bmp %dx%d row by row: %d us/frame %d B/frame",
+                    width, height, reference.nanos / FRAMES / 1000, reference.allocatedBytes / FRAMES);
+        }
+    }
+
+    // What BitmapJavaUtils.convertBitmapTo1BitBmpBytes used to do, on pixels instead of a Bitmap
+    private static byte[] referenceEncode(int[] argb, int width, int height, boolean invert) {
+        int rowSizeBytes = ((width + 31) / 32) * 4;
+        int imageSize = rowSizeBytes * height;
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(62 + imageSize);
+        ByteBuffer header = ByteBuffer.allocate(62).order(ByteOrder.LITTLE_ENDIAN);
+        header.put((byte) 'B').put((byte) 'M').putInt(62 + imageSize).putInt(0).putInt(62);
+        header.putInt(40).putInt(width).putInt(height).putShort((short) 1).putShort((short) 1)
+                .putInt(0).putInt(imageSize).putInt(2835).putInt(2835).putInt(2).putInt(0);
+        header.putInt(invert ? 0 : 0x00FFFFFF).putInt(invert ? 0x00FFFFFF : 0);
+        baos.write(header.array(), 0, 62);
+        for (int y = 0; y < height; y++) {
+            int py = height - 1 - y;
+            byte[] packedRow = new byte[rowSizeBytes];
+            for (int x = 0; x < width; x++) {
+                int color = argb[py * width + x];
+                int gray = (((color >> 16) & 0xFF) + ((color >> 8) & 0xFF) + (color & 0xFF)) / 3;
+                packedRow[x / 8] |= (gray < 128 ? 1 : 0) << (7 - x % 8);
+            }
+            baos.write(packedRow, 0, rowSizeBytes);
+        }
+        return baos.toByteArray();
+    }
+
+    private static double darkFraction(byte[] bmp, int width, int height) {
+        int rowSize = MonochromeBmpEncoder.rowSizeBytes(width);
+        int dark = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                dark += (bmp[MonochromeBmpEncoder.HEADER_SIZE + y * rowSize + x / 8] >> (7 - x % 8)) & 1;
+            }
+        }
+        return (double) dark / (width * height);
+    }
+
+    // Blocks of flat color with some noise, roughly what a mirrored UI looks like
+    private static int[] randomImage(Random random, int width, int height) {
+        int[] argb = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int base = ((x / 24 + y / 16) % 3) * 110;
+                int v = Math.max(0, Math.min(255, base + random.nextInt(40) - 20));
+                argb[y * width + x] = 0xFF000000 | (v << 16) | (Math.min(255, v + 10) << 8) | v;
+            }
+        }
+        return argb;
+    }
+}